@@ -16,30 +16,64 @@
 
 package com.google.cloud.tools.appengine;
 
+import com.google.cloud.tools.io.ParsedFileCache;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Path;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import javax.annotation.Nullable;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import org.w3c.dom.DOMException;
-import org.w3c.dom.Document;
-import org.w3c.dom.NamedNodeMap;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import org.xml.sax.SAXException;
 
-/** Utilities to obtain information from appengine-web.xml. */
+/**
+ * Utilities to obtain information from appengine-web.xml. The file is read in a single pass when
+ * it is parsed, and the descriptor is immutable.
+ */
 public class AppEngineDescriptor {
 
   private static final String APP_ENGINE_NAMESPACE = "http://appengine.google.com/ns/1.0";
-  private final Document document;
+  private static final String ROOT = "appengine-web-app";
+  private static final String APPLICATION = "application";
+  private static final String RUNTIME = "runtime";
+  private static final String VERSION = "version";
+  private static final String SERVICE = "service";
+  private static final String MODULE = "module";
+  private static final String ENV_VARIABLES = "env-variables";
+  private static final String ENV_VAR = "env-var";
+
+  private static final XMLInputFactory xmlInputFactory = newXmlInputFactory();
+  private static final ParsedFileCache<AppEngineDescriptor> cache = new ParsedFileCache<>();
+
+  @Nullable private final String projectId;
+  @Nullable private final String runtime;
+  @Nullable private final String projectVersion;
+  @Nullable private final String service;
+  @Nullable private final String module;
+  private final ImmutableMap<String, String> environment;
 
   // private to force use of parse method
-  private AppEngineDescriptor(Document document) {
-    this.document = document;
+  private AppEngineDescriptor(Map<String, String> elements, Map<String, String> environment) {
+    this.projectId = elements.get(APPLICATION);
+    this.runtime = elements.get(RUNTIME);
+    this.projectVersion = elements.get(VERSION);
+    this.service = elements.get(SERVICE);
+    this.module = elements.get(MODULE);
+    this.environment = ImmutableMap.copyOf(environment);
+  }
+
+  private static XMLInputFactory newXmlInputFactory() {
+    XMLInputFactory factory = XMLInputFactory.newInstance();
+    factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+    factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    return factory;
   }
 
   /**
@@ -53,21 +87,125 @@ public class AppEngineDescriptor {
   public static AppEngineDescriptor parse(InputStream in) throws IOException, SAXException {
     Preconditions.checkNotNull(in, "Null input");
     try {
-      DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
-      documentBuilderFactory.setNamespaceAware(true);
-      return new AppEngineDescriptor(documentBuilderFactory.newDocumentBuilder().parse(in));
-    } catch (ParserConfigurationException exception) {
-      throw new SAXException("Cannot parse appengine-web.xml", exception);
+      XMLStreamReader reader = xmlInputFactory.createXMLStreamReader(in);
+      try {
+        return read(reader);
+      } finally {
+        reader.close();
+      }
+    } catch (XMLStreamException ex) {
+      if (ex.getNestedException() instanceof IOException) {
+        throw (IOException) ex.getNestedException();
+      }
+      throw new SAXException("Cannot parse appengine-web.xml: " + ex.getMessage(), ex);
     }
   }
 
+  /**
+   * Parses an appengine-web.xml file, or returns the descriptor parsed from it before if its
+   * modification time, size and file key (e.g. inode) are unchanged. Parsed files are remembered
+   * for the life of the JVM, so every caller shares them.
+   *
+   * @param file the appengine-web.xml file
+   * @throws IOException if the file can't be read
+   * @throws SAXException malformed XML
+   */
+  public static AppEngineDescriptor parse(Path file) throws IOException, SAXException {
+    return cache.get(file, AppEngineDescriptor::parse);
+  }
+
+  /**
+   * Reads the first child element of each known name of the first {@code appengine-web-app}
+   * element in the App Engine namespace. Like the DOM's {@code getTextContent}, the value of an
+   * element is all the text it contains, without comments.
+   */
+  private static AppEngineDescriptor read(XMLStreamReader reader) throws XMLStreamException {
+    Map<String, String> elements = new HashMap<>();
+    Map<String, String> environment = new LinkedHashMap<>();
+    boolean environmentSeen = false;
+    boolean inEnvironment = false;
+    int depth = 0;
+    int rootDepth = -1;
+    @Nullable String element = null;
+    StringBuilder text = new StringBuilder();
+
+    while (reader.hasNext()) {
+      switch (reader.next()) {
+        case XMLStreamConstants.START_ELEMENT:
+          depth++;
+          if (rootDepth < 0) {
+            if (APP_ENGINE_NAMESPACE.equals(reader.getNamespaceURI())
+                && ROOT.equals(reader.getLocalName())) {
+              rootDepth = depth;
+            }
+          } else if (depth == rootDepth + 1) {
+            String name = getNodeName(reader);
+            if (ENV_VARIABLES.equals(name)) {
+              inEnvironment = !environmentSeen;
+              environmentSeen = true;
+            } else if (isKnownElement(name) && !elements.containsKey(name)) {
+              element = name;
+              text.setLength(0);
+            }
+          } else if (depth == rootDepth + 2
+              && inEnvironment
+              && ENV_VAR.equals(getNodeName(reader))) {
+            String key = reader.getAttributeValue(null, "name");
+            if (key != null) {
+              String value = reader.getAttributeValue(null, "value");
+              environment.put(key, value != null ? value : "");
+            }
+          }
+          break;
+        case XMLStreamConstants.CHARACTERS:
+        case XMLStreamConstants.CDATA:
+        case XMLStreamConstants.SPACE:
+          if (element != null) {
+            text.append(reader.getText());
+          }
+          break;
+        case XMLStreamConstants.END_ELEMENT:
+          if (depth == rootDepth + 1) {
+            if (element != null) {
+              elements.put(element, text.toString());
+              element = null;
+            }
+            inEnvironment = false;
+          } else if (depth == rootDepth) {
+            return new AppEngineDescriptor(elements, environment);
+          }
+          depth--;
+          break;
+        default:
+          break;
+      }
+    }
+    return new AppEngineDescriptor(elements, environment);
+  }
+
+  /** The qualified name of the current element, like the DOM's {@code getNodeName}. */
+  private static String getNodeName(XMLStreamReader reader) {
+    String prefix = reader.getPrefix();
+    return prefix == null || prefix.isEmpty()
+        ? reader.getLocalName()
+        : prefix + ":" + reader.getLocalName();
+  }
+
+  private static boolean isKnownElement(String name) {
+    return APPLICATION.equals(name)
+        || RUNTIME.equals(name)
+        || VERSION.equals(name)
+        || SERVICE.equals(name)
+        || MODULE.equals(name);
+  }
+
   /**
    * Returns project ID from the &lt;application&gt; element of the appengine-web.xml or null if it
    * is missing.
    */
   @Nullable
   public String getProjectId() throws AppEngineException {
-    return getText(getNode(document, "appengine-web-app", "application"));
+    return projectId;
   }
 
   /**
@@ -75,9 +213,8 @@ public class AppEngineDescriptor {
    * when it is missing.
    */
   public String getRuntime() throws AppEngineException {
-    String runtime = getText(getNode(document, "appengine-web-app", "runtime"));
     if (runtime == null) {
-      runtime = "java7"; // the default runtime when not specified.
+      return "java7"; // the default runtime when not specified.
     }
     return runtime;
   }
@@ -88,7 +225,7 @@ public class AppEngineDescriptor {
    */
   @Nullable
   public String getProjectVersion() throws AppEngineException {
-    return getText(getNode(document, "appengine-web-app", "version"));
+    return projectVersion;
   }
 
   /**
@@ -97,11 +234,10 @@ public class AppEngineDescriptor {
    */
   @Nullable
   public String getServiceId() throws AppEngineException {
-    String serviceId = getText(getNode(document, "appengine-web-app", "service"));
-    if (serviceId != null) {
-      return serviceId;
+    if (service != null) {
+      return service;
     }
-    return getText(getNode(document, "appengine-web-app", "module"));
+    return module;
   }
 
   /** Returns true if the runtime read from appengine-web.xml is Java8. */
@@ -132,72 +268,6 @@ public class AppEngineDescriptor {
    * @return a map representing the environment variable settings in the appengine-web.xml
    */
   public Map<String, String> getEnvironment() throws AppEngineException {
-    Node environmentParentNode = getNode(document, "appengine-web-app", "env-variables");
-    if (environmentParentNode != null) {
-      return getAttributeMap(environmentParentNode, "env-var", "name", "value");
-    }
-    return new HashMap<>();
-  }
-
-  @Nullable
-  private static String getText(@Nullable Node node) throws AppEngineException {
-    if (node != null) {
-      try {
-        return node.getTextContent();
-      } catch (DOMException ex) {
-        throw new AppEngineException(
-            "Failed to parse text content from node " + node.getNodeName(), ex);
-      }
-    }
-
-    return null;
-  }
-
-  /** Returns a map formed from the attributes of the nodes contained within the parent node. */
-  private static Map<String, String> getAttributeMap(
-      Node parent, String nodeName, String keyAttributeName, String valueAttributeName)
-      throws AppEngineException {
-
-    Map<String, String> nameValueAttributeMap = new HashMap<>();
-    if (parent.hasChildNodes()) {
-      for (int i = 0; i < parent.getChildNodes().getLength(); i++) {
-        Node child = parent.getChildNodes().item(i);
-        NamedNodeMap attributeMap = child.getAttributes();
-
-        if (nodeName.equals(child.getNodeName()) && attributeMap != null) {
-          Node keyNode = attributeMap.getNamedItem(keyAttributeName);
-
-          if (keyNode != null) {
-            Node valueNode = attributeMap.getNamedItem(valueAttributeName);
-            try {
-              nameValueAttributeMap.put(keyNode.getTextContent(), valueNode.getTextContent());
-            } catch (DOMException ex) {
-              throw new AppEngineException(
-                  "Failed to parse value from attribute node " + keyNode.getNodeName(), ex);
-            }
-          }
-        }
-      }
-    }
-
-    return nameValueAttributeMap;
-  }
-
-  /** Returns the first node found matching the given name contained within the parent node. */
-  @Nullable
-  private static Node getNode(Document doc, String parentNodeName, String targetNodeName) {
-    NodeList parentElements = doc.getElementsByTagNameNS(APP_ENGINE_NAMESPACE, parentNodeName);
-    if (parentElements.getLength() > 0) {
-      Node parent = parentElements.item(0);
-      if (parent.hasChildNodes()) {
-        for (int i = 0; i < parent.getChildNodes().getLength(); i++) {
-          Node child = parent.getChildNodes().item(i);
-          if (child.getNodeName().equals(targetNodeName)) {
-            return child;
-          }
-        }
-      }
-    }
-    return null;
+    return new HashMap<>(environment);
   }
 }
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2026 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.appengine.configuration;
+
+import com.google.cloud.tools.appengine.operations.Deployment;
+import com.google.cloud.tools.appengine.operations.cloudsdk.process.ProcessHandlerFactory;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import java.util.List;
+
+/**
+ * Configuration for {@link Deployment#deploy(DeployPlan, ProcessHandlerFactory)}: several services
+ * and project-level configuration files deployed together.
+ *
+ * <p>Services are deployed concurrently, up to the parallelism. The configuration files of a
+ * project are deployed after all services of that project have been deployed, as they may refer
+ * to them, and are skipped if one of those deployments failed. Services and files without a
+ * project id belong to the project configured in gcloud.
+ */
+public class DeployPlan {
+
+  /** The project-level yaml files that can be deployed. */
+  public enum ConfigFile {
+    CRON("cron.yaml"),
+    DISPATCH("dispatch.yaml"),
+    DOS("dos.yaml"),
+    INDEX("index.yaml"),
+    QUEUE("queue.yaml");
+
+    private final String fileName;
+
+    ConfigFile(String fileName) {
+      this.fileName = fileName;
+    }
+
+    public String getFileName() {
+      return fileName;
+    }
+  }
+
+  /** A configuration file to deploy, with its deployment configuration. */
+  public static class ConfigFileDeployment {
+    private final ConfigFile configFile;
+    private final DeployProjectConfigurationConfiguration configuration;
+
+    private ConfigFileDeployment(
+        ConfigFile configFile, DeployProjectConfigurationConfiguration configuration) {
+      this.configFile = configFile;
+      this.configuration = configuration;
+    }
+
+    public ConfigFile getConfigFile() {
+      return configFile;
+    }
+
+    public DeployProjectConfigurationConfiguration getConfiguration() {
+      return configuration;
+    }
+  }
+
+  private final List<DeployConfiguration> services;
+  private final List<ConfigFileDeployment> configFiles;
+  private final int parallelism;
+
+  private DeployPlan(
+      List<DeployConfiguration> services, List<ConfigFileDeployment> configFiles, int parallelism) {
+    this.services = services;
+    this.configFiles = configFiles;
+    this.parallelism = parallelism;
+  }
+
+  /** Service deployments, each run as a separate gcloud app deploy. */
+  public List<DeployConfiguration> getServices() {
+    return services;
+  }
+
+  /** Configuration file deployments. */
+  public List<ConfigFileDeployment> getConfigFiles() {
+    return configFiles;
+  }
+
+  /** Maximum number of deployments running at the same time. */
+  public int getParallelism() {
+    return parallelism;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public static final class Builder {
+    private final ImmutableList.Builder<DeployConfiguration> services = ImmutableList.builder();
+    private final ImmutableList.Builder<ConfigFileDeployment> configFiles =
+        ImmutableList.builder();
+    private int parallelism = GcloudParallelism.DEFAULT;
+
+    private Builder() {}
+
+    public DeployPlan.Builder addService(DeployConfiguration service) {
+      services.add(Preconditions.checkNotNull(service));
+      return this;
+    }
+
+    public DeployPlan.Builder addConfigFile(
+        ConfigFile configFile, DeployProjectConfigurationConfiguration configuration) {
+      configFiles.add(
+          new ConfigFileDeployment(
+              Preconditions.checkNotNull(configFile), Preconditions.checkNotNull(configuration)));
+      return this;
+    }
+
+    /** Maximum number of deployments running at the same time, 4 by default. */
+    public DeployPlan.Builder parallelism(int parallelism) {
+      this.parallelism = GcloudParallelism.check(parallelism);
+      return this;
+    }
+
+    /** Build a {@link DeployPlan}. */
+    public DeployPlan build() {
+      return new DeployPlan(services.build(), configFiles.build(), parallelism);
+    }
+  }
+}
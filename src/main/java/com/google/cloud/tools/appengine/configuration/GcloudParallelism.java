@@ -0,0 +1,37 @@
+/*
+ * Copyright 2026 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.appengine.configuration;
+
+import com.google.common.base.Preconditions;
+
+/** The number of gcloud invocations a batch configuration runs at the same time. */
+final class GcloudParallelism {
+
+  /**
+   * Most of an invocation is spent waiting for App Engine, a few at a time overlap that wait
+   * without running into the API's rate limits.
+   */
+  static final int DEFAULT = 4;
+
+  private GcloudParallelism() {}
+
+  /** Returns {@code parallelism} if it is positive. */
+  static int check(int parallelism) {
+    Preconditions.checkArgument(parallelism > 0, "parallelism must be positive");
+    return parallelism;
+  }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2026 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.appengine.configuration;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import javax.annotation.Nullable;
+
+/**
+ * Configuration for the batch variants of {@link
+ * com.google.cloud.tools.appengine.operations.Versions} start, stop and delete: versions of many
+ * services, possibly in several projects.
+ *
+ * <p>gcloud selects versions of a single service per invocation, so versions are grouped into one
+ * {@link VersionsSelectionConfiguration} per project and service. Groups run concurrently, up to
+ * the parallelism.
+ */
+public class VersionsBatchConfiguration {
+
+  private final List<VersionsSelectionConfiguration> groups;
+  private final int parallelism;
+
+  private VersionsBatchConfiguration(List<VersionsSelectionConfiguration> groups, int parallelism) {
+    this.groups = groups;
+    this.parallelism = parallelism;
+  }
+
+  /** One selection per project and service, in the order they were first added. */
+  public List<VersionsSelectionConfiguration> getGroups() {
+    return groups;
+  }
+
+  /** Maximum number of gcloud invocations running at the same time. */
+  public int getParallelism() {
+    return parallelism;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public static final class Builder {
+    private final Map<ServiceKey, Set<String>> versions = new LinkedHashMap<>();
+    private int parallelism = GcloudParallelism.DEFAULT;
+
+    private Builder() {}
+
+    /** Add versions of {@code service} in the default project. */
+    public Builder addVersions(String service, Collection<String> versions) {
+      return addVersions(null, service, versions);
+    }
+
+    /** Add versions of {@code service} in {@code projectId}, or the default project if null. */
+    public Builder addVersions(
+        @Nullable String projectId, String service, Collection<String> versions) {
+      Preconditions.checkNotNull(service);
+      Preconditions.checkNotNull(versions);
+      Preconditions.checkArgument(!versions.isEmpty(), "no versions for service " + service);
+      this.versions
+          .computeIfAbsent(new ServiceKey(projectId, service), key -> new LinkedHashSet<>())
+          .addAll(versions);
+      return this;
+    }
+
+    /** Add the versions of every service in {@code versionsByService}. */
+    public Builder addVersions(
+        @Nullable String projectId, Map<String, ? extends Collection<String>> versionsByService) {
+      Preconditions.checkNotNull(versionsByService);
+      versionsByService.forEach((service, versions) -> addVersions(projectId, service, versions));
+      return this;
+    }
+
+    /** Maximum number of gcloud invocations running at the same time, 4 by default. */
+    public Builder parallelism(int parallelism) {
+      this.parallelism = GcloudParallelism.check(parallelism);
+      return this;
+    }
+
+    /** Build a {@link VersionsBatchConfiguration}. */
+    public VersionsBatchConfiguration build() {
+      ImmutableList.Builder<VersionsSelectionConfiguration> groups = ImmutableList.builder();
+      versions.forEach(
+          (key, serviceVersions) ->
+              groups.add(
+                  VersionsSelectionConfiguration.builder(
+                          ImmutableList.copyOf(serviceVersions))
+                      .service(key.service)
+                      .projectId(key.projectId)
+                      .build()));
+      return new VersionsBatchConfiguration(groups.build(), parallelism);
+    }
+  }
+
+  private static final class ServiceKey {
+    @Nullable private final String projectId;
+    private final String service;
+
+    private ServiceKey(@Nullable String projectId, String service) {
+      this.projectId = projectId;
+      this.service = service;
+    }
+
+    @Override
+    public boolean equals(@Nullable Object other) {
+      if (!(other instanceof ServiceKey)) {
+        return false;
+      }
+      ServiceKey that = (ServiceKey) other;
+      return Objects.equals(projectId, that.projectId) && service.equals(that.service);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(projectId, service);
+    }
+  }
+}
@@ -20,7 +20,9 @@ import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
 
 import com.google.cloud.tools.appengine.AppEngineException;
 import com.google.cloud.tools.appengine.configuration.AppYamlProjectStageConfiguration;
+import com.google.cloud.tools.io.DirectoryCopier;
 import com.google.cloud.tools.io.FileUtil;
+import com.google.cloud.tools.io.LinkStrategy;
 import com.google.cloud.tools.project.AppYaml;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
@@ -28,10 +30,11 @@ import com.google.common.base.Splitter;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
 import java.io.IOException;
-import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Supplier;
 import java.util.jar.Attributes;
 import java.util.jar.JarFile;
 import java.util.logging.Logger;
@@ -48,6 +51,44 @@ public class AppYamlProjectStaging {
   static final ImmutableList<String> OTHER_YAMLS =
       ImmutableList.of("cron.yaml", "dos.yaml", "dispatch.yaml", "index.yaml", "queue.yaml");
 
+  private final LinkStrategy linkStrategy;
+  private final int copyParallelism;
+  private final Supplier<CopyService> copyServiceFactory;
+
+  public AppYamlProjectStaging() {
+    this(LinkStrategy.COPY);
+  }
+
+  /**
+   * Create a stager that puts files in the staging directory with {@code linkStrategy}. Staged
+   * files stay independent of later modifications of their sources with every strategy, see
+   * {@link LinkStrategy}.
+   */
+  public AppYamlProjectStaging(LinkStrategy linkStrategy) {
+    this(linkStrategy, 1);
+  }
+
+  /**
+   * Create a stager that puts files in the staging directory with {@code linkStrategy}, and copies
+   * directories like extra files and the Docker directory with up to {@code copyParallelism}
+   * threads. More threads only pay off for directories with many small files on storage that
+   * serves concurrent requests well, like SSDs.
+   */
+  public AppYamlProjectStaging(LinkStrategy linkStrategy, int copyParallelism) {
+    this(
+        Preconditions.checkNotNull(linkStrategy),
+        copyParallelism,
+        () -> new CopyService(linkStrategy, copyParallelism));
+    Preconditions.checkArgument(copyParallelism > 0, "copyParallelism must be positive");
+  }
+
+  private AppYamlProjectStaging(
+      LinkStrategy linkStrategy, int copyParallelism, Supplier<CopyService> copyServiceFactory) {
+    this.linkStrategy = linkStrategy;
+    this.copyParallelism = copyParallelism;
+    this.copyServiceFactory = copyServiceFactory;
+  }
+
   /**
    * Stages an app.yaml based App Engine project for deployment. Copies app.yaml, the project
    * artifact and any user defined extra files. Will also copy the Docker directory for flex
@@ -70,8 +111,9 @@ public class AppYamlProjectStaging {
     }
 
     try {
-      String env = findEnv(config);
-      String runtime = findRuntime(config);
+      AppYaml appYaml = readAppYaml(config);
+      String env = appYaml.getEnvironmentType();
+      String runtime = appYaml.getRuntime();
       if ("flex".equals(env)) {
         stageFlexibleArchive(config, runtime);
         return;
@@ -82,7 +124,7 @@ public class AppYamlProjectStaging {
           stageStandardArchive(config);
           return;
         }
-        if (hasCustomEntrypoint(config)) {
+        if (appYaml.getEntrypoint() != null) {
           stageStandardBinary(config);
           return;
         }
@@ -102,10 +144,40 @@ public class AppYamlProjectStaging {
     }
   }
 
+  /**
+   * Stages an app.yaml based App Engine project like {@link #stageArchive}, but only copies the
+   * files that changed since the previous call with the same {@code manifest}, and deletes the
+   * files that call staged that are no longer part of the project. Files are compared by size,
+   * modification time and, if only the modification time changed, SHA-256 hash.
+   *
+   * @param config Specifies artifacts and staging destination
+   * @param manifest where the files staged by the previous call are recorded, and the files staged
+   *     by this call will be; keep it outside of the staging directory, so that it isn't deployed
+   * @return the files that were added, updated, left unchanged and deleted
+   * @throws AppEngineException When staging fails
+   */
+  public IncrementalStagingResult stageArchiveIncrementally(
+      AppYamlProjectStageConfiguration config, Path manifest) throws AppEngineException {
+    Preconditions.checkNotNull(config);
+    Preconditions.checkNotNull(manifest);
+    IncrementalCopyService copyService =
+        IncrementalCopyService.load(
+            manifest, config.getStagingDirectory(), linkStrategy, copyParallelism);
+    new AppYamlProjectStaging(linkStrategy, copyParallelism, () -> copyService)
+        .stageArchive(config);
+    try {
+      IncrementalStagingResult result = copyService.finish();
+      log.fine("Staged " + config.getStagingDirectory() + ": " + result);
+      return result;
+    } catch (IOException ex) {
+      throw new AppEngineException(ex);
+    }
+  }
+
   @VisibleForTesting
   void stageFlexibleArchive(AppYamlProjectStageConfiguration config, @Nullable String runtime)
       throws IOException, AppEngineException {
-    CopyService copyService = new CopyService();
+    CopyService copyService = copyServiceFactory.get();
     copyDockerContext(config, copyService, runtime);
     copyExtraFiles(config, copyService);
     copyAppEngineContext(config, copyService);
@@ -115,7 +187,7 @@ public class AppYamlProjectStaging {
   @VisibleForTesting
   void stageStandardArchive(AppYamlProjectStageConfiguration config)
       throws IOException, AppEngineException {
-    CopyService copyService = new CopyService();
+    CopyService copyService = copyServiceFactory.get();
     copyExtraFiles(config, copyService);
     copyAppEngineContext(config, copyService);
     copyArtifact(config, copyService);
@@ -125,39 +197,21 @@ public class AppYamlProjectStaging {
   @VisibleForTesting
   void stageStandardBinary(AppYamlProjectStageConfiguration config)
       throws IOException, AppEngineException {
-    CopyService copyService = new CopyService();
+    CopyService copyService = copyServiceFactory.get();
     copyExtraFiles(config, copyService);
     copyAppEngineContext(config, copyService);
     copyArtifact(config, copyService);
   }
 
+  /** Parse app.yaml once per staging run; unchanged files are not parsed again. */
   @VisibleForTesting
-  @Nullable
-  static String findEnv(AppYamlProjectStageConfiguration config)
+  static AppYaml readAppYaml(AppYamlProjectStageConfiguration config)
       throws AppEngineException, IOException {
     Path appEngineDirectory = config.getAppEngineDirectory();
     if (appEngineDirectory == null) {
       throw new AppEngineException("Invalid Staging Configuration: missing App Engine directory");
     }
-    Path appYaml = appEngineDirectory.resolve(APP_YAML);
-    try (InputStream input = Files.newInputStream(appYaml)) {
-      return AppYaml.parse(input).getEnvironmentType();
-    }
-  }
-
-  @VisibleForTesting
-  @Nullable
-  static String findRuntime(AppYamlProjectStageConfiguration config)
-      throws IOException, AppEngineException {
-    // verify that app.yaml that contains runtime:java
-    Path appEngineDirectory = config.getAppEngineDirectory();
-    if (appEngineDirectory == null) {
-      throw new AppEngineException("Invalid Staging Configuration: missing App Engine directory");
-    }
-    Path appYaml = appEngineDirectory.resolve(APP_YAML);
-    try (InputStream input = Files.newInputStream(appYaml)) {
-      return AppYaml.parse(input).getRuntime();
-    }
+    return AppYaml.parse(appEngineDirectory.resolve(APP_YAML));
   }
 
   @VisibleForTesting
@@ -271,34 +325,43 @@ public class AppYamlProjectStaging {
   }
 
   @VisibleForTesting
-  // for non jar artifacts we want to ensure the entrypoint is custom
-  static boolean hasCustomEntrypoint(AppYamlProjectStageConfiguration config)
-      throws IOException, AppEngineException {
-    // verify that app.yaml that contains entrypoint:
-    if (config.getAppEngineDirectory() == null) {
-      throw new AppEngineException("Invalid Staging Configuration: missing App Engine directory");
+  static class CopyService {
+    final LinkStrategy linkStrategy;
+    final int parallelism;
+
+    CopyService() {
+      this(LinkStrategy.COPY);
     }
-    Path appYamlFile = config.getAppEngineDirectory().resolve(APP_YAML);
-    try (InputStream input = Files.newInputStream(appYamlFile)) {
-      return AppYaml.parse(input).getEntrypoint() != null;
+
+    CopyService(LinkStrategy linkStrategy) {
+      this(linkStrategy, 1);
+    }
+
+    CopyService(LinkStrategy linkStrategy, int parallelism) {
+      this.linkStrategy = linkStrategy;
+      this.parallelism = parallelism;
     }
-  }
 
-  @VisibleForTesting
-  static class CopyService {
     void copyDirectory(Path src, Path dest, List<Path> excludes) throws IOException {
-      FileUtil.copyDirectory(src, dest, excludes);
+      DirectoryCopier.Statistics statistics =
+          DirectoryCopier.builder()
+              .excludes(excludes)
+              .linkStrategy(linkStrategy)
+              .parallelism(parallelism)
+              .build()
+              .copy(src, dest);
+      log.fine("Copied " + statistics + " from " + src);
     }
 
     void copyDirectory(Path src, Path dest) throws IOException {
-      FileUtil.copyDirectory(src, dest);
+      copyDirectory(src, dest, Collections.emptyList());
     }
 
     void copyFileAndReplace(Path src, Path dest) throws IOException {
       if (!Files.exists(dest.getParent())) {
         Files.createDirectories(dest.getParent());
       }
-      Files.copy(src, dest, REPLACE_EXISTING);
+      FileUtil.copyFile(src, dest, linkStrategy, REPLACE_EXISTING);
     }
   }
 }
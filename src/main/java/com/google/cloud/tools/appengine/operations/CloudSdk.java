@@ -28,6 +28,7 @@ import com.google.cloud.tools.appengine.operations.cloudsdk.PathResolver;
 import com.google.cloud.tools.appengine.operations.cloudsdk.serialization.CloudSdkVersion;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Ticker;
 import com.google.common.collect.Lists;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
@@ -35,6 +36,7 @@ import java.nio.file.Files;
 import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -62,13 +64,18 @@ public class CloudSdk {
   private static final String WINDOWS_BUNDLED_PYTHON = "platform/bundledpython/python.exe";
   private static final String VERSION_FILE_NAME = "VERSION";
 
+  /** How long a successful validation is trusted when none of the files it checks changed. */
+  public static final Duration DEFAULT_VALIDATION_CACHE_TTL = Duration.ofMinutes(1);
+
   private final Map<String, Path> jarLocations = new HashMap<>();
   private final Path sdkPath;
   private final Path javaHomePath;
+  private final ValidationCache validationCache;
 
-  private CloudSdk(Path sdkPath, Path javaHomePath) {
+  private CloudSdk(Path sdkPath, Path javaHomePath, ValidationCache validationCache) {
     this.sdkPath = Preconditions.checkNotNull(sdkPath);
     this.javaHomePath = javaHomePath;
+    this.validationCache = validationCache;
 
     // Populate jar locations.
     jarLocations.put(
@@ -178,7 +185,8 @@ public class CloudSdk {
   }
 
   /**
-   * Checks whether the Cloud SDK path and version are valid.
+   * Checks whether the Cloud SDK path and version are valid. Like the other validations, a success
+   * is remembered until the checked files change or the validation cache time to live expires.
    *
    * @throws CloudSdkNotFoundException when Cloud SDK is not installed where expected
    * @throws CloudSdkOutOfDateException when Cloud SDK is out of date
@@ -192,6 +200,10 @@ public class CloudSdk {
 
   private void validateCloudSdkVersion()
       throws CloudSdkOutOfDateException, CloudSdkVersionFileException {
+    String fingerprint = validationCache.fingerprint(getPath().resolve(VERSION_FILE_NAME));
+    if (validationCache.isValid("version", fingerprint)) {
+      return;
+    }
     try {
       CloudSdkVersion version = getVersion();
       if (version.compareTo(MINIMUM_VERSION) < 0) {
@@ -203,9 +215,15 @@ public class CloudSdk {
       // this is likely a version of the Cloud SDK prior to when VERSION files were introduced
       throw new CloudSdkOutOfDateException(MINIMUM_VERSION);
     }
+    validationCache.markValid("version", fingerprint);
   }
 
   void validateCloudSdkLocation() throws CloudSdkNotFoundException {
+    // gcloud and dev_appserver.py being added or removed changes the bin directory
+    String fingerprint = validationCache.fingerprint(getGCloudPath().getParent());
+    if (validationCache.isValid("location", fingerprint)) {
+      return;
+    }
     if (!Files.isDirectory(sdkPath)) {
       throw new CloudSdkNotFoundException(
           "Validation Error: SDK location '" + sdkPath + "' is not a directory.");
@@ -220,6 +238,7 @@ public class CloudSdk {
               + getDevAppServerPath()
               + "' is not a file.");
     }
+    validationCache.markValid("location", fingerprint);
   }
 
   /**
@@ -228,10 +247,15 @@ public class CloudSdk {
    * @see #getJavaHomePath()
    */
   public void validateJdk() throws InvalidJavaSdkException {
+    String fingerprint = validationCache.fingerprint(getJavaExecutablePath().getParent());
+    if (validationCache.isValid("jdk", fingerprint)) {
+      return;
+    }
     if (!Files.exists(getJavaExecutablePath())) {
       throw new InvalidJavaSdkException(
           "Invalid Java SDK. " + getJavaExecutablePath().toString() + " does not exist.");
     }
+    validationCache.markValid("jdk", fingerprint);
   }
 
   /**
@@ -243,6 +267,11 @@ public class CloudSdk {
    */
   public void validateAppEngineJavaComponents()
       throws AppEngineJavaComponentsNotInstalledException {
+    // the tools jar lives in this directory
+    String fingerprint = validationCache.fingerprint(getAppEngineSdkForJavaPath());
+    if (validationCache.isValid("appengine-java", fingerprint)) {
+      return;
+    }
     if (!Files.isDirectory(getAppEngineSdkForJavaPath())) {
       throw new AppEngineJavaComponentsNotInstalledException(
           "Validation Error: Java App Engine components not installed."
@@ -254,6 +283,12 @@ public class CloudSdk {
               + jarLocations.get(JAVA_TOOLS_JAR)
               + "' is not a file.");
     }
+    validationCache.markValid("appengine-java", fingerprint);
+  }
+
+  /** Forget all successful validations, so that the next ones check the file system again. */
+  public void invalidateValidationCache() {
+    validationCache.invalidateAll();
   }
 
   /** Locates appengine-tools-api.jar. */
@@ -269,6 +304,8 @@ public class CloudSdk {
     @Nullable private Path sdkPath;
     @Nullable private List<CloudSdkResolver> resolvers;
     private Path javaHomePath = Paths.get(System.getProperty("java.home"));
+    private Duration validationCacheTtl = DEFAULT_VALIDATION_CACHE_TTL;
+    private Ticker ticker = Ticker.systemTicker();
 
     /**
      * The home directory of Google Cloud SDK.
@@ -289,6 +326,23 @@ public class CloudSdk {
       return this;
     }
 
+    /**
+     * Sets how long successful validations are remembered, when none of the files they check
+     * changed. {@link Duration#ZERO} validates on every call. Defaults to {@link
+     * #DEFAULT_VALIDATION_CACHE_TTL}.
+     */
+    public Builder validationCacheTtl(Duration validationCacheTtl) {
+      Preconditions.checkArgument(!validationCacheTtl.isNegative(), "negative ttl");
+      this.validationCacheTtl = validationCacheTtl;
+      return this;
+    }
+
+    @VisibleForTesting
+    Builder ticker(Ticker ticker) {
+      this.ticker = ticker;
+      return this;
+    }
+
     /**
      * Create a new instance of {@link CloudSdk}. If {@code sdkPath} is not set, this method looks
      * for the SDK in known install locations.
@@ -300,35 +354,19 @@ public class CloudSdk {
         sdkPath = discoverSdkPath();
       }
 
-      return new CloudSdk(sdkPath, javaHomePath);
+      return new CloudSdk(sdkPath, javaHomePath, new ValidationCache(validationCacheTtl, ticker));
     }
 
     /**
-     * Attempt to find the Google Cloud SDK in various places.
+     * Attempt to find the Google Cloud SDK in various places. The path found by the built-in
+     * resolver is cached, see {@link CloudSdkDiscovery}.
      *
      * @return the path to the root of the Google Cloud SDK
      * @throws CloudSdkNotFoundException if not found
      */
     @Nonnull
     private Path discoverSdkPath() throws CloudSdkNotFoundException {
-      for (CloudSdkResolver resolver : getResolvers()) {
-        try {
-          Path discoveredSdkPath = resolver.getCloudSdkPath();
-          if (discoveredSdkPath != null) {
-            return discoveredSdkPath;
-          }
-        } catch (RuntimeException ex) {
-          // prevent interference from exceptions in other resolvers
-          logger.log(
-              Level.SEVERE,
-              resolver.getClass().getName()
-                  + ": exception thrown when searching for Google Cloud SDK",
-              ex);
-        }
-      }
-      throw new CloudSdkNotFoundException(
-          "The Google Cloud SDK could not be found in the customary"
-              + " locations and no path was provided.");
+      return CloudSdkDiscovery.discover(getResolvers());
     }
 
     /** Return the configured SDK resolvers. */
@@ -342,8 +380,10 @@ public class CloudSdk {
         ServiceLoader<CloudSdkResolver> services =
             ServiceLoader.load(CloudSdkResolver.class, getClass().getClassLoader());
         resolvers = Lists.newArrayList(services);
-        // Explicitly add the PATH-based resolver
-        resolvers.add(new PathResolver());
+        // Explicitly add the PATH-based resolver, the only one whose result can be cached
+        resolvers.add(
+            CloudSdkDiscovery.DEFAULT.cached(
+                new PathResolver(), CloudSdkDiscovery.getEnvironment()));
       }
       resolvers.sort(new ResolverComparator());
       return resolvers;
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2026 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.appengine.operations;
+
+import com.google.cloud.tools.appengine.operations.cloudsdk.CloudSdkNotFoundException;
+import com.google.cloud.tools.appengine.operations.cloudsdk.CloudSdkResolver;
+import com.google.cloud.tools.appengine.operations.cloudsdk.PathResolver;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Nullable;
+
+/**
+ * Finds the Cloud SDK with a list of {@link CloudSdkResolver}s. All resolvers are probed at the
+ * same time and the path of the lowest ranked resolver that found one wins.
+ *
+ * <p>The built-in resolvers only depend on environment variables and the file system, so the path
+ * they find can be remembered for the life of the JVM with {@link #cached}, as long as those
+ * variables and the modification time of the directory found stay the same. Resolvers loaded with
+ * {@link java.util.ServiceLoader} may depend on anything, like IDE preferences, and are probed
+ * every time.
+ */
+class CloudSdkDiscovery {
+
+  private static final Logger logger = Logger.getLogger(CloudSdkDiscovery.class.getName());
+
+  static final CloudSdkDiscovery DEFAULT = new CloudSdkDiscovery();
+
+  private static final ExecutorService executor =
+      Executors.newCachedThreadPool(
+          new ThreadFactoryBuilder()
+              .setNameFormat("cloud-sdk-resolver-%d")
+              .setDaemon(true)
+              .build());
+
+  private final Map<Class<?>, Discovered> discovered = new ConcurrentHashMap<>();
+
+  /**
+   * Returns a resolver with the rank of {@code resolver} that remembers the path {@code resolver}
+   * found while {@code environment} and the modification time of that path stay the same. Only
+   * wrap resolvers that depend on nothing else, like {@link PathResolver}.
+   *
+   * @param environment the environment {@code resolver} depends on
+   */
+  CloudSdkResolver cached(CloudSdkResolver resolver, String environment) {
+    return new CachedResolver(resolver, environment);
+  }
+
+  void invalidate() {
+    discovered.clear();
+  }
+
+  /**
+   * Probe all {@code resolvers} concurrently.
+   *
+   * @param resolvers resolvers ordered by rank
+   * @return the path found by the first resolver in {@code resolvers} that found one
+   */
+  static Path discover(List<CloudSdkResolver> resolvers) throws CloudSdkNotFoundException {
+    List<Future<Path>> results = new ArrayList<>(resolvers.size());
+    for (CloudSdkResolver resolver : resolvers) {
+      results.add(executor.submit(resolver::getCloudSdkPath));
+    }
+    try {
+      for (int i = 0; i < resolvers.size(); i++) {
+        try {
+          Path discoveredSdkPath = results.get(i).get();
+          if (discoveredSdkPath != null) {
+            return discoveredSdkPath;
+          }
+        } catch (ExecutionException ex) {
+          if (ex.getCause() instanceof Error) {
+            throw (Error) ex.getCause();
+          }
+          // prevent interference from exceptions in other resolvers
+          logger.log(
+              Level.SEVERE,
+              resolvers.get(i).getClass().getName()
+                  + ": exception thrown when searching for Google Cloud SDK",
+              ex.getCause());
+        }
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new CloudSdkNotFoundException("Interrupted while searching for Google Cloud SDK", ex);
+    } finally {
+      // a higher ranked resolver won, or searching was interrupted
+      for (Future<Path> result : results) {
+        result.cancel(true);
+      }
+    }
+    throw new CloudSdkNotFoundException(
+        "The Google Cloud SDK could not be found in the customary"
+            + " locations and no path was provided.");
+  }
+
+  /** Returns the environment variables that the built-in resolvers read. */
+  static String getEnvironment() {
+    return System.getenv("PATH")
+        + "\n"
+        + System.getenv("GOOGLE_CLOUD_SDK_HOME")
+        + "\n"
+        + System.getenv("LOCALAPPDATA");
+  }
+
+  @VisibleForTesting
+  @Nullable
+  static FileTime getLastModified(Path path) {
+    try {
+      return Files.getLastModifiedTime(path);
+    } catch (IOException ex) {
+      return null;
+    }
+  }
+
+  private class CachedResolver implements CloudSdkResolver {
+    private final CloudSdkResolver resolver;
+    private final String environment;
+
+    private CachedResolver(CloudSdkResolver resolver, String environment) {
+      this.resolver = resolver;
+      this.environment = environment;
+    }
+
+    @Nullable
+    @Override
+    public Path getCloudSdkPath() {
+      Discovered previous = discovered.get(resolver.getClass());
+      if (previous != null
+          && previous.environment.equals(environment)
+          && previous.lastModified.equals(getLastModified(previous.path))) {
+        return previous.path;
+      }
+      Path path = resolver.getCloudSdkPath();
+      FileTime lastModified = path == null ? null : getLastModified(path);
+      if (lastModified != null) {
+        discovered.put(resolver.getClass(), new Discovered(environment, path, lastModified));
+      }
+      return path;
+    }
+
+    @Override
+    public int getRank() {
+      return resolver.getRank();
+    }
+  }
+
+  private static class Discovered {
+    private final String environment;
+    private final Path path;
+    private final FileTime lastModified;
+
+    private Discovered(String environment, Path path, FileTime lastModified) {
+      this.environment = environment;
+      this.path = path;
+      this.lastModified = lastModified;
+    }
+  }
+}
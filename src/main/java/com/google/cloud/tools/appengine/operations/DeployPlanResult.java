@@ -0,0 +1,89 @@
+/*
+ * Copyright 2026 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.appengine.operations;
+
+import com.google.cloud.tools.appengine.AppEngineException;
+import com.google.cloud.tools.appengine.configuration.DeployPlan;
+import com.google.common.collect.ImmutableList;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+
+/** Outcome of every deployment in a {@link DeployPlan}, in the order they were planned. */
+public class DeployPlanResult {
+
+  /** Outcome of a single deployment. */
+  public static class Step {
+    private final String description;
+    @Nullable private final AppEngineException failure;
+    private final boolean skipped;
+
+    Step(String description, @Nullable AppEngineException failure, boolean skipped) {
+      this.description = description;
+      this.failure = failure;
+      this.skipped = skipped;
+    }
+
+    /** What was deployed, e.g. the deployables or the configuration file and project. */
+    public String getDescription() {
+      return description;
+    }
+
+    /** Why the deployment failed or was skipped, null if it succeeded. */
+    @Nullable
+    public AppEngineException getFailure() {
+      return failure;
+    }
+
+    /** True if the deployment was not attempted because one it depends on failed. */
+    public boolean isSkipped() {
+      return skipped;
+    }
+
+    public boolean isSuccessful() {
+      return failure == null;
+    }
+
+    @Override
+    public String toString() {
+      if (failure == null) {
+        return description + ": deployed";
+      }
+      return description + (skipped ? ": skipped, " : ": failed, ") + failure.getMessage();
+    }
+  }
+
+  private final List<Step> steps;
+
+  DeployPlanResult(List<Step> steps) {
+    this.steps = ImmutableList.copyOf(steps);
+  }
+
+  /** Services first, then configuration files, in the order they were added to the plan. */
+  public List<Step> getSteps() {
+    return steps;
+  }
+
+  /** The deployments that failed or were skipped. */
+  public List<Step> getFailedSteps() {
+    return steps.stream().filter(step -> !step.isSuccessful()).collect(Collectors.toList());
+  }
+
+  public boolean isSuccessful() {
+    return steps.stream().allMatch(Step::isSuccessful);
+  }
+}
@@ -18,20 +18,34 @@ package com.google.cloud.tools.appengine.operations;
 
 import com.google.cloud.tools.appengine.AppEngineException;
 import com.google.cloud.tools.appengine.configuration.DeployConfiguration;
+import com.google.cloud.tools.appengine.configuration.DeployPlan;
 import com.google.cloud.tools.appengine.configuration.DeployProjectConfigurationConfiguration;
 import com.google.cloud.tools.appengine.operations.cloudsdk.CloudSdkNotFoundException;
 import com.google.cloud.tools.appengine.operations.cloudsdk.CloudSdkOutOfDateException;
 import com.google.cloud.tools.appengine.operations.cloudsdk.internal.args.GcloudArgs;
+import com.google.cloud.tools.appengine.operations.cloudsdk.process.LegacyProcessHandler;
+import com.google.cloud.tools.appengine.operations.cloudsdk.process.ProcessHandler;
 import com.google.cloud.tools.appengine.operations.cloudsdk.process.ProcessHandlerException;
+import com.google.cloud.tools.appengine.operations.cloudsdk.process.ProcessHandlerFactory;
+import com.google.cloud.tools.appengine.operations.cloudsdk.process.StringBuilderProcessOutputLineListener;
+import com.google.cloud.tools.appengine.operations.cloudsdk.serialization.CloudSdkConfig;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
+import com.google.gson.JsonSyntaxException;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 import javax.annotation.Nullable;
 
 /** Deploy staged application and project configuration. */
@@ -56,6 +70,11 @@ public class Deployment {
    *     found
    */
   public void deploy(DeployConfiguration config) throws AppEngineException {
+    deploy(config, null);
+  }
+
+  private void deploy(DeployConfiguration config, @Nullable ProcessHandler processHandler)
+      throws AppEngineException {
     Preconditions.checkNotNull(config);
     Preconditions.checkNotNull(config.getDeployables());
     Preconditions.checkArgument(config.getDeployables().size() > 0);
@@ -92,13 +111,133 @@ public class Deployment {
     arguments.addAll(GcloudArgs.get("version", config.getVersion()));
     arguments.addAll(GcloudArgs.get("project", config.getProjectId()));
 
+    run(arguments, workingDirectory, processHandler);
+  }
+
+  /**
+   * Deploys all services and configuration files of {@code plan}, see {@link DeployPlan} for the
+   * order. Each is a separate gcloud invocation with its own process handler, and only succeeds
+   * when gcloud exits with 0. Blocks until all deployments are done.
+   *
+   * @param processHandlers creates the process handler of each deployment, this deployment's
+   *     process handler is not used
+   * @return the outcome of every deployment, failures don't stop independent deployments
+   * @throws AppEngineException when the project configured in gcloud cannot be read, or when
+   *     interrupted while waiting for deployments
+   */
+  public DeployPlanResult deploy(DeployPlan plan, ProcessHandlerFactory processHandlers)
+      throws AppEngineException {
+    Preconditions.checkNotNull(plan);
+    Preconditions.checkNotNull(processHandlers);
+    Function<String, String> projects = getProjectResolver(plan);
+    try (GcloudBatch<DeployPlanResult.Step> batch =
+        new GcloudBatch<>(plan.getParallelism(), "deploy-%d")) {
+      Map<String, List<CompletableFuture<DeployPlanResult.Step>>> servicesByProject =
+          new HashMap<>();
+      for (DeployConfiguration service : plan.getServices()) {
+        String description =
+            "deploy " + service.getDeployables() + inProject(service.getProjectId());
+        CompletableFuture<DeployPlanResult.Step> step =
+            batch.submit(
+                () ->
+                    runStep(
+                        description,
+                        () -> deploy(service, processHandlers.newProcessHandler(description))));
+        servicesByProject
+            .computeIfAbsent(projects.apply(service.getProjectId()), key -> new ArrayList<>())
+            .add(step);
+      }
+
+      for (DeployPlan.ConfigFileDeployment configFile : plan.getConfigFiles()) {
+        DeployProjectConfigurationConfiguration configuration = configFile.getConfiguration();
+        String fileName = configFile.getConfigFile().getFileName();
+        String description = "deploy " + fileName + inProject(configuration.getProjectId());
+        // configuration files may refer to the services of their project
+        List<CompletableFuture<DeployPlanResult.Step>> services =
+            servicesByProject.getOrDefault(
+                projects.apply(configuration.getProjectId()), ImmutableList.of());
+        batch.submitAfter(
+            services,
+            () -> {
+              for (CompletableFuture<DeployPlanResult.Step> service : services) {
+                if (!service.join().isSuccessful()) {
+                  return new DeployPlanResult.Step(
+                      description,
+                      new AppEngineException("Not deployed because " + service.join() + "."),
+                      true);
+                }
+              }
+              return runStep(
+                  description,
+                  () ->
+                      deployConfig(
+                          fileName, configuration, processHandlers.newProcessHandler(description)));
+            });
+      }
+
+      return new DeployPlanResult(batch.join("deploying"));
+    }
+  }
+
+  /**
+   * Returns a function from the project id of a service or configuration file to the project it is
+   * deployed to. gcloud is only asked for its configured project when some services or files of
+   * {@code plan} have a project id and others don't.
+   */
+  private Function<String, String> getProjectResolver(DeployPlan plan) throws AppEngineException {
+    Set<Boolean> explicitProjects = new HashSet<>();
+    for (DeployConfiguration service : plan.getServices()) {
+      explicitProjects.add(service.getProjectId() != null);
+    }
+    for (DeployPlan.ConfigFileDeployment configFile : plan.getConfigFiles()) {
+      explicitProjects.add(configFile.getConfiguration().getProjectId() != null);
+    }
+    if (explicitProjects.size() < 2) {
+      return Strings::nullToEmpty;
+    }
+    String configuredProject = Strings.nullToEmpty(getConfiguredProject());
+    return projectId -> projectId != null ? projectId : configuredProject;
+  }
+
+  /** Returns the project gcloud deploys to when none is given, {@code null} if none is set. */
+  @Nullable
+  private String getConfiguredProject() throws AppEngineException {
+    List<String> arguments = new ArrayList<>();
+    arguments.add("config");
+    arguments.add("list");
+    arguments.addAll(GcloudArgs.get("format", "json"));
+
+    StringBuilderProcessOutputLineListener stdOut =
+        StringBuilderProcessOutputLineListener.newListener();
+    run(arguments, null, LegacyProcessHandler.builder().addStdOutLineListener(stdOut).build());
     try {
-      runner.run(arguments, workingDirectory);
-    } catch (ProcessHandlerException | IOException ex) {
-      throw new AppEngineException(ex);
+      CloudSdkConfig config = CloudSdkConfig.fromJson(stdOut.toString());
+      return config == null ? null : config.getProject();
+    } catch (JsonSyntaxException ex) {
+      throw new AppEngineException("Could not read the project configured in gcloud", ex);
+    }
+  }
+
+  private interface DeployStep {
+    void run() throws AppEngineException;
+  }
+
+  private static DeployPlanResult.Step runStep(String description, DeployStep step) {
+    try {
+      step.run();
+      return new DeployPlanResult.Step(description, null, false);
+    } catch (AppEngineException ex) {
+      return new DeployPlanResult.Step(description, ex, false);
+    } catch (RuntimeException ex) {
+      // e.g. a missing deployable
+      return new DeployPlanResult.Step(description, new AppEngineException(ex), false);
     }
   }
 
+  private static String inProject(@Nullable String projectId) {
+    return projectId == null ? "" : " in project " + projectId;
+  }
+
   /** Deploy cron.yaml to App Engine. */
   public void deployCron(DeployProjectConfigurationConfiguration config) throws AppEngineException {
     deployConfig("cron.yaml", config);
@@ -127,14 +266,22 @@ public class Deployment {
     deployConfig("queue.yaml", config);
   }
 
+  @VisibleForTesting
+  void deployConfig(String filename, DeployProjectConfigurationConfiguration configuration)
+      throws AppEngineException {
+    deployConfig(filename, configuration, null);
+  }
+
   /**
    * Common configuration deployment function.
    *
    * @param filename Yaml file that we want to deploy (cron.yaml, dos.yaml, etc)
    * @param configuration Deployment configuration
    */
-  @VisibleForTesting
-  void deployConfig(String filename, DeployProjectConfigurationConfiguration configuration)
+  private void deployConfig(
+      String filename,
+      DeployProjectConfigurationConfiguration configuration,
+      @Nullable ProcessHandler processHandler)
       throws AppEngineException {
     Preconditions.checkNotNull(configuration);
     Preconditions.checkNotNull(configuration.getAppEngineDirectory());
@@ -150,8 +297,24 @@ public class Deployment {
     arguments.addAll(GcloudArgs.get("server", configuration.getServer()));
     arguments.addAll(GcloudArgs.get("project", configuration.getProjectId()));
 
+    run(arguments, null, processHandler);
+  }
+
+  /**
+   * Run gcloud with the process handler of this deployment if {@code processHandler} is null,
+   * otherwise with {@code processHandler}, checking the exit code.
+   */
+  private void run(
+      List<String> arguments,
+      @Nullable Path workingDirectory,
+      @Nullable ProcessHandler processHandler)
+      throws AppEngineException {
     try {
-      runner.run(arguments, null);
+      if (processHandler == null) {
+        runner.run(arguments, workingDirectory);
+      } else {
+        runner.runAndCheckExitCode(arguments, workingDirectory, processHandler);
+      }
     } catch (ProcessHandlerException | IOException ex) {
       throw new AppEngineException(ex);
     }
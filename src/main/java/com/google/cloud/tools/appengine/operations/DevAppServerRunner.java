@@ -52,12 +52,14 @@ public class DevAppServerRunner {
    * @param args the arguments to pass to devappserver
    * @param environment the environment to set on the devappserver process
    * @param workingDirectory if null then the working directory of current Java process.
+   * @return the devappserver process, which has exited already unless the process handler is
+   *     asynchronous
    * @throws ProcessHandlerException when process runner encounters an error
    * @throws AppEngineJavaComponentsNotInstalledException Cloud SDK is installed but App Engine Java
    *     components are not
    * @throws InvalidJavaSdkException when the specified JDK does not exist
    */
-  public void run(
+  public Process run(
       List<String> jvmArgs,
       List<String> args,
       Map<String, String> environment,
@@ -95,6 +97,7 @@ public class DevAppServerRunner {
     Process process = processBuilder.start();
 
     processHandler.handleProcess(process);
+    return process;
   }
 
   static class Factory {
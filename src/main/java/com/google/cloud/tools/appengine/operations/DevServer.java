@@ -23,20 +23,30 @@ import com.google.cloud.tools.appengine.configuration.StopConfiguration;
 import com.google.cloud.tools.appengine.operations.cloudsdk.CloudSdkNotFoundException;
 import com.google.cloud.tools.appengine.operations.cloudsdk.CloudSdkOutOfDateException;
 import com.google.cloud.tools.appengine.operations.cloudsdk.internal.args.DevAppServerArgs;
+import com.google.cloud.tools.appengine.operations.cloudsdk.process.LegacyProcessHandler;
 import com.google.cloud.tools.appengine.operations.cloudsdk.process.ProcessHandlerException;
+import com.google.cloud.tools.appengine.operations.cloudsdk.process.ReadinessProbe;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.io.IOException;
-import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.annotation.Nullable;
 import org.xml.sax.SAXException;
@@ -49,9 +59,15 @@ public class DevServer {
   private final CloudSdk sdk;
   private final DevAppServerRunner runner;
 
+  /** Maximum number of appengine-web.xml files read at the same time. */
+  private static final int DESCRIPTOR_PARALLELISM = 8;
+
   private static final String DEFAULT_HOST = "localhost";
   private static final int DEFAULT_PORT = 8080;
 
+  /** Makes the dev server scan all files of every service every second. */
+  private static final String FULL_SCAN_FLAG = "-Dappengine.fullscan.seconds=1";
+
   public DevServer(CloudSdk sdk, DevAppServerRunner runner) {
     this.sdk = Preconditions.checkNotNull(sdk);
     this.runner = Preconditions.checkNotNull(runner);
@@ -60,6 +76,11 @@ public class DevServer {
   /**
    * Starts the local development server, synchronously or asynchronously.
    *
+   * <p>With {@link RunConfiguration#getAutomaticRestart()}, the service directories are watched
+   * for changes until the dev server exits, and a changed service is reloaded by touching its
+   * {@code WEB-INF/appengine-web.xml}, which the dev server checks every few seconds. If the
+   * directories can't be watched, the dev server scans all files every second instead.
+   *
    * @throws AppEngineException I/O error in the Java dev server
    * @throws CloudSdkNotFoundException when the Cloud SDK is not installed where expected
    * @throws CloudSdkOutOfDateException when the installed Cloud SDK is too old
@@ -73,9 +94,6 @@ public class DevServer {
     List<String> jvmArguments = new ArrayList<>();
     arguments.addAll(DevAppServerArgs.get("address", config.getHost()));
     arguments.addAll(DevAppServerArgs.get("port", config.getPort()));
-    if (Boolean.TRUE.equals(config.getAutomaticRestart())) {
-      jvmArguments.add("-Dappengine.fullscan.seconds=1");
-    }
     if (config.getJvmFlags() != null) {
       jvmArguments.addAll(config.getJvmFlags());
     }
@@ -90,7 +108,8 @@ public class DevServer {
       arguments.addAll(additionalArguments);
     }
 
-    boolean isSandboxEnforced = isSandboxEnforced(config.getServices());
+    List<AppEngineDescriptor> descriptors = readAppEngineDescriptors(config.getServices());
+    boolean isSandboxEnforced = isSandboxEnforcedForDescriptors(descriptors);
 
     if (!isSandboxEnforced) {
       jvmArguments.add("-Duse_jetty9_runtime=true");
@@ -110,7 +129,7 @@ public class DevServer {
     }
 
     Map<String, String> appEngineEnvironment =
-        getAllAppEngineWebXmlEnvironmentVariables(config.getServices());
+        getAllAppEngineWebXmlEnvironmentVariables(descriptors);
     if (!appEngineEnvironment.isEmpty()) {
       log.info(
           "Setting appengine-web.xml configured environment variables: "
@@ -125,17 +144,77 @@ public class DevServer {
       appEngineEnvironment.putAll(configEnvironment);
     }
 
+    DevServerFileWatcher fileWatcher = null;
+    if (Boolean.TRUE.equals(config.getAutomaticRestart())) {
+      try {
+        fileWatcher = startFileWatcher(config.getServices());
+      } catch (IOException ex) {
+        log.log(Level.WARNING, "Could not watch services, scanning them for changes instead", ex);
+        jvmArguments.add(0, FULL_SCAN_FLAG);
+      }
+    }
+
     try {
       Path workingDirectory = null;
       if (config.getServices().size() == 1) {
         workingDirectory = config.getServices().get(0);
       }
-      runner.run(jvmArguments, arguments, appEngineEnvironment, workingDirectory);
+      Process process =
+          runner.run(jvmArguments, arguments, appEngineEnvironment, workingDirectory);
+      if (fileWatcher != null) {
+        // the process handler may return before the dev server exits, and stop() may be called on
+        // another instance
+        fileWatcher.closeOnExit(process);
+      }
     } catch (ProcessHandlerException | IOException ex) {
+      closeFileWatcher(fileWatcher);
       throw new AppEngineException(ex);
+    } catch (RuntimeException ex) {
+      closeFileWatcher(fileWatcher);
+      throw ex;
+    }
+  }
+
+  @VisibleForTesting
+  DevServerFileWatcher startFileWatcher(List<Path> services) throws IOException {
+    return DevServerFileWatcher.start(
+        services, DevServerFileWatcher.DEFAULT_QUIET_PERIOD, DevServer::reloadService);
+  }
+
+  private static void closeFileWatcher(@Nullable DevServerFileWatcher fileWatcher) {
+    if (fileWatcher != null) {
+      fileWatcher.close();
     }
   }
 
+  /** The dev server reloads a service when its appengine-web.xml is modified. */
+  private static void reloadService(Path service, Set<Path> changedFiles) {
+    log.info(changedFiles.size() + " files changed, reloading " + service);
+    Path appengineWebXml = service.resolve("WEB-INF/appengine-web.xml");
+    try {
+      Files.setLastModifiedTime(appengineWebXml, FileTime.fromMillis(System.currentTimeMillis()));
+    } catch (IOException ex) {
+      log.log(Level.WARNING, "Could not touch " + appengineWebXml, ex);
+    }
+  }
+
+  /**
+   * Returns a probe that succeeds once the dev server started with {@code config} accepts
+   * connections, to pass to {@link LegacyProcessHandler.Builder#buildDevAppServerAsync(int,
+   * ReadinessProbe)} so that an asynchronous {@link #run} returns as soon as the server is up.
+   *
+   * @throws IllegalArgumentException if the configured port is 0, as the server then picks one
+   */
+  public static ReadinessProbe newReadinessProbe(RunConfiguration config) {
+    String host = config.getHost() != null ? config.getHost() : DEFAULT_HOST;
+    if ("0.0.0.0".equals(host) || "::".equals(host)) {
+      // listening on all interfaces
+      host = DEFAULT_HOST;
+    }
+    int port = config.getPort() != null ? config.getPort() : DEFAULT_PORT;
+    return ReadinessProbe.tcp(host, port);
+  }
+
   /** Stops the local development server. */
   public void stop(StopConfiguration configuration) throws AppEngineException {
     Preconditions.checkNotNull(configuration);
@@ -188,18 +267,18 @@ public class DevServer {
    */
   @VisibleForTesting
   boolean isSandboxEnforced(List<Path> services) throws AppEngineException {
+    return isSandboxEnforcedForDescriptors(readAppEngineDescriptors(services));
+  }
+
+  private static boolean isSandboxEnforcedForDescriptors(List<AppEngineDescriptor> descriptors)
+      throws AppEngineException {
     boolean relaxSandbox = false;
     boolean enforceSandbox = false;
-    for (Path serviceDirectory : services) {
-      Path appengineWebXml = serviceDirectory.resolve("WEB-INF/appengine-web.xml");
-      try (InputStream is = Files.newInputStream(appengineWebXml)) {
-        if (AppEngineDescriptor.parse(is).isSandboxEnforced()) {
-          enforceSandbox = true;
-        } else {
-          relaxSandbox = true;
-        }
-      } catch (IOException | SAXException ex) {
-        throw new AppEngineException(ex);
+    for (AppEngineDescriptor descriptor : descriptors) {
+      if (descriptor.isSandboxEnforced()) {
+        enforceSandbox = true;
+      } else {
+        relaxSandbox = true;
       }
     }
     if (relaxSandbox && enforceSandbox) {
@@ -208,23 +287,69 @@ public class DevServer {
     return !relaxSandbox;
   }
 
-  private static Map<String, String> getAllAppEngineWebXmlEnvironmentVariables(List<Path> services)
+  /**
+   * Reads the appengine-web.xml of every service, several services at the same time. Descriptors
+   * are cached, so services that didn't change since the previous run are not parsed again.
+   *
+   * @return the descriptors in the order of {@code services}
+   */
+  private static List<AppEngineDescriptor> readAppEngineDescriptors(List<Path> services)
       throws AppEngineException {
-    Map<String, String> allAppEngineEnvironment = Maps.newHashMap();
-    for (Path serviceDirectory : services) {
-      Path appengineWebXml = serviceDirectory.resolve("WEB-INF/appengine-web.xml");
-      try (InputStream is = Files.newInputStream(appengineWebXml)) {
-        AppEngineDescriptor appEngineDescriptor = AppEngineDescriptor.parse(is);
-        Map<String, String> appEngineEnvironment = appEngineDescriptor.getEnvironment();
-        if (appEngineEnvironment != null) {
-          checkAndWarnDuplicateEnvironmentVariables(
-              appEngineEnvironment, allAppEngineEnvironment, appEngineDescriptor.getServiceId());
-
-          allAppEngineEnvironment.putAll(appEngineEnvironment);
-        }
-      } catch (IOException | SAXException ex) {
-        throw new AppEngineException(ex);
+    if (services.size() <= 1) {
+      List<AppEngineDescriptor> descriptors = new ArrayList<>(services.size());
+      for (Path serviceDirectory : services) {
+        descriptors.add(readAppEngineDescriptor(serviceDirectory));
+      }
+      return descriptors;
+    }
+    ExecutorService executor =
+        Executors.newFixedThreadPool(
+            Math.min(services.size(), DESCRIPTOR_PARALLELISM),
+            new ThreadFactoryBuilder()
+                .setNameFormat("dev-server-descriptor-%d")
+                .setDaemon(true)
+                .build());
+    try {
+      List<Future<AppEngineDescriptor>> results = new ArrayList<>(services.size());
+      for (Path serviceDirectory : services) {
+        results.add(executor.submit(() -> readAppEngineDescriptor(serviceDirectory)));
       }
+      List<AppEngineDescriptor> descriptors = new ArrayList<>(services.size());
+      for (Future<AppEngineDescriptor> result : results) {
+        descriptors.add(result.get());
+      }
+      return descriptors;
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new AppEngineException("Interrupted while reading appengine-web.xml files", ex);
+    } catch (ExecutionException ex) {
+      // report the failure of the first service in the list, as a sequential read would
+      Throwables.throwIfInstanceOf(ex.getCause(), AppEngineException.class);
+      Throwables.throwIfUnchecked(ex.getCause());
+      throw new AppEngineException(ex.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static AppEngineDescriptor readAppEngineDescriptor(Path serviceDirectory)
+      throws AppEngineException {
+    Path appengineWebXml = serviceDirectory.resolve("WEB-INF/appengine-web.xml");
+    try {
+      return AppEngineDescriptor.parse(appengineWebXml);
+    } catch (IOException | SAXException ex) {
+      throw new AppEngineException(ex);
+    }
+  }
+
+  private static Map<String, String> getAllAppEngineWebXmlEnvironmentVariables(
+      List<AppEngineDescriptor> descriptors) throws AppEngineException {
+    Map<String, String> allAppEngineEnvironment = Maps.newHashMap();
+    for (AppEngineDescriptor appEngineDescriptor : descriptors) {
+      Map<String, String> appEngineEnvironment = appEngineDescriptor.getEnvironment();
+      checkAndWarnDuplicateEnvironmentVariables(
+          appEngineEnvironment, allAppEngineEnvironment, appEngineDescriptor.getServiceId());
+      allAppEngineEnvironment.putAll(appEngineEnvironment);
     }
     return allAppEngineEnvironment;
   }
@@ -0,0 +1,278 @@
+/*
+ * Copyright 2026 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.appengine.operations;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Nullable;
+
+/**
+ * Watches the directories of dev server services for changes, and reports the changes of each
+ * service once no file of that service changed for a quiet period, so that a build writing many
+ * files causes a single reload.
+ *
+ * <p>A watcher runs until it is closed, or until the dev server process passed to {@link
+ * #closeOnExit} exits.
+ *
+ * <p>Changes to {@code WEB-INF/appengine-web.xml} are not reported: the dev server reloads a
+ * service when that file changes, so {@link DevServer} touches it to reload a changed service.
+ */
+public class DevServerFileWatcher implements Closeable {
+
+  private static final Logger logger = Logger.getLogger(DevServerFileWatcher.class.getName());
+
+  /** How long no file of a service must change before the changes are reported. */
+  public static final Duration DEFAULT_QUIET_PERIOD = Duration.ofMillis(500);
+
+  private static final Path APPENGINE_WEB_XML = Paths.get("WEB-INF", "appengine-web.xml");
+
+  /** How often the watcher checks whether the process passed to {@link #closeOnExit} exited. */
+  private static final long PROCESS_CHECK_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  /** Receives the changes of a service. */
+  public interface ChangeListener {
+
+    /**
+     * Called on the watcher thread once the files of {@code service} stopped changing.
+     *
+     * @param service the absolute service directory
+     * @param changedFiles the created, modified or deleted files and directories, or only {@code
+     *     service} if too many files changed to track them individually
+     */
+    void onChange(Path service, Set<Path> changedFiles);
+  }
+
+  private final List<Path> services;
+  private final long quietPeriodNanos;
+  private final ChangeListener listener;
+  private final WatchService watchService;
+  // the service of each watched directory
+  private final Map<WatchKey, Path> watchedServices = new ConcurrentHashMap<>();
+  @Nullable private volatile Process process;
+  private volatile boolean closed;
+
+  private DevServerFileWatcher(
+      List<Path> services,
+      Duration quietPeriod,
+      ChangeListener listener,
+      WatchService watchService) {
+    this.services = services;
+    this.quietPeriodNanos = quietPeriod.toNanos();
+    this.listener = listener;
+    this.watchService = watchService;
+  }
+
+  /**
+   * Start watching every directory of {@code services}, including directories created later.
+   *
+   * @param services the service directories, usually exploded WARs
+   * @param quietPeriod how long no file of a service must change before {@code listener} is called
+   * @param listener called with the changes of each service
+   * @throws IOException if a directory can't be watched
+   */
+  public static DevServerFileWatcher start(
+      List<Path> services, Duration quietPeriod, ChangeListener listener) throws IOException {
+    Preconditions.checkNotNull(services);
+    Preconditions.checkNotNull(listener);
+    Preconditions.checkArgument(!quietPeriod.isNegative(), "quietPeriod must not be negative");
+    ImmutableList.Builder<Path> absoluteServices = ImmutableList.builder();
+    for (Path service : services) {
+      absoluteServices.add(service.toAbsolutePath().normalize());
+    }
+
+    WatchService watchService = FileSystems.getDefault().newWatchService();
+    DevServerFileWatcher watcher =
+        new DevServerFileWatcher(absoluteServices.build(), quietPeriod, listener, watchService);
+    try {
+      for (Path service : watcher.services) {
+        watcher.registerAll(service, service);
+      }
+    } catch (IOException | RuntimeException ex) {
+      watcher.close();
+      throw ex;
+    }
+    new ThreadFactoryBuilder()
+        .setNameFormat("dev-server-file-watcher")
+        .setDaemon(true)
+        .build()
+        .newThread(watcher::watch)
+        .start();
+    return watcher;
+  }
+
+  /** Stop watching once {@code process} exited, e.g. the dev server the services run in. */
+  public void closeOnExit(Process process) {
+    this.process = Preconditions.checkNotNull(process);
+    if (!process.isAlive()) {
+      close();
+    }
+  }
+
+  /** Stop watching. Changes that were not reported yet are dropped. */
+  @Override
+  public void close() {
+    closed = true;
+    try {
+      watchService.close();
+    } catch (IOException ex) {
+      logger.log(Level.FINE, "Could not close the watch service", ex);
+    }
+  }
+
+  @VisibleForTesting
+  boolean isClosed() {
+    return closed;
+  }
+
+  private void registerAll(Path directory, Path service) throws IOException {
+    Files.walkFileTree(
+        directory,
+        new SimpleFileVisitor<Path>() {
+          @Override
+          public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs)
+              throws IOException {
+            WatchKey key = dir.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+            watchedServices.put(key, service);
+            return FileVisitResult.CONTINUE;
+          }
+        });
+  }
+
+  private void watch() {
+    // changes not reported yet, by service
+    Map<Path, Set<Path>> pending = new LinkedHashMap<>();
+    // when the changes of each service are reported, unless more of its files change
+    Map<Path, Long> deadlines = new LinkedHashMap<>();
+    try {
+      while (!closed) {
+        long now = System.nanoTime();
+        long timeout = PROCESS_CHECK_INTERVAL_NANOS;
+        for (long deadline : deadlines.values()) {
+          timeout = Math.min(timeout, deadline - now);
+        }
+        WatchKey key = watchService.poll(Math.max(timeout, 0), TimeUnit.NANOSECONDS);
+        if (key != null) {
+          Path service = collect(key, pending);
+          if (service != null) {
+            deadlines.put(service, System.nanoTime() + quietPeriodNanos);
+          }
+        }
+        notifyQuietServices(pending, deadlines);
+        Process process = this.process;
+        if (process != null && !process.isAlive()) {
+          close();
+        }
+      }
+    } catch (InterruptedException | ClosedWatchServiceException ex) {
+      // closed
+    }
+  }
+
+  /** Reports the changes of the services whose quiet period is over. */
+  private void notifyQuietServices(Map<Path, Set<Path>> pending, Map<Path, Long> deadlines) {
+    long now = System.nanoTime();
+    Iterator<Map.Entry<Path, Long>> iterator = deadlines.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<Path, Long> deadline = iterator.next();
+      if (deadline.getValue() - now <= 0) {
+        iterator.remove();
+        notifyListener(deadline.getKey(), pending.remove(deadline.getKey()));
+      }
+    }
+  }
+
+  /**
+   * Adds the events of {@code key} to {@code pending}, returns the service they belong to, or null
+   * if none was added.
+   */
+  @Nullable
+  private Path collect(WatchKey key, Map<Path, Set<Path>> pending) {
+    Path service = watchedServices.get(key);
+    Path directory = (Path) key.watchable();
+    boolean changed = false;
+    for (WatchEvent<?> event : key.pollEvents()) {
+      if (service == null) {
+        break;
+      }
+      Path file;
+      if (event.kind() == OVERFLOW) {
+        // events were lost, the whole service may have changed
+        file = service;
+      } else {
+        file = directory.resolve((Path) event.context());
+        if (file.equals(service.resolve(APPENGINE_WEB_XML))) {
+          continue;
+        }
+        if (event.kind() == ENTRY_CREATE && Files.isDirectory(file, LinkOption.NOFOLLOW_LINKS)) {
+          try {
+            registerAll(file, service);
+          } catch (IOException ex) {
+            logger.log(Level.WARNING, "Could not watch " + file, ex);
+          }
+        }
+      }
+      pending.computeIfAbsent(service, unused -> new LinkedHashSet<>()).add(file);
+      changed = true;
+    }
+    if (!key.reset()) {
+      // the directory was deleted
+      watchedServices.remove(key);
+    }
+    return changed ? service : null;
+  }
+
+  private void notifyListener(Path service, Set<Path> changedFiles) {
+    logger.fine(changedFiles.size() + " files changed in " + service);
+    try {
+      listener.onChange(service, changedFiles);
+    } catch (RuntimeException ex) {
+      logger.log(Level.WARNING, "Could not reload " + service, ex);
+    }
+  }
+}
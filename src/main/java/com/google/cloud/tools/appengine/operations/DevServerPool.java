@@ -0,0 +1,504 @@
+/*
+ * Copyright 2026 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.appengine.operations;
+
+import com.google.cloud.tools.appengine.AppEngineException;
+import com.google.cloud.tools.appengine.configuration.RunConfiguration;
+import com.google.cloud.tools.appengine.configuration.StopConfiguration;
+import com.google.cloud.tools.appengine.operations.cloudsdk.internal.process.ProcessReaper;
+import com.google.cloud.tools.appengine.operations.cloudsdk.process.LegacyProcessHandler;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Nullable;
+
+/**
+ * Keeps dev servers started ahead of time on distinct ports, so that test suites don't wait for a
+ * dev server to start for every test class.
+ *
+ * <p>{@link #acquire} hands out a started server as a {@link Lease}. Closing the lease returns the
+ * server to the pool, which runs the {@link ResetHook} before handing it out again; a server that
+ * can't be reset or that died is stopped and replaced by a new one. {@link #close} stops every
+ * server, leased or not, and returns once all of them exited.
+ *
+ * <p>Every server keeps its local datastore in a temporary directory of its own, which is deleted
+ * when the server stops, so tests on different servers don't see each other's entities. This is
+ * skipped if the template already sets {@code datastore.backing_store}. Other state in the service
+ * directories, such as files the application writes there, is shared by all servers.
+ */
+public class DevServerPool implements Closeable {
+
+  private static final Logger logger = Logger.getLogger(DevServerPool.class.getName());
+
+  /** How long a server may take to exit after it was asked to, before it is killed. */
+  private static final long STOP_TIMEOUT_SECONDS = 10;
+
+  /** The JVM flag that moves the local datastore of a dev server out of its service directory. */
+  private static final String BACKING_STORE_FLAG = "-Ddatastore.backing_store=";
+
+  /**
+   * Restores the state of a returned server, e.g. by deleting the entities a test stored in its
+   * local datastore, which no other server of the pool uses.
+   */
+  @FunctionalInterface
+  public interface ResetHook {
+    void reset(Lease lease) throws AppEngineException;
+  }
+
+  /** Starts and stops the dev servers of a pool. */
+  @VisibleForTesting
+  interface Launcher {
+    /** Start a dev server and return its process once it is ready. */
+    Process start(RunConfiguration configuration) throws AppEngineException;
+
+    /** Ask the dev server to exit. */
+    void stop(RunConfiguration configuration) throws AppEngineException;
+  }
+
+  /** A started dev server, handed out by {@link #acquire} until it is closed. */
+  public final class Lease implements Closeable {
+    private final Instance instance;
+    private boolean returned;
+
+    private Lease(Instance instance, boolean returned) {
+      this.instance = instance;
+      this.returned = returned;
+    }
+
+    /** The host the server listens on. */
+    public String getHost() {
+      return instance.host;
+    }
+
+    /** The port the server listens on, different for every server of the pool. */
+    public int getPort() {
+      return instance.port;
+    }
+
+    /** The configuration the server was started with. */
+    public RunConfiguration getConfiguration() {
+      return instance.configuration;
+    }
+
+    /** Return the server to the pool. Only the first call has an effect. */
+    @Override
+    public synchronized void close() {
+      if (!returned) {
+        returned = true;
+        release(instance);
+      }
+    }
+  }
+
+  private static class Instance {
+    private final RunConfiguration configuration;
+    private final String host;
+    private final int port;
+    @Nullable private final Path datastoreDirectory;
+    @Nullable private volatile Process process;
+    @Nullable private volatile AppEngineException failure;
+
+    private Instance(
+        RunConfiguration configuration, String host, int port, @Nullable Path datastoreDirectory) {
+      this.configuration = configuration;
+      this.host = host;
+      this.port = port;
+      this.datastoreDirectory = datastoreDirectory;
+    }
+
+    private boolean isAlive() {
+      Process process = this.process;
+      return process != null && process.isAlive();
+    }
+  }
+
+  private final RunConfiguration template;
+  private final Launcher launcher;
+  @Nullable private final ResetHook resetHook;
+  private final BlockingQueue<Instance> ready = new LinkedBlockingQueue<>();
+  private final Set<Instance> instances = ConcurrentHashMap.newKeySet();
+  private final ExecutorService executor;
+  private volatile boolean closed;
+
+  @VisibleForTesting
+  DevServerPool(
+      RunConfiguration template,
+      Launcher launcher,
+      @Nullable ResetHook resetHook,
+      List<Integer> ports) {
+    this.template = template;
+    this.launcher = launcher;
+    this.resetHook = resetHook;
+    this.executor =
+        Executors.newFixedThreadPool(
+            ports.size(),
+            new ThreadFactoryBuilder().setNameFormat("dev-server-pool-%d").setDaemon(true).build());
+    for (int port : ports) {
+      startInstance(port);
+    }
+  }
+
+  public static Builder builder(DevServers devServers, RunConfiguration template) {
+    return new Builder(devServers, template);
+  }
+
+  /**
+   * Take a started server out of the pool, waiting for one to start or to be returned if none is
+   * ready.
+   *
+   * @param timeout how long to wait for a server
+   * @throws AppEngineException if no server was ready in time, or the server this call waited for
+   *     failed to start; a replacement is started in the background
+   */
+  public Lease acquire(Duration timeout) throws AppEngineException, InterruptedException {
+    long deadline = System.nanoTime() + timeout.toNanos();
+    while (true) {
+      Preconditions.checkState(!closed, "dev server pool is closed");
+      Instance instance = ready.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+      if (instance == null) {
+        throw new AppEngineException("No dev server became ready within " + timeout);
+      }
+      AppEngineException failure = instance.failure;
+      if (failure != null) {
+        replace(instance);
+        throw new AppEngineException(
+            "Dev server on port " + instance.port + " failed to start", failure);
+      }
+      if (instance.isAlive()) {
+        return new Lease(instance, false);
+      }
+      logger.warning("Dev server on port " + instance.port + " died while idle, replacing it");
+      replace(instance);
+    }
+  }
+
+  /** Returns the number of servers that are started and not leased. */
+  public int getReadyCount() {
+    int count = 0;
+    for (Instance instance : ready) {
+      if (instance.failure == null) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /** Stop all servers, including leased ones, and wait until they exited. */
+  @Override
+  public void close() {
+    closed = true;
+    executor.shutdownNow();
+    try {
+      // starts that are in progress stop their server themselves once they notice the pool closed
+      if (!executor.awaitTermination(STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+        logger.warning("Dev servers still starting after the pool was closed");
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+    ready.clear();
+    List<Instance> remaining = new ArrayList<>(instances);
+    for (Instance instance : remaining) {
+      stopInstance(instance);
+    }
+  }
+
+  private void startInstance(int port) {
+    String host = template.getHost() != null ? template.getHost() : "localhost";
+    RunConfiguration.Builder configuration = template.toBuilder().host(host).port(port);
+    Path datastoreDirectory = null;
+    AppEngineException failure = null;
+    List<String> jvmFlags = new ArrayList<>(template.getJvmFlags());
+    if (jvmFlags.stream().noneMatch(flag -> flag.startsWith(BACKING_STORE_FLAG))) {
+      try {
+        datastoreDirectory = Files.createTempDirectory("dev-server-" + port + "-");
+        jvmFlags.add(BACKING_STORE_FLAG + datastoreDirectory.resolve("local_db.bin"));
+        configuration.jvmFlags(jvmFlags);
+      } catch (IOException ex) {
+        failure = new AppEngineException("Could not create a datastore directory", ex);
+      }
+    }
+    Instance instance = new Instance(configuration.build(), host, port, datastoreDirectory);
+    instances.add(instance);
+    if (failure != null) {
+      instance.failure = failure;
+      ready.add(instance);
+      return;
+    }
+    execute(
+        () -> {
+          try {
+            instance.process = launcher.start(instance.configuration);
+          } catch (AppEngineException ex) {
+            instance.failure = ex;
+          } catch (RuntimeException ex) {
+            instance.failure = new AppEngineException(ex);
+          }
+          if (closed) {
+            // close() may have found this instance before its process was known
+            instances.remove(instance);
+            stopProcess(instance);
+          } else {
+            ready.add(instance);
+          }
+        });
+  }
+
+  private void release(Instance instance) {
+    if (closed) {
+      return;
+    }
+    if (resetHook == null) {
+      recycle(instance);
+      return;
+    }
+    execute(
+        () -> {
+          try {
+            // the hook's lease is already returned, closing it has no effect
+            resetHook.reset(new Lease(instance, true));
+            recycle(instance);
+          } catch (AppEngineException | RuntimeException ex) {
+            logger.log(Level.WARNING, "Could not reset dev server on port " + instance.port, ex);
+            replace(instance);
+          }
+        });
+  }
+
+  private void recycle(Instance instance) {
+    if (instance.isAlive()) {
+      ready.add(instance);
+    } else {
+      replace(instance);
+    }
+  }
+
+  private void replace(Instance instance) {
+    if (closed) {
+      return;
+    }
+    execute(
+        () -> {
+          stopInstance(instance);
+          if (!closed) {
+            startInstance(instance.port);
+          }
+        });
+  }
+
+  private void execute(Runnable task) {
+    try {
+      executor.execute(task);
+    } catch (RejectedExecutionException ex) {
+      // the pool was closed in the meantime, close() stops all instances
+    }
+  }
+
+  private void stopInstance(Instance instance) {
+    if (instances.remove(instance)) {
+      stopProcess(instance);
+    }
+  }
+
+  private void stopProcess(Instance instance) {
+    Process process = instance.process;
+    if (process != null) {
+      stopProcess(instance, process);
+    }
+    if (instance.datastoreDirectory != null) {
+      try {
+        MoreFiles.deleteRecursively(
+            instance.datastoreDirectory, RecursiveDeleteOption.ALLOW_INSECURE);
+      } catch (IOException ex) {
+        logger.log(Level.FINE, "Could not delete " + instance.datastoreDirectory, ex);
+      }
+    }
+  }
+
+  private void stopProcess(Instance instance, Process process) {
+    try {
+      if (process.isAlive()) {
+        launcher.stop(instance.configuration);
+      }
+      if (!process.waitFor(STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+        process.destroyForcibly().waitFor(STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+      }
+    } catch (AppEngineException | RuntimeException ex) {
+      logger.log(Level.FINE, "Could not stop dev server on port " + instance.port, ex);
+      process.destroyForcibly();
+    } catch (InterruptedException ex) {
+      process.destroyForcibly();
+      Thread.currentThread().interrupt();
+    } finally {
+      ProcessReaper.getInstance().unregister(process);
+    }
+  }
+
+  /** Finds {@code count} ports that are free right now. */
+  private static List<Integer> findFreePorts(int count) throws IOException {
+    List<ServerSocket> sockets = new ArrayList<>();
+    try {
+      List<Integer> ports = new ArrayList<>();
+      for (int i = 0; i < count; i++) {
+        // keep them open until all are found, so that the same port isn't returned twice
+        ServerSocket socket = new ServerSocket(0);
+        sockets.add(socket);
+        ports.add(socket.getLocalPort());
+      }
+      return ports;
+    } finally {
+      for (ServerSocket socket : sockets) {
+        socket.close();
+      }
+    }
+  }
+
+  /**
+   * Starts dev servers with {@link DevServers}, waiting until they log that they started. Free
+   * ports are only reserved while they are picked, so a connection to the port doesn't prove that
+   * the server accepted it; no readiness probe is used.
+   */
+  private static class DevServersLauncher implements Launcher {
+    private final DevServers devServers;
+    private final int startTimeoutSeconds;
+
+    private DevServersLauncher(DevServers devServers, int startTimeoutSeconds) {
+      this.devServers = devServers;
+      this.startTimeoutSeconds = startTimeoutSeconds;
+    }
+
+    @Override
+    public Process start(RunConfiguration configuration) throws AppEngineException {
+      AtomicReference<Process> started = new AtomicReference<>();
+      LegacyProcessHandler handler =
+          LegacyProcessHandler.builder()
+              .setStartListener(
+                  process -> {
+                    // idle servers must not outlive the JVM
+                    ProcessReaper.getInstance().register(process);
+                    started.set(process);
+                  })
+              .buildDevAppServerAsync(startTimeoutSeconds);
+      try {
+        devServers.newDevAppServer(handler).run(configuration);
+      } catch (AppEngineException ex) {
+        Process process = started.get();
+        if (process != null) {
+          process.destroyForcibly();
+          ProcessReaper.getInstance().unregister(process);
+        }
+        throw ex;
+      }
+      Process process = started.get();
+      if (process == null) {
+        throw new AppEngineException("Dev server did not start");
+      }
+      logger.fine(
+          "Dev server on port "
+              + configuration.getPort()
+              + " ready in "
+              + handler.getTimeToReady());
+      return process;
+    }
+
+    @Override
+    public void stop(RunConfiguration configuration) throws AppEngineException {
+      LegacyProcessHandler handler = LegacyProcessHandler.builder().build();
+      devServers
+          .newDevAppServer(handler)
+          .stop(new StopConfiguration(configuration.getHost(), configuration.getPort()));
+    }
+  }
+
+  public static final class Builder {
+    private final DevServers devServers;
+    private final RunConfiguration template;
+    private int size = 2;
+    @Nullable private List<Integer> ports;
+    private int startTimeoutSeconds = 60;
+    @Nullable private ResetHook resetHook;
+
+    private Builder(DevServers devServers, RunConfiguration template) {
+      this.devServers = Preconditions.checkNotNull(devServers);
+      this.template = Preconditions.checkNotNull(template);
+    }
+
+    /** Number of servers in the pool, 2 by default. Ignored if {@link #ports} are given. */
+    public DevServerPool.Builder size(int size) {
+      Preconditions.checkArgument(size > 0, "size must be positive");
+      this.size = size;
+      return this;
+    }
+
+    /** One server is started on each port. By default, free ports are picked. */
+    public DevServerPool.Builder ports(Collection<Integer> ports) {
+      Preconditions.checkArgument(!ports.isEmpty(), "ports must not be empty");
+      this.ports = ImmutableList.copyOf(ports);
+      return this;
+    }
+
+    /** Seconds to wait for a server to start, 60 by default. */
+    public DevServerPool.Builder startTimeoutSeconds(int startTimeoutSeconds) {
+      Preconditions.checkArgument(startTimeoutSeconds > 0, "startTimeoutSeconds must be positive");
+      this.startTimeoutSeconds = startTimeoutSeconds;
+      return this;
+    }
+
+    /** Called on a returned server before it is handed out again. */
+    public DevServerPool.Builder resetHook(ResetHook resetHook) {
+      this.resetHook = Preconditions.checkNotNull(resetHook);
+      return this;
+    }
+
+    /**
+     * Build the pool and start its servers in the background.
+     *
+     * @throws IOException if free ports can't be found
+     */
+    public DevServerPool build() throws IOException {
+      List<Integer> poolPorts = ports != null ? ports : findFreePorts(size);
+      return new DevServerPool(
+          template,
+          new DevServersLauncher(devServers, startTimeoutSeconds),
+          resetHook,
+          poolPorts);
+    }
+  }
+}
@@ -28,16 +28,25 @@ import com.google.cloud.tools.appengine.operations.cloudsdk.process.StringBuilde
 import com.google.cloud.tools.appengine.operations.cloudsdk.serialization.CloudSdkComponent;
 import com.google.cloud.tools.appengine.operations.cloudsdk.serialization.CloudSdkConfig;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
-import com.google.gson.JsonSyntaxException;
+import com.google.common.collect.ImmutableMap;
+import com.google.gson.reflect.TypeToken;
 import java.io.IOException;
+import java.lang.reflect.Type;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.logging.Logger;
 import javax.annotation.Nullable;
 
 /** Operations that use gcloud. */
 public class Gcloud {
+  private static final Type COMPONENT_LIST_TYPE =
+      new TypeToken<List<CloudSdkComponent>>() {}.getType();
+
   private final CloudSdk sdk;
   private final GcloudRunner.Factory gcloudRunnerFactory;
   @Nullable private final String metricsEnvironment;
@@ -47,6 +56,8 @@ public class Gcloud {
   @Nullable private final String outputFormat;
   @Nullable private final String showStructuredLogs;
   @Nullable private final String verbosity;
+  @Nullable private final GcloudMetadataCache metadataCache;
+  @Nullable private final GcloudWorkerPool workerPool;
 
   private Gcloud(
       CloudSdk sdk,
@@ -57,7 +68,9 @@ public class Gcloud {
       @Nullable List<Path> flagsFiles,
       @Nullable String outputFormat,
       @Nullable String showStructuredLogs,
-      @Nullable String verbosity) {
+      @Nullable String verbosity,
+      @Nullable GcloudMetadataCache metadataCache,
+      @Nullable GcloudWorkerPool workerPool) {
     this.gcloudRunnerFactory = gcloudRunnerFactory;
     this.sdk = sdk;
     this.metricsEnvironment = metricsEnvironment;
@@ -67,6 +80,8 @@ public class Gcloud {
     this.outputFormat = outputFormat;
     this.showStructuredLogs = showStructuredLogs;
     this.verbosity = verbosity;
+    this.metadataCache = metadataCache;
+    this.workerPool = workerPool;
   }
 
   public Deployment newDeployment(ProcessHandler processHandler) {
@@ -88,16 +103,18 @@ public class Gcloud {
   /**
    * Returns the list of Cloud SDK Components and their settings, reported by the current gcloud
    * installation. Unlike other methods in this class that call gcloud, this method always uses a
-   * synchronous ProcessRunner and will block until the gcloud process returns.
+   * synchronous ProcessRunner and will block until the gcloud process returns. When a {@link
+   * GcloudMetadataCache} is set, the result is cached until the components installed in the Cloud
+   * SDK change.
    *
-   * @throws ProcessHandlerException when process runner encounters an error
-   * @throws JsonSyntaxException when the cloud SDK output cannot be parsed
+   * @throws ProcessHandlerException when process runner encounters an error, or when the output of
+   *     gcloud cannot be parsed
    * @throws CloudSdkNotFoundException when the Cloud SDK is not installed where expected
    * @throws CloudSdkOutOfDateException when the installed Cloud SDK is too old
    */
   public List<CloudSdkComponent> getComponents()
-      throws ProcessHandlerException, JsonSyntaxException, CloudSdkNotFoundException,
-          CloudSdkOutOfDateException, CloudSdkVersionFileException, IOException {
+      throws ProcessHandlerException, CloudSdkNotFoundException, CloudSdkOutOfDateException,
+          CloudSdkVersionFileException, IOException {
     sdk.validateCloudSdk();
 
     // gcloud components list --show-versions --format=json
@@ -108,13 +125,31 @@ public class Gcloud {
             .addAll(GcloudArgs.get("format", "json"))
             .build();
 
-    String componentsJson = runCommand(command);
-    return CloudSdkComponent.fromJsonList(componentsJson);
+    String key = null;
+    String fingerprint = null;
+    if (metadataCache != null) {
+      key = getCacheKey(command);
+      fingerprint = GcloudMetadataCache.componentsFingerprint(sdk);
+      List<CloudSdkComponent> cached = metadataCache.get(key, fingerprint, COMPONENT_LIST_TYPE);
+      if (cached != null) {
+        return new ArrayList<>(cached);
+      }
+    }
+
+    // parse the components while gcloud prints them
+    List<CloudSdkComponent> components = new ArrayList<>();
+    new JsonArrayProcessHandler<>(CloudSdkComponent.class, components::add)
+        .handleProcess(startCommand(command));
+    if (metadataCache != null) {
+      metadataCache.put(key, fingerprint, ImmutableList.copyOf(components));
+    }
+    return components;
   }
 
   /**
    * Returns a representation of gcloud config, it makes a synchronous call to gcloud config list to
-   * do so.
+   * do so. When a {@link GcloudMetadataCache} is set, the result is cached until the gcloud
+   * configuration changes.
    */
   public CloudSdkConfig getConfig()
       throws CloudSdkNotFoundException, CloudSdkOutOfDateException, CloudSdkVersionFileException,
@@ -127,8 +162,46 @@ public class Gcloud {
             .addAll(GcloudArgs.get("format", "json"))
             .build();
 
-    String configJson = runCommand(command);
-    return CloudSdkConfig.fromJson(configJson);
+    if (metadataCache == null) {
+      return CloudSdkConfig.fromJson(runCommand(command));
+    }
+    String key = getCacheKey(command);
+    String fingerprint = GcloudMetadataCache.configFingerprint(sdk);
+    CloudSdkConfig config = metadataCache.get(key, fingerprint, CloudSdkConfig.class);
+    if (config == null) {
+      config = CloudSdkConfig.fromJson(runCommand(command));
+      metadataCache.put(key, fingerprint, config);
+    }
+    return config;
+  }
+
+  private String getCacheKey(List<String> args) throws CloudSdkNotFoundException {
+    return getCacheKey(args, System.getenv());
+  }
+
+  /**
+   * Describes everything a cached gcloud call depends on besides the files covered by the
+   * fingerprints: the SDK, the arguments, the settings of this instance and the CLOUDSDK_*
+   * variables that gcloud reads from the environment.
+   */
+  @VisibleForTesting
+  String getCacheKey(List<String> args, Map<String, String> environment)
+      throws CloudSdkNotFoundException {
+    StringBuilder key = new StringBuilder(sdk.getPath().toAbsolutePath().toString());
+    key.append('\n').append("args=").append(String.join(" ", args));
+    key.append('\n').append("credentialFile=").append(credentialFile);
+    key.append('\n').append("flagsFiles=").append(flagsFiles);
+    key.append('\n').append("outputFormat=").append(outputFormat);
+    key.append('\n').append("showStructuredLogs=").append(showStructuredLogs);
+    key.append('\n').append("verbosity=").append(verbosity);
+    key.append('\n').append("metricsEnvironment=").append(metricsEnvironment);
+    key.append('\n').append("metricsEnvironmentVersion=").append(metricsEnvironmentVersion);
+    for (Map.Entry<String, String> variable : new TreeMap<>(environment).entrySet()) {
+      if (variable.getKey().startsWith("CLOUDSDK_")) {
+        key.append('\n').append(variable.getKey()).append('=').append(variable.getValue());
+      }
+    }
+    return key.toString();
   }
 
   /**
@@ -147,20 +220,12 @@ public class Gcloud {
         StringBuilderProcessOutputLineListener.newListenerWithNewlines();
     ExitCodeRecorderProcessExitListener exitListener = new ExitCodeRecorderProcessExitListener();
 
-    // build and run the command
-    List<String> command =
-        new ImmutableList.Builder<String>()
-            .add(sdk.getGCloudPath().toAbsolutePath().toString())
-            .addAll(args)
-            .build();
-
-    Process process = new ProcessBuilder(command).start();
     LegacyProcessHandler.builder()
         .addStdOutLineListener(stdOutListener)
         .addStdErrLineListener(stdErrListener)
         .setExitListener(exitListener)
         .build()
-        .handleProcess(process);
+        .handleProcess(startCommand(args));
 
     if (exitListener.getMostRecentExitCode() != null
         && !exitListener.getMostRecentExitCode().equals(0)) {
@@ -172,6 +237,18 @@ public class Gcloud {
     return stdOutListener.toString();
   }
 
+  private Process startCommand(List<String> args) throws CloudSdkNotFoundException, IOException {
+    if (workerPool != null) {
+      return workerPool.start(args, null, ImmutableMap.of());
+    }
+    List<String> command =
+        new ImmutableList.Builder<String>()
+            .add(sdk.getGCloudPath().toAbsolutePath().toString())
+            .addAll(args)
+            .build();
+    return new ProcessBuilder(command).start();
+  }
+
   @VisibleForTesting
   GcloudRunner getRunner(ProcessHandler processHandler) {
     return gcloudRunnerFactory.newRunner(
@@ -183,6 +260,7 @@ public class Gcloud {
         outputFormat,
         showStructuredLogs,
         verbosity,
+        workerPool,
         processHandler);
   }
 
@@ -202,6 +280,8 @@ public class Gcloud {
     @Nullable private String outputFormat;
     @Nullable private String showStructuredLogs;
     @Nullable private String verbosity;
+    @Nullable private GcloudMetadataCache metadataCache;
+    @Nullable private GcloudWorkerPool workerPool;
 
     private Builder(CloudSdk sdk) {
       this(sdk, new GcloudRunner.Factory());
@@ -261,6 +341,25 @@ public class Gcloud {
       return this;
     }
 
+    /**
+     * Cache {@link Gcloud#getComponents()} and {@link Gcloud#getConfig()} results in {@code
+     * metadataCache}, for example {@link GcloudMetadataCache#getDefault()}. Results are not cached
+     * by default.
+     */
+    public Builder setMetadataCache(GcloudMetadataCache metadataCache) {
+      this.metadataCache = Preconditions.checkNotNull(metadataCache);
+      return this;
+    }
+
+    /**
+     * Run gcloud commands on the warm workers of {@code workerPool} instead of starting a new
+     * gcloud process for each. The pool is not closed by Gcloud.
+     */
+    public Builder setWorkerPool(GcloudWorkerPool workerPool) {
+      this.workerPool = Preconditions.checkNotNull(workerPool);
+      return this;
+    }
+
     /** Build an immutable Gcloud instance. */
     public Gcloud build() {
       return new Gcloud(
@@ -272,7 +371,9 @@ public class Gcloud {
           flagsFiles,
           outputFormat,
           showStructuredLogs,
-          verbosity);
+          verbosity,
+          metadataCache,
+          workerPool);
     }
   }
 }
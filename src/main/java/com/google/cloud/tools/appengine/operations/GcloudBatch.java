@@ -0,0 +1,98 @@
+/*
+ * Copyright 2026 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.appengine.operations;
+
+import com.google.cloud.tools.appengine.AppEngineException;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Runs the gcloud invocations of a batch operation on a bounded pool of daemon threads, and
+ * collects their results in the order they were submitted. Tasks report their failures in their
+ * results, a task that throws is a bug.
+ */
+final class GcloudBatch<T> implements AutoCloseable {
+
+  private final ExecutorService executor;
+  private final List<CompletableFuture<T>> tasks = new ArrayList<>();
+
+  /**
+   * Creates a batch.
+   *
+   * @param parallelism maximum number of tasks running at the same time
+   * @param threadNameFormat names the threads of the pool, see {@link
+   *     ThreadFactoryBuilder#setNameFormat}
+   */
+  GcloudBatch(int parallelism, String threadNameFormat) {
+    executor =
+        Executors.newFixedThreadPool(
+            parallelism,
+            new ThreadFactoryBuilder().setNameFormat(threadNameFormat).setDaemon(true).build());
+  }
+
+  /** Run {@code task} on the pool. */
+  CompletableFuture<T> submit(Supplier<T> task) {
+    return add(CompletableFuture.supplyAsync(task, executor));
+  }
+
+  /** Run {@code task} on the pool once all of {@code dependencies} are done. */
+  CompletableFuture<T> submitAfter(List<CompletableFuture<T>> dependencies, Supplier<T> task) {
+    return add(
+        CompletableFuture.allOf(dependencies.toArray(new CompletableFuture<?>[0]))
+            .thenApplyAsync(ignored -> task.get(), executor));
+  }
+
+  private CompletableFuture<T> add(CompletableFuture<T> task) {
+    tasks.add(task);
+    return task;
+  }
+
+  /**
+   * Wait for all tasks.
+   *
+   * @param activity what the batch does, for the exception thrown when interrupted
+   * @return the results of the tasks, in the order they were submitted
+   * @throws AppEngineException when interrupted while waiting
+   */
+  List<T> join(String activity) throws AppEngineException {
+    List<T> results = new ArrayList<>();
+    try {
+      for (CompletableFuture<T> task : tasks) {
+        results.add(task.get());
+      }
+      return results;
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new AppEngineException("Interrupted while " + activity, ex);
+    } catch (ExecutionException ex) {
+      // tasks report their failures in their results
+      throw new IllegalStateException(ex.getCause());
+    }
+  }
+
+  /** Stop the pool, interrupting tasks that are still running. */
+  @Override
+  public void close() {
+    executor.shutdownNow();
+  }
+}
@@ -0,0 +1,265 @@
+/*
+ * Copyright 2026 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.appengine.operations;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Strings;
+import com.google.common.hash.Hashing;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Nullable;
+
+/**
+ * Cache for the parsed output of gcloud commands that only describe the local installation, like
+ * {@code gcloud components list} and {@code gcloud config list}.
+ *
+ * <p>Every entry is stored with a fingerprint of the files the command output depends on: the SDK
+ * location, its VERSION file, the component manifests in {@code .install} and the gcloud
+ * configuration directory. An entry is only returned while its fingerprint still matches, so
+ * installing components, updating the SDK or changing the configuration invalidates it. Entries are
+ * kept in memory and, optionally, in a directory on disk so they survive JVM restarts.
+ *
+ * <p>Caching is opt-in, see {@link Gcloud.Builder#setMetadataCache(GcloudMetadataCache)}.
+ */
+public class GcloudMetadataCache {
+
+  private static final Logger logger = Logger.getLogger(GcloudMetadataCache.class.getName());
+
+  private static final GcloudMetadataCache DEFAULT = new GcloudMetadataCache(null);
+
+  private static final Gson gson = new Gson();
+
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+  @Nullable private final Path diskDirectory;
+
+  private GcloudMetadataCache(@Nullable Path diskDirectory) {
+    this.diskDirectory = diskDirectory;
+  }
+
+  /** Returns an in-memory cache that {@link Gcloud} instances can share. */
+  public static GcloudMetadataCache getDefault() {
+    return DEFAULT;
+  }
+
+  /** Create an in-memory cache. */
+  public static GcloudMetadataCache inMemory() {
+    return new GcloudMetadataCache(null);
+  }
+
+  /**
+   * Create a cache that also persists entries as files in {@code diskDirectory}. The directory is
+   * created when the first entry is stored.
+   */
+  public static GcloudMetadataCache onDisk(Path diskDirectory) {
+    return new GcloudMetadataCache(Preconditions.checkNotNull(diskDirectory));
+  }
+
+  /** Forget all entries, in memory and on disk. */
+  public void invalidateAll() {
+    entries.clear();
+    if (diskDirectory == null || !Files.isDirectory(diskDirectory)) {
+      return;
+    }
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(diskDirectory, "*.json")) {
+      for (Path file : files) {
+        Files.deleteIfExists(file);
+      }
+    } catch (IOException ex) {
+      logger.log(Level.WARNING, "Could not clear gcloud metadata cache in " + diskDirectory, ex);
+    }
+  }
+
+  /**
+   * Returns the cached value for {@code key} if it was stored with {@code fingerprint}. Values
+   * are kept in memory as they were stored, and read from disk with Gson.
+   *
+   * @param type the type of the value, to de-serialize it from disk
+   */
+  @Nullable
+  @SuppressWarnings("unchecked")
+  <T> T get(String key, String fingerprint, Type type) {
+    Entry entry = entries.get(key);
+    if (entry == null && diskDirectory != null) {
+      entry = readFromDisk(key, type);
+      if (entry != null) {
+        entries.put(key, entry);
+      }
+    }
+    if (entry != null && entry.fingerprint.equals(fingerprint)) {
+      return (T) entry.value;
+    }
+    return null;
+  }
+
+  /** Stores {@code value}, which must be serializable with Gson if the cache is on disk. */
+  void put(String key, String fingerprint, Object value) {
+    Entry entry = new Entry(fingerprint, value);
+    entries.put(key, entry);
+    if (diskDirectory != null) {
+      writeToDisk(key, entry);
+    }
+  }
+
+  /** Fingerprint of the files that {@code gcloud components list} output depends on. */
+  static String componentsFingerprint(CloudSdk sdk) {
+    List<Path> paths = new ArrayList<>();
+    paths.add(sdk.getPath().resolve("VERSION"));
+    Path installDirectory = sdk.getPath().resolve(".install");
+    paths.add(installDirectory);
+    paths.addAll(listFiles(installDirectory));
+    return fingerprint(sdk, paths);
+  }
+
+  /** Fingerprint of the files that {@code gcloud config list} output depends on. */
+  static String configFingerprint(CloudSdk sdk) {
+    return configFingerprint(sdk, getConfigDirectory(System.getenv()));
+  }
+
+  @VisibleForTesting
+  static String configFingerprint(CloudSdk sdk, Path configDirectory) {
+    List<Path> paths = new ArrayList<>();
+    paths.add(sdk.getPath().resolve("VERSION"));
+    // installation wide properties
+    paths.add(sdk.getPath().resolve("properties"));
+    paths.add(configDirectory.resolve("active_config"));
+    Path configurations = configDirectory.resolve("configurations");
+    paths.add(configurations);
+    paths.addAll(listFiles(configurations));
+    return configDirectory + "|" + fingerprint(sdk, paths);
+  }
+
+  /** Same lookup as gcloud: CLOUDSDK_CONFIG, or the per-user default location. */
+  @VisibleForTesting
+  static Path getConfigDirectory(Map<String, String> environment) {
+    String cloudSdkConfig = environment.get("CLOUDSDK_CONFIG");
+    if (!Strings.isNullOrEmpty(cloudSdkConfig)) {
+      return Paths.get(cloudSdkConfig);
+    }
+    String appData = environment.get("APPDATA");
+    if (System.getProperty("os.name").contains("Windows") && !Strings.isNullOrEmpty(appData)) {
+      return Paths.get(appData, "gcloud");
+    }
+    return Paths.get(System.getProperty("user.home"), ".config", "gcloud");
+  }
+
+  private static String fingerprint(CloudSdk sdk, List<Path> paths) {
+    StringBuilder fingerprint = new StringBuilder(sdk.getPath().toAbsolutePath().toString());
+    for (Path path : paths) {
+      fingerprint.append('|').append(path.getFileName()).append('@');
+      try {
+        fingerprint.append(Files.getLastModifiedTime(path).toMillis());
+        if (Files.isRegularFile(path)) {
+          fingerprint.append(':').append(Files.size(path));
+        }
+      } catch (IOException ex) {
+        // a missing file is part of the fingerprint too
+        fingerprint.append('-');
+      }
+    }
+    return fingerprint.toString();
+  }
+
+  private static List<Path> listFiles(Path directory) {
+    List<Path> files = new ArrayList<>();
+    if (!Files.isDirectory(directory)) {
+      return files;
+    }
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+      for (Path file : stream) {
+        files.add(file);
+      }
+    } catch (IOException ex) {
+      logger.log(Level.FINE, "Could not list " + directory, ex);
+    }
+    // directory order is not stable across calls on every file system
+    Collections.sort(files);
+    return files;
+  }
+
+  private Path getDiskFile(Path diskDirectory, String key) {
+    return diskDirectory.resolve(
+        Hashing.sha256().hashString(key, StandardCharsets.UTF_8).toString() + ".json");
+  }
+
+  @Nullable
+  private Entry readFromDisk(String key, Type type) {
+    Preconditions.checkNotNull(diskDirectory);
+    Path file = getDiskFile(diskDirectory, key);
+    try {
+      String contents = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+      int newline = contents.indexOf('\n');
+      if (newline < 0) {
+        return null;
+      }
+      Object value = gson.fromJson(contents.substring(newline + 1), type);
+      return value == null ? null : new Entry(contents.substring(0, newline), value);
+    } catch (NoSuchFileException ex) {
+      return null;
+    } catch (IOException | JsonParseException ex) {
+      logger.log(Level.WARNING, "Could not read gcloud metadata cache file " + file, ex);
+      return null;
+    }
+  }
+
+  private void writeToDisk(String key, Entry entry) {
+    Preconditions.checkNotNull(diskDirectory);
+    Path file = getDiskFile(diskDirectory, key);
+    try {
+      Files.createDirectories(diskDirectory);
+      // write aside and rename, so that concurrent readers never see a partial entry
+      Path temp = Files.createTempFile(diskDirectory, file.getFileName().toString(), ".tmp");
+      String contents = entry.fingerprint + "\n" + gson.toJson(entry.value);
+      Files.write(temp, contents.getBytes(StandardCharsets.UTF_8));
+      try {
+        Files.move(
+            temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException ex) {
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } catch (IOException ex) {
+      logger.log(Level.WARNING, "Could not write gcloud metadata cache file " + file, ex);
+    }
+  }
+
+  private static class Entry {
+    private final String fingerprint;
+    private final Object value;
+
+    private Entry(String fingerprint, Object value) {
+      this.fingerprint = fingerprint;
+      this.value = value;
+    }
+  }
+}
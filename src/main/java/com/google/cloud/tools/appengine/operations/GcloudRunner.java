@@ -46,6 +46,7 @@ public class GcloudRunner {
   @Nullable private final String outputFormat;
   @Nullable private final String showStructuredLogs;
   @Nullable private final String verbosity;
+  @Nullable private final GcloudWorkerPool workerPool;
   private final ProcessBuilderFactory processBuilderFactory;
   private final ProcessHandler processHandler;
 
@@ -58,6 +59,7 @@ public class GcloudRunner {
       @Nullable String outputFormat,
       @Nullable String showStructuredLogs,
       @Nullable String verbosity,
+      @Nullable GcloudWorkerPool workerPool,
       ProcessBuilderFactory processBuilderFactory,
       ProcessHandler processHandler) {
     this.sdk = sdk;
@@ -68,6 +70,7 @@ public class GcloudRunner {
     this.outputFormat = outputFormat;
     this.showStructuredLogs = showStructuredLogs;
     this.verbosity = verbosity;
+    this.workerPool = workerPool;
     this.processBuilderFactory = processBuilderFactory;
     this.processHandler = processHandler;
   }
@@ -80,14 +83,57 @@ public class GcloudRunner {
   void run(List<String> arguments, @Nullable Path workingDirectory)
       throws ProcessHandlerException, CloudSdkNotFoundException, CloudSdkOutOfDateException,
           CloudSdkVersionFileException, IOException {
+    run(arguments, workingDirectory, processHandler);
+  }
+
+  /**
+   * Launch an external process that runs gcloud, handled by {@code processHandler} instead of this
+   * runner's process handler. A {@code --format} in {@code arguments} overrides the output format
+   * of this runner.
+   *
+   * @param workingDirectory if null then the working directory of current Java process
+   */
+  void run(List<String> arguments, @Nullable Path workingDirectory, ProcessHandler processHandler)
+      throws ProcessHandlerException, CloudSdkNotFoundException, CloudSdkOutOfDateException,
+          CloudSdkVersionFileException, IOException {
+    processHandler.handleProcess(start(arguments, workingDirectory));
+  }
+
+  /**
+   * Like {@link #run(List, Path, ProcessHandler)}, but also waits for gcloud to exit when {@code
+   * processHandler} handles the process asynchronously.
+   *
+   * @throws ProcessHandlerException when gcloud exits with a non-zero code
+   */
+  void runAndCheckExitCode(
+      List<String> arguments, @Nullable Path workingDirectory, ProcessHandler processHandler)
+      throws ProcessHandlerException, CloudSdkNotFoundException, CloudSdkOutOfDateException,
+          CloudSdkVersionFileException, IOException {
+    Process process = start(arguments, workingDirectory);
+    processHandler.handleProcess(process);
+    int exitCode;
+    try {
+      exitCode = process.waitFor();
+    } catch (InterruptedException ex) {
+      process.destroy();
+      Thread.currentThread().interrupt();
+      throw new ProcessHandlerException(ex);
+    }
+    if (exitCode != 0) {
+      throw new ProcessHandlerException("gcloud exited with code " + exitCode);
+    }
+  }
 
+  private Process start(List<String> arguments, @Nullable Path workingDirectory)
+      throws CloudSdkNotFoundException, CloudSdkOutOfDateException, CloudSdkVersionFileException,
+          IOException {
     sdk.validateCloudSdk();
 
     List<String> command = new ArrayList<>();
     command.add(sdk.getGCloudPath().toAbsolutePath().toString());
 
     command.addAll(arguments);
-    if (outputFormat != null) {
+    if (outputFormat != null && !arguments.contains("--format")) {
       command.addAll(GcloudArgs.get("format", outputFormat));
     }
 
@@ -107,14 +153,18 @@ public class GcloudRunner {
 
     logger.info("submitting command: " + Joiner.on(" ").join(command));
 
+    if (workerPool != null) {
+      return workerPool.start(
+          command.subList(1, command.size()), workingDirectory, getGcloudCommandEnvironment());
+    }
+
     ProcessBuilder processBuilder = processBuilderFactory.newProcessBuilder();
     processBuilder.command(command);
     if (workingDirectory != null) {
       processBuilder.directory(workingDirectory.toFile());
     }
     processBuilder.environment().putAll(getGcloudCommandEnvironment());
-    Process process = processBuilder.start();
-    processHandler.handleProcess(process);
+    return processBuilder.start();
   }
 
   @VisibleForTesting
@@ -164,6 +214,7 @@ public class GcloudRunner {
         @Nullable String outputFormat,
         @Nullable String showStructuredLogs,
         @Nullable String verbosity,
+        @Nullable GcloudWorkerPool workerPool,
         ProcessHandler processHandler) {
       return new GcloudRunner(
           sdk,
@@ -174,6 +225,7 @@ public class GcloudRunner {
           outputFormat,
           showStructuredLogs,
           verbosity,
+          workerPool,
           processBuilderFactory,
           processHandler);
     }
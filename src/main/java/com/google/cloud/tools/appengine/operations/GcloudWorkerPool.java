@@ -0,0 +1,212 @@
+/*
+ * Copyright 2026 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.appengine.operations;
+
+import com.google.cloud.tools.appengine.operations.cloudsdk.internal.process.ProcessReaper;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Nullable;
+
+/**
+ * Keeps a few gcloud processes started ahead of time, so that short commands don't wait for the
+ * Python interpreter to start and load gcloud.
+ *
+ * <p>gcloud takes its command on the command line, so a worker can't be given one after it started.
+ * Instead, workers run a small helper that loads gcloud and then reads a single command, with its
+ * working directory and environment, from stdin. The worker then runs that command like gcloud
+ * would, so its {@link Process} can be handed to any {@link
+ * com.google.cloud.tools.appengine.operations.cloudsdk.process.ProcessHandler}. Every worker runs
+ * one command and exits; a new worker is started in the background to replace it.
+ *
+ * <p>Environment variables that gcloud reads while it loads come from this JVM's environment, not
+ * from the environment of the command. Workers that were started before the Cloud SDK was updated
+ * run the old version; {@link #close} the pool after updating. Pass a pool to {@link
+ * Gcloud.Builder#setWorkerPool} to use it.
+ */
+public class GcloudWorkerPool implements Closeable {
+
+  private static final Logger logger = Logger.getLogger(GcloudWorkerPool.class.getName());
+
+  private static final String WORKER_SCRIPT = "gcloud_worker.py";
+
+  private final List<String> workerCommand;
+  private final int size;
+  private final BlockingQueue<Process> idleWorkers;
+  private final ExecutorService spawner =
+      Executors.newSingleThreadExecutor(
+          new ThreadFactoryBuilder()
+              .setNameFormat("gcloud-worker-spawner")
+              .setDaemon(true)
+              .build());
+  private volatile boolean closed;
+
+  @VisibleForTesting
+  GcloudWorkerPool(List<String> workerCommand, int size) {
+    Preconditions.checkArgument(size > 0, "size must be positive");
+    this.workerCommand = ImmutableList.copyOf(workerCommand);
+    this.size = size;
+    this.idleWorkers = new LinkedBlockingQueue<>(size);
+    for (int i = 0; i < size; i++) {
+      spawner.execute(this::addIdleWorker);
+    }
+  }
+
+  /**
+   * Start a pool of {@code size} workers for the Cloud SDK at {@code sdk}.
+   *
+   * @throws IOException if the worker helper can't be written to a temporary file
+   */
+  public static GcloudWorkerPool create(CloudSdk sdk, int size) throws IOException {
+    Path script = Files.createTempFile("gcloud_worker", ".py");
+    script.toFile().deleteOnExit();
+    try (InputStream in = GcloudWorkerPool.class.getResourceAsStream(WORKER_SCRIPT)) {
+      Preconditions.checkState(in != null, WORKER_SCRIPT + " is missing");
+      Files.copy(in, script, StandardCopyOption.REPLACE_EXISTING);
+    }
+    List<String> workerCommand = new ArrayList<>();
+    workerCommand.add(getPython(sdk));
+    // like bin/gcloud, don't let user site-packages shadow gcloud's own libraries
+    workerCommand.add("-S");
+    workerCommand.add(script.toString());
+    workerCommand.add(sdk.getPath().toAbsolutePath().toString());
+    return new GcloudWorkerPool(workerCommand, size);
+  }
+
+  /** Same interpreter lookup as bin/gcloud. */
+  private static String getPython(CloudSdk sdk) {
+    String cloudSdkPython = System.getenv("CLOUDSDK_PYTHON");
+    if (cloudSdkPython != null) {
+      return cloudSdkPython;
+    }
+    if (System.getProperty("os.name").contains("Windows")) {
+      return sdk.getWindowsPythonPath().toString();
+    }
+    Path bundledPython = sdk.getPath().resolve("platform/bundledpythonunix/bin/python3");
+    if (Files.isRegularFile(bundledPython)) {
+      return bundledPython.toString();
+    }
+    return "python3";
+  }
+
+  /**
+   * Run gcloud with {@code arguments} on a warm worker, or on a new one if none is idle.
+   *
+   * @param arguments the gcloud arguments, not including gcloud itself
+   * @param workingDirectory if null then the working directory of current Java process
+   * @param environment variables to add to the environment of the command
+   * @return the process running the command
+   */
+  Process start(
+      List<String> arguments, @Nullable Path workingDirectory, Map<String, String> environment)
+      throws IOException {
+    Preconditions.checkState(!closed, "worker pool is closed");
+    Process worker = idleWorkers.poll();
+    while (worker != null && !worker.isAlive()) {
+      // the worker crashed or was killed while idle
+      ProcessReaper.getInstance().unregister(worker);
+      worker = idleWorkers.poll();
+    }
+    if (worker == null) {
+      logger.fine("No idle gcloud worker, starting one");
+      worker = newWorker();
+    }
+    spawner.execute(this::addIdleWorker);
+
+    JsonArray args = new JsonArray();
+    arguments.forEach(args::add);
+    JsonObject env = new JsonObject();
+    environment.forEach(env::addProperty);
+    JsonObject request = new JsonObject();
+    request.add("args", args);
+    request.addProperty(
+        "cwd",
+        (workingDirectory != null ? workingDirectory : Paths.get(""))
+            .toAbsolutePath()
+            .toString());
+    request.add("env", env);
+
+    try (OutputStream stdin = worker.getOutputStream()) {
+      stdin.write((request.toString() + "\n").getBytes(StandardCharsets.UTF_8));
+    } catch (IOException ex) {
+      worker.destroy();
+      ProcessReaper.getInstance().unregister(worker);
+      throw ex;
+    }
+    return worker;
+  }
+
+  /** Returns the number of workers waiting for a command. */
+  public int getIdleWorkerCount() {
+    return idleWorkers.size();
+  }
+
+  /** Stop all idle workers. Commands that are already running are not affected. */
+  @Override
+  public void close() {
+    closed = true;
+    spawner.shutdownNow();
+    Process worker;
+    while ((worker = idleWorkers.poll()) != null) {
+      worker.destroy();
+      ProcessReaper.getInstance().unregister(worker);
+    }
+  }
+
+  private void addIdleWorker() {
+    if (closed || idleWorkers.size() >= size) {
+      return;
+    }
+    try {
+      Process worker = newWorker();
+      if (closed || !idleWorkers.offer(worker)) {
+        worker.destroy();
+        ProcessReaper.getInstance().unregister(worker);
+      }
+    } catch (IOException ex) {
+      logger.log(Level.WARNING, "Could not start gcloud worker", ex);
+    }
+  }
+
+  private Process newWorker() throws IOException {
+    Process worker = new ProcessBuilder(workerCommand).start();
+    // make sure idle workers don't outlive the JVM
+    ProcessReaper.getInstance().register(worker);
+    return worker;
+  }
+}
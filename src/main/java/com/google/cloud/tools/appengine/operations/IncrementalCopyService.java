@@ -0,0 +1,295 @@
+/*
+ * Copyright 2026 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.appengine.operations;
+
+import com.google.cloud.tools.io.DirectoryCopier;
+import com.google.cloud.tools.io.FileUtil;
+import com.google.cloud.tools.io.LinkStrategy;
+import com.google.common.hash.Hashing;
+import com.google.common.io.MoreFiles;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.CopyOption;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Nullable;
+
+/**
+ * Copies files into a staging directory only if they changed since the previous staging run.
+ *
+ * <p>A manifest records the source, size, modification time and SHA-256 hash of every staged file,
+ * and the size and modification time of its staged copy. A file is copied again if its source
+ * changed size, or changed modification time and content, or if its staged copy was modified.
+ * Unlike {@link AppYamlProjectStaging.CopyService}, directory copies overwrite existing files.
+ * Directories are walked by {@link DirectoryCopier}, so several files may be checked and copied at
+ * the same time. {@link #finish} deletes the files staged by the previous run that were not staged again, and
+ * saves the manifest.
+ */
+class IncrementalCopyService extends AppYamlProjectStaging.CopyService {
+
+  private static final Logger logger = Logger.getLogger(IncrementalCopyService.class.getName());
+
+  private static final Gson gson = new Gson();
+
+  private final Path manifestFile;
+  private final Path stagingDirectory;
+  private final Map<String, Entry> previous;
+  private final Map<String, Entry> current = new LinkedHashMap<>();
+  private final List<Path> added = new ArrayList<>();
+  private final List<Path> updated = new ArrayList<>();
+  private final List<Path> unchanged = new ArrayList<>();
+
+  private IncrementalCopyService(
+      Path manifestFile,
+      Path stagingDirectory,
+      Map<String, Entry> previous,
+      LinkStrategy linkStrategy,
+      int parallelism) {
+    super(linkStrategy, parallelism);
+    this.manifestFile = manifestFile;
+    this.stagingDirectory = stagingDirectory;
+    this.previous = previous;
+  }
+
+  /**
+   * Read the manifest of the previous run. A missing or unreadable manifest, or one written for
+   * another staging directory, is ignored, so all files are copied.
+   */
+  static IncrementalCopyService load(
+      Path manifestFile, Path stagingDirectory, LinkStrategy linkStrategy, int parallelism) {
+    Path normalizedStagingDirectory = stagingDirectory.toAbsolutePath().normalize();
+    Map<String, Entry> previous = Collections.emptyMap();
+    try (Reader reader = Files.newBufferedReader(manifestFile, StandardCharsets.UTF_8)) {
+      Manifest manifest = gson.fromJson(reader, Manifest.class);
+      if (manifest != null
+          && manifest.files != null
+          && normalizedStagingDirectory.toString().equals(manifest.stagingDirectory)) {
+        previous = manifest.files;
+      }
+    } catch (NoSuchFileException ex) {
+      // first run
+    } catch (IOException | JsonParseException ex) {
+      logger.log(Level.WARNING, "Ignoring unreadable staging manifest " + manifestFile, ex);
+    }
+    return new IncrementalCopyService(
+        manifestFile, normalizedStagingDirectory, previous, linkStrategy, parallelism);
+  }
+
+  @Override
+  void copyDirectory(Path src, Path dest, List<Path> excludes) throws IOException {
+    DirectoryCopier.Statistics statistics =
+        DirectoryCopier.builder()
+            .excludes(excludes)
+            .fileCopier((file, destination) -> copyFile(file, destination, true))
+            .parallelism(parallelism)
+            .build()
+            .copy(src, dest);
+    logger.fine("Checked " + statistics + " from " + src);
+  }
+
+  @Override
+  void copyFileAndReplace(Path src, Path dest) throws IOException {
+    copyFile(src, dest, false);
+  }
+
+  private void copyFile(Path source, Path destination, boolean copyAttributes)
+      throws IOException {
+    Path relativePath = stagingDirectory.relativize(destination.toAbsolutePath().normalize());
+    String key = relativePath.toString().replace('\\', '/');
+    String sourcePath = source.toAbsolutePath().normalize().toString();
+    BasicFileAttributes sourceAttributes = Files.readAttributes(source, BasicFileAttributes.class);
+    long size = sourceAttributes.size();
+    long lastModified = sourceAttributes.lastModifiedTime().toMillis();
+
+    String hash = null;
+    Entry previousEntry = previous.get(key);
+    boolean stagedThisRun;
+    synchronized (this) {
+      stagedThisRun = current.containsKey(key);
+      if (stagedThisRun) {
+        // staged again from another source, the last copy wins
+        added.remove(relativePath);
+        updated.remove(relativePath);
+        unchanged.remove(relativePath);
+      }
+    }
+    if (!stagedThisRun
+        && previousEntry != null
+        && sourcePath.equals(previousEntry.source)
+        && previousEntry.size == size
+        && isStagedCopyIntact(previousEntry, source, destination)) {
+      if (previousEntry.lastModified == lastModified) {
+        record(key, previousEntry, unchanged, relativePath);
+        return;
+      }
+      // e.g. rebuilt without changes
+      hash = hash(source);
+      if (hash.equals(previousEntry.sha256)) {
+        record(key, previousEntry.withLastModified(lastModified), unchanged, relativePath);
+        return;
+      }
+    }
+
+    if (hash == null) {
+      hash = hash(source);
+    }
+    Files.createDirectories(destination.getParent());
+    CopyOption[] copyOptions =
+        copyAttributes
+            ? new CopyOption[] {
+              StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES
+            }
+            : new CopyOption[] {StandardCopyOption.REPLACE_EXISTING};
+    FileUtil.copyFile(source, destination, linkStrategy, copyOptions);
+    BasicFileAttributes stagedAttributes =
+        Files.readAttributes(destination, BasicFileAttributes.class);
+    Entry entry =
+        new Entry(
+            sourcePath,
+            size,
+            lastModified,
+            hash,
+            stagedAttributes.size(),
+            stagedAttributes.lastModifiedTime().toMillis());
+    record(key, entry, previousEntry == null ? added : updated, relativePath);
+  }
+
+  /** Record a staged file; directory copies call {@link #copyFile} from several threads. */
+  private synchronized void record(String key, Entry entry, List<Path> list, Path relativePath) {
+    current.put(key, entry);
+    list.add(relativePath);
+  }
+
+  private static boolean isStagedCopyIntact(Entry entry, Path source, Path destination)
+      throws IOException {
+    if (!Files.isRegularFile(destination)) {
+      return false;
+    }
+    if (Files.isSameFile(source, destination)) {
+      // linked, so it changes with the source
+      return true;
+    }
+    BasicFileAttributes attributes = Files.readAttributes(destination, BasicFileAttributes.class);
+    return attributes.size() == entry.stagedSize
+        && attributes.lastModifiedTime().toMillis() == entry.stagedLastModified;
+  }
+
+  private static String hash(Path file) throws IOException {
+    return MoreFiles.asByteSource(file).hash(Hashing.sha256()).toString();
+  }
+
+  /**
+   * Delete the files staged by the previous run that were not staged by this one, and save the
+   * manifest of this run.
+   */
+  IncrementalStagingResult finish() throws IOException {
+    List<Path> deleted = new ArrayList<>();
+    for (String key : previous.keySet()) {
+      if (current.containsKey(key)) {
+        continue;
+      }
+      Path file = stagingDirectory.resolve(key).normalize();
+      // Class-Path entries may point outside of the staging directory
+      if (file.startsWith(stagingDirectory) && Files.deleteIfExists(file)) {
+        deleted.add(stagingDirectory.relativize(file));
+        deleteEmptyParents(file);
+      }
+    }
+
+    Manifest manifest = new Manifest();
+    manifest.stagingDirectory = stagingDirectory.toString();
+    manifest.files = current;
+    Path parent = manifestFile.toAbsolutePath().getParent();
+    Files.createDirectories(parent);
+    // write aside and rename, so that an interrupted run never leaves a partial manifest
+    Path temp = Files.createTempFile(parent, manifestFile.getFileName().toString(), ".tmp");
+    try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+      gson.toJson(manifest, writer);
+    }
+    try {
+      Files.move(
+          temp, manifestFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (AtomicMoveNotSupportedException ex) {
+      Files.move(temp, manifestFile, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    return new IncrementalStagingResult(added, updated, unchanged, deleted);
+  }
+
+  private void deleteEmptyParents(Path file) throws IOException {
+    for (Path directory = file.getParent();
+        directory != null && !directory.equals(stagingDirectory);
+        directory = directory.getParent()) {
+      try {
+        Files.deleteIfExists(directory);
+      } catch (DirectoryNotEmptyException ex) {
+        return;
+      }
+    }
+  }
+
+  private static class Manifest {
+    // Don't change the field names because Gson uses them for (de-)serialization.
+    @Nullable private String stagingDirectory;
+    @Nullable private Map<String, Entry> files;
+  }
+
+  private static class Entry {
+    // Don't change the field names because Gson uses them for (de-)serialization.
+    private final String source;
+    private final long size;
+    private final long lastModified;
+    private final String sha256;
+    private final long stagedSize;
+    private final long stagedLastModified;
+
+    private Entry(
+        String source,
+        long size,
+        long lastModified,
+        String sha256,
+        long stagedSize,
+        long stagedLastModified) {
+      this.source = source;
+      this.size = size;
+      this.lastModified = lastModified;
+      this.sha256 = sha256;
+      this.stagedSize = stagedSize;
+      this.stagedLastModified = stagedLastModified;
+    }
+
+    private Entry withLastModified(long lastModified) {
+      return new Entry(source, size, lastModified, sha256, stagedSize, stagedLastModified);
+    }
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2026 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.appengine.operations;
+
+import com.google.common.collect.ImmutableList;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * What {@link AppYamlProjectStaging#stageArchiveIncrementally} changed in the staging directory.
+ * All paths are relative to the staging directory.
+ */
+public class IncrementalStagingResult {
+
+  private final List<Path> added;
+  private final List<Path> updated;
+  private final List<Path> unchanged;
+  private final List<Path> deleted;
+
+  IncrementalStagingResult(
+      List<Path> added, List<Path> updated, List<Path> unchanged, List<Path> deleted) {
+    this.added = ImmutableList.copyOf(added);
+    this.updated = ImmutableList.copyOf(updated);
+    this.unchanged = ImmutableList.copyOf(unchanged);
+    this.deleted = ImmutableList.copyOf(deleted);
+  }
+
+  /** Files that were not staged by the previous run. */
+  public List<Path> getAdded() {
+    return added;
+  }
+
+  /** Files that were copied again because their source or staged copy changed. */
+  public List<Path> getUpdated() {
+    return updated;
+  }
+
+  /** Files that were not copied because neither their source nor staged copy changed. */
+  public List<Path> getUnchanged() {
+    return unchanged;
+  }
+
+  /** Files staged by the previous run that are no longer part of the application. */
+  public List<Path> getDeleted() {
+    return deleted;
+  }
+
+  /** True if the staging directory is the same as after the previous run. */
+  public boolean isUnchanged() {
+    return added.isEmpty() && updated.isEmpty() && deleted.isEmpty();
+  }
+
+  @Override
+  public String toString() {
+    return added.size()
+        + " added, "
+        + updated.size()
+        + " updated, "
+        + unchanged.size()
+        + " unchanged, "
+        + deleted.size()
+        + " deleted";
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2026 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.appengine.operations;
+
+import com.google.cloud.tools.appengine.operations.cloudsdk.JsonParseException;
+import com.google.cloud.tools.appengine.operations.cloudsdk.internal.process.LineSplitter;
+import com.google.cloud.tools.appengine.operations.cloudsdk.internal.process.ProcessIoExecutors;
+import com.google.cloud.tools.appengine.operations.cloudsdk.internal.process.ProcessReaper;
+import com.google.cloud.tools.appengine.operations.cloudsdk.process.ProcessHandler;
+import com.google.cloud.tools.appengine.operations.cloudsdk.process.ProcessHandlerException;
+import com.google.cloud.tools.appengine.operations.cloudsdk.serialization.JsonArrayReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * Parses the JSON array a gcloud command prints with {@code --format=json} while the command is
+ * still running, handing every element to a consumer as soon as it is complete. Standard error is
+ * kept for the exception thrown if the command fails.
+ *
+ * @param <T> the type the elements are de-serialized to with Gson
+ */
+class JsonArrayProcessHandler<T> implements ProcessHandler {
+
+  private static final Logger logger = Logger.getLogger(JsonArrayProcessHandler.class.getName());
+
+  private final Class<T> type;
+  private final Consumer<? super T> consumer;
+
+  JsonArrayProcessHandler(Class<T> type, Consumer<? super T> consumer) {
+    this.type = type;
+    this.consumer = consumer;
+  }
+
+  @Override
+  public void handleProcess(Process process) throws ProcessHandlerException {
+    ProcessReaper.getInstance().register(process);
+    StringBuffer stdErr = new StringBuffer();
+    Future<?> stdErrHandler =
+        ProcessIoExecutors.getDefault()
+            .submit(
+                () -> {
+                  new LineSplitter(StandardCharsets.UTF_8)
+                      .split(process.getErrorStream(), line -> stdErr.append(line).append('\n'));
+                  return null;
+                });
+    try {
+      try (Reader in =
+          new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8)) {
+        JsonArrayReader.forEach(in, type, consumer);
+      } catch (JsonParseException | IOException ex) {
+        if (process.waitFor() == 0) {
+          throw new ProcessHandlerException(ex);
+        }
+        // the command failed before it printed all of its output
+      }
+      int exitCode = process.waitFor();
+      stdErrHandler.get();
+      if (exitCode != 0) {
+        logger.severe(stdErr.toString());
+        throw new ProcessHandlerException(
+            "Process exited unsuccessfully with code "
+                + exitCode
+                + ": "
+                + stdErr.toString().trim());
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new ProcessHandlerException(ex);
+    } catch (ExecutionException ex) {
+      throw new ProcessHandlerException(new IOException(ex.getCause()));
+    } finally {
+      if (process.isAlive()) {
+        // the consumer threw or this thread was interrupted
+        process.destroy();
+      }
+      stdErrHandler.cancel(true);
+      ProcessReaper.getInstance().unregister(process);
+    }
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2026 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.appengine.operations;
+
+import com.google.common.base.Ticker;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers which {@link CloudSdk} validations succeeded. A success is trusted until the
+ * modification time or size of one of its watched paths changes, or until the time to live
+ * expires. Watching a directory detects files being added to or removed from it, which is what most
+ * validations check; the time to live covers changes that don't show in the watched paths.
+ */
+class ValidationCache {
+
+  private final long ttlNanos;
+  private final Ticker ticker;
+  private final Map<String, Success> successes = new ConcurrentHashMap<>();
+
+  ValidationCache(Duration ttl, Ticker ticker) {
+    this.ttlNanos = ttl.toNanos();
+    this.ticker = ticker;
+  }
+
+  /**
+   * Returns the current fingerprint of {@code watchedPaths}, to be passed to {@link #isValid} and
+   * {@link #markValid}.
+   */
+  String fingerprint(Path... watchedPaths) {
+    StringBuilder fingerprint = new StringBuilder();
+    for (Path path : watchedPaths) {
+      try {
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        fingerprint
+            .append(attributes.lastModifiedTime().toMillis())
+            .append(':')
+            .append(attributes.size());
+      } catch (IOException ex) {
+        // missing
+        fingerprint.append('-');
+      }
+      fingerprint.append('|');
+    }
+    return fingerprint.toString();
+  }
+
+  /** Returns true if {@code validation} succeeded recently with the same fingerprint. */
+  boolean isValid(String validation, String fingerprint) {
+    if (ttlNanos <= 0) {
+      return false;
+    }
+    Success success = successes.get(validation);
+    return success != null
+        && success.fingerprint.equals(fingerprint)
+        && ticker.read() - success.validatedAtNanos < ttlNanos;
+  }
+
+  /** Record that {@code validation} succeeded when its watched paths had {@code fingerprint}. */
+  void markValid(String validation, String fingerprint) {
+    if (ttlNanos > 0) {
+      successes.put(validation, new Success(fingerprint, ticker.read()));
+    }
+  }
+
+  void invalidateAll() {
+    successes.clear();
+  }
+
+  private static class Success {
+    private final String fingerprint;
+    private final long validatedAtNanos;
+
+    private Success(String fingerprint, long validatedAtNanos) {
+      this.fingerprint = fingerprint;
+      this.validatedAtNanos = validatedAtNanos;
+    }
+  }
+}
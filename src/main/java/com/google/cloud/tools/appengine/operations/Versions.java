@@ -17,16 +17,22 @@
 package com.google.cloud.tools.appengine.operations;
 
 import com.google.cloud.tools.appengine.AppEngineException;
+import com.google.cloud.tools.appengine.configuration.VersionsBatchConfiguration;
 import com.google.cloud.tools.appengine.configuration.VersionsListConfiguration;
 import com.google.cloud.tools.appengine.configuration.VersionsSelectionConfiguration;
 import com.google.cloud.tools.appengine.operations.cloudsdk.CloudSdkNotFoundException;
 import com.google.cloud.tools.appengine.operations.cloudsdk.CloudSdkOutOfDateException;
 import com.google.cloud.tools.appengine.operations.cloudsdk.internal.args.GcloudArgs;
+import com.google.cloud.tools.appengine.operations.cloudsdk.process.ProcessHandler;
 import com.google.cloud.tools.appengine.operations.cloudsdk.process.ProcessHandlerException;
+import com.google.cloud.tools.appengine.operations.cloudsdk.process.ProcessHandlerFactory;
+import com.google.cloud.tools.appengine.operations.cloudsdk.serialization.AppEngineVersion;
 import com.google.common.base.Preconditions;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Predicate;
+import javax.annotation.Nullable;
 
 /** Run various gcloud versions commands. */
 public class Versions {
@@ -37,9 +43,18 @@ public class Versions {
     this.runner = runner;
   }
 
-  private void execute(List<String> arguments) throws AppEngineException {
+  /**
+   * Run gcloud with the process handler of this instance if {@code processHandler} is null,
+   * otherwise with {@code processHandler}, checking the exit code.
+   */
+  private void execute(List<String> arguments, @Nullable ProcessHandler processHandler)
+      throws AppEngineException {
     try {
-      runner.run(arguments, null);
+      if (processHandler == null) {
+        runner.run(arguments, null);
+      } else {
+        runner.runAndCheckExitCode(arguments, null, processHandler);
+      }
     } catch (ProcessHandlerException | IOException ex) {
       throw new AppEngineException(ex);
     }
@@ -52,6 +67,12 @@ public class Versions {
    * @throws CloudSdkOutOfDateException when the installed Cloud SDK is too old
    */
   public void start(VersionsSelectionConfiguration configuration) throws AppEngineException {
+    start(configuration, null);
+  }
+
+  private void start(
+      VersionsSelectionConfiguration configuration, @Nullable ProcessHandler processHandler)
+      throws AppEngineException {
     Preconditions.checkNotNull(configuration);
     Preconditions.checkNotNull(configuration.getVersions());
     Preconditions.checkArgument(configuration.getVersions().size() > 0);
@@ -62,7 +83,7 @@ public class Versions {
     arguments.add("start");
     arguments.addAll(commonVersionSelectionArgs(configuration));
 
-    execute(arguments);
+    execute(arguments, processHandler);
   }
 
   /**
@@ -72,6 +93,12 @@ public class Versions {
    * @throws CloudSdkOutOfDateException when the installed Cloud SDK is too old
    */
   public void stop(VersionsSelectionConfiguration configuration) throws AppEngineException {
+    stop(configuration, null);
+  }
+
+  private void stop(
+      VersionsSelectionConfiguration configuration, @Nullable ProcessHandler processHandler)
+      throws AppEngineException {
     Preconditions.checkNotNull(configuration);
     Preconditions.checkNotNull(configuration.getVersions());
     Preconditions.checkArgument(configuration.getVersions().size() > 0);
@@ -82,7 +109,7 @@ public class Versions {
     arguments.add("stop");
     arguments.addAll(commonVersionSelectionArgs(configuration));
 
-    execute(arguments);
+    execute(arguments, processHandler);
   }
 
   /**
@@ -92,6 +119,12 @@ public class Versions {
    * @throws CloudSdkOutOfDateException when the installed Cloud SDK is too old
    */
   public void delete(VersionsSelectionConfiguration configuration) throws AppEngineException {
+    delete(configuration, null);
+  }
+
+  private void delete(
+      VersionsSelectionConfiguration configuration, @Nullable ProcessHandler processHandler)
+      throws AppEngineException {
     Preconditions.checkNotNull(configuration);
     Preconditions.checkNotNull(configuration.getVersions());
     Preconditions.checkArgument(configuration.getVersions().size() > 0);
@@ -102,7 +135,114 @@ public class Versions {
     arguments.add("delete");
     arguments.addAll(commonVersionSelectionArgs(configuration));
 
-    execute(arguments);
+    execute(arguments, processHandler);
+  }
+
+  /**
+   * Starts serving versions of many services, with one gcloud invocation per project and service.
+   * Each invocation has its own process handler and only succeeds when gcloud exits with 0. Blocks
+   * until all invocations are done.
+   *
+   * @param processHandlers creates the process handler of each invocation
+   * @return the outcome of every version, failures don't stop other services
+   * @throws AppEngineException when interrupted while waiting for gcloud
+   */
+  public VersionsBatchResult start(
+      VersionsBatchConfiguration configuration, ProcessHandlerFactory processHandlers)
+      throws AppEngineException {
+    return runBatch(configuration, processHandlers, "start", this::start);
+  }
+
+  /**
+   * Stops serving versions of many services, with one gcloud invocation per project and service.
+   * Each invocation has its own process handler and only succeeds when gcloud exits with 0. Blocks
+   * until all invocations are done.
+   *
+   * @param processHandlers creates the process handler of each invocation
+   * @return the outcome of every version, failures don't stop other services
+   * @throws AppEngineException when interrupted while waiting for gcloud
+   */
+  public VersionsBatchResult stop(
+      VersionsBatchConfiguration configuration, ProcessHandlerFactory processHandlers)
+      throws AppEngineException {
+    return runBatch(configuration, processHandlers, "stop", this::stop);
+  }
+
+  /**
+   * Deletes versions of many services, with one gcloud invocation per project and service. Blocks
+   * until all invocations are done. Each invocation has its own process handler and only succeeds
+   * when gcloud exits with 0.
+   *
+   * @param processHandlers creates the process handler of each invocation
+   * @return the outcome of every version, failures don't stop other services
+   * @throws AppEngineException when interrupted while waiting for gcloud
+   */
+  public VersionsBatchResult delete(
+      VersionsBatchConfiguration configuration, ProcessHandlerFactory processHandlers)
+      throws AppEngineException {
+    return runBatch(configuration, processHandlers, "delete", this::delete);
+  }
+
+  private interface SelectionCommand {
+    void run(VersionsSelectionConfiguration configuration, ProcessHandler processHandler)
+        throws AppEngineException;
+  }
+
+  private static VersionsBatchResult runBatch(
+      VersionsBatchConfiguration configuration,
+      ProcessHandlerFactory processHandlers,
+      String name,
+      SelectionCommand command)
+      throws AppEngineException {
+    Preconditions.checkNotNull(configuration);
+    Preconditions.checkNotNull(processHandlers);
+    try (GcloudBatch<List<VersionsBatchResult.Outcome>> batch =
+        new GcloudBatch<>(configuration.getParallelism(), "versions-%d")) {
+      for (VersionsSelectionConfiguration group : configuration.getGroups()) {
+        String description =
+            name
+                + " versions "
+                + group.getVersions()
+                + " of service "
+                + nonNullService(group)
+                + (group.getProjectId() == null ? "" : " in project " + group.getProjectId());
+        batch.submit(
+            () -> runGroup(group, command, processHandlers.newProcessHandler(description)));
+      }
+      List<VersionsBatchResult.Outcome> outcomes = new ArrayList<>();
+      for (List<VersionsBatchResult.Outcome> group : batch.join("running gcloud app versions")) {
+        outcomes.addAll(group);
+      }
+      return new VersionsBatchResult(outcomes);
+    }
+  }
+
+  private static List<VersionsBatchResult.Outcome> runGroup(
+      VersionsSelectionConfiguration group,
+      SelectionCommand command,
+      ProcessHandler processHandler) {
+    AppEngineException failure = null;
+    try {
+      command.run(group, processHandler);
+    } catch (AppEngineException ex) {
+      failure = ex;
+    } catch (RuntimeException ex) {
+      failure = new AppEngineException(ex);
+    }
+    List<VersionsBatchResult.Outcome> outcomes = new ArrayList<>();
+    for (String version : group.getVersions()) {
+      outcomes.add(
+          new VersionsBatchResult.Outcome(
+              group.getProjectId(), nonNullService(group), version, failure));
+    }
+    return outcomes;
+  }
+
+  private static String nonNullService(VersionsSelectionConfiguration group) {
+    String service = group.getService();
+    // VersionsBatchConfiguration always selects a service
+    Preconditions.checkState(service != null);
+    return service;
   }
 
   /**
@@ -122,7 +262,63 @@ public class Versions {
     arguments.addAll(GcloudArgs.get("hide-no-traffic", configuration.getHideNoTraffic()));
     arguments.addAll(GcloudArgs.get("project", configuration.getProjectId()));
 
-    execute(arguments);
+    execute(arguments, null);
+  }
+
+  /**
+   * Lists the versions for a service, or every version of every service if no service is specified.
+   * The JSON output of gcloud is parsed while gcloud runs, so only the returned versions are held
+   * in memory. The output of gcloud is not passed to the process handler of this {@link Versions};
+   * if gcloud fails, its standard error is in the message of the exception.
+   *
+   * @return the versions, in the order gcloud lists them
+   * @throws CloudSdkNotFoundException when the Cloud SDK is not installed where expected
+   * @throws CloudSdkOutOfDateException when the installed Cloud SDK is too old
+   */
+  public List<AppEngineVersion> listVersions(VersionsListConfiguration configuration)
+      throws AppEngineException {
+    return listVersions(configuration, version -> true);
+  }
+
+  /**
+   * Lists the versions for a service, or every version of every service if no service is specified,
+   * keeping only the versions that match {@code filter}. See {@link
+   * #listVersions(VersionsListConfiguration)}.
+   *
+   * @param filter tested on every version as soon as gcloud printed it
+   * @return the matching versions, in the order gcloud lists them
+   */
+  public List<AppEngineVersion> listVersions(
+      VersionsListConfiguration configuration, Predicate<? super AppEngineVersion> filter)
+      throws AppEngineException {
+    Preconditions.checkNotNull(configuration);
+    Preconditions.checkNotNull(filter);
+
+    List<String> arguments = new ArrayList<>();
+    arguments.add("app");
+    arguments.add("versions");
+    arguments.add("list");
+    arguments.addAll(GcloudArgs.get("service", configuration.getService()));
+    arguments.addAll(GcloudArgs.get("hide-no-traffic", configuration.getHideNoTraffic()));
+    arguments.addAll(GcloudArgs.get("project", configuration.getProjectId()));
+    arguments.addAll(GcloudArgs.get("format", "json"));
+
+    List<AppEngineVersion> versions = new ArrayList<>();
+    try {
+      runner.run(
+          arguments,
+          null,
+          new JsonArrayProcessHandler<>(
+              AppEngineVersion.class,
+              version -> {
+                if (filter.test(version)) {
+                  versions.add(version);
+                }
+              }));
+    } catch (ProcessHandlerException | IOException ex) {
+      throw new AppEngineException(ex);
+    }
+    return versions;
   }
 
   private static List<String> commonVersionSelectionArgs(
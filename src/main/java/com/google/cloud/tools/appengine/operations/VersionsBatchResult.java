@@ -0,0 +1,102 @@
+/*
+ * Copyright 2026 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.appengine.operations;
+
+import com.google.cloud.tools.appengine.AppEngineException;
+import com.google.cloud.tools.appengine.configuration.VersionsBatchConfiguration;
+import com.google.common.collect.ImmutableList;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+
+/** Outcome of every version in a {@link VersionsBatchConfiguration}. */
+public class VersionsBatchResult {
+
+  /** Outcome of a single version. */
+  public static class Outcome {
+    @Nullable private final String projectId;
+    private final String service;
+    private final String version;
+    @Nullable private final AppEngineException failure;
+
+    Outcome(
+        @Nullable String projectId,
+        String service,
+        String version,
+        @Nullable AppEngineException failure) {
+      this.projectId = projectId;
+      this.service = service;
+      this.version = version;
+      this.failure = failure;
+    }
+
+    /** The project of the version, null for the default project. */
+    @Nullable
+    public String getProjectId() {
+      return projectId;
+    }
+
+    public String getService() {
+      return service;
+    }
+
+    public String getVersion() {
+      return version;
+    }
+
+    /**
+     * Why the gcloud invocation for this version's service failed, null if it succeeded. gcloud
+     * doesn't report versions individually, so all versions of a service share the failure.
+     */
+    @Nullable
+    public AppEngineException getFailure() {
+      return failure;
+    }
+
+    public boolean isSuccessful() {
+      return failure == null;
+    }
+
+    @Override
+    public String toString() {
+      String name = (projectId == null ? "" : projectId + "/") + service + "/" + version;
+      return failure == null ? name + ": done" : name + ": failed, " + failure.getMessage();
+    }
+  }
+
+  private final List<Outcome> outcomes;
+
+  VersionsBatchResult(List<Outcome> outcomes) {
+    this.outcomes = ImmutableList.copyOf(outcomes);
+  }
+
+  /** Outcomes grouped by project and service, in the order they were added to the batch. */
+  public List<Outcome> getOutcomes() {
+    return outcomes;
+  }
+
+  /** The versions whose gcloud invocation failed. */
+  public List<Outcome> getFailedOutcomes() {
+    return outcomes.stream()
+        .filter(outcome -> !outcome.isSuccessful())
+        .collect(Collectors.toList());
+  }
+
+  public boolean isSuccessful() {
+    return outcomes.stream().allMatch(Outcome::isSuccessful);
+  }
+}
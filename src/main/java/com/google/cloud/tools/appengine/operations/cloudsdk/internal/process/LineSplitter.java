@@ -0,0 +1,152 @@
+/*
+ * Copyright 2026 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.appengine.operations.cloudsdk.internal.process;
+
+import com.google.cloud.tools.appengine.operations.cloudsdk.process.ProcessOutputLineListener;
+import com.google.common.base.Preconditions;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Splits a byte stream into lines as it arrives, reusing its byte and char buffers between reads.
+ *
+ * <p>Lines are terminated by {@code \n}, {@code \r\n} or a lone {@code \r} (used by progress bars
+ * to redraw the current line), even when a {@code \r\n} pair is split across reads. Lines longer
+ * than the maximum line length are split into several lines of at most that length. Malformed input
+ * is replaced, like {@link java.util.Scanner} does. Instances are not thread safe, use one per
+ * stream.
+ */
+public class LineSplitter {
+
+  public static final int DEFAULT_MAX_LINE_LENGTH = 64 * 1024;
+  private static final int BUFFER_SIZE = 8 * 1024;
+
+  private final CharsetDecoder decoder;
+  private final int maxLineLength;
+  private final byte[] byteArray = new byte[BUFFER_SIZE];
+  private final ByteBuffer bytes = ByteBuffer.wrap(byteArray);
+  private final CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+  private final StringBuilder line = new StringBuilder();
+  private boolean afterCarriageReturn;
+
+  /** Create a splitter with the {@link #DEFAULT_MAX_LINE_LENGTH}. */
+  public LineSplitter(Charset charset) {
+    this(charset, DEFAULT_MAX_LINE_LENGTH);
+  }
+
+  /**
+   * Create a splitter.
+   *
+   * @param charset the encoding of the stream
+   * @param maxLineLength the maximum number of chars in a line, longer lines are split
+   */
+  public LineSplitter(Charset charset, int maxLineLength) {
+    Preconditions.checkArgument(maxLineLength > 0, "maxLineLength must be positive");
+    this.decoder =
+        charset
+            .newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    this.maxLineLength = maxLineLength;
+  }
+
+  /**
+   * Read {@code in} until it is exhausted or the reading thread is interrupted, passing every line
+   * (without its terminator) to {@code listener}. A trailing unterminated line is passed on too. The
+   * stream is not closed.
+   */
+  public void split(InputStream in, ProcessOutputLineListener listener) throws IOException {
+    bytes.clear();
+    line.setLength(0);
+    afterCarriageReturn = false;
+    decoder.reset();
+
+    int bytesRead;
+    while (!Thread.interrupted()
+        && (bytesRead = in.read(byteArray, bytes.position(), bytes.remaining())) != -1) {
+      bytes.position(bytes.position() + bytesRead);
+      bytes.flip();
+      decode(false, listener);
+      // keep any incomplete multi-byte sequence for the next read
+      bytes.compact();
+    }
+
+    bytes.flip();
+    decode(true, listener);
+    while (decoder.flush(chars).isOverflow()) {
+      drainChars(listener);
+    }
+    drainChars(listener);
+    if (line.length() > 0) {
+      emit(listener);
+    }
+  }
+
+  private void decode(boolean endOfInput, ProcessOutputLineListener listener) {
+    CoderResult result;
+    do {
+      result = decoder.decode(bytes, chars, endOfInput);
+      drainChars(listener);
+    } while (result.isOverflow());
+  }
+
+  /** Scan the decoded chars for line terminators and append everything else to the line. */
+  private void drainChars(ProcessOutputLineListener listener) {
+    chars.flip();
+    char[] array = chars.array();
+    int limit = chars.limit();
+    int start = 0;
+    for (int i = 0; i < limit; i++) {
+      char c = array[i];
+      if (c == '\n' || c == '\r') {
+        boolean secondHalfOfCrLf = c == '\n' && afterCarriageReturn && i == start;
+        afterCarriageReturn = c == '\r';
+        append(array, start, i, listener);
+        start = i + 1;
+        if (!secondHalfOfCrLf) {
+          emit(listener);
+        }
+      } else {
+        afterCarriageReturn = false;
+      }
+    }
+    append(array, start, limit, listener);
+    chars.clear();
+  }
+
+  private void append(char[] array, int start, int end, ProcessOutputLineListener listener) {
+    while (end - start > maxLineLength - line.length()) {
+      int length = maxLineLength - line.length();
+      line.append(array, start, length);
+      start += length;
+      emit(listener);
+    }
+    line.append(array, start, end - start);
+  }
+
+  private void emit(ProcessOutputLineListener listener) {
+    String completeLine = line.toString();
+    line.setLength(0);
+    listener.onOutputLine(completeLine);
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2026 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.appengine.operations.cloudsdk.internal.process;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Nullable;
+
+/**
+ * Executors that pump process output and wait for process exit. Every process needs a few tasks
+ * that block for the life of the process, so the executors are unbounded.
+ */
+public class ProcessIoExecutors {
+
+  private static final Logger logger = Logger.getLogger(ProcessIoExecutors.class.getName());
+
+  private static class DefaultHolder {
+    private static final ExecutorService DEFAULT = newExecutor();
+  }
+
+  private ProcessIoExecutors() {}
+
+  /**
+   * Returns the executor shared by all process handlers that were not given one. It runs tasks on
+   * virtual threads when the runtime supports them (Java 21+), otherwise on a cached pool of daemon
+   * threads.
+   */
+  public static ExecutorService getDefault() {
+    return DefaultHolder.DEFAULT;
+  }
+
+  @VisibleForTesting
+  static ExecutorService newExecutor() {
+    ExecutorService virtualThreadExecutor = newVirtualThreadExecutor();
+    if (virtualThreadExecutor != null) {
+      return virtualThreadExecutor;
+    }
+    return Executors.newCachedThreadPool(
+        new ThreadFactoryBuilder().setNameFormat("process-io-%d").setDaemon(true).build());
+  }
+
+  /** Looked up reflectively as this library still targets Java 8. */
+  @Nullable
+  private static ExecutorService newVirtualThreadExecutor() {
+    try {
+      return (ExecutorService)
+          Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (NoSuchMethodException ex) {
+      return null;
+    } catch (IllegalAccessException | InvocationTargetException ex) {
+      // e.g. virtual threads are a preview feature on this runtime and are not enabled
+      logger.log(Level.FINE, "Virtual threads are not available", ex);
+      return null;
+    }
+  }
+}
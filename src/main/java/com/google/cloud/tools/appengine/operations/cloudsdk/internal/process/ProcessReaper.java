@@ -0,0 +1,78 @@
+/*
+ * Copyright 2026 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.appengine.operations.cloudsdk.internal.process;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Registry of child processes that must not outlive the JVM. A single shutdown hook, installed on
+ * first use, destroys every process still registered when the JVM exits.
+ */
+public class ProcessReaper {
+
+  private static final ProcessReaper INSTANCE = new ProcessReaper();
+
+  private final Set<Process> processes = ConcurrentHashMap.newKeySet();
+  private final AtomicBoolean hookInstalled = new AtomicBoolean();
+  private final AtomicLong registeredCount = new AtomicLong();
+
+  @VisibleForTesting
+  ProcessReaper() {}
+
+  public static ProcessReaper getInstance() {
+    return INSTANCE;
+  }
+
+  /** Track {@code process} until it is unregistered or found to have exited. */
+  public void register(Process process) {
+    if (hookInstalled.compareAndSet(false, true)) {
+      Runtime.getRuntime().addShutdownHook(new Thread(this::destroyAll, "destroy-processes"));
+    }
+    // drop processes that exited without being unregistered so the set can't grow unbounded
+    processes.removeIf(registered -> !registered.isAlive());
+    processes.add(process);
+    registeredCount.incrementAndGet();
+  }
+
+  /** Stop tracking {@code process}, usually because it has exited. */
+  public void unregister(Process process) {
+    processes.remove(process);
+  }
+
+  /** Returns the number of registered processes that are still running. */
+  public int getLiveProcessCount() {
+    processes.removeIf(registered -> !registered.isAlive());
+    return processes.size();
+  }
+
+  /** Returns the number of processes registered since the JVM started. */
+  public long getRegisteredProcessCount() {
+    return registeredCount.get();
+  }
+
+  @VisibleForTesting
+  void destroyAll() {
+    for (Process process : processes) {
+      process.destroy();
+    }
+    processes.clear();
+  }
+}
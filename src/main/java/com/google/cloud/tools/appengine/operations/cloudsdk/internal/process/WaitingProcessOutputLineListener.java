@@ -19,19 +19,35 @@ package com.google.cloud.tools.appengine.operations.cloudsdk.internal.process;
 import com.google.cloud.tools.appengine.operations.cloudsdk.process.ProcessExitListener;
 import com.google.cloud.tools.appengine.operations.cloudsdk.process.ProcessHandlerException;
 import com.google.cloud.tools.appengine.operations.cloudsdk.process.ProcessOutputLineListener;
+import com.google.cloud.tools.appengine.operations.cloudsdk.process.ReadinessProbe;
+import java.time.Duration;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import javax.annotation.Nullable;
 
 /**
  * Provides a mechanism to wait for a successful start of a process by monitoring the process output
- * and checking for a specific message in it.
+ * and checking for a specific message in it, and optionally by probing the process until it
+ * accepts connections, whichever happens first.
  */
 public class WaitingProcessOutputLineListener
     implements ProcessOutputLineListener, ProcessExitListener {
-  private final String message;
+
+  private static final Logger logger =
+      Logger.getLogger(WaitingProcessOutputLineListener.class.getName());
+
+  private static final long INITIAL_PROBE_DELAY_MILLIS = 50;
+  private static final long MAX_PROBE_DELAY_MILLIS = 1000;
+
+  @Nullable private final String message;
+  @Nullable private final Pattern pattern;
   private final int timeoutSeconds;
+  @Nullable private final ReadinessProbe probe;
   private CountDownLatch waitLatch;
   private volatile boolean exited;
+  @Nullable private volatile Duration timeToReady;
 
   /**
    * Creates a listener that waits for a message for a specified amount of time.
@@ -39,12 +55,28 @@ public class WaitingProcessOutputLineListener
    * @param message the message to look for in the output of the process to consider it to be
    *     successfully started. If the message is not seen within the specified timeout, a {@link
    *     ProcessHandlerException} will be thrown. The message is assumed to be a regular expression.
+   *     If null, will skip waiting.
    * @param timeoutSeconds the maximum number of seconds to wait for the message to be seen until
    *     giving up. If set to 0, will skip waiting.
    */
-  public WaitingProcessOutputLineListener(String message, int timeoutSeconds) {
+  public WaitingProcessOutputLineListener(@Nullable String message, int timeoutSeconds) {
+    this(message, timeoutSeconds, null);
+  }
+
+  /**
+   * Creates a listener that waits for a message, or for {@code probe} to succeed, for a specified
+   * amount of time. The probe is called right away and then with a delay that doubles from 50
+   * milliseconds up to a second.
+   *
+   * @param message if null, only the probe is waited for
+   * @param probe if null, only the message is waited for. If both are null, will skip waiting.
+   */
+  public WaitingProcessOutputLineListener(
+      @Nullable String message, int timeoutSeconds, @Nullable ReadinessProbe probe) {
     this.message = message;
+    this.pattern = message == null ? null : Pattern.compile(message);
     this.timeoutSeconds = timeoutSeconds;
+    this.probe = probe;
     this.waitLatch = new CountDownLatch(1);
   }
 
@@ -52,20 +84,29 @@ public class WaitingProcessOutputLineListener
   public void reset() {
     waitLatch.countDown();
     waitLatch = new CountDownLatch(1);
+    timeToReady = null;
   }
 
   /**
    * Blocks the executing thread until the specified message is seen through {@link
-   * #onOutputLine(String)}. If the message is not seen within the specified timeout, {@link
-   * ProcessHandlerException} will be thrown.
+   * #onOutputLine(String)}, or the probe succeeds. If neither happens within the specified timeout,
+   * {@link ProcessHandlerException} will be thrown.
    */
   public void await() throws ProcessHandlerException {
+    long start = System.nanoTime();
     try {
-      if (message != null
-          && timeoutSeconds != 0
-          && !waitLatch.await(timeoutSeconds, TimeUnit.SECONDS)) {
-        throw new ProcessHandlerException(
-            "Timed out waiting for the success message: '" + message + "'");
+      if (timeoutSeconds != 0 && (pattern != null || probe != null)) {
+        String readyBy = awaitReady(start + TimeUnit.SECONDS.toNanos(timeoutSeconds));
+        if (readyBy == null) {
+          throw new ProcessHandlerException(
+              message == null
+                  ? "Timed out waiting for the readiness probe"
+                  : "Timed out waiting for the success message: '" + message + "'");
+        }
+        if (!exited) {
+          timeToReady = Duration.ofNanos(System.nanoTime() - start);
+          logger.info("Process ready after " + timeToReady.toMillis() + " ms, " + readyBy);
+        }
       }
       if (exited) {
         throw new ProcessHandlerException("Process exited before success message");
@@ -77,10 +118,47 @@ public class WaitingProcessOutputLineListener
     }
   }
 
+  /** Returns what made the process ready, or null if {@code deadline} passed first. */
+  @Nullable
+  private String awaitReady(long deadline) throws InterruptedException {
+    if (probe == null) {
+      return waitLatch.await(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)
+          ? "success message seen"
+          : null;
+    }
+    long delayMillis = INITIAL_PROBE_DELAY_MILLIS;
+    while (true) {
+      if (waitLatch.getCount() == 0) {
+        return "success message seen";
+      }
+      if (probe.isReady()) {
+        return "readiness probe succeeded";
+      }
+      long remainingNanos = deadline - System.nanoTime();
+      if (remainingNanos <= 0) {
+        return null;
+      }
+      long delayNanos = Math.min(TimeUnit.MILLISECONDS.toNanos(delayMillis), remainingNanos);
+      if (waitLatch.await(delayNanos, TimeUnit.NANOSECONDS)) {
+        return "success message seen";
+      }
+      delayMillis = Math.min(delayMillis * 2, MAX_PROBE_DELAY_MILLIS);
+    }
+  }
+
+  /**
+   * Returns how long {@link #await} waited until the process was ready, or null if it didn't wait
+   * or the process didn't become ready.
+   */
+  @Nullable
+  public Duration getTimeToReady() {
+    return timeToReady;
+  }
+
   /** Monitors the output of the process to check whether the wait condition is satisfied. */
   @Override
   public void onOutputLine(String line) {
-    if (waitLatch.getCount() > 0 && message != null && line.matches(message)) {
+    if (pattern != null && waitLatch.getCount() > 0 && pattern.matcher(line).matches()) {
       waitLatch.countDown();
     }
   }
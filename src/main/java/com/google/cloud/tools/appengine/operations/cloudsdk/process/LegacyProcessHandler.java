@@ -17,12 +17,21 @@
 package com.google.cloud.tools.appengine.operations.cloudsdk.process;
 
 import com.google.cloud.tools.appengine.AppEngineException;
+import com.google.cloud.tools.appengine.operations.cloudsdk.internal.process.LineSplitter;
+import com.google.cloud.tools.appengine.operations.cloudsdk.internal.process.ProcessIoExecutors;
+import com.google.cloud.tools.appengine.operations.cloudsdk.internal.process.ProcessReaper;
 import com.google.cloud.tools.appengine.operations.cloudsdk.internal.process.WaitingProcessOutputLineListener;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Scanner;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.annotation.Nullable;
@@ -35,9 +44,7 @@ public class LegacyProcessHandler implements ProcessHandler {
   private final List<ProcessStartListener> startListeners;
   @Nullable private final WaitingProcessOutputLineListener waitingProcessOutputLineListener;
   private final boolean async;
-
-  // TODO: historically it looks like this code hasn't been testable, we need to pass an
-  // TODO: executor service and get rid of the separate thread instantiation that we've done here.
+  private final ExecutorService executor;
 
   /**
    * Non-public constructor, but waitingProcessOutputLineListener must be part of the other
@@ -49,19 +56,21 @@ public class LegacyProcessHandler implements ProcessHandler {
       List<ProcessOutputLineListener> stdErrLineListeners,
       List<ProcessStartListener> processStartListeners,
       List<ProcessExitListener> processExitListeners,
-      @Nullable WaitingProcessOutputLineListener waitingProcessOutputLineListener) {
+      @Nullable WaitingProcessOutputLineListener waitingProcessOutputLineListener,
+      ExecutorService executor) {
     this.async = async;
     this.stdOutLineListeners = stdOutLineListeners;
     this.stdErrLineListeners = stdErrLineListeners;
     this.exitListeners = processExitListeners;
     this.startListeners = processStartListeners;
     this.waitingProcessOutputLineListener = waitingProcessOutputLineListener;
+    this.executor = executor;
   }
 
   @Override
   public void handleProcess(Process process) throws ProcessHandlerException {
-    Thread stdOutHandler = null;
-    Thread stdErrHandler = null;
+    Future<?> stdOutHandler = null;
+    Future<?> stdErrHandler = null;
     try {
 
       // Only handle stdout or stderr if there are listeners.
@@ -79,8 +88,14 @@ public class LegacyProcessHandler implements ProcessHandler {
       if (async) {
         asyncRun(process, stdOutHandler, stdErrHandler);
       } else {
-        shutdownProcessHook(process);
-        syncRun(process, stdOutHandler, stdErrHandler);
+        ProcessReaper.getInstance().register(process);
+        try {
+          syncRun(process, stdOutHandler, stdErrHandler);
+        } finally {
+          if (!process.isAlive()) {
+            ProcessReaper.getInstance().unregister(process);
+          }
+        }
       }
 
     } catch (InterruptedException | AppEngineException ex) {
@@ -88,104 +103,93 @@ public class LegacyProcessHandler implements ProcessHandler {
     }
   }
 
-  private Thread handleStdOut(Process process) {
-    final Scanner stdOut = new Scanner(process.getInputStream(), StandardCharsets.UTF_8.name());
-    Thread stdOutThread =
-        new Thread("standard-out") {
-          @Override
-          public void run() {
-            while (stdOut.hasNextLine() && !Thread.interrupted()) {
-              String line = stdOut.nextLine();
-              for (ProcessOutputLineListener stdOutLineListener : stdOutLineListeners) {
-                stdOutLineListener.onOutputLine(line);
-              }
-            }
-            stdOut.close();
-          }
-        };
-    stdOutThread.setDaemon(true);
-    stdOutThread.start();
-    return stdOutThread;
+  private Future<?> handleStdOut(Process process) {
+    return handleOutput("standard-out", process.getInputStream(), stdOutLineListeners);
   }
 
-  private Thread handleErrOut(Process process) {
-    final Scanner stdErr = new Scanner(process.getErrorStream(), StandardCharsets.UTF_8.name());
-    Thread stdErrThread =
-        new Thread("standard-err") {
-          @Override
-          public void run() {
-            while (stdErr.hasNextLine() && !Thread.interrupted()) {
-              String line = stdErr.nextLine();
-              for (ProcessOutputLineListener stdErrLineListener : stdErrLineListeners) {
-                stdErrLineListener.onOutputLine(line);
-              }
-            }
-            stdErr.close();
+  private Future<?> handleErrOut(Process process) {
+    return handleOutput("standard-err", process.getErrorStream(), stdErrLineListeners);
+  }
+
+  private Future<?> handleOutput(
+      final String name, final InputStream stream, final List<ProcessOutputLineListener> listeners) {
+    final ProcessOutputLineListener fanOut =
+        line -> {
+          for (ProcessOutputLineListener listener : listeners) {
+            listener.onOutputLine(line);
           }
         };
-    stdErrThread.setDaemon(true);
-    stdErrThread.start();
-    return stdErrThread;
+    return executor.submit(
+        () -> {
+          try (InputStream output = stream) {
+            new LineSplitter(StandardCharsets.UTF_8).split(output, fanOut);
+          } catch (IOException ex) {
+            // the process closed its end of the pipe, there is nothing more to read
+            logger.log(Level.FINE, name + " stopped reading process output", ex);
+          }
+        });
   }
 
   private void syncRun(
-      Process process, @Nullable Thread stdOutThread, @Nullable Thread stdErrThread)
+      Process process, @Nullable Future<?> stdOutHandler, @Nullable Future<?> stdErrHandler)
       throws InterruptedException, AppEngineException {
     int exitCode = process.waitFor();
     // https://github.com/GoogleCloudPlatform/appengine-plugins-core/issues/269
-    if (stdOutThread != null) {
-      stdOutThread.join();
-    }
-    if (stdErrThread != null) {
-      stdErrThread.join();
-    }
+    awaitOutputHandler(stdOutHandler);
+    awaitOutputHandler(stdErrHandler);
 
     for (ProcessExitListener exitListener : exitListeners) {
       exitListener.onExit(exitCode);
     }
   }
 
+  private static void awaitOutputHandler(@Nullable Future<?> outputHandler)
+      throws InterruptedException {
+    if (outputHandler == null) {
+      return;
+    }
+    try {
+      outputHandler.get();
+    } catch (ExecutionException ex) {
+      // a listener failed, the remaining output of that stream was dropped
+      logger.log(Level.WARNING, "Process output handler failed", ex.getCause());
+    }
+  }
+
   private static final Logger logger = Logger.getLogger(LegacyProcessHandler.class.getName());
 
   private void asyncRun(
       final Process process,
-      @Nullable final Thread stdOutHandler,
-      @Nullable final Thread stdErrHandler)
+      @Nullable final Future<?> stdOutHandler,
+      @Nullable final Future<?> stdErrHandler)
       throws ProcessHandlerException {
     if (!exitListeners.isEmpty()
         || !stdOutLineListeners.isEmpty()
         || !stdErrLineListeners.isEmpty()) {
-      Thread exitThread =
-          new Thread("wait-for-process-exit-and-output-handlers") {
-            @Override
-            public void run() {
-              try {
-                syncRun(process, stdOutHandler, stdErrHandler);
-              } catch (InterruptedException | AppEngineException ex) {
-                logger.log(
-                    Level.INFO, "wait-for-process-exit-and-output-handlers exited early", ex);
-              }
+      executor.execute(
+          () -> {
+            try {
+              syncRun(process, stdOutHandler, stdErrHandler);
+            } catch (InterruptedException | AppEngineException ex) {
+              logger.log(Level.INFO, "wait-for-process-exit-and-output-handlers exited early", ex);
             }
-          };
-      exitThread.setDaemon(true);
-      exitThread.start();
+          });
       if (waitingProcessOutputLineListener != null) {
         waitingProcessOutputLineListener.await();
       }
     }
   }
 
-  private static void shutdownProcessHook(final Process process) {
-    Runtime.getRuntime()
-        .addShutdownHook(
-            new Thread("destroy-process") {
-              @Override
-              public void run() {
-                if (process != null) {
-                  process.destroy();
-                }
-              }
-            });
+  /**
+   * Returns how long the last {@link #handleProcess} of a handler built with {@link
+   * Builder#buildDevAppServerAsync} waited for the dev server to become ready, or null if it
+   * didn't wait or the server didn't become ready.
+   */
+  @Nullable
+  public Duration getTimeToReady() {
+    return waitingProcessOutputLineListener != null
+        ? waitingProcessOutputLineListener.getTimeToReady()
+        : null;
   }
 
   public static Builder builder() {
@@ -200,6 +204,7 @@ public class LegacyProcessHandler implements ProcessHandler {
     private final DevAppServerAsyncOutputWatcherFactory devAppServerAsyncOutputWatcherFactory;
 
     private boolean async;
+    private ExecutorService executor = ProcessIoExecutors.getDefault();
 
     private Builder() {
       this(
@@ -253,9 +258,25 @@ public class LegacyProcessHandler implements ProcessHandler {
       return this;
     }
 
+    /**
+     * Set the executor that reads the process output and waits for the process to exit. It must
+     * be able to run at least three tasks per concurrently handled process at the same time.
+     * Defaults to {@link ProcessIoExecutors#getDefault()}.
+     */
+    public Builder executor(ExecutorService executor) {
+      this.executor = Preconditions.checkNotNull(executor);
+      return this;
+    }
+
     public LegacyProcessHandler build() {
       return new LegacyProcessHandler(
-          async, stdOutLineListeners, stdErrLineListeners, startListeners, exitListeners, null);
+          async,
+          stdOutLineListeners,
+          stdErrLineListeners,
+          startListeners,
+          exitListeners,
+          null,
+          executor);
     }
 
     /**
@@ -263,8 +284,25 @@ public class LegacyProcessHandler implements ProcessHandler {
      * output and configures 'waiting'.
      */
     public LegacyProcessHandler buildDevAppServerAsync(int timeout) {
-      WaitingProcessOutputLineListener devAppServerOutputListener =
-          devAppServerAsyncOutputWatcherFactory.newLineListener(timeout);
+      return buildDevAppServerAsync(devAppServerAsyncOutputWatcherFactory.newLineListener(timeout));
+    }
+
+    /**
+     * Like {@link #buildDevAppServerAsync(int)}, but the dev server is also considered started as
+     * soon as {@code probe} succeeds, e.g. when it accepts connections, which usually happens
+     * before it logs that it started.
+     *
+     * @param timeout seconds to wait for the dev server to start, 0 to not wait
+     * @param probe see {@link ReadinessProbe#tcp} and {@link ReadinessProbe#http}
+     */
+    public LegacyProcessHandler buildDevAppServerAsync(int timeout, ReadinessProbe probe) {
+      Preconditions.checkNotNull(probe);
+      return buildDevAppServerAsync(
+          devAppServerAsyncOutputWatcherFactory.newLineListener(timeout, probe));
+    }
+
+    private LegacyProcessHandler buildDevAppServerAsync(
+        WaitingProcessOutputLineListener devAppServerOutputListener) {
       stdOutLineListeners.add(devAppServerOutputListener);
       stdErrLineListeners.add(devAppServerOutputListener);
       exitListeners.add(devAppServerOutputListener);
@@ -274,13 +312,20 @@ public class LegacyProcessHandler implements ProcessHandler {
           stdErrLineListeners,
           startListeners,
           exitListeners,
-          devAppServerOutputListener);
+          devAppServerOutputListener,
+          executor);
     }
 
     static class DevAppServerAsyncOutputWatcherFactory {
+      private static final String STARTED_MESSAGE =
+          ".*(Dev App Server is now running|INFO:oejs\\.Server:main: Started).*";
+
       WaitingProcessOutputLineListener newLineListener(int timeout) {
-        return new WaitingProcessOutputLineListener(
-            ".*(Dev App Server is now running|INFO:oejs\\.Server:main: Started).*", timeout);
+        return new WaitingProcessOutputLineListener(STARTED_MESSAGE, timeout);
+      }
+
+      WaitingProcessOutputLineListener newLineListener(int timeout, ReadinessProbe probe) {
+        return new WaitingProcessOutputLineListener(STARTED_MESSAGE, timeout, probe);
       }
     }
   }
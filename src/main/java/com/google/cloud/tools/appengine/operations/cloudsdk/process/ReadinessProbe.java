@@ -0,0 +1,87 @@
+/*
+ * Copyright 2026 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.appengine.operations.cloudsdk.process;
+
+import com.google.common.base.Preconditions;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URL;
+
+/**
+ * Checks whether a started server accepts requests. Passed to {@link
+ * LegacyProcessHandler.Builder#buildDevAppServerAsync(int, ReadinessProbe)}, it is called
+ * repeatedly, with a growing delay, until it succeeds or the server logs that it started.
+ *
+ * <p>A probe can't tell the started server apart from another process listening on the same
+ * address, so it should only be used for addresses that the started server owns.
+ */
+@FunctionalInterface
+public interface ReadinessProbe {
+
+  /** How long a single TCP connection attempt or HTTP request may take. */
+  int TIMEOUT_MILLIS = 1000;
+
+  /** Returns true if the server is ready. Must not block much longer than a single attempt. */
+  boolean isReady();
+
+  /** Ready as soon as {@code host} accepts TCP connections on {@code port}. */
+  static ReadinessProbe tcp(String host, int port) {
+    Preconditions.checkNotNull(host);
+    Preconditions.checkArgument(port > 0 && port < 65536, "port out of range");
+    return () -> {
+      try (Socket socket = new Socket()) {
+        socket.connect(new InetSocketAddress(host, port), TIMEOUT_MILLIS);
+        return true;
+      } catch (IOException ex) {
+        return false;
+      }
+    };
+  }
+
+  /**
+   * Ready as soon as a GET of {@code url} gets a response with a status below 500. Redirects are
+   * not followed.
+   */
+  static ReadinessProbe http(URL url) {
+    Preconditions.checkNotNull(url);
+    return () -> {
+      HttpURLConnection connection = null;
+      try {
+        connection = (HttpURLConnection) url.openConnection();
+        connection.setConnectTimeout(TIMEOUT_MILLIS);
+        connection.setReadTimeout(TIMEOUT_MILLIS);
+        connection.setInstanceFollowRedirects(false);
+        int status = connection.getResponseCode();
+        InputStream body =
+            status < 400 ? connection.getInputStream() : connection.getErrorStream();
+        if (body != null) {
+          body.close();
+        }
+        return status > 0 && status < 500;
+      } catch (IOException ex) {
+        return false;
+      } finally {
+        if (connection != null) {
+          connection.disconnect();
+        }
+      }
+    };
+  }
+}
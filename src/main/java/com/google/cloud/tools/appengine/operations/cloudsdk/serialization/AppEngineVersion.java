@@ -0,0 +1,107 @@
+/*
+ * Copyright 2026 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.appengine.operations.cloudsdk.serialization;
+
+import com.google.gson.annotations.SerializedName;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import javax.annotation.Nullable;
+
+/** Holds de-serialized JSON of a single version listed by {@code gcloud app versions list}. */
+public class AppEngineVersion {
+
+  /** Whether a version is running, as reported by the App Engine Admin API. */
+  public enum ServingStatus {
+    SERVING,
+    STOPPED,
+    SERVING_STATUS_UNSPECIFIED
+  }
+
+  private static class Details {
+    // Don't change the field names because Gson uses them for automatic de-serialization.
+    @Nullable private ServingStatus servingStatus;
+    @Nullable private String createTime;
+
+    // empty private constructor; GSON instantiates
+    private Details() {}
+  }
+
+  // Don't change the field names because Gson uses them for automatic de-serialization.
+  @Nullable private String id;
+  @Nullable private String service;
+  @Nullable private String project;
+
+  @SerializedName("traffic_split")
+  @Nullable
+  private Double trafficSplit;
+
+  @Nullable private Details version;
+
+  // empty private constructor; GSON instantiates
+  private AppEngineVersion() {}
+
+  @Nullable
+  public String getId() {
+    return id;
+  }
+
+  @Nullable
+  public String getService() {
+    return service;
+  }
+
+  @Nullable
+  public String getProject() {
+    return project;
+  }
+
+  /** Returns the share of the service's traffic this version receives, between 0 and 1. */
+  public double getTrafficSplit() {
+    return trafficSplit == null ? 0 : trafficSplit;
+  }
+
+  /** Returns the serving status, or {@code null} if gcloud didn't report a known one. */
+  @Nullable
+  public ServingStatus getServingStatus() {
+    return version == null ? null : version.servingStatus;
+  }
+
+  public boolean isServing() {
+    return getServingStatus() == ServingStatus.SERVING;
+  }
+
+  /** Returns when the version was created, or {@code null} if gcloud didn't report it. */
+  @Nullable
+  public Instant getCreateTime() {
+    if (version == null || version.createTime == null) {
+      return null;
+    }
+    try {
+      return OffsetDateTime.parse(version.createTime, DateTimeFormatter.ISO_OFFSET_DATE_TIME)
+          .toInstant();
+    } catch (DateTimeParseException ex) {
+      return null;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return service + "/" + id;
+  }
+}
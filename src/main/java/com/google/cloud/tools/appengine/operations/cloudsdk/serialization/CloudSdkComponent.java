@@ -16,11 +16,15 @@
 
 package com.google.cloud.tools.appengine.operations.cloudsdk.serialization;
 
+import com.google.cloud.tools.appengine.operations.cloudsdk.JsonParseException;
 import com.google.gson.Gson;
 import com.google.gson.JsonSyntaxException;
 import com.google.gson.annotations.SerializedName;
 import com.google.gson.reflect.TypeToken;
+import java.io.IOException;
+import java.io.Reader;
 import java.lang.reflect.Type;
+import java.util.ArrayList;
 import java.util.List;
 import javax.annotation.Nullable;
 
@@ -67,6 +71,14 @@ public class CloudSdkComponent {
     return gson.fromJson(jsonList, type);
   }
 
+  /** Reads a JSON list of components as it arrives, without holding the whole text in memory. */
+  public static List<CloudSdkComponent> fromJsonList(Reader jsonList)
+      throws JsonParseException, IOException {
+    List<CloudSdkComponent> components = new ArrayList<>();
+    JsonArrayReader.forEach(jsonList, CloudSdkComponent.class, components::add);
+    return components;
+  }
+
   @Nullable
   public String getId() {
     return id;
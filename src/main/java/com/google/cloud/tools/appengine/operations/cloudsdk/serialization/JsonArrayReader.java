@@ -0,0 +1,109 @@
+/*
+ * Copyright 2026 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.appengine.operations.cloudsdk.serialization;
+
+import com.google.cloud.tools.appengine.operations.cloudsdk.JsonParseException;
+import com.google.common.base.Preconditions;
+import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.function.Consumer;
+import javax.annotation.Nullable;
+
+/**
+ * Reads the elements of a JSON array one at a time, as they arrive, so that the whole array is
+ * never held in memory. Used for the {@code --format=json} output of gcloud list commands.
+ *
+ * @param <T> the type the elements are de-serialized to with Gson
+ */
+public class JsonArrayReader<T> implements Closeable {
+
+  private static final Gson gson = new Gson();
+
+  private final JsonReader reader;
+  private final Class<T> type;
+  private boolean started;
+  private boolean finished;
+
+  public JsonArrayReader(Reader reader, Class<T> type) {
+    this.reader = new JsonReader(Preconditions.checkNotNull(reader));
+    this.type = Preconditions.checkNotNull(type);
+  }
+
+  /**
+   * Returns the next element of the array.
+   *
+   * @return the next element, or {@code null} after the last one
+   * @throws JsonParseException if the input is not a JSON array of {@code T}
+   * @throws IOException if the input can't be read
+   */
+  @Nullable
+  public T next() throws JsonParseException, IOException {
+    if (finished) {
+      return null;
+    }
+    try {
+      if (!started) {
+        JsonToken token = reader.peek();
+        if (token != JsonToken.BEGIN_ARRAY) {
+          throw new JsonParseException("Expected a JSON array but was " + token);
+        }
+        reader.beginArray();
+        started = true;
+      }
+      if (!reader.hasNext()) {
+        reader.endArray();
+        finished = true;
+        return null;
+      }
+      T element = gson.fromJson(reader, type);
+      if (element == null) {
+        throw new JsonParseException("Unexpected null element");
+      }
+      return element;
+    } catch (EOFException ex) {
+      throw started ? new JsonParseException(ex) : new JsonParseException("Empty input");
+    } catch (MalformedJsonException | JsonSyntaxException | IllegalStateException ex) {
+      throw new JsonParseException(ex);
+    } catch (JsonIOException ex) {
+      throw new IOException(ex.getCause());
+    }
+  }
+
+  /** Read the whole array, passing each element to {@code consumer} as soon as it is parsed. */
+  public static <T> void forEach(Reader reader, Class<T> type, Consumer<? super T> consumer)
+      throws JsonParseException, IOException {
+    try (JsonArrayReader<T> elements = new JsonArrayReader<>(reader, type)) {
+      T element;
+      while ((element = elements.next()) != null) {
+        consumer.accept(element);
+      }
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    reader.close();
+  }
+}
@@ -0,0 +1,361 @@
+/*
+ * Copyright 2026 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.io;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.CopyOption;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.Nullable;
+
+/**
+ * Recursive directory copy, does NOT overwrite. Like {@link FileUtil#copyDirectory}, but can copy
+ * several subtrees at the same time, which helps with directories of many small files, and reports
+ * what it copied.
+ *
+ * <p>The copy is split into one task per directory, and the files of a large directory into
+ * batches; at most {@link Builder#parallelism} tasks do I/O at the same time. The order in which
+ * files are copied is not defined, but every directory is created before its contents.
+ */
+@Beta
+public class DirectoryCopier {
+
+  private static final CopyOption[] COPY_OPTIONS = {StandardCopyOption.COPY_ATTRIBUTES};
+
+  /** Maximum number of files of a directory that a single task copies. */
+  private static final int FILES_PER_TASK = 64;
+
+  /** Copies a single file, see {@link Builder#fileCopier}. */
+  public interface FileCopier {
+    void copy(Path source, Path destination) throws IOException;
+  }
+
+  /** What a {@link #copy} put in the destination. */
+  public static class Statistics {
+    private final long fileCount;
+    private final long byteCount;
+    private final long directoryCount;
+
+    private Statistics(long fileCount, long byteCount, long directoryCount) {
+      this.fileCount = fileCount;
+      this.byteCount = byteCount;
+      this.directoryCount = directoryCount;
+    }
+
+    /** Files copied, linked or cloned. */
+    public long getFileCount() {
+      return fileCount;
+    }
+
+    /** Total size of the source files, whether they were copied, linked or cloned. */
+    public long getByteCount() {
+      return byteCount;
+    }
+
+    /** Directories created, not including the destination itself. */
+    public long getDirectoryCount() {
+      return directoryCount;
+    }
+
+    @Override
+    public String toString() {
+      return fileCount + " files (" + byteCount + " bytes) in " + directoryCount + " directories";
+    }
+  }
+
+  private final Set<Path> excludes;
+  private final List<String> excludeGlobs;
+  private final LinkStrategy linkStrategy;
+  @Nullable private final FileCopier fileCopier;
+  private final int parallelism;
+
+  private DirectoryCopier(
+      Set<Path> excludes,
+      List<String> excludeGlobs,
+      LinkStrategy linkStrategy,
+      @Nullable FileCopier fileCopier,
+      int parallelism) {
+    this.excludes = excludes;
+    this.excludeGlobs = excludeGlobs;
+    this.linkStrategy = linkStrategy;
+    this.fileCopier = fileCopier;
+    this.parallelism = parallelism;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Copy the contents of {@code source} into {@code destination}.
+   *
+   * @param source an existing source directory to copy from
+   * @param destination an existing destination directory to copy to
+   * @return the number of files, bytes and directories copied
+   * @throws IllegalArgumentException if source directory is same destination directory, either
+   *     source or destination is not a directory, or destination is inside source
+   */
+  public Statistics copy(Path source, Path destination) throws IOException {
+    Preconditions.checkNotNull(source);
+    Preconditions.checkNotNull(destination);
+    Preconditions.checkArgument(Files.isDirectory(source), "Source is not a directory");
+    Preconditions.checkArgument(Files.isDirectory(destination), "Destination is not a directory");
+    Preconditions.checkArgument(
+        !Files.isSameFile(source, destination), "Source and destination are the same");
+    Preconditions.checkArgument(
+        !destination.toAbsolutePath().startsWith(source.toAbsolutePath()),
+        "destination is child of source");
+
+    Copy copy = new Copy(source, destination);
+    if (parallelism == 1) {
+      copy.copyTree(source);
+    } else {
+      ForkJoinPool pool = new ForkJoinPool(parallelism);
+      try {
+        pool.invoke(copy.new DirectoryTask(source));
+      } catch (UncheckedIOException ex) {
+        throw unwrap(ex);
+      } finally {
+        pool.shutdown();
+      }
+    }
+    return new Statistics(copy.fileCount.sum(), copy.byteCount.sum(), copy.directoryCount.sum());
+  }
+
+  private static IOException unwrap(UncheckedIOException ex) {
+    // the fork-join pool may rethrow a copy of the exception with the original as its cause
+    Throwable cause = ex;
+    while (cause instanceof UncheckedIOException) {
+      cause = cause.getCause();
+    }
+    return (IOException) cause;
+  }
+
+  /** State of a single {@link #copy}. */
+  private final class Copy {
+    private final Path source;
+    private final Path destination;
+    private final List<PathMatcher> excludeMatchers = new ArrayList<>();
+    private final LongAdder fileCount = new LongAdder();
+    private final LongAdder byteCount = new LongAdder();
+    private final LongAdder directoryCount = new LongAdder();
+
+    private Copy(Path source, Path destination) {
+      this.source = source;
+      this.destination = destination;
+      for (String glob : excludeGlobs) {
+        excludeMatchers.add(source.getFileSystem().getPathMatcher("glob:" + glob));
+      }
+    }
+
+    private boolean isExcluded(Path path) {
+      if (excludes.contains(path)) {
+        return true;
+      }
+      if (excludeMatchers.isEmpty()) {
+        return false;
+      }
+      Path relativePath = source.relativize(path);
+      for (PathMatcher matcher : excludeMatchers) {
+        if (matcher.matches(relativePath)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    /**
+     * Create the destinations of the subdirectories of {@code directory} and sort its other
+     * entries into {@code files}, skipping excluded entries.
+     *
+     * @return the subdirectories to descend into
+     */
+    private List<Path> list(Path directory, List<Path> files) throws IOException {
+      List<Path> subdirectories = new ArrayList<>();
+      try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+        for (Path entry : entries) {
+          if (isExcluded(entry)) {
+            continue;
+          }
+          // like Files.walkFileTree, symbolic links to directories are copied as files
+          BasicFileAttributes attributes =
+              Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+          if (attributes.isDirectory()) {
+            Path target = destination.resolve(source.relativize(entry));
+            if (fileCopier == null || !Files.isDirectory(target)) {
+              Files.copy(entry, target, COPY_OPTIONS);
+              directoryCount.increment();
+            }
+            subdirectories.add(entry);
+          } else {
+            files.add(entry);
+          }
+        }
+      }
+      return subdirectories;
+    }
+
+    private void copyFiles(List<Path> files) throws IOException {
+      for (Path file : files) {
+        long size = Files.size(file);
+        Path target = destination.resolve(source.relativize(file));
+        if (fileCopier == null) {
+          FileUtil.copyFile(file, target, linkStrategy, COPY_OPTIONS);
+        } else {
+          fileCopier.copy(file, target);
+        }
+        fileCount.increment();
+        byteCount.add(size);
+      }
+    }
+
+    private void copyTree(Path directory) throws IOException {
+      List<Path> files = new ArrayList<>();
+      List<Path> subdirectories = list(directory, files);
+      copyFiles(files);
+      for (Path subdirectory : subdirectories) {
+        copyTree(subdirectory);
+      }
+    }
+
+    /** Copies a directory, forking a task for each subdirectory and batch of files. */
+    @SuppressWarnings("serial") // tasks are never serialized
+    private final class DirectoryTask extends RecursiveAction {
+      private final Path directory;
+
+      private DirectoryTask(Path directory) {
+        this.directory = directory;
+      }
+
+      @Override
+      protected void compute() {
+        try {
+          List<Path> files = new ArrayList<>();
+          List<Path> subdirectories = list(directory, files);
+          List<ForkJoinTask<?>> tasks = new ArrayList<>();
+          for (Path subdirectory : subdirectories) {
+            tasks.add(new DirectoryTask(subdirectory));
+          }
+          List<List<Path>> batches = Lists.partition(files, FILES_PER_TASK);
+          if (tasks.isEmpty() && batches.size() == 1) {
+            copyFiles(files);
+            return;
+          }
+          for (List<Path> batch : batches) {
+            tasks.add(new FilesTask(batch));
+          }
+          invokeAll(tasks);
+        } catch (IOException ex) {
+          throw new UncheckedIOException(ex);
+        }
+      }
+    }
+
+    @SuppressWarnings("serial") // tasks are never serialized
+    private final class FilesTask extends RecursiveAction {
+      private final List<Path> files;
+
+      private FilesTask(List<Path> files) {
+        this.files = files;
+      }
+
+      @Override
+      protected void compute() {
+        try {
+          copyFiles(files);
+        } catch (IOException ex) {
+          throw new UncheckedIOException(ex);
+        }
+      }
+    }
+  }
+
+  public static final class Builder {
+    private final ImmutableSet.Builder<Path> excludes = ImmutableSet.builder();
+    private final ImmutableList.Builder<String> excludeGlobs = ImmutableList.builder();
+    private LinkStrategy linkStrategy = LinkStrategy.COPY;
+    @Nullable private FileCopier fileCopier;
+    private int parallelism = 1;
+
+    private Builder() {}
+
+    /** Paths in the source to skip, as resolved against the source directory. */
+    public DirectoryCopier.Builder excludes(Collection<Path> excludes) {
+      this.excludes.addAll(excludes);
+      return this;
+    }
+
+    /**
+     * Skip paths whose path relative to the source directory matches a glob, see {@link
+     * java.nio.file.FileSystem#getPathMatcher}. A matching directory is skipped with all its
+     * contents.
+     */
+    public DirectoryCopier.Builder excludeGlob(String glob) {
+      excludeGlobs.add(Preconditions.checkNotNull(glob));
+      return this;
+    }
+
+    /** How files are copied, {@link LinkStrategy#COPY} by default. */
+    public DirectoryCopier.Builder linkStrategy(LinkStrategy linkStrategy) {
+      this.linkStrategy = Preconditions.checkNotNull(linkStrategy);
+      return this;
+    }
+
+    /**
+     * Copy every file that is not excluded with {@code fileCopier} instead of with the link
+     * strategy, e.g. to skip files that did not change. Directories that already exist in the
+     * destination are then copied into rather than rejected. The copier is called from up to
+     * {@link #parallelism} threads at the same time.
+     */
+    public DirectoryCopier.Builder fileCopier(FileCopier fileCopier) {
+      this.fileCopier = Preconditions.checkNotNull(fileCopier);
+      return this;
+    }
+
+    /** Maximum number of threads copying at the same time, 1 (the calling thread) by default. */
+    public DirectoryCopier.Builder parallelism(int parallelism) {
+      Preconditions.checkArgument(parallelism > 0, "parallelism must be positive");
+      this.parallelism = parallelism;
+      return this;
+    }
+
+    /** Build a {@link DirectoryCopier}. */
+    public DirectoryCopier build() {
+      return new DirectoryCopier(
+          excludes.build(), excludeGlobs.build(), linkStrategy, fileCopier, parallelism);
+    }
+  }
+}
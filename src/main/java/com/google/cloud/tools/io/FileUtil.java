@@ -17,22 +17,32 @@
 package com.google.cloud.tools.io;
 
 import com.google.common.annotations.Beta;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import java.io.IOException;
 import java.nio.file.CopyOption;
-import java.nio.file.FileVisitResult;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystemException;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
-import java.nio.file.SimpleFileVisitor;
 import java.nio.file.StandardCopyOption;
-import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.DosFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /** File utilities. */
 @Beta
 public class FileUtil {
 
+  private static final Logger logger = Logger.getLogger(FileUtil.class.getName());
+
   /**
    * Implementation of recursive directory copy, does NOT overwrite.
    *
@@ -56,48 +66,94 @@ public class FileUtil {
    */
   public static void copyDirectory(final Path source, final Path destination, List<Path> excludes)
       throws IOException {
-    Preconditions.checkNotNull(source);
-    Preconditions.checkNotNull(destination);
-    Preconditions.checkArgument(Files.isDirectory(source), "Source is not a directory");
-    Preconditions.checkArgument(Files.isDirectory(destination), "Destination is not a directory");
-    Preconditions.checkArgument(
-        !Files.isSameFile(source, destination), "Source and destination are the same");
-    Preconditions.checkArgument(
-        !destination.toAbsolutePath().startsWith(source.toAbsolutePath()),
-        "destination is child of source");
-
-    Files.walkFileTree(
-        source,
-        new SimpleFileVisitor<Path>() {
-          final CopyOption[] copyOptions = new CopyOption[] {StandardCopyOption.COPY_ATTRIBUTES};
-
-          @Override
-          public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs)
-              throws IOException {
-
-            if (dir.equals(source)) {
-              return FileVisitResult.CONTINUE;
-            }
-
-            if (excludes.contains(dir)) {
-              return FileVisitResult.SKIP_SUBTREE;
-            }
+    copyDirectory(source, destination, excludes, LinkStrategy.COPY);
+  }
 
-            Files.copy(dir, destination.resolve(source.relativize(dir)), copyOptions);
-            return FileVisitResult.CONTINUE;
-          }
+  /**
+   * Implementation of recursive directory copy, does NOT overwrite. Files are put in place with
+   * {@code linkStrategy}, directories are always created. See {@link DirectoryCopier} to copy
+   * with several threads or exclude paths by pattern.
+   *
+   * @param source an existing source directory to copy from
+   * @param destination an existing destination directory to copy to
+   * @param excludes a list of paths in "source" to exclude
+   * @param linkStrategy how files are copied, see {@link LinkStrategy}
+   * @throws IllegalArgumentException if source directory is same destination directory, either
+   *     source or destination is not a directory, or destination is inside source
+   */
+  public static void copyDirectory(
+      final Path source,
+      final Path destination,
+      List<Path> excludes,
+      final LinkStrategy linkStrategy)
+      throws IOException {
+    DirectoryCopier.builder()
+        .excludes(excludes)
+        .linkStrategy(linkStrategy)
+        .build()
+        .copy(source, destination);
+  }
 
-          @Override
-          public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
-              throws IOException {
+  /**
+   * Copy, link or clone a file. Like {@link Files#copy(Path, Path, CopyOption...)}, fails if
+   * {@code destination} exists unless {@link StandardCopyOption#REPLACE_EXISTING} is given, and
+   * only keeps the attributes of {@code source} with {@link StandardCopyOption#COPY_ATTRIBUTES};
+   * hard links always share the attributes of the source.
+   *
+   * @param linkStrategy how the file is copied, see {@link LinkStrategy}
+   * @param options {@link StandardCopyOption#REPLACE_EXISTING} and {@link
+   *     StandardCopyOption#COPY_ATTRIBUTES} are supported with all strategies
+   */
+  public static void copyFile(
+      Path source, Path destination, LinkStrategy linkStrategy, CopyOption... options)
+      throws IOException {
+    Preconditions.checkNotNull(source);
+    Preconditions.checkNotNull(destination);
+    Preconditions.checkNotNull(linkStrategy);
+    if (linkStrategy == LinkStrategy.COPY) {
+      Files.copy(source, destination, options);
+      return;
+    }
 
-            if (excludes.contains(file)) {
-              return FileVisitResult.CONTINUE;
-            }
+    List<CopyOption> optionList = Arrays.asList(options);
+    if (Files.exists(destination, LinkOption.NOFOLLOW_LINKS)) {
+      if (!optionList.contains(StandardCopyOption.REPLACE_EXISTING)) {
+        throw new FileAlreadyExistsException(destination.toString());
+      }
+      Files.delete(destination);
+    }
+    try {
+      if (linkStrategy == LinkStrategy.HARD_LINK && isReadOnly(source)) {
+        Files.createLink(destination, source);
+        return;
+      }
+      // a writable source could be modified through a hard link, clone it instead
+      if (Reflink.tryClone(
+          source, destination, optionList.contains(StandardCopyOption.COPY_ATTRIBUTES))) {
+        return;
+      }
+    } catch (UnsupportedOperationException | FileSystemException ex) {
+      // e.g. different file systems
+      logger.log(Level.FINE, "Could not link " + destination + ", copying instead", ex);
+    }
+    Files.copy(source, destination, options);
+  }
 
-            Files.copy(file, destination.resolve(source.relativize(file)), copyOptions);
-            return FileVisitResult.CONTINUE;
-          }
-        });
+  /**
+   * Whether nobody, including the owner, has permission to write to {@code file}. Unlike {@link
+   * Files#isWritable}, this doesn't depend on the current user, who may be allowed to write to any
+   * file.
+   */
+  @VisibleForTesting
+  static boolean isReadOnly(Path file) throws IOException {
+    PosixFileAttributeView posix = Files.getFileAttributeView(file, PosixFileAttributeView.class);
+    if (posix != null) {
+      Set<PosixFilePermission> permissions = posix.readAttributes().permissions();
+      return !permissions.contains(PosixFilePermission.OWNER_WRITE)
+          && !permissions.contains(PosixFilePermission.GROUP_WRITE)
+          && !permissions.contains(PosixFilePermission.OTHERS_WRITE);
+    }
+    DosFileAttributeView dos = Files.getFileAttributeView(file, DosFileAttributeView.class);
+    return dos != null && dos.readAttributes().isReadOnly();
   }
 }
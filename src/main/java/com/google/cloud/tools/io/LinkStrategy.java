@@ -0,0 +1,48 @@
+/*
+ * Copyright 2026 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.io;
+
+import com.google.common.annotations.Beta;
+
+/**
+ * How {@link FileUtil} puts a file at its destination. Every strategy leaves the destination
+ * independent of later modifications of the source. Strategies other than {@link #COPY} fall back
+ * to copying the file when the file system can't link or clone it, e.g. when the source and
+ * destination are on different file systems.
+ */
+@Beta
+public enum LinkStrategy {
+
+  /** Copy the contents of the file. The copy is independent of the source. */
+  COPY,
+
+  /**
+   * Create a hard link to the source if nobody may write to it, otherwise clone or copy it like
+   * {@link #REFLINK}. A read-only source can't be modified in place while the destination shares
+   * it, and tools that replace their output (write a new file and rename it) do not affect the
+   * destination. The destination is read-only too.
+   */
+  HARD_LINK,
+
+  /**
+   * Clone the file on file systems that support copy-on-write (e.g. Btrfs, XFS, APFS). The clone
+   * shares storage with the source until either is modified, so it is as independent of the source
+   * as a copy. Cloning is delegated to {@code cp}, so it is only attempted on Linux and macOS, and
+   * for files large enough to be worth starting a process.
+   */
+  REFLINK
+}
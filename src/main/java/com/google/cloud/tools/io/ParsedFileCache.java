@@ -0,0 +1,98 @@
+/*
+ * Copyright 2026 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.io;
+
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.VisibleForTesting;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers what files were parsed to, and returns it again without reading a file as long as its
+ * modification time, size and file key (e.g. inode) stay the same. Safe for use by several threads.
+ *
+ * @param <T> the type files are parsed to, which should be immutable since callers share it
+ */
+@Beta
+public class ParsedFileCache<T> {
+
+  /**
+   * Far more files than a build, even one of many services, works with at the same time. Beyond
+   * it the cache is cleared rather than evicting entries one at a time, which costs one parse per
+   * file in use.
+   */
+  @VisibleForTesting static final int MAX_CACHED_FILES = 256;
+
+  /** Parses the contents of a file. */
+  public interface Parser<T, E extends Exception> {
+    T parse(InputStream in) throws IOException, E;
+  }
+
+  private final Map<Path, Parsed<T>> cache = new ConcurrentHashMap<>();
+
+  /**
+   * Returns what {@code file} was parsed to before if it is unchanged since, or parses it.
+   *
+   * @throws IOException if the file can't be read
+   * @throws E if {@code parser} fails
+   */
+  public <E extends Exception> T get(Path file, Parser<T, E> parser) throws IOException, E {
+    Path key = file.toAbsolutePath().normalize();
+    // read before the contents, so that a concurrent change can only make the entry look stale
+    BasicFileAttributes attributes = Files.readAttributes(key, BasicFileAttributes.class);
+    Parsed<T> parsed = cache.get(key);
+    if (parsed != null && parsed.isCurrent(attributes)) {
+      return parsed.value;
+    }
+    T value;
+    try (InputStream in = Files.newInputStream(key)) {
+      value = parser.parse(in);
+    }
+    if (cache.size() >= MAX_CACHED_FILES) {
+      cache.clear();
+    }
+    cache.put(key, new Parsed<>(attributes, value));
+    return value;
+  }
+
+  @VisibleForTesting
+  int size() {
+    return cache.size();
+  }
+
+  private static class Parsed<T> {
+    private final BasicFileAttributes attributes;
+    private final T value;
+
+    private Parsed(BasicFileAttributes attributes, T value) {
+      this.attributes = attributes;
+      this.value = value;
+    }
+
+    private boolean isCurrent(BasicFileAttributes current) {
+      return attributes.lastModifiedTime().equals(current.lastModifiedTime())
+          && attributes.size() == current.size()
+          && Objects.equals(attributes.fileKey(), current.fileKey());
+    }
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2026 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.io;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+import javax.annotation.Nullable;
+
+/** Copy-on-write file clones, see {@link LinkStrategy#REFLINK}. */
+final class Reflink {
+
+  private static final Logger logger = Logger.getLogger(Reflink.class.getName());
+
+  /** Smaller files are copied, as starting {@code cp} takes longer than copying them. */
+  @VisibleForTesting static final long MIN_SIZE = 1024 * 1024;
+
+  /**
+   * Whether cloning worked on a file store; file stores are not checked again once {@code cp}
+   * reported that they can't clone.
+   */
+  private static final Map<FileStore, Boolean> supported = new ConcurrentHashMap<>();
+
+  /**
+   * Errors of {@code cp} in the C locale that mean the file system can't clone, as opposed to
+   * errors of a single clone like a full disk or a missing permission.
+   */
+  private static final ImmutableList<String> UNSUPPORTED_ERRORS =
+      ImmutableList.of(
+          "Operation not supported",
+          "Inappropriate ioctl for device",
+          "Invalid cross-device link",
+          "Cross-device link",
+          "Function not implemented");
+
+  private Reflink() {}
+
+  /**
+   * Try to clone {@code source} to {@code destination}, which must not exist.
+   *
+   * @param copyAttributes also clone the permissions and modification time of {@code source}
+   * @return true if the clone was created, false if {@code source} should be copied instead
+   */
+  static boolean tryClone(Path source, Path destination, boolean copyAttributes)
+      throws IOException {
+    List<String> command = getCommand(System.getProperty("os.name"), copyAttributes);
+    if (command == null || Files.size(source) < MIN_SIZE) {
+      return false;
+    }
+    Path destinationDirectory = destination.toAbsolutePath().getParent();
+    FileStore fileStore = Files.getFileStore(destinationDirectory);
+    if (!fileStore.equals(Files.getFileStore(source))
+        || Boolean.FALSE.equals(supported.get(fileStore))) {
+      return false;
+    }
+
+    command.add(source.toAbsolutePath().toString());
+    command.add(destination.toAbsolutePath().toString());
+    ProcessBuilder processBuilder = new ProcessBuilder(command).redirectErrorStream(true);
+    // untranslated error messages, see isUnsupported
+    processBuilder.environment().put("LC_ALL", "C");
+    Process process = processBuilder.start();
+    String output;
+    try (InputStream in = process.getInputStream()) {
+      output = new String(ByteStreams.toByteArray(in), StandardCharsets.UTF_8);
+    }
+    try {
+      if (process.waitFor() == 0) {
+        supported.put(fileStore, true);
+        return true;
+      }
+    } catch (InterruptedException ex) {
+      process.destroy();
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while cloning " + source, ex);
+    }
+    if (isUnsupported(output)) {
+      logger.fine("Can't clone files on " + fileStore + ", copying instead");
+      supported.put(fileStore, false);
+    } else {
+      logger.fine("Could not clone " + source + ", copying instead: " + output.trim());
+    }
+    // cp may leave an empty file behind
+    Files.deleteIfExists(destination);
+    return false;
+  }
+
+  /** Whether the error output of {@code cp} means that the file system can't clone at all. */
+  @VisibleForTesting
+  static boolean isUnsupported(String cpOutput) {
+    return UNSUPPORTED_ERRORS.stream().anyMatch(cpOutput::contains);
+  }
+
+  @VisibleForTesting
+  @Nullable
+  static List<String> getCommand(String osName, boolean copyAttributes) {
+    List<String> command = new ArrayList<>();
+    command.add("cp");
+    if (osName.startsWith("Linux")) {
+      command.add("--reflink=always");
+      if (copyAttributes) {
+        command.add("--preserve=mode,timestamps");
+      }
+    } else if (osName.startsWith("Mac")) {
+      // clonefile(2)
+      command.add("-c");
+      if (copyAttributes) {
+        command.add("-p");
+      }
+    } else {
+      return null;
+    }
+    return command;
+  }
+}
@@ -122,8 +122,9 @@ public class ManagedCloudSdk {
             "--filter=id:" + component);
 
     try {
-      String result = CommandCaller.newCaller().call(listComponentCommand, null, null);
-      List<CloudSdkComponent> components = CloudSdkComponent.fromJsonList(result);
+      List<CloudSdkComponent> components =
+          CommandCaller.newCaller()
+              .call(listComponentCommand, null, null, CloudSdkComponent::fromJsonList);
       if (components.size() > 1) {
         // not a unique component id
         throw new ManagedSdkVerificationException("Invalid component " + component);
@@ -153,8 +154,10 @@ public class ManagedCloudSdk {
             "--filter=state.name:Update Available");
 
     try {
-      String result = CommandCaller.newCaller().call(updateAvailableCommand, null, null);
-      for (CloudSdkComponent component : CloudSdkComponent.fromJsonList(result)) {
+      List<CloudSdkComponent> components =
+          CommandCaller.newCaller()
+              .call(updateAvailableCommand, null, null, CloudSdkComponent::fromJsonList);
+      for (CloudSdkComponent component : components) {
         State state = component.getState();
         if (state != null) {
           if ("Update Available".equals(state.getName())) {
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2026 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.managedcloudsdk.command;
+
+import com.google.cloud.tools.managedcloudsdk.process.AsyncStreamHandler;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import java.io.FilterInputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs an {@link OutputParser} over a stream on a separate thread. Whatever the parser leaves
+ * unread is discarded so that the process never blocks on a full pipe. Do not re-use this on
+ * streams - it can only handle one stream per instance.
+ */
+class AsyncStreamParser<T> implements AsyncStreamHandler {
+
+  private final OutputParser<T> parser;
+  private final ListeningExecutorService executorService;
+  private final SettableFuture<T> result = SettableFuture.create();
+
+  AsyncStreamParser(OutputParser<T> parser) {
+    this.parser = Preconditions.checkNotNull(parser);
+    this.executorService = MoreExecutors.listeningDecorator(Executors.newSingleThreadExecutor());
+  }
+
+  /** Handle an input stream on a separate thread. */
+  @Override
+  public void handleStream(final InputStream inputStream) {
+    if (executorService.isShutdown()) {
+      throw new IllegalStateException("Cannot reuse " + this.getClass().getName());
+    }
+    ListenableFuture<T> submit = executorService.submit(() -> parse(inputStream));
+    result.setFuture(submit);
+    executorService.shutdown();
+  }
+
+  @VisibleForTesting
+  T parse(final InputStream inputStream) throws Exception {
+    try (InputStream in = inputStream) {
+      // the parser may close its reader before the rest of the stream is discarded
+      InputStream unclosable =
+          new FilterInputStream(in) {
+            @Override
+            public void close() {}
+          };
+      try {
+        return parser.parse(new InputStreamReader(unclosable, StandardCharsets.UTF_8));
+      } finally {
+        ByteStreams.exhaust(in);
+      }
+    }
+  }
+
+  /** Returns a future to the parsed stream. */
+  ListenableFuture<T> getResult() {
+    return result;
+  }
+}
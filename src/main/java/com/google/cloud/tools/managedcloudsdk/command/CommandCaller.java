@@ -87,6 +87,41 @@ public class CommandCaller {
     }
   }
 
+  /**
+   * Runs the command and returns what {@code stdOutParser} makes of the process's stdout stream.
+   * The stream is parsed while the command runs instead of being saved first.
+   */
+  public <T> T call(
+      List<String> command,
+      @Nullable Path workingDirectory,
+      @Nullable Map<String, String> environment,
+      OutputParser<T> stdOutParser)
+      throws CommandExitException, CommandExecutionException, InterruptedException {
+    ProcessExecutor processExecutor = processExecutorSupplier.get();
+
+    AsyncStreamParser<T> stdOutHandler = new AsyncStreamParser<>(stdOutParser);
+    AsyncStreamSaver stdErrSaver = streamSaverFactory.newSaver();
+
+    try {
+      int exitCode =
+          processExecutor.run(command, workingDirectory, environment, stdOutHandler, stdErrSaver);
+      if (exitCode != 0) {
+        throw new CommandExitException(exitCode, getStdErr(stdErrSaver));
+      }
+      return stdOutHandler.getResult().get();
+    } catch (IOException | ExecutionException ex) {
+      throw new CommandExecutionException(getStdErr(stdErrSaver), ex);
+    }
+  }
+
+  private static String getStdErr(AsyncStreamSaver stdErrSaver) {
+    try {
+      return stdErrSaver.getResult().get();
+    } catch (InterruptedException | ExecutionException ignored) {
+      return "stderr collection interrupted";
+    }
+  }
+
   public static CommandCaller newCaller() {
     return new CommandCaller(ProcessExecutor::new, new AsyncStreamSaverFactory());
   }
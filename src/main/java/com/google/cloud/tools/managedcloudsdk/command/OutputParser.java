@@ -0,0 +1,31 @@
+/*
+ * Copyright 2026 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.managedcloudsdk.command;
+
+import java.io.Reader;
+
+/**
+ * Parses the stdout stream of a command while the command runs, see {@link
+ * CommandCaller#call(java.util.List, java.nio.file.Path, java.util.Map, OutputParser)}.
+ *
+ * @param <T> the type of the parsed output
+ */
+public interface OutputParser<T> {
+
+  /** Parses {@code stdOut}, decoded as UTF-8. It does not have to be read to the end. */
+  T parse(Reader stdOut) throws Exception;
+}
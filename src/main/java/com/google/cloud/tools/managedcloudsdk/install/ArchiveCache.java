@@ -0,0 +1,304 @@
+/*
+ * Copyright 2026 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.managedcloudsdk.install;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.hash.Hashing;
+import com.google.common.hash.HashingInputStream;
+import com.google.common.io.MoreFiles;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.annotation.Nullable;
+
+/**
+ * A content-addressed cache of downloaded Cloud SDK archives that can be shared by any number of
+ * installers, in this or other processes, on the same machine.
+ *
+ * <p>Archives are stored as {@code objects/<sha256>} and looked up through {@code
+ * index/<sha256 of source url>} files holding the content hash. Archives are hashed when they
+ * are added to the cache and again while they are copied out of it, so a corrupt archive is never
+ * handed out. The least recently used archives are evicted when the cache grows beyond its
+ * size limit. All changes to the cache are made under an exclusive lock on {@code .lock}, so
+ * concurrent processes never see partially written entries; archives are copied outside the lock.
+ *
+ * <p>Only cache archives whose content never changes for a given url, see {@link
+ * FileResourceProvider#isArchiveCacheable()}.
+ */
+public class ArchiveCache {
+
+  private static final Logger logger = Logger.getLogger(ArchiveCache.class.getName());
+
+  /** Temporary files older than this were left behind by a process that died. */
+  private static final Duration STALE_TEMP_FILE_AGE = Duration.ofHours(1);
+
+  private final Path cacheDirectory;
+  private final long maxSizeBytes;
+
+  /**
+   * Create a new cache instance, instances created with the same directory share their contents.
+   *
+   * @param cacheDirectory the directory to store cached archives in
+   * @param maxSizeBytes the maximum total size of cached archives, the most recently added archive
+   *     is always kept even if it is larger
+   */
+  public ArchiveCache(Path cacheDirectory, long maxSizeBytes) {
+    Preconditions.checkArgument(maxSizeBytes >= 0, "maxSizeBytes must not be negative");
+    this.cacheDirectory = cacheDirectory.toAbsolutePath().normalize();
+    this.maxSizeBytes = maxSizeBytes;
+  }
+
+  /**
+   * Copy the cached archive for {@code source} to {@code destination}, verifying its hash while it
+   * is copied.
+   *
+   * @return true if a verified archive was found and copied, false if the archive is not cached
+   */
+  public boolean copyTo(URL source, Path destination) throws IOException {
+    Path object =
+        withLock(
+            () -> {
+              Path found = findObject(source);
+              if (found != null) {
+                // last modified time doubles as last access time for LRU eviction
+                Files.setLastModifiedTime(found, FileTime.fromMillis(System.currentTimeMillis()));
+              }
+              return found;
+            });
+    if (object == null) {
+      return false;
+    }
+
+    // copy and hash outside the lock, this is the expensive part, hashing the copy makes sure the
+    // verified bytes are the ones handed out
+    Files.createDirectories(destination.toAbsolutePath().getParent());
+    String contentHash;
+    try (HashingInputStream in =
+        new HashingInputStream(Hashing.sha256(), Files.newInputStream(object))) {
+      Files.copy(in, destination, StandardCopyOption.REPLACE_EXISTING);
+      contentHash = in.hash().toString();
+    } catch (NoSuchFileException ex) {
+      // evicted by another installer after it was looked up
+      return false;
+    }
+    if (!contentHash.equals(object.getFileName().toString())) {
+      logger.warning("Discarding corrupt cached archive: " + object);
+      Files.delete(destination);
+      withLock(
+          () -> {
+            Files.deleteIfExists(object);
+            // drops the index entry if it still points at the deleted archive
+            findObject(source);
+            return null;
+          });
+      return false;
+    }
+    logger.info("Using cached archive for " + source + ": " + object);
+    return true;
+  }
+
+  /**
+   * Add a downloaded archive to the cache, evicting least recently used archives if the cache is
+   * over its size limit.
+   */
+  public void put(URL source, Path archive) throws IOException {
+    Path objects = cacheDirectory.resolve("objects");
+    Path index = cacheDirectory.resolve("index");
+    Files.createDirectories(objects);
+    Files.createDirectories(index);
+
+    // copy and hash outside the lock, this is the expensive part, hashing the copy makes sure the
+    // hash is that of the bytes in the cache
+    Path temp = Files.createTempFile(objects, "archive", ".tmp");
+    String contentHash;
+    try {
+      Files.copy(archive, temp, StandardCopyOption.REPLACE_EXISTING);
+      contentHash = hash(temp);
+    } catch (IOException | RuntimeException ex) {
+      Files.deleteIfExists(temp);
+      throw ex;
+    }
+    withLock(
+        () -> {
+          Path object = objects.resolve(contentHash);
+          if (Files.exists(object)) {
+            Files.delete(temp);
+          } else {
+            Files.move(temp, object, StandardCopyOption.ATOMIC_MOVE);
+          }
+          Files.setLastModifiedTime(object, FileTime.fromMillis(System.currentTimeMillis()));
+
+          Path indexFile = getIndexFile(source);
+          Path tempIndexFile =
+              Files.createTempFile(index, indexFile.getFileName().toString(), ".tmp");
+          Files.write(tempIndexFile, contentHash.getBytes(StandardCharsets.UTF_8));
+          Files.move(
+              tempIndexFile,
+              indexFile,
+              StandardCopyOption.ATOMIC_MOVE,
+              StandardCopyOption.REPLACE_EXISTING);
+
+          evict(object);
+          deleteStaleTempFiles();
+          return null;
+        });
+  }
+
+  @VisibleForTesting
+  Path getCacheDirectory() {
+    return cacheDirectory;
+  }
+
+  /** Returns the cached archive for {@code source}, dropping index entries that are invalid. */
+  @Nullable
+  private Path findObject(URL source) throws IOException {
+    Path indexFile = getIndexFile(source);
+    if (!Files.isRegularFile(indexFile)) {
+      return null;
+    }
+    String contentHash = readIndexFile(indexFile);
+    Path object = cacheDirectory.resolve("objects").resolve(contentHash);
+    if (!contentHash.matches("[0-9a-f]{64}") || !Files.isRegularFile(object)) {
+      Files.delete(indexFile);
+      return null;
+    }
+    return object;
+  }
+
+  private static String readIndexFile(Path indexFile) throws IOException {
+    return new String(Files.readAllBytes(indexFile), StandardCharsets.UTF_8).trim();
+  }
+
+  /** Delete temporary files left behind by processes that died while adding an archive. */
+  private void deleteStaleTempFiles() throws IOException {
+    long staleBefore = System.currentTimeMillis() - STALE_TEMP_FILE_AGE.toMillis();
+    for (String directory : new String[] {"objects", "index"}) {
+      List<Path> tempFiles;
+      try (Stream<Path> files = Files.list(cacheDirectory.resolve(directory))) {
+        tempFiles =
+            files
+                .filter(file -> file.getFileName().toString().endsWith(".tmp"))
+                .collect(Collectors.toList());
+      }
+      for (Path tempFile : tempFiles) {
+        // archives are copied to temporary files outside the lock, so only old ones are stale
+        if (Files.getLastModifiedTime(tempFile).toMillis() < staleBefore) {
+          logger.info("Deleting stale temporary file: " + tempFile);
+          Files.deleteIfExists(tempFile);
+        }
+      }
+    }
+  }
+
+  /** Delete least recently used archives (except {@code keep}) until under the size limit. */
+  private void evict(Path keep) throws IOException {
+    List<Path> objects;
+    try (Stream<Path> files = Files.list(cacheDirectory.resolve("objects"))) {
+      objects =
+          files
+              .filter(file -> !file.getFileName().toString().endsWith(".tmp"))
+              .collect(Collectors.toList());
+    }
+    long totalSize = 0;
+    List<FileEntry> entries = new ArrayList<>();
+    for (Path object : objects) {
+      FileEntry entry =
+          new FileEntry(object, Files.size(object), Files.getLastModifiedTime(object));
+      totalSize += entry.size;
+      entries.add(entry);
+    }
+    entries.sort(Comparator.comparing(entry -> entry.lastAccess));
+
+    boolean evicted = false;
+    for (FileEntry entry : entries) {
+      if (totalSize <= maxSizeBytes) {
+        break;
+      }
+      if (entry.path.equals(keep)) {
+        continue;
+      }
+      logger.info("Evicting cached archive: " + entry.path);
+      Files.delete(entry.path);
+      totalSize -= entry.size;
+      evicted = true;
+    }
+
+    if (evicted) {
+      // drop index entries that point at evicted archives
+      List<Path> indexFiles;
+      try (Stream<Path> files = Files.list(cacheDirectory.resolve("index"))) {
+        indexFiles =
+            files
+                .filter(file -> !file.getFileName().toString().endsWith(".tmp"))
+                .collect(Collectors.toList());
+      }
+      for (Path indexFile : indexFiles) {
+        String contentHash = readIndexFile(indexFile);
+        if (!Files.exists(cacheDirectory.resolve("objects").resolve(contentHash))) {
+          Files.delete(indexFile);
+        }
+      }
+    }
+  }
+
+  private Path getIndexFile(URL source) {
+    String key = Hashing.sha256().hashString(source.toString(), StandardCharsets.UTF_8).toString();
+    return cacheDirectory.resolve("index").resolve(key);
+  }
+
+  private static String hash(Path file) throws IOException {
+    return MoreFiles.asByteSource(file).hash(Hashing.sha256()).toString();
+  }
+
+  private <T> T withLock(CacheOperation<T> operation) throws IOException {
+    CrossProcessLock lock = CrossProcessLock.acquire(cacheDirectory.resolve(".lock"));
+    try {
+      return operation.call();
+    } finally {
+      lock.close();
+    }
+  }
+
+  private interface CacheOperation<T> {
+    T call() throws IOException;
+  }
+
+  private static class FileEntry {
+    private final Path path;
+    private final long size;
+    private final FileTime lastAccess;
+
+    private FileEntry(Path path, long size, FileTime lastAccess) {
+      this.path = path;
+      this.size = size;
+      this.lastAccess = lastAccess;
+    }
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2026 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.managedcloudsdk.install;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An exclusive lock backed by a lock file, held against other threads of this process as well as
+ * other processes. {@link FileLock}s are held per process, so they can't keep out other threads
+ * on their own.
+ */
+final class CrossProcessLock implements Closeable {
+
+  private static final ConcurrentMap<Path, ReentrantLock> processLocks = new ConcurrentHashMap<>();
+
+  private final ReentrantLock processLock;
+  private final FileChannel channel;
+  private final FileLock fileLock;
+
+  private CrossProcessLock(ReentrantLock processLock, FileChannel channel, FileLock fileLock) {
+    this.processLock = processLock;
+    this.channel = channel;
+    this.fileLock = fileLock;
+  }
+
+  /** Block until the lock on {@code lockFile} is acquired, the file is created if necessary. */
+  static CrossProcessLock acquire(Path lockFile) throws IOException {
+    Path normalizedLockFile = lockFile.toAbsolutePath().normalize();
+    ReentrantLock processLock =
+        processLocks.computeIfAbsent(normalizedLockFile, path -> new ReentrantLock());
+    processLock.lock();
+    FileChannel channel = null;
+    try {
+      Files.createDirectories(normalizedLockFile.getParent());
+      channel =
+          FileChannel.open(normalizedLockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+      return new CrossProcessLock(processLock, channel, channel.lock());
+    } catch (IOException | RuntimeException ex) {
+      if (channel != null) {
+        channel.close();
+      }
+      processLock.unlock();
+      throw ex;
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      fileLock.release();
+      channel.close();
+    } finally {
+      processLock.unlock();
+    }
+  }
+}
@@ -17,36 +17,88 @@
 package com.google.cloud.tools.managedcloudsdk.install;
 
 import com.google.cloud.tools.managedcloudsdk.ProgressListener;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.io.BufferedOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
 import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import javax.annotation.Nullable;
 
-/** Downloader for downloading a single Cloud SDK archive. */
+/**
+ * Downloader for downloading a single Cloud SDK archive.
+ *
+ * <p>A resumable downloader keeps partially downloaded data next to the destination (as {@code
+ * <destination>.part}) when it is interrupted or fails, and continues from there with an HTTP
+ * {@code Range} request on the next attempt. When configured with more than one connection and the
+ * server advertises {@code Accept-Ranges: bytes}, the archive is fetched as that many segments in
+ * parallel, each of which is resumable on its own. A small manifest ({@code
+ * <destination>.part.properties}) records the url, the ETag or Last-Modified date, the length and
+ * the segment size of the partial download; it is only resumed when they still match, and the
+ * server is asked with {@code If-Range} to send the whole archive if it changed since.
+ */
 final class Downloader {
 
   private static final Logger logger = Logger.getLogger(Downloader.class.getName());
 
   static final int BUFFER_SIZE = 8 * 1024;
+  /** Archives smaller than this per connection are not split into parallel segments. */
+  static final long MIN_SEGMENT_SIZE = 1024 * 1024;
+
+  private static final Pattern SEGMENT_SUFFIX = Pattern.compile("\\d+");
+
   private final URL address;
   private final Path destinationFile;
   private final String userAgentString;
   private final ProgressListener progressListener;
+  private final boolean resumable;
+  private final int connections;
 
   /** Use {@link DownloaderFactory} to instantiate. */
   Downloader(
       URL source, Path destinationFile, String userAgentString, ProgressListener progressListener) {
+    this(source, destinationFile, userAgentString, progressListener, false, 1);
+  }
+
+  /** Use {@link DownloaderFactory} to instantiate. */
+  Downloader(
+      URL source,
+      Path destinationFile,
+      String userAgentString,
+      ProgressListener progressListener,
+      boolean resumable,
+      int connections) {
+    Preconditions.checkArgument(connections > 0, "connections must be positive");
     this.address = source;
     this.destinationFile = destinationFile;
     this.userAgentString = userAgentString;
     this.progressListener = progressListener;
+    this.resumable = resumable;
+    this.connections = connections;
   }
 
   /** Download an archive, this will NOT overwrite a previously existing file. */
@@ -58,6 +110,12 @@ final class Downloader {
     if (Files.exists(destinationFile)) {
       throw new FileAlreadyExistsException(destinationFile.toString());
     }
+
+    if (resumable) {
+      downloadResumable();
+      return;
+    }
+
     URLConnection connection = address.openConnection();
     connection.setRequestProperty("User-Agent", userAgentString);
 
@@ -92,6 +150,397 @@ final class Downloader {
     progressListener.done();
   }
 
+  /**
+   * Download an archive and hand its contents to {@code consumer} while they are being received, so
+   * that processing (for example extraction) overlaps with the network transfer. When {@code
+   * keepArchive} is true the bytes are also written to the destination file, this will NOT
+   * overwrite a previously existing file. Any bytes left unread by the consumer are drained so the
+   * saved archive is always complete.
+   */
+  public void download(StreamConsumer consumer, boolean keepArchive)
+      throws IOException, InterruptedException {
+    if (!Files.exists(destinationFile.getParent())) {
+      Files.createDirectories(destinationFile.getParent());
+    }
+
+    if (keepArchive && Files.exists(destinationFile)) {
+      throw new FileAlreadyExistsException(destinationFile.toString());
+    }
+    URLConnection connection = address.openConnection();
+    connection.setRequestProperty("User-Agent", userAgentString);
+
+    try (InputStream in = connection.getInputStream()) {
+      // note : contentLength can potentially be -1 if it is unknown.
+      long contentLength = connection.getContentLengthLong();
+
+      logger.info(
+          "Streaming " + address + (keepArchive ? " (saving to " + destinationFile + ")" : ""));
+
+      try (OutputStream out =
+          keepArchive
+              ? new BufferedOutputStream(
+                  Files.newOutputStream(destinationFile, StandardOpenOption.CREATE_NEW))
+              : null) {
+
+        progressListener.start(
+            getDownloadStatus(contentLength, Locale.getDefault()), contentLength);
+
+        DownloadInputStream downloadStream = new DownloadInputStream(in, out);
+        consumer.consume(downloadStream);
+        byte[] buffer = new byte[BUFFER_SIZE];
+        while (downloadStream.read(buffer) != -1) {
+          // drain whatever the consumer didn't need, e.g. tar end-of-archive padding
+        }
+      }
+    } catch (InterruptedIOException ex) {
+      logger.warning("Download was interrupted\n");
+      if (keepArchive) {
+        cleanUp();
+      }
+      throw new InterruptedException("Download was interrupted");
+    } catch (IOException | InterruptedException ex) {
+      if (keepArchive) {
+        cleanUp();
+      }
+      throw ex;
+    }
+    progressListener.done();
+  }
+
+  private void downloadResumable() throws IOException, InterruptedException {
+    Path partFile = getPartFile();
+    PartManifest manifest = PartManifest.read(getManifestFile());
+
+    if (connections > 1) {
+      // only split when the server tells us up front that it can serve ranges of a known size of
+      // an archive it can identify, so that every segment comes from the same archive
+      HttpURLConnection probe = openHttpConnection("HEAD");
+      if (probe != null) {
+        long contentLength = probe.getContentLengthLong();
+        boolean acceptsRanges = "bytes".equalsIgnoreCase(probe.getHeaderField("Accept-Ranges"));
+        String validator = getValidator(probe);
+        probe.disconnect();
+        if (acceptsRanges
+            && validator != null
+            && contentLength >= MIN_SEGMENT_SIZE * connections) {
+          long segmentSize = (contentLength + connections - 1) / connections;
+          PartManifest expected =
+              new PartManifest(address.toString(), validator, contentLength, segmentSize);
+          if (!expected.equals(manifest)) {
+            discardPartialDownload();
+            expected.write(getManifestFile());
+          }
+          downloadSegments(partFile, expected);
+          Files.move(partFile, destinationFile, StandardCopyOption.ATOMIC_MOVE);
+          Files.delete(getManifestFile());
+          progressListener.done();
+          return;
+        }
+      }
+    }
+
+    // a partial download of another url, of an archive we can't identify or of segments can't be
+    // resumed with a single connection
+    if (manifest == null
+        || manifest.getSegmentSize() != 0
+        || !manifest.getUrl().equals(address.toString())) {
+      discardPartialDownload();
+      manifest = null;
+    }
+    long existingBytes = Files.exists(partFile) ? Files.size(partFile) : 0;
+    URLConnection connection = address.openConnection();
+    connection.setRequestProperty("User-Agent", userAgentString);
+    if (existingBytes > 0 && manifest != null) {
+      connection.setRequestProperty("Range", "bytes=" + existingBytes + "-");
+      // the server sends the whole archive instead if it changed since the partial download
+      connection.setRequestProperty("If-Range", manifest.getValidator());
+    }
+
+    int responseCode = getResponseCode(connection);
+    if (existingBytes > 0 && responseCode == 416) {
+      // the range starts at or past the end of the archive, so the part file is either complete
+      // or stale, only the total in "Content-Range: bytes */<total>" can tell us which
+      String contentRange = connection.getHeaderField("Content-Range");
+      if (contentRange != null && contentRange.equals("bytes */" + existingBytes)) {
+        logger.info("Download already complete: " + partFile);
+        Files.move(partFile, destinationFile, StandardCopyOption.ATOMIC_MOVE);
+        Files.delete(getManifestFile());
+        return;
+      }
+      logger.warning("Discarding unusable partial download: " + partFile);
+      discardPartialDownload();
+      downloadResumable();
+      return;
+    }
+    // if the server ignored the range request or the archive changed it sends all of it (200)
+    boolean resumed = existingBytes > 0 && responseCode == 206;
+    if (resumed) {
+      String contentRange = connection.getHeaderField("Content-Range");
+      if (contentRange == null || !contentRange.startsWith("bytes " + existingBytes + "-")) {
+        logger.warning("Unexpected range " + contentRange + ", discarding: " + partFile);
+        disconnect(connection);
+        discardPartialDownload();
+        downloadResumable();
+        return;
+      }
+    } else {
+      String validator = getValidator(connection);
+      if (validator != null) {
+        new PartManifest(address.toString(), validator, connection.getContentLengthLong(), 0)
+            .write(getManifestFile());
+      } else {
+        // without a validator a partial download can't be told apart from a newer archive
+        Files.deleteIfExists(getManifestFile());
+      }
+    }
+
+    try (InputStream in = connection.getInputStream()) {
+      // note : contentLength can potentially be -1 if it is unknown.
+      long contentLength = connection.getContentLengthLong();
+      long totalLength =
+          contentLength == -1 ? -1 : contentLength + (resumed ? existingBytes : 0);
+
+      progressListener.start(getDownloadStatus(totalLength, Locale.getDefault()), totalLength);
+      if (resumed) {
+        logger.info("Resuming download of " + address + " at byte " + existingBytes);
+        progressListener.update(existingBytes);
+      } else {
+        logger.info("Downloading " + address + " to " + destinationFile);
+      }
+
+      try (OutputStream out =
+          new BufferedOutputStream(
+              resumed
+                  ? Files.newOutputStream(partFile, StandardOpenOption.APPEND)
+                  : Files.newOutputStream(partFile))) {
+        copyKeepingPartial(in, out);
+      }
+    }
+    Files.move(partFile, destinationFile, StandardCopyOption.ATOMIC_MOVE);
+    Files.deleteIfExists(getManifestFile());
+    progressListener.done();
+  }
+
+  private void downloadSegments(Path partFile, PartManifest manifest)
+      throws IOException, InterruptedException {
+    long contentLength = manifest.getLength();
+    logger.info(
+        "Downloading "
+            + address
+            + " to "
+            + destinationFile
+            + " over "
+            + connections
+            + " connections");
+    progressListener.start(getDownloadStatus(contentLength, Locale.getDefault()), contentLength);
+    if (Files.exists(partFile) && Files.size(partFile) == contentLength) {
+      // the segments were already stitched together, the part file is complete
+      progressListener.update(contentLength);
+      return;
+    }
+
+    long segmentSize = manifest.getSegmentSize();
+    List<Path> segmentFiles = new ArrayList<>();
+    ExecutorService executorService =
+        Executors.newFixedThreadPool(
+            connections,
+            new ThreadFactoryBuilder().setNameFormat("downloader-%d").setDaemon(true).build());
+    try {
+      List<Future<Void>> segments = new ArrayList<>();
+      for (int i = 0; i < connections; i++) {
+        long first = i * segmentSize;
+        long last = Math.min(contentLength, first + segmentSize) - 1;
+        Path segmentFile = partFile.resolveSibling(partFile.getFileName() + "." + i);
+        segmentFiles.add(segmentFile);
+
+        long existingBytes = Files.exists(segmentFile) ? Files.size(segmentFile) : 0;
+        if (existingBytes > last - first + 1) {
+          Files.delete(segmentFile);
+          existingBytes = 0;
+        }
+        if (existingBytes > 0) {
+          progressListener.update(existingBytes);
+        }
+        if (existingBytes == last - first + 1) {
+          continue;
+        }
+        long resumeFrom = first + existingBytes;
+        segments.add(
+            executorService.submit(
+                () -> {
+                  downloadSegment(segmentFile, resumeFrom, last, manifest);
+                  return null;
+                }));
+      }
+
+      for (Future<Void> segment : segments) {
+        try {
+          segment.get();
+        } catch (ExecutionException ex) {
+          Throwable cause = ex.getCause();
+          if (cause instanceof InterruptedException || cause instanceof InterruptedIOException) {
+            throw new InterruptedException("Download was interrupted");
+          }
+          if (cause instanceof IOException) {
+            throw (IOException) cause;
+          }
+          throw new IOException("Segment download failed", cause);
+        }
+      }
+    } catch (InterruptedException ex) {
+      logger.warning("Download was interrupted\n");
+      throw new InterruptedException("Download was interrupted");
+    } finally {
+      // stops (and keeps) any segment still in flight if we failed
+      executorService.shutdownNow();
+    }
+
+    // stitch the segments together and only then drop them, so a crash here is still resumable
+    try (FileChannel out =
+        FileChannel.open(
+            partFile,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.WRITE)) {
+      for (Path segmentFile : segmentFiles) {
+        try (FileChannel in = FileChannel.open(segmentFile, StandardOpenOption.READ)) {
+          long position = 0;
+          long size = in.size();
+          while (position < size) {
+            position += in.transferTo(position, size - position, out);
+          }
+        }
+      }
+    }
+    for (Path segmentFile : segmentFiles) {
+      Files.delete(segmentFile);
+    }
+  }
+
+  private void downloadSegment(Path segmentFile, long first, long last, PartManifest manifest)
+      throws IOException, InterruptedException {
+    HttpURLConnection connection = openHttpConnection("GET");
+    if (connection == null) {
+      throw new IOException("Segmented downloads require an http(s) url: " + address);
+    }
+    connection.setRequestProperty("Range", "bytes=" + first + "-" + last);
+    connection.setRequestProperty("If-Range", manifest.getValidator());
+    try (InputStream in = connection.getInputStream()) {
+      if (connection.getResponseCode() != 206) {
+        // e.g. 200 when the archive changed since the download started
+        throw new IOException(
+            "Expected partial content for range request but got: "
+                + connection.getResponseCode());
+      }
+      String expectedRange = "bytes " + first + "-" + last + "/" + manifest.getLength();
+      String contentRange = connection.getHeaderField("Content-Range");
+      if (!expectedRange.equals(contentRange)) {
+        throw new IOException(
+            "Expected content range " + expectedRange + " but got: " + contentRange);
+      }
+      try (OutputStream out =
+          new BufferedOutputStream(
+              Files.newOutputStream(
+                  segmentFile, StandardOpenOption.CREATE, StandardOpenOption.APPEND))) {
+        int bytesRead;
+        byte[] buffer = new byte[BUFFER_SIZE];
+        while ((bytesRead = in.read(buffer)) != -1) {
+          if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedException("Download was interrupted");
+          }
+          out.write(buffer, 0, bytesRead);
+          synchronized (progressListener) {
+            progressListener.update(bytesRead);
+          }
+        }
+      }
+    }
+  }
+
+  /** Copy without deleting what was written so far when interrupted, to allow resuming. */
+  private void copyKeepingPartial(InputStream in, OutputStream out)
+      throws IOException, InterruptedException {
+    int bytesRead;
+    byte[] buffer = new byte[BUFFER_SIZE];
+    while ((bytesRead = in.read(buffer)) != -1) {
+      if (Thread.currentThread().isInterrupted()) {
+        logger.warning("Download was interrupted\n");
+        throw new InterruptedException("Download was interrupted");
+      }
+      out.write(buffer, 0, bytesRead);
+      progressListener.update(bytesRead);
+    }
+  }
+
+  @Nullable
+  private HttpURLConnection openHttpConnection(String method) throws IOException {
+    URLConnection connection = address.openConnection();
+    if (!(connection instanceof HttpURLConnection)) {
+      return null;
+    }
+    HttpURLConnection httpConnection = (HttpURLConnection) connection;
+    httpConnection.setRequestMethod(method);
+    httpConnection.setRequestProperty("User-Agent", userAgentString);
+    return httpConnection;
+  }
+
+  /** Returns the http response code, or 200 for non-http connections (e.g. file urls). */
+  private static int getResponseCode(URLConnection connection) throws IOException {
+    if (connection instanceof HttpURLConnection) {
+      return ((HttpURLConnection) connection).getResponseCode();
+    }
+    return 200;
+  }
+
+  /**
+   * Returns a strong ETag, or else the Last-Modified date, that identifies the archive served by
+   * {@code connection} in an {@code If-Range} request, or null if there is none.
+   */
+  @Nullable
+  private static String getValidator(URLConnection connection) {
+    String etag = connection.getHeaderField("ETag");
+    if (etag != null && !etag.startsWith("W/")) {
+      // weak tags can't be used in If-Range
+      return etag;
+    }
+    return connection.getHeaderField("Last-Modified");
+  }
+
+  private static void disconnect(URLConnection connection) {
+    if (connection instanceof HttpURLConnection) {
+      ((HttpURLConnection) connection).disconnect();
+    }
+  }
+
+  private Path getPartFile() {
+    return destinationFile.resolveSibling(destinationFile.getFileName() + ".part");
+  }
+
+  @VisibleForTesting
+  Path getManifestFile() {
+    return destinationFile.resolveSibling(destinationFile.getFileName() + ".part.properties");
+  }
+
+  /** Delete the part file, its segments and its manifest. */
+  private void discardPartialDownload() throws IOException {
+    Path partFile = getPartFile();
+    Files.deleteIfExists(partFile);
+    Files.deleteIfExists(getManifestFile());
+    String segmentPrefix = partFile.getFileName() + ".";
+    try (DirectoryStream<Path> segmentFiles =
+        Files.newDirectoryStream(
+            partFile.getParent(),
+            file -> {
+              String name = file.getFileName().toString();
+              return name.startsWith(segmentPrefix)
+                  && SEGMENT_SUFFIX.matcher(name.substring(segmentPrefix.length())).matches();
+            })) {
+      for (Path segmentFile : segmentFiles) {
+        Files.delete(segmentFile);
+      }
+    }
+  }
+
   private void cleanUp() throws IOException {
     Files.deleteIfExists(destinationFile);
   }
@@ -99,4 +548,170 @@ final class Downloader {
   static String getDownloadStatus(long bytes, Locale locale) {
     return String.format(locale, "Downloading %,.2f MB", bytes / 1024.0f / 1024.0f);
   }
+
+  /**
+   * What a partial download was fetched from, kept next to it so that a later attempt only resumes
+   * it when it would get the same bytes at the same offsets.
+   */
+  @VisibleForTesting
+  static final class PartManifest {
+    private final String url;
+    private final String validator;
+    private final long length;
+    private final long segmentSize;
+
+    /**
+     * Creates a manifest.
+     *
+     * @param url the address of the archive
+     * @param validator the ETag or Last-Modified date of the archive
+     * @param length the length of the archive, -1 if unknown
+     * @param segmentSize the size of every segment but the last, 0 for a single connection
+     */
+    PartManifest(String url, String validator, long length, long segmentSize) {
+      this.url = Preconditions.checkNotNull(url);
+      this.validator = Preconditions.checkNotNull(validator);
+      this.length = length;
+      this.segmentSize = segmentSize;
+    }
+
+    String getUrl() {
+      return url;
+    }
+
+    String getValidator() {
+      return validator;
+    }
+
+    long getLength() {
+      return length;
+    }
+
+    long getSegmentSize() {
+      return segmentSize;
+    }
+
+    /** Returns the manifest stored in {@code file}, or null if it is missing or unreadable. */
+    @Nullable
+    static PartManifest read(Path file) {
+      if (!Files.exists(file)) {
+        return null;
+      }
+      Properties properties = new Properties();
+      try (InputStream in = Files.newInputStream(file)) {
+        properties.load(in);
+        String url = properties.getProperty("url");
+        String validator = properties.getProperty("validator");
+        if (url == null || validator == null) {
+          return null;
+        }
+        return new PartManifest(
+            url,
+            validator,
+            Long.parseLong(properties.getProperty("length", "-1")),
+            Long.parseLong(properties.getProperty("segmentSize", "0")));
+      } catch (IOException | IllegalArgumentException ex) {
+        logger.warning("Ignoring unreadable download manifest " + file + ": " + ex);
+        return null;
+      }
+    }
+
+    void write(Path file) throws IOException {
+      Properties properties = new Properties();
+      properties.setProperty("url", url);
+      properties.setProperty("validator", validator);
+      properties.setProperty("length", Long.toString(length));
+      properties.setProperty("segmentSize", Long.toString(segmentSize));
+      try (OutputStream out = Files.newOutputStream(file)) {
+        properties.store(out, null);
+      }
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (this == other) {
+        return true;
+      }
+      if (!(other instanceof PartManifest)) {
+        return false;
+      }
+      PartManifest that = (PartManifest) other;
+      return url.equals(that.url)
+          && validator.equals(that.validator)
+          && length == that.length
+          && segmentSize == that.segmentSize;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(url, validator, length, segmentSize);
+    }
+  }
+
+  /** Consumer of a download stream, see {@link #download(StreamConsumer, boolean)}. */
+  interface StreamConsumer {
+
+    /**
+     * Read from the download stream, the stream must not be closed by the consumer.
+     *
+     * @param downloadStream the contents of the download as they are received
+     */
+    void consume(InputStream downloadStream) throws IOException, InterruptedException;
+  }
+
+  /**
+   * Reports progress for every chunk read, optionally copies it to a file and fails with an {@link
+   * InterruptedIOException} when the reading thread is interrupted.
+   */
+  private class DownloadInputStream extends FilterInputStream {
+
+    @Nullable private final OutputStream copy;
+
+    private DownloadInputStream(InputStream in, @Nullable OutputStream copy) {
+      super(in);
+      this.copy = copy;
+    }
+
+    @Override
+    public int read() throws IOException {
+      byte[] singleByte = new byte[1];
+      return read(singleByte, 0, 1) == -1 ? -1 : singleByte[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+      if (Thread.currentThread().isInterrupted()) {
+        throw new InterruptedIOException("Download was interrupted");
+      }
+      int bytesRead = super.read(buffer, offset, length);
+      if (bytesRead > 0) {
+        if (copy != null) {
+          copy.write(buffer, offset, bytesRead);
+        }
+        progressListener.update(bytesRead);
+      }
+      return bytesRead;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      if (n <= 0) {
+        return 0;
+      }
+      // read instead of skipping so every byte is reported and copied
+      byte[] buffer = new byte[(int) Math.min(BUFFER_SIZE, n)];
+      int bytesRead = read(buffer, 0, buffer.length);
+      return Math.max(bytesRead, 0);
+    }
+
+    @Override
+    public boolean markSupported() {
+      return false;
+    }
+
+    @Override
+    public void close() {
+      // the download connection is closed by the downloader
+    }
+  }
 }
@@ -46,4 +46,20 @@ final class DownloaderFactory {
   public Downloader newDownloader(URL source, Path destination, ProgressListener progressListener) {
     return new Downloader(source, destination, userAgentString, progressListener);
   }
+
+  /**
+   * Returns a new resumable {@link Downloader} implementation, that keeps partial downloads and
+   * continues them with HTTP range requests.
+   *
+   * @param source URL of file to download (remote)
+   * @param destination Path on local file system to save the file
+   * @param progressListener Progress feedback handler
+   * @param connections number of parallel connections to use when the server supports ranges
+   * @return a {@link Downloader} instance
+   */
+  public Downloader newResumableDownloader(
+      URL source, Path destination, ProgressListener progressListener, int connections) {
+    return new Downloader(
+        source, destination, userAgentString, progressListener, true, connections);
+  }
 }
@@ -21,6 +21,7 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.io.MoreFiles;
 import com.google.common.io.RecursiveDeleteOption;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Path;
 import java.util.logging.Logger;
 
@@ -51,9 +52,37 @@ final class Extractor {
 
   /** Extract an archive. */
   public void extract() throws IOException, InterruptedException {
+    extract(() -> extractorProvider.extract(archive, destination, progressListener));
+  }
+
+  /** Returns true if the archive can be extracted with {@link #extract(InputStream)}. */
+  public boolean isStreamable() {
+    return extractorProvider instanceof StreamingExtractorProvider;
+  }
+
+  /**
+   * Extract an archive from a stream of its contents instead of from the archive file, the stream
+   * is not closed.
+   *
+   * @throws UnsupportedOperationException if the archive type cannot be streamed, see {@link
+   *     #isStreamable()}
+   */
+  public void extract(InputStream archiveStream) throws IOException, InterruptedException {
+    if (!isStreamable()) {
+      throw new UnsupportedOperationException("Cannot stream archive: " + archive);
+    }
+    StreamingExtractorProvider streamingExtractorProvider =
+        (StreamingExtractorProvider) extractorProvider;
+    extract(
+        () ->
+            streamingExtractorProvider.extract(
+                archive, archiveStream, destination, progressListener));
+  }
+
+  private void extract(ExtractionTask extractionTask) throws IOException, InterruptedException {
 
     try {
-      extractorProvider.extract(archive, destination, progressListener);
+      extractionTask.run();
     } catch (IOException ex) {
       try {
         logger.warning("Extraction failed, cleaning up " + destination);
@@ -81,4 +110,8 @@ final class Extractor {
   private void cleanUp(final Path target) throws IOException {
     MoreFiles.deleteRecursively(target, RecursiveDeleteOption.ALLOW_INSECURE);
   }
+
+  private interface ExtractionTask {
+    void run() throws IOException;
+  }
 }
@@ -36,12 +36,26 @@ final class ExtractorFactory {
    */
   public Extractor newExtractor(Path archive, Path destination, ProgressListener progressListener)
       throws UnknownArchiveTypeException {
+    return newExtractor(archive, destination, progressListener, 1);
+  }
+
+  /**
+   * Like {@link #newExtractor(Path, Path, ProgressListener)}, but ".zip" archives are extracted
+   * with up to {@code zipExtractionThreads} threads.
+   *
+   * @param zipExtractionThreads maximum number of threads used to extract ".zip" archives, 1 to
+   *     extract serially
+   */
+  public Extractor newExtractor(
+      Path archive, Path destination, ProgressListener progressListener, int zipExtractionThreads)
+      throws UnknownArchiveTypeException {
 
     if (archive.toString().toLowerCase().endsWith(".tar.gz")) {
       return new Extractor(archive, destination, new TarGzExtractorProvider(), progressListener);
     }
     if (archive.toString().toLowerCase().endsWith(".zip")) {
-      return new Extractor(archive, destination, new ZipExtractorProvider(), progressListener);
+      return new Extractor(
+          archive, destination, new ZipExtractorProvider(zipExtractionThreads), progressListener);
     }
     throw new UnknownArchiveTypeException(archive);
   }
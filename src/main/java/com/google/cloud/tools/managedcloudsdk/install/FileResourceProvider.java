@@ -26,6 +26,7 @@ class FileResourceProvider {
   private final Path archiveDestination;
   private final Path archiveExtractionDestination;
   private final String gcloudExecutableName;
+  private final boolean archiveCacheable;
 
   /** Instantiated by {@link FileResourceProviderFactory}. */
   FileResourceProvider(
@@ -33,10 +34,26 @@ class FileResourceProvider {
       Path archiveDestination,
       Path archiveExtractionDestination,
       String gcloudExecutableName) {
+    this(
+        archiveSource,
+        archiveDestination,
+        archiveExtractionDestination,
+        gcloudExecutableName,
+        false);
+  }
+
+  /** Instantiated by {@link FileResourceProviderFactory}. */
+  FileResourceProvider(
+      URL archiveSource,
+      Path archiveDestination,
+      Path archiveExtractionDestination,
+      String gcloudExecutableName,
+      boolean archiveCacheable) {
     this.archiveSource = archiveSource;
     this.archiveDestination = archiveDestination;
     this.archiveExtractionDestination = archiveExtractionDestination;
     this.gcloudExecutableName = gcloudExecutableName;
+    this.archiveCacheable = archiveCacheable;
   }
 
   public URL getArchiveSource() {
@@ -47,10 +64,28 @@ class FileResourceProvider {
     return archiveDestination;
   }
 
+  /**
+   * Returns true if the archive at {@link #getArchiveSource()} never changes, so it can be reused
+   * from an {@link ArchiveCache}.
+   */
+  public boolean isArchiveCacheable() {
+    return archiveCacheable;
+  }
+
   public Path getArchiveExtractionDestination() {
     return archiveExtractionDestination;
   }
 
+  /** Returns a copy of this provider that extracts the archive to a different directory. */
+  public FileResourceProvider withArchiveExtractionDestination(Path archiveExtractionDestination) {
+    return new FileResourceProvider(
+        archiveSource,
+        archiveDestination,
+        archiveExtractionDestination,
+        gcloudExecutableName,
+        archiveCacheable);
+  }
+
   public Path getExtractedSdkHome() {
     return getArchiveExtractionDestination().resolve("google-cloud-sdk");
   }
@@ -56,11 +56,13 @@ class FileResourceProviderFactory {
           managedSdkDirectory.resolve(version.getVersion()),
           getGcloudExecutableName());
     } else { // versioned
+      // versioned archives are immutable, so they can be served from a cache
       return new FileResourceProvider(
           new URL(VERSIONED_BASE_URL + getVersionedFilename()),
           downloads.resolve(getVersionedFilename()),
           managedSdkDirectory.resolve(version.getVersion()),
-          getGcloudExecutableName());
+          getGcloudExecutableName(),
+          true);
     }
   }
 
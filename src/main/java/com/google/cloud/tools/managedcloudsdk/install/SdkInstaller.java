@@ -23,15 +23,24 @@ import com.google.cloud.tools.managedcloudsdk.Version;
 import com.google.cloud.tools.managedcloudsdk.command.CommandExecutionException;
 import com.google.cloud.tools.managedcloudsdk.command.CommandExitException;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
 import com.google.common.io.MoreFiles;
 import com.google.common.io.RecursiveDeleteOption;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import javax.annotation.Nullable;
 
 /** Install an SDK by downloading, extracting and if necessary installing. */
@@ -44,6 +53,12 @@ public class SdkInstaller {
   private final DownloaderFactory downloaderFactory;
   @Nullable private final InstallerFactory installerFactory;
   private final Map<String, String> environmentVariables;
+  private boolean streamingInstall = false;
+  private boolean keepStreamedArchive = false;
+  private boolean resumableDownload = false;
+  private int downloadConnections = 1;
+  private int zipExtractionThreads = 1;
+  @Nullable private ArchiveCache archiveCache;
 
   /** Use {@link #newInstaller} to instantiate. */
   SdkInstaller(
@@ -74,7 +89,70 @@ public class SdkInstaller {
     this.environmentVariables = environmentVariables;
   }
 
-  /** Download and install a new Cloud SDK. */
+  /**
+   * Extract streamable archives (".tar.gz") while they are being downloaded instead of after the
+   * download completes, overlapping network and disk I/O. Archives that cannot be streamed are
+   * still downloaded first.
+   *
+   * @param streamingInstall true to extract while downloading
+   * @param keepStreamedArchive true to also save the streamed archive to the downloads directory
+   * @return this installer
+   */
+  public SdkInstaller setStreamingInstall(boolean streamingInstall, boolean keepStreamedArchive) {
+    this.streamingInstall = streamingInstall;
+    this.keepStreamedArchive = keepStreamedArchive;
+    return this;
+  }
+
+  /**
+   * Keep partially downloaded archives when a download fails or is interrupted and continue them on
+   * the next install, optionally fetching the archive over several parallel connections. Archives
+   * extracted while streaming are never resumed, see {@link #setStreamingInstall}.
+   *
+   * @param resumableDownload true to resume partial downloads
+   * @param downloadConnections number of parallel connections when the server supports ranges
+   * @return this installer
+   */
+  public SdkInstaller setResumableDownload(boolean resumableDownload, int downloadConnections) {
+    this.resumableDownload = resumableDownload;
+    this.downloadConnections = downloadConnections;
+    return this;
+  }
+
+  /**
+   * Extract ".zip" archives with several threads, each reading the archive through its own handle.
+   * Archives are extracted serially by default.
+   *
+   * @param zipExtractionThreads maximum number of extraction threads, 1 to extract serially
+   * @return this installer
+   */
+  public SdkInstaller setZipExtractionThreads(int zipExtractionThreads) {
+    Preconditions.checkArgument(zipExtractionThreads > 0, "zipExtractionThreads must be positive");
+    this.zipExtractionThreads = zipExtractionThreads;
+    return this;
+  }
+
+  /**
+   * Reuse immutable (versioned) archives from a cache shared with other installers instead of
+   * downloading them again, and add newly downloaded ones to it.
+   *
+   * @param archiveCache the cache to consult before downloading, or null to always download
+   * @return this installer
+   */
+  public SdkInstaller setArchiveCache(@Nullable ArchiveCache archiveCache) {
+    this.archiveCache = archiveCache;
+    return this;
+  }
+
+  /**
+   * Download and install a new Cloud SDK.
+   *
+   * <p>Installs of the same version are serialized across processes with a lock file next to the
+   * install directory. The SDK is installed into a staging directory and only moved into place once
+   * it is complete, so other processes never observe a partial install. If another process
+   * completes an install while this one waits for the lock, that install is used instead of
+   * installing again; otherwise an existing install is replaced.
+   */
   public Path install(
       final ProgressListener progressListener, final ConsoleListener consoleListener)
       throws IOException, InterruptedException, SdkInstallerException, CommandExecutionException,
@@ -82,6 +160,52 @@ public class SdkInstaller {
 
     FileResourceProvider fileResourceProvider =
         fileResourceProviderFactory.newFileResourceProvider();
+    Path installDirectory = fileResourceProvider.getArchiveExtractionDestination();
+    Path managedSdkDirectory = installDirectory.toAbsolutePath().getParent();
+    Object installBefore = getInstallIdentity(installDirectory);
+
+    Path lockFile = managedSdkDirectory.resolve(installDirectory.getFileName() + ".lock");
+    CrossProcessLock lock = CrossProcessLock.acquire(lockFile);
+    try {
+      if (Files.isRegularFile(fileResourceProvider.getExtractedGcloud())
+          && !Objects.equals(installBefore, getInstallIdentity(installDirectory))) {
+        logger.info("Cloud SDK was installed by another process: " + installDirectory);
+        return fileResourceProvider.getExtractedSdkHome();
+      }
+
+      // only installs of this version use these directories, and they hold the lock
+      String stagingPrefix = "." + installDirectory.getFileName() + "-staging-";
+      deleteAbandonedStagingDirectories(managedSdkDirectory, stagingPrefix);
+      Path stagingDirectory = Files.createTempDirectory(managedSdkDirectory, stagingPrefix);
+      try {
+        // temporary directories are private to their owner, the published sdk must be as
+        // accessible as the directory it is installed in
+        if (Files.getFileStore(stagingDirectory)
+            .supportsFileAttributeView(PosixFileAttributeView.class)) {
+          Files.setPosixFilePermissions(
+              stagingDirectory, Files.getPosixFilePermissions(managedSdkDirectory));
+        }
+        FileResourceProvider stagingFileResourceProvider =
+            fileResourceProvider.withArchiveExtractionDestination(stagingDirectory);
+        install(stagingFileResourceProvider, progressListener, consoleListener);
+        publish(stagingDirectory, installDirectory);
+      } finally {
+        if (Files.exists(stagingDirectory)) {
+          MoreFiles.deleteRecursively(stagingDirectory, RecursiveDeleteOption.ALLOW_INSECURE);
+        }
+      }
+    } finally {
+      lock.close();
+    }
+    return fileResourceProvider.getExtractedSdkHome();
+  }
+
+  private void install(
+      FileResourceProvider fileResourceProvider,
+      ProgressListener progressListener,
+      ConsoleListener consoleListener)
+      throws IOException, InterruptedException, SdkInstallerException, CommandExecutionException,
+          CommandExitException {
 
     // Cleanup, remove old downloaded archive if exists
     if (Files.isRegularFile(fileResourceProvider.getArchiveDestination())) {
@@ -89,39 +213,62 @@ public class SdkInstaller {
       Files.delete(fileResourceProvider.getArchiveDestination());
     }
 
-    // Cleanup, remove old SDK directory if exists
-    if (Files.exists(fileResourceProvider.getArchiveExtractionDestination())) {
-      logger.info(
-          "Removing stale install: " + fileResourceProvider.getArchiveExtractionDestination());
-
-      MoreFiles.deleteRecursively(
-          fileResourceProvider.getArchiveExtractionDestination(),
-          RecursiveDeleteOption.ALLOW_INSECURE);
-    }
-
     progressListener.start("Installing Cloud SDK", installerFactory != null ? 300 : 200);
 
     // download and verify
+    ProgressListener downloadProgressListener = progressListener.newChild(100);
     Downloader downloader =
-        downloaderFactory.newDownloader(
-            fileResourceProvider.getArchiveSource(),
-            fileResourceProvider.getArchiveDestination(),
-            progressListener.newChild(100));
-    downloader.download();
-    if (!Files.isRegularFile(fileResourceProvider.getArchiveDestination())) {
-      throw new SdkInstallerException(
-          "Download succeeded but valid archive not found at "
-              + fileResourceProvider.getArchiveDestination());
-    }
+        resumableDownload
+            ? downloaderFactory.newResumableDownloader(
+                fileResourceProvider.getArchiveSource(),
+                fileResourceProvider.getArchiveDestination(),
+                downloadProgressListener,
+                downloadConnections)
+            : downloaderFactory.newDownloader(
+                fileResourceProvider.getArchiveSource(),
+                fileResourceProvider.getArchiveDestination(),
+                downloadProgressListener);
+    @Nullable ArchiveCache cache = fileResourceProvider.isArchiveCacheable() ? archiveCache : null;
 
     try {
-      // extract and verify
-      extractorFactory
-          .newExtractor(
+      Extractor extractor =
+          extractorFactory.newExtractor(
               fileResourceProvider.getArchiveDestination(),
               fileResourceProvider.getArchiveExtractionDestination(),
-              progressListener.newChild(100))
-          .extract();
+              progressListener.newChild(100),
+              zipExtractionThreads);
+
+      if (cache != null
+          && cache.copyTo(
+              fileResourceProvider.getArchiveSource(),
+              fileResourceProvider.getArchiveDestination())) {
+        downloadProgressListener.start("Using cached archive", ProgressListener.UNKNOWN);
+        downloadProgressListener.done();
+        extractor.extract();
+      } else if (streamingInstall && extractor.isStreamable()) {
+        // extract while downloading, the cache needs the archive too
+        boolean keepArchive = keepStreamedArchive || cache != null;
+        downloader.download(extractor::extract, keepArchive);
+        if (keepArchive) {
+          verifyDownload(fileResourceProvider);
+        }
+        if (cache != null) {
+          cache.put(
+              fileResourceProvider.getArchiveSource(),
+              fileResourceProvider.getArchiveDestination());
+        }
+      } else {
+        downloader.download();
+        verifyDownload(fileResourceProvider);
+        if (cache != null) {
+          cache.put(
+              fileResourceProvider.getArchiveSource(),
+              fileResourceProvider.getArchiveDestination());
+        }
+        extractor.extract();
+      }
+
+      // verify extraction
       if (!Files.isDirectory(fileResourceProvider.getExtractedSdkHome())) {
         throw new SdkInstallerException(
             "Extraction succeeded but valid sdk home not found at "
@@ -152,7 +299,67 @@ public class SdkInstaller {
     }
 
     progressListener.done();
-    return fileResourceProvider.getExtractedSdkHome();
+  }
+
+  /**
+   * Returns something that changes whenever an install is published to {@code installDirectory},
+   * or null if there is no install.
+   */
+  @Nullable
+  private static Object getInstallIdentity(Path installDirectory) throws IOException {
+    if (!Files.isDirectory(installDirectory)) {
+      return null;
+    }
+    // published installs are renamed staging directories, so they are new files
+    BasicFileAttributes attributes =
+        Files.readAttributes(installDirectory, BasicFileAttributes.class);
+    return Arrays.asList(
+        attributes.fileKey(), attributes.creationTime(), attributes.lastModifiedTime());
+  }
+
+  /** Delete staging and stale install directories left behind by processes that died. */
+  private static void deleteAbandonedStagingDirectories(
+      Path managedSdkDirectory, String stagingPrefix) throws IOException {
+    List<Path> abandoned;
+    try (Stream<Path> files = Files.list(managedSdkDirectory)) {
+      abandoned =
+          files
+              .filter(file -> file.getFileName().toString().startsWith(stagingPrefix))
+              .collect(Collectors.toList());
+    }
+    for (Path directory : abandoned) {
+      logger.info("Deleting abandoned staging directory: " + directory);
+      MoreFiles.deleteRecursively(directory, RecursiveDeleteOption.ALLOW_INSECURE);
+    }
+  }
+
+  /**
+   * Replace {@code installDirectory} (if it exists) with a completed install. A new install appears
+   * with a single rename. An existing install is renamed out of the way first, so until the second
+   * rename a process that doesn't hold the lock may briefly find no install, but never a partial
+   * one.
+   */
+  private static void publish(Path stagingDirectory, Path installDirectory) throws IOException {
+    Path staleDirectory = null;
+    if (Files.exists(installDirectory)) {
+      logger.info("Replacing stale install: " + installDirectory);
+      // move the stale install out of the way first, renames are cheap and deletes are not
+      staleDirectory = stagingDirectory.resolveSibling(stagingDirectory.getFileName() + "-stale");
+      Files.move(installDirectory, staleDirectory, StandardCopyOption.ATOMIC_MOVE);
+    }
+    Files.move(stagingDirectory, installDirectory, StandardCopyOption.ATOMIC_MOVE);
+    if (staleDirectory != null) {
+      MoreFiles.deleteRecursively(staleDirectory, RecursiveDeleteOption.ALLOW_INSECURE);
+    }
+  }
+
+  private static void verifyDownload(FileResourceProvider fileResourceProvider)
+      throws SdkInstallerException {
+    if (!Files.isRegularFile(fileResourceProvider.getArchiveDestination())) {
+      throw new SdkInstallerException(
+          "Download succeeded but valid archive not found at "
+              + fileResourceProvider.getArchiveDestination());
+    }
   }
 
   /**
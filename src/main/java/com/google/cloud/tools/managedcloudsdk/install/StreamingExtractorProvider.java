@@ -0,0 +1,39 @@
+/*
+ * Copyright 2026 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.managedcloudsdk.install;
+
+import com.google.cloud.tools.managedcloudsdk.ProgressListener;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+/** An {@link ExtractorProvider} that can also extract an archive while it is being read. */
+interface StreamingExtractorProvider extends ExtractorProvider {
+
+  /**
+   * Extracts a single file archive from a stream into target destination folder.
+   *
+   * @param archive the archive the stream is read from, only used for reporting
+   * @param archiveStream the raw contents of the archive, not closed by this method
+   * @param destination the destination folder for extracted files
+   * @param progressListener the progress listener passthrough from the extractor
+   * @throws IOException if extractor fails
+   */
+  void extract(
+      Path archive, InputStream archiveStream, Path destination, ProgressListener progressListener)
+      throws IOException;
+}
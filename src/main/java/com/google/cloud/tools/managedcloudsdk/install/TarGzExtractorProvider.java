@@ -20,6 +20,7 @@ import com.google.cloud.tools.managedcloudsdk.ProgressListener;
 import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -28,15 +29,19 @@ import java.util.logging.Logger;
 import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
 import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
 import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.apache.commons.compress.utils.CloseShieldFilterInputStream;
 import org.apache.commons.compress.utils.IOUtils;
 
 /**
  * {@link ExtractorProvider} implementation for *.tar.gz files.
  *
+ * <p>Archives can also be extracted directly from a stream (for example an in-flight download), see
+ * {@link StreamingExtractorProvider}.
+ *
  * <p>NOTE: this does not handle links or symlinks or any other kind of special types in the tar. It
  * will only create files and directories.
  */
-final class TarGzExtractorProvider implements ExtractorProvider {
+final class TarGzExtractorProvider implements StreamingExtractorProvider {
 
   private static final Logger logger = Logger.getLogger(TarGzExtractorProvider.class.getName());
 
@@ -46,13 +51,24 @@ final class TarGzExtractorProvider implements ExtractorProvider {
   @Override
   public void extract(Path archive, Path destination, ProgressListener progressListener)
       throws IOException {
+    try (InputStream archiveStream = Files.newInputStream(archive)) {
+      extract(archive, archiveStream, destination, progressListener);
+    }
+  }
+
+  @Override
+  public void extract(
+      Path archive, InputStream archiveStream, Path destination, ProgressListener progressListener)
+      throws IOException {
 
     progressListener.start(
         "Extracting archive: " + archive.getFileName(), ProgressListener.UNKNOWN);
 
     String canonicalDestination = destination.toFile().getCanonicalPath();
 
-    GzipCompressorInputStream gzipIn = new GzipCompressorInputStream(Files.newInputStream(archive));
+    // the caller owns archiveStream, so don't let closing the tar stream close it
+    GzipCompressorInputStream gzipIn =
+        new GzipCompressorInputStream(new CloseShieldFilterInputStream(archiveStream));
     try (TarArchiveInputStream in = new TarArchiveInputStream(gzipIn)) {
       TarArchiveEntry entry;
       while ((entry = in.getNextTarEntry()) != null) {
@@ -18,6 +18,9 @@ package com.google.cloud.tools.managedcloudsdk.install;
 
 import com.google.cloud.tools.managedcloudsdk.ProgressListener;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
 import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.IOException;
@@ -26,7 +29,14 @@ import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.ArrayList;
 import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Logger;
 import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
 import org.apache.commons.compress.archivers.zip.ZipFile;
@@ -35,6 +45,11 @@ import org.apache.commons.compress.utils.IOUtils;
 /**
  * {@link ExtractorProvider} implementation for *.zip files.
  *
+ * <p>When configured with more than one extraction thread, entries listed in the zip central
+ * directory are partitioned by compressed size across a bounded pool of workers, each of which
+ * inflates its share of the files through its own {@link ZipFile} handle. Directories are always
+ * created up front on the calling thread.
+ *
  * <p>NOTE: this does not handle links or symlinks or any other kind of special types in the tar. It
  * will only create files and directories.
  */
@@ -42,9 +57,25 @@ final class ZipExtractorProvider implements ExtractorProvider {
 
   private static final Logger logger = Logger.getLogger(ZipExtractorProvider.class.getName());
 
+  private final int extractionThreads;
+
   /** Only instantiated in {@link ExtractorFactory}. */
   @VisibleForTesting
-  ZipExtractorProvider() {}
+  ZipExtractorProvider() {
+    this(1);
+  }
+
+  /**
+   * Only instantiated in {@link ExtractorFactory}.
+   *
+   * @param extractionThreads maximum number of threads used to inflate entries, 1 extracts serially
+   *     on the calling thread
+   */
+  @VisibleForTesting
+  ZipExtractorProvider(int extractionThreads) {
+    Preconditions.checkArgument(extractionThreads > 0, "extractionThreads must be positive");
+    this.extractionThreads = extractionThreads;
+  }
 
   @Override
   public void extract(Path archive, Path destination, ProgressListener progressListener)
@@ -55,46 +86,201 @@ final class ZipExtractorProvider implements ExtractorProvider {
 
     String canonicalDestination = destination.toFile().getCanonicalPath();
 
+    if (extractionThreads == 1) {
+      extractSerially(archive, destination, canonicalDestination, progressListener);
+    } else {
+      extractInParallel(archive, destination, canonicalDestination, progressListener);
+    }
+    progressListener.done();
+  }
+
+  @VisibleForTesting
+  int getExtractionThreads() {
+    return extractionThreads;
+  }
+
+  private void extractSerially(
+      Path archive,
+      Path destination,
+      String canonicalDestination,
+      ProgressListener progressListener)
+      throws IOException {
     // Use ZipFile instead of ZipArchiveInputStream so that we can obtain file permissions
     // on unix-like systems via getUnixMode(). ZipArchiveInputStream doesn't have access to
     // all the zip file data and will return "0" for any call to getUnixMode().
     try (ZipFile zipFile = new ZipFile(archive.toFile())) {
-      // TextProgressBar progressBar = textBarFactory.newProgressBar(messageListener, count);
       Enumeration<ZipArchiveEntry> zipEntries = zipFile.getEntries();
       while (zipEntries.hasMoreElements()) {
         ZipArchiveEntry entry = zipEntries.nextElement();
-        Path entryTarget = destination.resolve(entry.getName());
-
-        String canonicalTarget = entryTarget.toFile().getCanonicalPath();
-        if (!canonicalTarget.startsWith(canonicalDestination + File.separator)) {
-          throw new IOException("Blocked unzipping files outside destination: " + entry.getName());
-        }
+        Path entryTarget = resolveEntryTarget(destination, canonicalDestination, entry);
 
         progressListener.update(1);
         logger.fine(entryTarget.toString());
 
         if (entry.isDirectory()) {
-          if (!Files.exists(entryTarget)) {
-            Files.createDirectories(entryTarget);
-          }
+          createDirectories(entryTarget);
         } else {
-          if (!Files.exists(entryTarget.getParent())) {
-            Files.createDirectories(entryTarget.getParent());
-          }
-          try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(entryTarget))) {
-            try (InputStream in = zipFile.getInputStream(entry)) {
-              IOUtils.copy(in, out);
-              PosixFileAttributeView attributeView =
-                  Files.getFileAttributeView(entryTarget, PosixFileAttributeView.class);
-              if (attributeView != null) {
-                attributeView.setPermissions(
-                    PosixUtil.getPosixFilePermissions(entry.getUnixMode()));
-              }
+          createDirectories(entryTarget.getParent());
+          extractFile(zipFile, entry, entryTarget);
+        }
+      }
+    }
+  }
+
+  private void extractInParallel(
+      Path archive,
+      Path destination,
+      String canonicalDestination,
+      ProgressListener progressListener)
+      throws IOException {
+    // Walk the central directory once on the calling thread: validate every target, create the
+    // directory skeleton and assign each file entry (by its index in the central directory) to
+    // the worker with the fewest compressed bytes assigned so far.
+    List<Integer> partitionOfEntry = new ArrayList<>();
+    long[] partitionSizes = new long[extractionThreads];
+    try (ZipFile zipFile = new ZipFile(archive.toFile())) {
+      Enumeration<ZipArchiveEntry> zipEntries = zipFile.getEntries();
+      while (zipEntries.hasMoreElements()) {
+        ZipArchiveEntry entry = zipEntries.nextElement();
+        Path entryTarget = resolveEntryTarget(destination, canonicalDestination, entry);
+
+        if (entry.isDirectory()) {
+          progressListener.update(1);
+          logger.fine(entryTarget.toString());
+          createDirectories(entryTarget);
+          partitionOfEntry.add(-1);
+        } else {
+          createDirectories(entryTarget.getParent());
+          int partition = 0;
+          for (int i = 1; i < partitionSizes.length; i++) {
+            if (partitionSizes[i] < partitionSizes[partition]) {
+              partition = i;
             }
           }
+          partitionSizes[partition] += Math.max(entry.getCompressedSize(), 0) + 1;
+          partitionOfEntry.add(partition);
+        }
+      }
+    }
+
+    ExecutorService executorService =
+        Executors.newFixedThreadPool(
+            extractionThreads,
+            new ThreadFactoryBuilder()
+                .setNameFormat("zip-extractor-%d")
+                .setDaemon(true)
+                .build());
+    AtomicBoolean failed = new AtomicBoolean(false);
+    try {
+      List<Future<Void>> workers = new ArrayList<>();
+      for (int i = 0; i < extractionThreads; i++) {
+        if (partitionSizes[i] == 0) {
+          continue;
+        }
+        final int partition = i;
+        workers.add(
+            executorService.submit(
+                () -> {
+                  try {
+                    extractPartition(
+                        archive,
+                        destination,
+                        partitionOfEntry,
+                        partition,
+                        failed,
+                        progressListener);
+                  } catch (IOException | RuntimeException ex) {
+                    failed.set(true);
+                    throw ex;
+                  }
+                  return null;
+                }));
+      }
+
+      // Wait for every worker (even after a failure) so that no worker is still writing when the
+      // caller starts cleaning up the destination.
+      IOException ioException = null;
+      RuntimeException runtimeException = null;
+      for (Future<Void> worker : workers) {
+        try {
+          Uninterruptibles.getUninterruptibly(worker);
+        } catch (ExecutionException ex) {
+          Throwable cause = ex.getCause();
+          if (cause instanceof IOException && ioException == null) {
+            ioException = (IOException) cause;
+          } else if (cause instanceof RuntimeException && runtimeException == null) {
+            runtimeException = (RuntimeException) cause;
+          }
+        }
+      }
+      if (ioException != null) {
+        throw ioException;
+      }
+      if (runtimeException != null) {
+        throw runtimeException;
+      }
+    } finally {
+      executorService.shutdown();
+    }
+  }
+
+  private void extractPartition(
+      Path archive,
+      Path destination,
+      List<Integer> partitionOfEntry,
+      int partition,
+      AtomicBoolean failed,
+      ProgressListener progressListener)
+      throws IOException {
+    // Each worker gets its own ZipFile so that no archive channel or entry state is shared across
+    // threads. Entries are matched by central directory index, which is stable across handles.
+    try (ZipFile zipFile = new ZipFile(archive.toFile())) {
+      Enumeration<ZipArchiveEntry> zipEntries = zipFile.getEntries();
+      int index = 0;
+      while (zipEntries.hasMoreElements() && !failed.get()) {
+        ZipArchiveEntry entry = zipEntries.nextElement();
+        if (partitionOfEntry.get(index++) != partition) {
+          continue;
+        }
+        Path entryTarget = destination.resolve(entry.getName());
+        extractFile(zipFile, entry, entryTarget);
+
+        synchronized (progressListener) {
+          progressListener.update(1);
+        }
+        logger.fine(entryTarget.toString());
+      }
+    }
+  }
+
+  private static Path resolveEntryTarget(
+      Path destination, String canonicalDestination, ZipArchiveEntry entry) throws IOException {
+    Path entryTarget = destination.resolve(entry.getName());
+
+    String canonicalTarget = entryTarget.toFile().getCanonicalPath();
+    if (!canonicalTarget.startsWith(canonicalDestination + File.separator)) {
+      throw new IOException("Blocked unzipping files outside destination: " + entry.getName());
+    }
+    return entryTarget;
+  }
+
+  private static void createDirectories(Path directory) throws IOException {
+    if (!Files.exists(directory)) {
+      Files.createDirectories(directory);
+    }
+  }
+
+  private static void extractFile(ZipFile zipFile, ZipArchiveEntry entry, Path entryTarget)
+      throws IOException {
+    try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(entryTarget))) {
+      try (InputStream in = zipFile.getInputStream(entry)) {
+        IOUtils.copy(in, out);
+        PosixFileAttributeView attributeView =
+            Files.getFileAttributeView(entryTarget, PosixFileAttributeView.class);
+        if (attributeView != null) {
+          attributeView.setPermissions(PosixUtil.getPosixFilePermissions(entry.getUnixMode()));
         }
       }
     }
-    progressListener.done();
   }
 }
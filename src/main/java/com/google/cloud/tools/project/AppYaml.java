@@ -17,7 +17,10 @@
 package com.google.cloud.tools.project;
 
 import com.google.cloud.tools.appengine.AppEngineException;
+import com.google.cloud.tools.io.ParsedFileCache;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Path;
 import java.util.Collections;
 import java.util.Map;
 import javax.annotation.Nullable;
@@ -38,8 +41,24 @@ public class AppYaml {
   private static final String MODULE_KEY = "module";
   private static final String ENVIRONMENT_VARIABLES_KEY = "env_variables";
 
+  private static final ParsedFileCache<AppYaml> cache = new ParsedFileCache<>();
+
   private final Map<String, ?> yamlMap;
 
+  /**
+   * Parse an app.yaml file to an AppYaml object. The result is remembered for the life of the JVM
+   * and returned again, without reading the file, as long as its modification time, size and file
+   * key (e.g. inode) stay the same.
+   *
+   * @param file the {@code app.yaml} file
+   * @throws AppEngineException if reading app.yaml fails while scanning such as due to malformed
+   *     YAML
+   * @throws IOException if the file can't be read
+   */
+  public static AppYaml parse(Path file) throws AppEngineException, IOException {
+    return cache.get(file, AppYaml::parse);
+  }
+
   /**
    * Parse an app.yaml file to an AppYaml object.
    *
@@ -134,6 +153,7 @@ public class AppYaml {
   @SuppressWarnings("unchecked")
   private Map<String, ?> getStringMap(String key) {
     Object value = yamlMap.get(key);
-    return value instanceof Map<?, ?> ? (Map<String, ?>) value : null;
+    // parsed files are shared, don't let callers modify them
+    return value instanceof Map<?, ?> ? Collections.unmodifiableMap((Map<String, ?>) value) : null;
   }
 }
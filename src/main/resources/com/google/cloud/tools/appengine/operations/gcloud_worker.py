@@ -0,0 +1,53 @@
+# Copyright 2026 Google LLC.
+#
+# Licensed under the Apache License, Version 2.0 (the "License");
+# you may not use this file except in compliance with the License.
+# You may obtain a copy of the License at
+#
+#     http://www.apache.org/licenses/LICENSE-2.0
+#
+# Unless required by applicable law or agreed to in writing, software
+# distributed under the License is distributed on an "AS IS" BASIS,
+# WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+# See the License for the specific language governing permissions and
+# limitations under the License.
+
+"""Runs a single gcloud command, loading gcloud before the command is known.
+
+Started ahead of time by GcloudWorkerPool with the Cloud SDK root as its only
+argument. Once gcloud is loaded it reads one JSON request from stdin:
+
+  {"args": ["app", "versions", "list"], "cwd": "/some/dir", "env": {"K": "V"}}
+
+and then runs the command exactly like lib/gcloud.py, on this process's stdout,
+stderr and exit code.
+"""
+
+import json
+import os
+import sys
+
+
+def main():
+  gcloud_py = os.path.join(sys.argv[1], 'lib', 'gcloud.py')
+  sys.path.insert(0, os.path.dirname(gcloud_py))
+  import gcloud  # pylint: disable=g-import-not-at-top
+
+  # Loading the command tree is most of the startup time of every command.
+  try:
+    if hasattr(gcloud, 'reorder_sys_path'):
+      sys.path = gcloud.reorder_sys_path(sys.path)
+    from googlecloudsdk import gcloud_main  # pylint: disable=g-import-not-at-top,unused-variable
+  except Exception:  # pylint: disable=broad-except
+    pass  # gcloud.main() reports the real problem
+
+  request = json.loads(sys.stdin.readline())
+  os.environ.update(request.get('env') or {})
+  if request.get('cwd'):
+    os.chdir(request['cwd'])
+  sys.argv = [gcloud_py] + request['args']
+  gcloud.main()
+
+
+if __name__ == '__main__':
+  main()
@@ -24,14 +24,21 @@ import static org.junit.Assert.assertTrue;
 import com.google.common.collect.ImmutableMap;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Map;
 import org.junit.Assert;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.xml.sax.SAXException;
 
 public class AppEngineDescriptorTest {
 
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
   private static final String TEST_VERSION = "fooVersion";
   private static final String TEST_ID = "fooId";
   private static final String RUNTIME_ID = "java8";
@@ -125,7 +132,7 @@ public class AppEngineDescriptorTest {
   @Test
   public void testParse_null() throws IOException, SAXException {
     try {
-      AppEngineDescriptor.parse(null);
+      AppEngineDescriptor.parse((InputStream) null);
       Assert.fail("allowed null input");
     } catch (NullPointerException ex) {
       Assert.assertNotNull(ex.getMessage());
@@ -219,6 +226,48 @@ public class AppEngineDescriptorTest {
     assertEquals(expectedEnvironment, environment);
   }
 
+  @Test
+  public void testParse_onlyFirstDirectChild()
+      throws AppEngineException, IOException, SAXException {
+    AppEngineDescriptor descriptor =
+        parse(
+            ROOT_START_TAG
+                + "<static-files><runtime>nested</runtime></static-files>"
+                + "<runtime>java8</runtime><runtime>java11</runtime>"
+                + "<env-variables><env-var name='first' value='1' /></env-variables>"
+                + "<env-variables><env-var name='second' value='2' /></env-variables>"
+                + ROOT_END_TAG);
+
+    assertEquals("java8", descriptor.getRuntime());
+    assertEquals(ImmutableMap.of("first", "1"), descriptor.getEnvironment());
+  }
+
+  @Test
+  public void testParse_malformed() throws IOException {
+    try {
+      parse(ROOT_START_TAG + "<runtime>java8</service>" + ROOT_END_TAG);
+      Assert.fail();
+    } catch (SAXException ex) {
+      Assert.assertNotNull(ex.getMessage());
+    }
+  }
+
+  @Test
+  public void testParseFile_cachedUntilChanged()
+      throws AppEngineException, IOException, SAXException {
+    Path file = temporaryFolder.newFile("appengine-web.xml").toPath();
+    Files.write(file, (ROOT_START_TAG + RUNTIME + ROOT_END_TAG).getBytes(StandardCharsets.UTF_8));
+
+    AppEngineDescriptor descriptor = AppEngineDescriptor.parse(file);
+    assertEquals(RUNTIME_ID, descriptor.getRuntime());
+    Assert.assertSame(descriptor, AppEngineDescriptor.parse(file));
+
+    Files.write(
+        file, (ROOT_START_TAG + SERVICE + RUNTIME + ROOT_END_TAG).getBytes(StandardCharsets.UTF_8));
+    AppEngineDescriptor changed = AppEngineDescriptor.parse(file);
+    assertEquals(TEST_ID, changed.getServiceId());
+  }
+
   private static AppEngineDescriptor parse(String xmlString) throws IOException, SAXException {
     return AppEngineDescriptor.parse(
         new ByteArrayInputStream(xmlString.getBytes(StandardCharsets.UTF_8)));
@@ -29,6 +29,7 @@ import static org.mockito.Mockito.verifyNoMoreInteractions;
 
 import com.google.cloud.tools.appengine.AppEngineException;
 import com.google.cloud.tools.appengine.configuration.AppYamlProjectStageConfiguration;
+import com.google.cloud.tools.io.LinkStrategy;
 import com.google.cloud.tools.test.utils.LogStoringHandler;
 import com.google.common.collect.ImmutableList;
 import java.io.IOException;
@@ -421,7 +422,7 @@ public class AppYamlProjectStagingTest {
   }
 
   @Test
-  public void testFindRuntime_malformedAppYaml() throws IOException {
+  public void testReadAppYaml_malformed() throws IOException {
 
     Path file = appEngineDirectory.resolve("app.yaml");
     Files.write(
@@ -430,7 +431,7 @@ public class AppYamlProjectStagingTest {
         StandardOpenOption.CREATE_NEW);
 
     try {
-      AppYamlProjectStaging.findRuntime(config);
+      AppYamlProjectStaging.readAppYaml(config).getRuntime();
       fail();
     } catch (AppEngineException ex) {
       assertEquals("Malformed 'app.yaml'.", ex.getMessage());
@@ -438,23 +439,23 @@ public class AppYamlProjectStagingTest {
   }
 
   @Test
-  public void testHasCustomEntrypoint_true() throws IOException, AppEngineException {
+  public void testReadAppYaml_customEntrypoint() throws IOException, AppEngineException {
     Path file = appEngineDirectory.resolve("app.yaml");
     Files.write(
         file,
         "entrypoint: custom custom".getBytes(StandardCharsets.UTF_8),
         StandardOpenOption.CREATE_NEW);
 
-    assertTrue(AppYamlProjectStaging.hasCustomEntrypoint(config));
+    assertEquals("custom custom", AppYamlProjectStaging.readAppYaml(config).getEntrypoint());
   }
 
   @Test
-  public void testHasCustomEntrypoint_false() throws IOException, AppEngineException {
+  public void testReadAppYaml_noEntrypoint() throws IOException, AppEngineException {
     Path file = appEngineDirectory.resolve("app.yaml");
     Files.write(
         file, "runtime: java".getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE_NEW);
 
-    Assert.assertFalse(AppYamlProjectStaging.hasCustomEntrypoint(config));
+    Assert.assertNull(AppYamlProjectStaging.readAppYaml(config).getEntrypoint());
   }
 
   @Test
@@ -550,6 +551,33 @@ public class AppYamlProjectStagingTest {
         logs.get(0).getMessage());
   }
 
+  @Test
+  public void testStageArchiveIncrementally() throws IOException, AppEngineException {
+    Files.write(
+        appEngineDirectory.resolve("app.yaml"),
+        "runtime: java11\n".getBytes(StandardCharsets.UTF_8),
+        StandardOpenOption.CREATE_NEW);
+    config =
+        AppYamlProjectStageConfiguration.builder()
+            .appEngineDirectory(appEngineDirectory)
+            .artifact(Paths.get("src/test/resources/jars/complexLib.jar"))
+            .stagingDirectory(stagingDirectory)
+            .build();
+    Path manifest = temporaryFolder.getRoot().toPath().resolve("staging.manifest");
+    AppYamlProjectStaging staging = new AppYamlProjectStaging();
+
+    IncrementalStagingResult first = staging.stageArchiveIncrementally(config, manifest);
+    IncrementalStagingResult second = staging.stageArchiveIncrementally(config, manifest);
+
+    assertEquals(
+        ImmutableList.of(
+            Paths.get("app.yaml"), Paths.get("complexLib.jar"), Paths.get("libs/simpleLib.jar")),
+        first.getAdded());
+    assertTrue(second.isUnchanged());
+    assertEquals(3, second.getUnchanged().size());
+    assertTrue(Files.isRegularFile(stagingDirectory.resolve("libs/simpleLib.jar")));
+  }
+
   @Test
   public void testCopyService_copiesToExistingFile() throws IOException {
     AppYamlProjectStaging.CopyService copier = new AppYamlProjectStaging.CopyService();
@@ -595,4 +623,50 @@ public class AppYamlProjectStagingTest {
 
     assertArrayEquals(Files.readAllBytes(srcFile), Files.readAllBytes(destFile));
   }
+
+  @Test
+  public void testCopyService_hardLinksAndReplaces() throws IOException {
+    AppYamlProjectStaging.CopyService copier =
+        new AppYamlProjectStaging.CopyService(LinkStrategy.HARD_LINK);
+    Path root = temporaryFolder.getRoot().toPath();
+    Path srcFile = root.resolve("srcFile");
+    Files.write(srcFile, "some content".getBytes(StandardCharsets.UTF_8));
+    assertTrue(srcFile.toFile().setReadOnly());
+    Path destFile = root.resolve("destDir/destFile");
+    Files.createDirectories(destFile.getParent());
+    Files.createFile(destFile);
+
+    copier.copyFileAndReplace(srcFile, destFile);
+
+    assertTrue(Files.isSameFile(srcFile, destFile));
+  }
+
+  @Test
+  public void testCopyService_copiesDirectoryInParallel() throws IOException {
+    AppYamlProjectStaging.CopyService copier =
+        new AppYamlProjectStaging.CopyService(LinkStrategy.COPY, 2);
+    Path src = temporaryFolder.newFolder("parallelSrc").toPath();
+    Files.createDirectories(src.resolve("a"));
+    Files.createDirectories(src.resolve("b"));
+    Files.write(src.resolve("a/file"), "a".getBytes(StandardCharsets.UTF_8));
+    Files.write(src.resolve("b/file"), "b".getBytes(StandardCharsets.UTF_8));
+    Path dest = temporaryFolder.newFolder("parallelDest").toPath();
+
+    copier.copyDirectory(src, dest);
+
+    assertArrayEquals(
+        "a".getBytes(StandardCharsets.UTF_8), Files.readAllBytes(dest.resolve("a/file")));
+    assertArrayEquals(
+        "b".getBytes(StandardCharsets.UTF_8), Files.readAllBytes(dest.resolve("b/file")));
+  }
+
+  @Test
+  public void testConstructor_copyParallelismMustBePositive() {
+    try {
+      new AppYamlProjectStaging(LinkStrategy.COPY, 0);
+      fail();
+    } catch (IllegalArgumentException ex) {
+      assertEquals("copyParallelism must be positive", ex.getMessage());
+    }
+  }
 }
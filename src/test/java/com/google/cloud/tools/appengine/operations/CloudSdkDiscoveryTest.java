@@ -0,0 +1,155 @@
+/*
+ * Copyright 2026 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.appengine.operations;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.cloud.tools.appengine.operations.cloudsdk.CloudSdkNotFoundException;
+import com.google.cloud.tools.appengine.operations.cloudsdk.CloudSdkResolver;
+import com.google.common.collect.ImmutableList;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** Unit tests for {@link CloudSdkDiscovery}. */
+public class CloudSdkDiscoveryTest {
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private Path sdkPath;
+  private CloudSdkResolver resolver;
+
+  @Before
+  public void setUp() throws IOException {
+    sdkPath = temporaryFolder.newFolder("google-cloud-sdk").toPath();
+    resolver = mock(CloudSdkResolver.class);
+    when(resolver.getCloudSdkPath()).thenReturn(sdkPath);
+  }
+
+  @Test
+  public void testDiscover_lowestRankWinsWhenSlower() throws CloudSdkNotFoundException {
+    CountDownLatch fallbackDone = new CountDownLatch(1);
+    CloudSdkResolver slow =
+        new TestResolver() {
+          @Override
+          public Path getCloudSdkPath() {
+            try {
+              // only answer once the lower priority resolver has answered
+              fallbackDone.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+              Thread.currentThread().interrupt();
+            }
+            return Paths.get("/slow");
+          }
+        };
+    CloudSdkResolver fallback =
+        new TestResolver() {
+          @Override
+          public Path getCloudSdkPath() {
+            fallbackDone.countDown();
+            return Paths.get("/fallback");
+          }
+        };
+
+    assertEquals(Paths.get("/slow"), CloudSdkDiscovery.discover(ImmutableList.of(slow, fallback)));
+  }
+
+  @Test
+  public void testDiscover_skipsFailingResolvers() throws CloudSdkNotFoundException {
+    CloudSdkResolver failing =
+        new TestResolver() {
+          @Override
+          public Path getCloudSdkPath() {
+            throw new IllegalStateException("broken resolver");
+          }
+        };
+
+    assertEquals(sdkPath, CloudSdkDiscovery.discover(ImmutableList.of(failing, resolver)));
+  }
+
+  @Test
+  public void testDiscover_notFound() {
+    CloudSdkResolver nothing = mock(CloudSdkResolver.class);
+    try {
+      CloudSdkDiscovery.discover(ImmutableList.of(nothing));
+      fail();
+    } catch (CloudSdkNotFoundException ex) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testCached_reused() throws CloudSdkNotFoundException {
+    CloudSdkResolver cached = new CloudSdkDiscovery().cached(resolver, "PATH=a");
+
+    assertEquals(sdkPath, CloudSdkDiscovery.discover(ImmutableList.of(cached)));
+    assertEquals(sdkPath, CloudSdkDiscovery.discover(ImmutableList.of(cached)));
+    verify(resolver, times(1)).getCloudSdkPath();
+  }
+
+  @Test
+  public void testCached_environmentChanged() {
+    CloudSdkDiscovery discovery = new CloudSdkDiscovery();
+
+    discovery.cached(resolver, "PATH=a").getCloudSdkPath();
+    discovery.cached(resolver, "PATH=b").getCloudSdkPath();
+    verify(resolver, times(2)).getCloudSdkPath();
+  }
+
+  @Test
+  public void testCached_directoryRemoved() throws IOException {
+    CloudSdkResolver cached = new CloudSdkDiscovery().cached(resolver, "PATH=a");
+
+    cached.getCloudSdkPath();
+    Files.delete(sdkPath);
+    cached.getCloudSdkPath();
+    verify(resolver, times(2)).getCloudSdkPath();
+  }
+
+  @Test
+  public void testCached_otherResolversProbedEveryTime() throws CloudSdkNotFoundException {
+    CloudSdkResolver cached = new CloudSdkDiscovery().cached(resolver, "PATH=a");
+    CloudSdkResolver preferences = mock(CloudSdkResolver.class);
+    when(preferences.getRank()).thenReturn(-1);
+
+    assertEquals(sdkPath, CloudSdkDiscovery.discover(ImmutableList.of(preferences, cached)));
+    when(preferences.getCloudSdkPath()).thenReturn(Paths.get("/preferences"));
+    assertEquals(
+        Paths.get("/preferences"),
+        CloudSdkDiscovery.discover(ImmutableList.of(preferences, cached)));
+    verify(preferences, times(2)).getCloudSdkPath();
+  }
+
+  private abstract static class TestResolver implements CloudSdkResolver {
+    @Override
+    public int getRank() {
+      return 0;
+    }
+  }
+}
@@ -123,6 +123,27 @@ public class CloudSdkTest {
     sdk.validateCloudSdk();
   }
 
+  @Test
+  public void testValidateCloudSdk_cachedUntilFilesChange()
+      throws IOException, CloudSdkNotFoundException, CloudSdkOutOfDateException,
+          CloudSdkVersionFileException {
+    writeVersionFile("300.0.0");
+    root.resolve("bin").toFile().mkdir();
+    root.resolve("bin/gcloud").toFile().createNewFile();
+    root.resolve("bin/gcloud.cmd").toFile().createNewFile(); // for Windows
+    root.resolve("bin/dev_appserver.py").toFile().createNewFile();
+    sdk.validateCloudSdk();
+    sdk.validateCloudSdk();
+
+    writeVersionFile("1.0.0");
+    try {
+      sdk.validateCloudSdk();
+      fail();
+    } catch (CloudSdkOutOfDateException ex) {
+      // expected
+    }
+  }
+
   @Test
   public void testGetVersion_fileContentValid() throws IOException, CloudSdkVersionFileException {
     String version = "136.0.0";
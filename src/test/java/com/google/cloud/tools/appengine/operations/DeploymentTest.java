@@ -18,22 +18,30 @@ package com.google.cloud.tools.appengine.operations;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 import com.google.cloud.tools.appengine.AppEngineException;
 import com.google.cloud.tools.appengine.configuration.DeployConfiguration;
+import com.google.cloud.tools.appengine.configuration.DeployPlan;
 import com.google.cloud.tools.appengine.configuration.DeployProjectConfigurationConfiguration;
+import com.google.cloud.tools.appengine.operations.cloudsdk.process.ProcessHandler;
 import com.google.cloud.tools.appengine.operations.cloudsdk.process.ProcessHandlerException;
 import com.google.cloud.tools.test.utils.SpyVerifier;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -43,6 +51,7 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.MockitoJUnitRunner;
@@ -62,6 +71,7 @@ public class DeploymentTest {
   @Mock private Deployment mockDeployment;
   @Mock private DeployProjectConfigurationConfiguration mockProjectConfigurationConfiguration;
   @Mock private GcloudRunner gcloudRunner;
+  @Mock private ProcessHandler processHandler;
 
   @Before
   public void setUp() throws IOException {
@@ -296,4 +306,129 @@ public class DeploymentTest {
       }
     }
   }
+
+  @Test
+  public void testDeployPlan_configFilesAfterServices() throws Exception {
+    Path dispatchYaml = stagingDirectory.resolve("dispatch.yaml");
+    Files.createFile(dispatchYaml);
+    DeployPlan plan =
+        DeployPlan.builder()
+            .addService(DeployConfiguration.builder(ImmutableList.of(appYaml1)).build())
+            .addService(DeployConfiguration.builder(ImmutableList.of(appYaml2)).build())
+            .addConfigFile(
+                DeployPlan.ConfigFile.DISPATCH,
+                DeployProjectConfigurationConfiguration.builder(stagingDirectory).build())
+            .parallelism(2)
+            .build();
+
+    List<String> descriptions = Collections.synchronizedList(new ArrayList<>());
+    DeployPlanResult result =
+        deployment.deploy(
+            plan,
+            description -> {
+              descriptions.add(description);
+              return processHandler;
+            });
+
+    assertTrue(result.isSuccessful());
+    assertEquals(3, result.getSteps().size());
+    assertEquals(3, descriptions.size());
+    List<String> service1 = ImmutableList.of("app", "deploy", appYaml1.toString());
+    List<String> service2 = ImmutableList.of("app", "deploy", appYaml2.toString());
+    List<String> dispatch = ImmutableList.of("app", "deploy", dispatchYaml.toString());
+    InOrder afterService1 = Mockito.inOrder(gcloudRunner);
+    afterService1
+        .verify(gcloudRunner)
+        .runAndCheckExitCode(eq(service1), isNull(), eq(processHandler));
+    afterService1
+        .verify(gcloudRunner)
+        .runAndCheckExitCode(eq(dispatch), isNull(), eq(processHandler));
+    InOrder afterService2 = Mockito.inOrder(gcloudRunner);
+    afterService2
+        .verify(gcloudRunner)
+        .runAndCheckExitCode(eq(service2), isNull(), eq(processHandler));
+    afterService2
+        .verify(gcloudRunner)
+        .runAndCheckExitCode(eq(dispatch), isNull(), eq(processHandler));
+    verify(gcloudRunner, never()).run(Mockito.anyList(), Mockito.any());
+  }
+
+  @Test
+  public void testDeployPlan_failedServiceSkipsConfigFilesOfItsProject() throws Exception {
+    Files.createFile(stagingDirectory.resolve("cron.yaml"));
+    List<String> failingService =
+        ImmutableList.of("app", "deploy", appYaml1.toString(), "--project", "failing");
+    Mockito.doThrow(new ProcessHandlerException("deploy failed"))
+        .when(gcloudRunner)
+        .runAndCheckExitCode(eq(failingService), isNull(), any());
+    DeployPlan plan =
+        DeployPlan.builder()
+            .addService(
+                DeployConfiguration.builder(ImmutableList.of(appYaml1))
+                    .projectId("failing")
+                    .build())
+            .addService(
+                DeployConfiguration.builder(ImmutableList.of(appYaml2))
+                    .projectId("working")
+                    .build())
+            .addConfigFile(
+                DeployPlan.ConfigFile.CRON,
+                DeployProjectConfigurationConfiguration.builder(stagingDirectory)
+                    .projectId("failing")
+                    .build())
+            .addConfigFile(
+                DeployPlan.ConfigFile.CRON,
+                DeployProjectConfigurationConfiguration.builder(stagingDirectory)
+                    .projectId("working")
+                    .build())
+            .build();
+
+    DeployPlanResult result = deployment.deploy(plan, description -> processHandler);
+
+    assertFalse(result.isSuccessful());
+    List<DeployPlanResult.Step> steps = result.getSteps();
+    assertFalse(steps.get(0).isSuccessful());
+    assertFalse(steps.get(0).isSkipped());
+    assertTrue(steps.get(1).isSuccessful());
+    assertTrue(steps.get(2).isSkipped());
+    assertTrue(steps.get(3).isSuccessful());
+    assertEquals(ImmutableList.of(steps.get(0), steps.get(2)), result.getFailedSteps());
+    verify(gcloudRunner, times(3)).runAndCheckExitCode(Mockito.anyList(), isNull(), any());
+  }
+
+  @Test
+  public void testDeployPlan_serviceInConfiguredProject() throws Exception {
+    Files.createFile(stagingDirectory.resolve("cron.yaml"));
+    Mockito.doThrow(new ProcessHandlerException("deploy failed"))
+        .when(gcloudRunner)
+        .runAndCheckExitCode(
+            eq(ImmutableList.of("app", "deploy", appYaml1.toString())), isNull(), any());
+    Process configList = Mockito.mock(Process.class);
+    Mockito.when(configList.getInputStream())
+        .thenReturn(
+            new ByteArrayInputStream(
+                "{\"core\": {\"project\": \"configured\"}}".getBytes(StandardCharsets.UTF_8)));
+    Mockito.doAnswer(
+            invocation -> {
+              invocation.<ProcessHandler>getArgument(2).handleProcess(configList);
+              return null;
+            })
+        .when(gcloudRunner)
+        .runAndCheckExitCode(
+            eq(ImmutableList.of("config", "list", "--format", "json")), isNull(), any());
+    DeployPlan plan =
+        DeployPlan.builder()
+            .addService(DeployConfiguration.builder(ImmutableList.of(appYaml1)).build())
+            .addConfigFile(
+                DeployPlan.ConfigFile.CRON,
+                DeployProjectConfigurationConfiguration.builder(stagingDirectory)
+                    .projectId("configured")
+                    .build())
+            .build();
+
+    DeployPlanResult result = deployment.deploy(plan, description -> processHandler);
+
+    assertFalse(result.getSteps().get(0).isSuccessful());
+    assertTrue(result.getSteps().get(1).isSkipped());
+  }
 }
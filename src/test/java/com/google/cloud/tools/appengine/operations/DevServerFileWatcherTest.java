@@ -0,0 +1,196 @@
+/*
+ * Copyright 2026 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.appengine.operations;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+public class DevServerFileWatcherTest {
+
+  private static final Duration QUIET_PERIOD = Duration.ofMillis(100);
+  private static final long TIMEOUT_SECONDS = 10;
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final BlockingQueue<Map.Entry<Path, Set<Path>>> changes = new LinkedBlockingQueue<>();
+  private final DevServerFileWatcher.ChangeListener listener =
+      (changedService, changedFiles) ->
+          changes.add(Maps.immutableEntry(changedService, ImmutableSet.copyOf(changedFiles)));
+  private Path service;
+  private DevServerFileWatcher watcher;
+
+  @Before
+  public void setUp() throws IOException {
+    service = temporaryFolder.newFolder("service").toPath();
+    Files.createDirectories(service.resolve("WEB-INF"));
+    write("WEB-INF/appengine-web.xml");
+    watcher = DevServerFileWatcher.start(ImmutableList.of(service), QUIET_PERIOD, listener);
+  }
+
+  @After
+  public void tearDown() {
+    watcher.close();
+  }
+
+  private Path write(String file) throws IOException {
+    return Files.write(service.resolve(file), file.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private Set<Path> nextChange() throws InterruptedException {
+    Map.Entry<Path, Set<Path>> change = changes.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    assertNotNull(change);
+    assertEquals(service, change.getKey());
+    return change.getValue();
+  }
+
+  private void assertNoChange() throws InterruptedException {
+    assertNull(changes.poll(QUIET_PERIOD.toMillis() * 5, TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  public void testStart_burstReportedOnce() throws IOException, InterruptedException {
+    Path first = write("first.txt");
+    Path second = write("second.txt");
+    write("first.txt");
+
+    assertEquals(ImmutableSet.of(first, second), nextChange());
+    assertNoChange();
+  }
+
+  @Test
+  public void testStart_newDirectoryWatched() throws IOException, InterruptedException {
+    Path classes = Files.createDirectories(service.resolve("WEB-INF/classes"));
+    assertEquals(ImmutableSet.of(classes), nextChange());
+
+    Path file = write("WEB-INF/classes/Servlet.class");
+
+    assertEquals(ImmutableSet.of(file), nextChange());
+  }
+
+  @Test
+  public void testStart_appEngineWebXmlIgnored() throws IOException, InterruptedException {
+    Files.setLastModifiedTime(
+        service.resolve("WEB-INF/appengine-web.xml"),
+        FileTime.fromMillis(System.currentTimeMillis() + 2000));
+    assertNoChange();
+
+    Path file = write("index.html");
+    write("WEB-INF/appengine-web.xml");
+
+    assertEquals(ImmutableSet.of(file), nextChange());
+  }
+
+  @Test
+  public void testStart_listenerFailureKeepsWatching() throws IOException, InterruptedException {
+    watcher.close();
+    watcher =
+        DevServerFileWatcher.start(
+            ImmutableList.of(service),
+            QUIET_PERIOD,
+            (changedService, changedFiles) -> {
+              changes.add(Maps.immutableEntry(changedService, ImmutableSet.copyOf(changedFiles)));
+              throw new IllegalStateException("reload failed");
+            });
+
+    Path first = write("first.txt");
+    assertEquals(ImmutableSet.of(first), nextChange());
+    Path second = write("second.txt");
+
+    assertEquals(ImmutableSet.of(second), nextChange());
+  }
+
+  @Test
+  public void testStart_servicesQuietIndependently() throws IOException, InterruptedException {
+    Path other = temporaryFolder.newFolder("other").toPath();
+    watcher.close();
+    watcher = DevServerFileWatcher.start(ImmutableList.of(service, other), QUIET_PERIOD, listener);
+
+    Path file = write("index.html");
+    // keep changing the other service for longer than the quiet period
+    Map.Entry<Path, Set<Path>> change = null;
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+    while (change == null && System.nanoTime() < deadline) {
+      Files.write(other.resolve("busy.txt"), new byte[] {1});
+      change = changes.poll(QUIET_PERIOD.toMillis() / 4, TimeUnit.MILLISECONDS);
+    }
+
+    assertNotNull(change);
+    assertEquals(service, change.getKey());
+    assertEquals(ImmutableSet.of(file), change.getValue());
+  }
+
+  @Test
+  public void testCloseOnExit_closedWhenProcessExits() throws IOException, InterruptedException {
+    AtomicBoolean alive = new AtomicBoolean(true);
+    Process process = Mockito.mock(Process.class);
+    Mockito.when(process.isAlive()).thenAnswer(invocation -> alive.get());
+    watcher.closeOnExit(process);
+
+    Path file = write("index.html");
+    assertEquals(ImmutableSet.of(file), nextChange());
+    alive.set(false);
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+    while (!watcher.isClosed() && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+
+    assertTrue(watcher.isClosed());
+  }
+
+  @Test
+  public void testCloseOnExit_processAlreadyExited() {
+    Process process = Mockito.mock(Process.class);
+    Mockito.when(process.isAlive()).thenReturn(false);
+
+    watcher.closeOnExit(process);
+
+    assertTrue(watcher.isClosed());
+  }
+
+  @Test
+  public void testClose_stopsReporting() throws IOException, InterruptedException {
+    watcher.close();
+
+    write("index.html");
+
+    assertNoChange();
+  }
+}
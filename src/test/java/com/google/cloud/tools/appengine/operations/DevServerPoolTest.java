@@ -0,0 +1,260 @@
+/*
+ * Copyright 2026 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.appengine.operations;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.google.cloud.tools.appengine.AppEngineException;
+import com.google.cloud.tools.appengine.configuration.RunConfiguration;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Test;
+
+public class DevServerPoolTest {
+
+  private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+  private final RunConfiguration template =
+      RunConfiguration.builder(ImmutableList.of(Paths.get("service"))).build();
+  private final FakeLauncher launcher = new FakeLauncher();
+  private DevServerPool pool;
+
+  @After
+  public void tearDown() {
+    if (pool != null) {
+      pool.close();
+    }
+  }
+
+  @Test
+  public void testAcquire_distinctPorts() throws AppEngineException, InterruptedException {
+    pool = new DevServerPool(template, launcher, null, ImmutableList.of(8001, 8002));
+
+    DevServerPool.Lease first = pool.acquire(TIMEOUT);
+    DevServerPool.Lease second = pool.acquire(TIMEOUT);
+
+    assertEquals(ImmutableSet.of(8001, 8002), ImmutableSet.of(first.getPort(), second.getPort()));
+    assertEquals("localhost", first.getHost());
+    assertEquals(Integer.valueOf(first.getPort()), first.getConfiguration().getPort());
+    try {
+      pool.acquire(Duration.ofMillis(10));
+      fail();
+    } catch (AppEngineException ex) {
+      assertEquals("No dev server became ready within PT0.01S", ex.getMessage());
+    }
+  }
+
+  @Test
+  public void testRelease_resetAndReused() throws AppEngineException, InterruptedException {
+    AtomicInteger resets = new AtomicInteger();
+    pool =
+        new DevServerPool(
+            template, launcher, lease -> resets.incrementAndGet(), ImmutableList.of(8001));
+
+    DevServerPool.Lease lease = pool.acquire(TIMEOUT);
+    lease.close();
+    lease.close();
+    DevServerPool.Lease again = pool.acquire(TIMEOUT);
+
+    assertEquals(8001, again.getPort());
+    assertEquals(1, resets.get());
+    assertEquals(1, launcher.starts.get());
+  }
+
+  @Test
+  public void testRelease_failedResetReplacesServer()
+      throws AppEngineException, InterruptedException {
+    pool =
+        new DevServerPool(
+            template,
+            launcher,
+            lease -> {
+              throw new AppEngineException("reset failed");
+            },
+            ImmutableList.of(8001));
+
+    DevServerPool.Lease lease = pool.acquire(TIMEOUT);
+    FakeProcess first = launcher.processes.get(8001);
+    lease.close();
+    pool.acquire(TIMEOUT);
+
+    assertEquals(2, launcher.starts.get());
+    assertFalse(first.isAlive());
+    assertNotEquals(first, launcher.processes.get(8001));
+  }
+
+  @Test
+  public void testAcquire_startFailureReported() throws AppEngineException, InterruptedException {
+    launcher.failures.add(8001);
+    pool = new DevServerPool(template, launcher, null, ImmutableList.of(8001));
+
+    try {
+      pool.acquire(TIMEOUT);
+      fail();
+    } catch (AppEngineException ex) {
+      assertEquals("Dev server on port 8001 failed to start", ex.getMessage());
+    }
+    // replaced in the background
+    assertEquals(8001, pool.acquire(TIMEOUT).getPort());
+  }
+
+  @Test
+  public void testClose_stopsLeasedServers() throws AppEngineException, InterruptedException {
+    pool = new DevServerPool(template, launcher, null, ImmutableList.of(8001, 8002));
+    DevServerPool.Lease lease = pool.acquire(TIMEOUT);
+
+    pool.close();
+    lease.close();
+
+    for (FakeProcess process : launcher.processes.values()) {
+      assertFalse(process.isAlive());
+    }
+    try {
+      pool.acquire(TIMEOUT);
+      fail();
+    } catch (IllegalStateException ex) {
+      assertEquals("dev server pool is closed", ex.getMessage());
+    }
+  }
+
+  @Test
+  public void testAcquire_separateDatastores() throws AppEngineException, InterruptedException {
+    pool = new DevServerPool(template, launcher, null, ImmutableList.of(8001, 8002));
+    Path first = getBackingStore(pool.acquire(TIMEOUT));
+    Path second = getBackingStore(pool.acquire(TIMEOUT));
+
+    assertNotEquals(first, second);
+    assertTrue(Files.isDirectory(first.getParent()));
+    assertTrue(Files.isDirectory(second.getParent()));
+
+    pool.close();
+
+    assertFalse(Files.exists(first.getParent()));
+    assertFalse(Files.exists(second.getParent()));
+  }
+
+  @Test
+  public void testAcquire_templateBackingStoreKept()
+      throws AppEngineException, InterruptedException {
+    List<String> jvmFlags = ImmutableList.of("-Ddatastore.backing_store=shared.bin");
+    RunConfiguration sharedStore = template.toBuilder().jvmFlags(jvmFlags).build();
+    pool = new DevServerPool(sharedStore, launcher, null, ImmutableList.of(8001));
+
+    assertEquals(jvmFlags, pool.acquire(TIMEOUT).getConfiguration().getJvmFlags());
+  }
+
+  private static Path getBackingStore(DevServerPool.Lease lease) {
+    String prefix = "-Ddatastore.backing_store=";
+    for (String flag : lease.getConfiguration().getJvmFlags()) {
+      if (flag.startsWith(prefix)) {
+        return Paths.get(flag.substring(prefix.length()));
+      }
+    }
+    throw new AssertionError("no backing store flag");
+  }
+
+  private static class FakeLauncher implements DevServerPool.Launcher {
+    private final Map<Integer, FakeProcess> processes = new ConcurrentHashMap<>();
+    private final Set<Integer> failures = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger starts = new AtomicInteger();
+
+    @Override
+    public Process start(RunConfiguration configuration) throws AppEngineException {
+      int port = configuration.getPort();
+      if (failures.remove(port)) {
+        throw new AppEngineException("start failed");
+      }
+      starts.incrementAndGet();
+      FakeProcess process = new FakeProcess();
+      processes.put(port, process);
+      return process;
+    }
+
+    @Override
+    public void stop(RunConfiguration configuration) {
+      processes.get(configuration.getPort()).destroy();
+    }
+  }
+
+  private static class FakeProcess extends Process {
+    private final CountDownLatch exited = new CountDownLatch(1);
+
+    @Override
+    public OutputStream getOutputStream() {
+      return new ByteArrayOutputStream();
+    }
+
+    @Override
+    public InputStream getInputStream() {
+      return new ByteArrayInputStream(new byte[0]);
+    }
+
+    @Override
+    public InputStream getErrorStream() {
+      return new ByteArrayInputStream(new byte[0]);
+    }
+
+    @Override
+    public int waitFor() throws InterruptedException {
+      exited.await();
+      return 0;
+    }
+
+    @Override
+    public boolean waitFor(long timeout, TimeUnit unit) throws InterruptedException {
+      return exited.await(timeout, unit);
+    }
+
+    @Override
+    public int exitValue() {
+      if (isAlive()) {
+        throw new IllegalThreadStateException();
+      }
+      return 0;
+    }
+
+    @Override
+    public boolean isAlive() {
+      return exited.getCount() > 0;
+    }
+
+    @Override
+    public void destroy() {
+      exited.countDown();
+    }
+  }
+}
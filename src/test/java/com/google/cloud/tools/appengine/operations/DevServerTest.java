@@ -30,8 +30,10 @@ import com.google.cloud.tools.test.utils.SpyVerifier;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import java.io.IOException;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
@@ -142,6 +144,10 @@ public class DevServerTest {
                 .build());
 
     SpyVerifier.newVerifier(configuration).verifyAllValuesNotNull();
+    DevServerFileWatcher fileWatcher = Mockito.mock(DevServerFileWatcher.class);
+    Mockito.doReturn(fileWatcher).when(devServer).startFileWatcher(ImmutableList.of(java8Service));
+    Process process = Mockito.mock(Process.class);
+    Mockito.when(devAppServerRunner.run(any(), any(), any(), any())).thenReturn(process);
 
     List<String> expectedFlags =
         ImmutableList.of(
@@ -158,7 +164,6 @@ public class DevServerTest {
 
     List<String> expectedJvmArgs =
         ImmutableList.of(
-            "-Dappengine.fullscan.seconds=1",
             "-Dflag1",
             "-Dflag2",
             "-Duse_jetty9_runtime=true",
@@ -182,7 +187,34 @@ public class DevServerTest {
 
     SpyVerifier.newVerifier(configuration)
         .verifyDeclaredGetters(
-            ImmutableMap.of("getServices", 7, "getJavaHomeDir", 2, "getJvmFlags", 2));
+            ImmutableMap.of("getServices", 8, "getJavaHomeDir", 2, "getJvmFlags", 2));
+
+    // watching stops with the dev server process
+    Mockito.verify(fileWatcher).closeOnExit(process);
+    Mockito.verify(fileWatcher, Mockito.never()).close();
+  }
+
+  @Test
+  public void testPrepareCommand_automaticRestartFallsBackToFullScan() throws Exception {
+    RunConfiguration configuration =
+        RunConfiguration.builder(ImmutableList.of(java8Service)).automaticRestart(true).build();
+    Mockito.doThrow(new IOException("too many watches"))
+        .when(devServer)
+        .startFileWatcher(ImmutableList.of(java8Service));
+
+    devServer.run(configuration);
+
+    List<String> expectedJvmArgs =
+        ImmutableList.of(
+            "-Dappengine.fullscan.seconds=1",
+            "-Duse_jetty9_runtime=true",
+            "-D--enable_all_permissions=true");
+    verify(devAppServerRunner, times(1))
+        .run(
+            eq(expectedJvmArgs),
+            any(),
+            eq(expectedJava8Environment),
+            eq(java8Service) /* workingDirectory */);
   }
 
   @Test
@@ -467,6 +499,30 @@ public class DevServerTest {
     Assert.assertEquals(0, testHandler.getLogs().size());
   }
 
+  @Test
+  public void testDetermineJavaRuntime_manyServices() throws AppEngineException {
+    List<Path> services = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      services.add(java7Service);
+    }
+    Assert.assertTrue(devServer.isSandboxEnforced(services));
+
+    services.add(java8Service);
+    Assert.assertFalse(devServer.isSandboxEnforced(services));
+    Assert.assertEquals(1, testHandler.getLogs().size());
+  }
+
+  @Test
+  public void testDetermineJavaRuntime_missingDescriptor() {
+    Path missing = Paths.get("src/test/resources/projects/Missing");
+    try {
+      devServer.isSandboxEnforced(ImmutableList.of(java7Service, missing, java8Service));
+      Assert.fail();
+    } catch (AppEngineException ex) {
+      Assert.assertTrue(ex.getCause() instanceof NoSuchFileException);
+    }
+  }
+
   @Test
   public void testDetermineJavaRuntime_mixedModeWarning() throws AppEngineException {
 
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2026 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.appengine.operations;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.google.cloud.tools.appengine.AppEngineException;
+import com.google.common.collect.ImmutableList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import org.junit.Test;
+
+public class GcloudBatchTest {
+
+  @Test
+  public void testJoin_resultsInSubmissionOrder() throws AppEngineException {
+    CountDownLatch firstMayFinish = new CountDownLatch(1);
+    try (GcloudBatch<String> batch = new GcloudBatch<>(2, "test-%d")) {
+      CompletableFuture<String> first =
+          batch.submit(
+              () -> {
+                try {
+                  firstMayFinish.await();
+                } catch (InterruptedException ex) {
+                  throw new IllegalStateException(ex);
+                }
+                return "first";
+              });
+      batch.submit(
+          () -> {
+            firstMayFinish.countDown();
+            return "second";
+          });
+      batch.submitAfter(
+          ImmutableList.of(first), () -> first.isDone() ? "after first" : "too early");
+
+      assertEquals(ImmutableList.of("first", "second", "after first"), batch.join("testing"));
+    }
+  }
+
+  @Test
+  public void testJoin_interrupted() {
+    try (GcloudBatch<String> batch = new GcloudBatch<>(1, "test-%d")) {
+      batch.submit(
+          () -> {
+            try {
+              new CountDownLatch(1).await();
+            } catch (InterruptedException ex) {
+              // the pool was closed
+            }
+            return "interrupted";
+          });
+      Thread.currentThread().interrupt();
+
+      batch.join("testing");
+      fail();
+    } catch (AppEngineException ex) {
+      assertEquals("Interrupted while testing", ex.getMessage());
+      assertTrue(Thread.interrupted());
+    }
+  }
+}
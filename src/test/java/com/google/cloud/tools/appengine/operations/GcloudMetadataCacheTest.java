@@ -0,0 +1,132 @@
+/*
+ * Copyright 2026 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.appengine.operations;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+
+import com.google.cloud.tools.appengine.operations.cloudsdk.CloudSdkNotFoundException;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.gson.reflect.TypeToken;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** Unit tests for {@link GcloudMetadataCache}. */
+public class GcloudMetadataCacheTest {
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private CloudSdk sdk;
+  private Path configDirectory;
+
+  @Before
+  public void setUp() throws IOException, CloudSdkNotFoundException {
+    Path sdkPath = temporaryFolder.newFolder("sdk").toPath();
+    Files.write(sdkPath.resolve("VERSION"), "250.0.0".getBytes(StandardCharsets.UTF_8));
+    Files.createDirectories(sdkPath.resolve(".install"));
+    sdk = new CloudSdk.Builder().sdkPath(sdkPath).build();
+    configDirectory = temporaryFolder.newFolder("config").toPath();
+    Files.createDirectories(configDirectory.resolve("configurations"));
+  }
+
+  @Test
+  public void testGet_matchingFingerprint() {
+    GcloudMetadataCache cache = GcloudMetadataCache.inMemory();
+    cache.put("key", "fingerprint", "value");
+    assertEquals("value", cache.get("key", "fingerprint", String.class));
+  }
+
+  @Test
+  public void testGet_staleFingerprint() {
+    GcloudMetadataCache cache = GcloudMetadataCache.inMemory();
+    cache.put("key", "fingerprint", "value");
+    assertNull(cache.get("key", "other fingerprint", String.class));
+    assertNull(cache.get("other key", "fingerprint", String.class));
+  }
+
+  @Test
+  public void testGet_fromDisk() throws IOException {
+    Path diskDirectory = temporaryFolder.getRoot().toPath().resolve("cache");
+    Type type = new TypeToken<List<String>>() {}.getType();
+    GcloudMetadataCache.onDisk(diskDirectory)
+        .put("key", "fingerprint", ImmutableList.of("a", "multi\nline"));
+
+    GcloudMetadataCache restarted = GcloudMetadataCache.onDisk(diskDirectory);
+    assertEquals(ImmutableList.of("a", "multi\nline"), restarted.get("key", "fingerprint", type));
+
+    restarted.invalidateAll();
+    assertNull(GcloudMetadataCache.onDisk(diskDirectory).get("key", "fingerprint", type));
+  }
+
+  @Test
+  public void testGet_corruptDiskFile() throws IOException {
+    Path diskDirectory = temporaryFolder.getRoot().toPath().resolve("cache");
+    GcloudMetadataCache.onDisk(diskDirectory).put("key", "fingerprint", "value");
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(diskDirectory, "*.json")) {
+      for (Path file : files) {
+        Files.write(file, "fingerprint\n{not json".getBytes(StandardCharsets.UTF_8));
+      }
+    }
+
+    assertNull(
+        GcloudMetadataCache.onDisk(diskDirectory)
+            .get("key", "fingerprint", new TypeToken<List<String>>() {}.getType()));
+  }
+
+  @Test
+  public void testComponentsFingerprint_changesWithManifests() throws IOException {
+    String before = GcloudMetadataCache.componentsFingerprint(sdk);
+    assertEquals(before, GcloudMetadataCache.componentsFingerprint(sdk));
+
+    Path manifest = sdk.getPath().resolve(".install/app-engine-java.manifest");
+    Files.write(manifest, "lib/foo.jar".getBytes(StandardCharsets.UTF_8));
+    assertNotEquals(before, GcloudMetadataCache.componentsFingerprint(sdk));
+  }
+
+  @Test
+  public void testConfigFingerprint_changesWithConfiguration() throws IOException {
+    Path config = configDirectory.resolve("configurations/config_default");
+    Files.write(config, "[core]\nproject = a\n".getBytes(StandardCharsets.UTF_8));
+    String before = GcloudMetadataCache.configFingerprint(sdk, configDirectory);
+
+    Files.write(config, "[core]\nproject = b\n".getBytes(StandardCharsets.UTF_8));
+    // don't depend on the file system's timestamp resolution
+    Files.setLastModifiedTime(config, FileTime.fromMillis(0));
+    assertNotEquals(before, GcloudMetadataCache.configFingerprint(sdk, configDirectory));
+  }
+
+  @Test
+  public void testGetConfigDirectory_cloudSdkConfig() {
+    Path configDirectory =
+        GcloudMetadataCache.getConfigDirectory(
+            ImmutableMap.of("CLOUDSDK_CONFIG", "/custom/config"));
+    assertEquals(Paths.get("/custom/config"), configDirectory);
+  }
+}
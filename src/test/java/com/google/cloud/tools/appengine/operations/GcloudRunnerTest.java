@@ -17,6 +17,7 @@
 package com.google.cloud.tools.appengine.operations;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -87,6 +88,7 @@ public class GcloudRunnerTest {
                 "some-format", // output format
                 "always", // show structured logs
                 "some-verbosity", // verbosity
+                null, // worker pool
                 processHandler);
 
     gcloudRunner.run(ImmutableList.of("some", "command"), workingDirectory);
@@ -118,6 +120,94 @@ public class GcloudRunnerTest {
     Mockito.verify(processHandler).handleProcess(process);
   }
 
+  @Test
+  public void testRun_onWorkerPool()
+      throws CloudSdkOutOfDateException, CloudSdkNotFoundException, ProcessHandlerException,
+          CloudSdkVersionFileException, IOException {
+    GcloudWorkerPool workerPool = mock(GcloudWorkerPool.class);
+    GcloudRunner gcloudRunner =
+        new GcloudRunner.Factory(processBuilderFactory)
+            .newRunner(
+                sdk,
+                null, // metrics env
+                null, // metrics env version
+                null, // credential file
+                null, // gcloud flags file(s)
+                "some-format", // output format
+                null, // show structured logs
+                null, // verbosity
+                workerPool,
+                processHandler);
+    List<String> arguments = ImmutableList.of("some", "command", "--format", "some-format");
+    when(workerPool.start(
+            arguments, workingDirectory, gcloudRunner.getGcloudCommandEnvironment()))
+        .thenReturn(process);
+
+    gcloudRunner.run(ImmutableList.of("some", "command"), workingDirectory);
+
+    Mockito.verify(processHandler).handleProcess(process);
+    Mockito.verifyNoInteractions(processBuilderFactory);
+  }
+
+  @Test
+  public void testRun_otherHandlerAndFormat()
+      throws CloudSdkOutOfDateException, CloudSdkNotFoundException, ProcessHandlerException,
+          CloudSdkVersionFileException, IOException {
+    ProcessHandler otherProcessHandler = mock(ProcessHandler.class);
+    GcloudRunner gcloudRunner =
+        new GcloudRunner.Factory(processBuilderFactory)
+            .newRunner(
+                sdk,
+                null, // metrics env
+                null, // metrics env version
+                null, // credential file
+                null, // gcloud flags file(s)
+                "some-format", // output format
+                null, // show structured logs
+                null, // verbosity
+                null, // worker pool
+                processHandler);
+
+    gcloudRunner.run(
+        ImmutableList.of("some", "command", "--format", "json"), null, otherProcessHandler);
+
+    Mockito.verify(processBuilder)
+        .command(ImmutableList.of(gcloudPath.toString(), "some", "command", "--format", "json"));
+    Mockito.verify(otherProcessHandler).handleProcess(process);
+    Mockito.verifyNoInteractions(processHandler);
+  }
+
+  @Test
+  public void testRunAndCheckExitCode_nonZeroExit()
+      throws CloudSdkOutOfDateException, CloudSdkNotFoundException, CloudSdkVersionFileException,
+          IOException, InterruptedException {
+    ProcessHandler otherProcessHandler = mock(ProcessHandler.class);
+    GcloudRunner gcloudRunner =
+        new GcloudRunner.Factory(processBuilderFactory)
+            .newRunner(
+                sdk,
+                null, // metrics env
+                null, // metrics env version
+                null, // credential file
+                null, // gcloud flags file(s)
+                null, // output format
+                null, // show structured logs
+                null, // verbosity
+                null, // worker pool
+                processHandler);
+    when(process.waitFor()).thenReturn(1);
+
+    try {
+      gcloudRunner.runAndCheckExitCode(
+          ImmutableList.of("some", "command"), null, otherProcessHandler);
+      fail();
+    } catch (ProcessHandlerException ex) {
+      assertEquals("gcloud exited with code 1", ex.getMessage());
+    }
+    Mockito.verify(otherProcessHandler).handleProcess(process);
+    Mockito.verifyNoInteractions(processHandler);
+  }
+
   @Test
   public void testGcloudCommandEnvironment() {
     GcloudRunner gcloudRunner =
@@ -130,6 +220,7 @@ public class GcloudRunnerTest {
             "irrelevant-to-test", // output format
             "always", // show structured logs
             "irrelevant-to-test", // verbosity
+            null, // worker pool
             mock(ProcessBuilderFactory.class),
             mock(ProcessHandler.class));
 
@@ -18,9 +18,12 @@ package com.google.cloud.tools.appengine.operations;
 
 import com.google.cloud.tools.appengine.operations.cloudsdk.process.ProcessHandler;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
+import java.util.Map;
+import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
@@ -34,6 +37,7 @@ public class GcloudTest {
   @Mock private CloudSdk sdk;
   @Mock private ProcessHandler processHandler;
   @Mock private Path credentialFile;
+  @Mock private GcloudWorkerPool workerPool;
 
   @Test
   public void testGetRunner_parametersPassedToFactory() {
@@ -50,6 +54,7 @@ public class GcloudTest {
         .setFlagsFiles(flagsFiles)
         .setShowStructuredLogs(showStructuredLogs)
         .setVerbosity(verbosity)
+        .setWorkerPool(workerPool)
         .build()
         .getRunner(processHandler);
 
@@ -63,6 +68,43 @@ public class GcloudTest {
             outputFormat,
             showStructuredLogs,
             verbosity,
+            workerPool,
             processHandler);
   }
+
+  @Test
+  public void testGetCacheKey_includesSettingsAndEnvironment() throws Exception {
+    Mockito.when(sdk.getPath()).thenReturn(Paths.get("/sdk"));
+    List<String> args = ImmutableList.of("config", "list");
+    Map<String, String> environment = ImmutableMap.of("HOME", "/home/user");
+
+    String key =
+        new Gcloud.Builder(sdk, gcloudRunnerFactory).build().getCacheKey(args, environment);
+
+    Assert.assertEquals(
+        key, new Gcloud.Builder(sdk, gcloudRunnerFactory).build().getCacheKey(args, environment));
+    Assert.assertNotEquals(
+        key,
+        new Gcloud.Builder(sdk, gcloudRunnerFactory)
+            .setCredentialFile(Paths.get("credentials.json"))
+            .build()
+            .getCacheKey(args, environment));
+    Assert.assertNotEquals(
+        key,
+        new Gcloud.Builder(sdk, gcloudRunnerFactory)
+            .setFlagsFiles(ImmutableList.of(Paths.get("flags.yaml")))
+            .build()
+            .getCacheKey(args, environment));
+    Assert.assertNotEquals(
+        key,
+        new Gcloud.Builder(sdk, gcloudRunnerFactory)
+            .setVerbosity("debug")
+            .build()
+            .getCacheKey(args, environment));
+    Assert.assertNotEquals(
+        key,
+        new Gcloud.Builder(sdk, gcloudRunnerFactory)
+            .build()
+            .getCacheKey(args, ImmutableMap.of("CLOUDSDK_CORE_PROJECT", "other-project")));
+  }
 }
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2026 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.appengine.operations;
+
+import com.google.cloud.tools.appengine.operations.cloudsdk.CloudSdkNotFoundException;
+import com.google.cloud.tools.appengine.operations.cloudsdk.process.LegacyProcessHandler;
+import com.google.cloud.tools.appengine.operations.cloudsdk.process.ProcessHandlerException;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares starting gcloud for every command with running commands on a {@link
+ * GcloudWorkerPool}. Uses a fake gcloud that takes as long to load as a real one, and needs Python
+ * 3 and a POSIX shell. Not run as part of the test suite, run {@link #main} from the test
+ * classpath.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, batchSize = 1)
+@Measurement(iterations = 10, batchSize = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GcloudWorkerPoolBenchmark {
+
+  // roughly what loading the command tree of a real gcloud costs
+  private static final String LOAD_TIME_SECONDS = "0.8";
+
+  private static final List<String> ARGUMENTS =
+      ImmutableList.of("app", "versions", "list", "--format=json");
+
+  private Path sdkPath;
+  private GcloudWorkerPool pool;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException, CloudSdkNotFoundException {
+    sdkPath = Files.createTempDirectory("fake-google-cloud-sdk");
+    Files.createDirectories(sdkPath.resolve("lib"));
+    Files.createDirectories(sdkPath.resolve("bin"));
+    Files.write(
+        sdkPath.resolve("lib/gcloud.py"),
+        ImmutableList.of(
+            "import sys",
+            "import time",
+            "time.sleep(" + LOAD_TIME_SECONDS + ")",
+            "def main():",
+            "  print('[]')",
+            "if __name__ == '__main__':",
+            "  main()"),
+        StandardCharsets.UTF_8);
+    Path gcloud = sdkPath.resolve("bin/gcloud");
+    Files.write(
+        gcloud,
+        ImmutableList.of(
+            "#!/bin/sh", "exec python3 -S \"$(dirname \"$0\")/../lib/gcloud.py\" \"$@\""),
+        StandardCharsets.UTF_8);
+    Files.setPosixFilePermissions(gcloud, PosixFilePermissions.fromString("rwxr-xr-x"));
+
+    pool = GcloudWorkerPool.create(new CloudSdk.Builder().sdkPath(sdkPath).build(), 1);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    pool.close();
+  }
+
+  /** Give the replacement worker time to load, like the gaps between commands of an IDE. */
+  @Setup(Level.Invocation)
+  public void pause() throws InterruptedException {
+    Thread.sleep(1500);
+  }
+
+  @Benchmark
+  public void spawnPerCommand() throws IOException, ProcessHandlerException {
+    ImmutableList<String> command =
+        ImmutableList.<String>builder()
+            .add(sdkPath.resolve("bin/gcloud").toString())
+            .addAll(ARGUMENTS)
+            .build();
+    handle(new ProcessBuilder(command).start());
+  }
+
+  @Benchmark
+  public void workerPool() throws IOException, ProcessHandlerException {
+    handle(pool.start(ARGUMENTS, null, ImmutableMap.of()));
+  }
+
+  private static void handle(Process process) throws ProcessHandlerException {
+    StringBuilder output = new StringBuilder();
+    LegacyProcessHandler.builder()
+        .addStdOutLineListener(output::append)
+        .build()
+        .handleProcess(process);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(
+            new OptionsBuilder().include(GcloudWorkerPoolBenchmark.class.getSimpleName()).build())
+        .run();
+  }
+}
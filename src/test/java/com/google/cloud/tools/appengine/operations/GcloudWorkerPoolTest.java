@@ -0,0 +1,122 @@
+/*
+ * Copyright 2026 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.appengine.operations;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+import com.google.cloud.tools.appengine.operations.cloudsdk.CloudSdkNotFoundException;
+import com.google.cloud.tools.appengine.operations.cloudsdk.internal.process.ExitCodeRecorderProcessExitListener;
+import com.google.cloud.tools.appengine.operations.cloudsdk.process.LegacyProcessHandler;
+import com.google.cloud.tools.appengine.operations.cloudsdk.process.ProcessHandlerException;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** Runs {@link GcloudWorkerPool} against a fake gcloud, skipped if Python 3 is not installed. */
+public class GcloudWorkerPoolTest {
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private GcloudWorkerPool pool;
+  private Path workingDirectory;
+  private final List<String> stdOut = new ArrayList<>();
+  private final List<String> stdErr = new ArrayList<>();
+
+  @Before
+  public void setUp() throws IOException, CloudSdkNotFoundException {
+    assumeTrue(isPython3Installed());
+
+    Path sdkPath = temporaryFolder.newFolder("google-cloud-sdk").toPath();
+    Files.createDirectories(sdkPath.resolve("lib"));
+    Files.write(
+        sdkPath.resolve("lib/gcloud.py"),
+        ImmutableList.of(
+            "import os",
+            "import sys",
+            "def main():",
+            "  print(' '.join(sys.argv[1:]))",
+            "  print(os.getcwd())",
+            "  sys.stderr.write(os.environ['TEST_VARIABLE'] + '\\n')",
+            "  sys.exit(3)"),
+        StandardCharsets.UTF_8);
+    workingDirectory = temporaryFolder.newFolder("working").toPath().toRealPath();
+
+    CloudSdk sdk = new CloudSdk.Builder().sdkPath(sdkPath).build();
+    pool = GcloudWorkerPool.create(sdk, 1);
+  }
+
+  @After
+  public void tearDown() {
+    if (pool != null) {
+      pool.close();
+    }
+  }
+
+  private static boolean isPython3Installed() {
+    try {
+      return new ProcessBuilder("python3", "--version").start().waitFor() == 0;
+    } catch (IOException | InterruptedException ex) {
+      return false;
+    }
+  }
+
+  private Integer run(List<String> arguments) throws IOException, ProcessHandlerException {
+    Process process =
+        pool.start(arguments, workingDirectory, ImmutableMap.of("TEST_VARIABLE", "from request"));
+    ExitCodeRecorderProcessExitListener exitCode = new ExitCodeRecorderProcessExitListener();
+    LegacyProcessHandler.builder()
+        .addStdOutLineListener(stdOut::add)
+        .addStdErrLineListener(stdErr::add)
+        .setExitListener(exitCode)
+        .build()
+        .handleProcess(process);
+    return exitCode.getMostRecentExitCode();
+  }
+
+  @Test
+  public void testStart_runsCommandLikeGcloud() throws IOException, ProcessHandlerException {
+    Integer exitCode = run(ImmutableList.of("app", "versions", "list", "--filter=\"a b\""));
+
+    assertEquals(Integer.valueOf(3), exitCode);
+    assertEquals(
+        ImmutableList.of("app versions list --filter=\"a b\"", workingDirectory.toString()),
+        stdOut);
+    assertEquals(ImmutableList.of("from request"), stdErr);
+  }
+
+  @Test
+  public void testStart_moreCommandsThanWorkers() throws IOException, ProcessHandlerException {
+    run(ImmutableList.of("first"));
+    run(ImmutableList.of("second"));
+    run(ImmutableList.of("third"));
+
+    assertEquals("first", stdOut.get(0));
+    assertEquals("second", stdOut.get(2));
+    assertEquals("third", stdOut.get(4));
+  }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2026 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.appengine.operations;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.google.cloud.tools.io.LinkStrategy;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class IncrementalCopyServiceTest {
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private Path source;
+  private Path stagingDirectory;
+  private Path manifest;
+
+  @Before
+  public void setUp() throws IOException {
+    source = temporaryFolder.newFolder("source").toPath();
+    stagingDirectory = temporaryFolder.newFolder("staging").toPath();
+    manifest = temporaryFolder.getRoot().toPath().resolve("staging.manifest");
+    write(source.resolve("app.yaml"), "runtime: java11");
+    write(source.resolve("extra/a.txt"), "a");
+    write(source.resolve("extra/sub/b.txt"), "b");
+  }
+
+  private static void write(Path file, String content) throws IOException {
+    Files.createDirectories(file.getParent());
+    Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String read(Path file) throws IOException {
+    return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+  }
+
+  private IncrementalStagingResult stage() throws IOException {
+    return stage(1);
+  }
+
+  private IncrementalStagingResult stage(int parallelism) throws IOException {
+    IncrementalCopyService copyService =
+        IncrementalCopyService.load(manifest, stagingDirectory, LinkStrategy.COPY, parallelism);
+    copyService.copyFileAndReplace(
+        source.resolve("app.yaml"), stagingDirectory.resolve("app.yaml"));
+    copyService.copyDirectory(source.resolve("extra"), stagingDirectory);
+    return copyService.finish();
+  }
+
+  @Test
+  public void testFirstRun_copiesEverything() throws IOException {
+    IncrementalStagingResult result = stage();
+
+    assertEquals(
+        ImmutableSet.of(Paths.get("app.yaml"), Paths.get("a.txt"), Paths.get("sub/b.txt")),
+        ImmutableSet.copyOf(result.getAdded()));
+    assertFalse(result.isUnchanged());
+    assertEquals("b", read(stagingDirectory.resolve("sub/b.txt")));
+    assertTrue(Files.isRegularFile(manifest));
+  }
+
+  @Test
+  public void testSecondRun_copiesNothing() throws IOException {
+    stage();
+
+    IncrementalStagingResult result = stage();
+
+    assertTrue(result.isUnchanged());
+    assertEquals(3, result.getUnchanged().size());
+  }
+
+  @Test
+  public void testModifiedSource_isCopied() throws IOException {
+    stage();
+    write(source.resolve("extra/a.txt"), "changed");
+
+    IncrementalStagingResult result = stage();
+
+    assertEquals(ImmutableList.of(Paths.get("a.txt")), result.getUpdated());
+    assertEquals("changed", read(stagingDirectory.resolve("a.txt")));
+  }
+
+  @Test
+  public void testTouchedSource_sameContentIsNotCopied() throws IOException {
+    stage();
+    Path a = source.resolve("extra/a.txt");
+    Files.setLastModifiedTime(
+        a, FileTime.fromMillis(Files.getLastModifiedTime(a).toMillis() + 10000));
+
+    IncrementalStagingResult result = stage();
+
+    assertTrue(result.isUnchanged());
+  }
+
+  @Test
+  public void testModifiedStagedCopy_isCopiedAgain() throws IOException {
+    stage();
+    write(stagingDirectory.resolve("app.yaml"), "runtime: edited in staging");
+
+    IncrementalStagingResult result = stage();
+
+    assertEquals(ImmutableList.of(Paths.get("app.yaml")), result.getUpdated());
+    assertEquals("runtime: java11", read(stagingDirectory.resolve("app.yaml")));
+  }
+
+  @Test
+  public void testRemovedSource_isDeleted() throws IOException {
+    write(stagingDirectory.resolve("not-staged.txt"), "not staged");
+    stage();
+    Files.delete(source.resolve("extra/sub/b.txt"));
+
+    IncrementalStagingResult result = stage();
+
+    assertEquals(ImmutableList.of(Paths.get("sub/b.txt")), result.getDeleted());
+    assertFalse(Files.exists(stagingDirectory.resolve("sub")));
+    assertTrue(Files.exists(stagingDirectory.resolve("not-staged.txt")));
+  }
+
+  @Test
+  public void testParallel_manyFiles() throws IOException {
+    for (int i = 0; i < 100; i++) {
+      write(source.resolve("extra/static/" + (i % 3) + "/file" + i + ".txt"), "content " + i);
+    }
+
+    assertEquals(103, stage(4).getAdded().size());
+    write(source.resolve("extra/static/1/file10.txt"), "changed");
+    IncrementalStagingResult result = stage(4);
+
+    assertEquals(ImmutableList.of(Paths.get("static/1/file10.txt")), result.getUpdated());
+    assertEquals(102, result.getUnchanged().size());
+    assertEquals("changed", read(stagingDirectory.resolve("static/1/file10.txt")));
+  }
+
+  @Test
+  public void testUnreadableManifest_copiesEverything() throws IOException {
+    stage();
+    write(manifest, "not json");
+
+    IncrementalStagingResult result = stage();
+
+    assertEquals(3, result.getAdded().size());
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2026 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.appengine.operations;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.when;
+
+import com.google.cloud.tools.appengine.operations.cloudsdk.JsonParseException;
+import com.google.cloud.tools.appengine.operations.cloudsdk.process.ProcessHandlerException;
+import com.google.cloud.tools.appengine.operations.cloudsdk.serialization.CloudSdkComponent;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class JsonArrayProcessHandlerTest {
+
+  private static final String componentsJson =
+      "[{\"id\": \"app-engine-java\", \"state\": {\"name\": \"Installed\"}},\n"
+          + " {\"id\": \"beta\", \"state\": {\"name\": \"Not Installed\"}}]\n";
+
+  @Mock private Process process;
+
+  private final List<CloudSdkComponent> components = new ArrayList<>();
+
+  private void givenOutput(String stdOut, String stdErr, int exitCode)
+      throws InterruptedException {
+    when(process.getInputStream())
+        .thenReturn(new ByteArrayInputStream(stdOut.getBytes(StandardCharsets.UTF_8)));
+    when(process.getErrorStream())
+        .thenReturn(new ByteArrayInputStream(stdErr.getBytes(StandardCharsets.UTF_8)));
+    when(process.waitFor()).thenReturn(exitCode);
+  }
+
+  @Test
+  public void testHandleProcess() throws InterruptedException, ProcessHandlerException {
+    givenOutput(componentsJson, "", 0);
+
+    new JsonArrayProcessHandler<>(CloudSdkComponent.class, components::add)
+        .handleProcess(process);
+
+    assertEquals(2, components.size());
+    assertEquals("app-engine-java", components.get(0).getId());
+    assertEquals("Not Installed", components.get(1).getState().getName());
+  }
+
+  @Test
+  public void testHandleProcess_exitCode() throws InterruptedException {
+    givenOutput("", "ERROR: (gcloud.components.list) failed\n", 1);
+
+    try {
+      new JsonArrayProcessHandler<>(CloudSdkComponent.class, components::add)
+          .handleProcess(process);
+      fail();
+    } catch (ProcessHandlerException ex) {
+      assertEquals(
+          "Process exited unsuccessfully with code 1: ERROR: (gcloud.components.list) failed",
+          ex.getMessage());
+    }
+  }
+
+  @Test
+  public void testHandleProcess_malformedOutput() throws InterruptedException {
+    givenOutput("Listed 0 items.\n", "", 0);
+
+    try {
+      new JsonArrayProcessHandler<>(CloudSdkComponent.class, components::add)
+          .handleProcess(process);
+      fail();
+    } catch (ProcessHandlerException ex) {
+      assertTrue(ex.getCause() instanceof JsonParseException);
+    }
+  }
+}
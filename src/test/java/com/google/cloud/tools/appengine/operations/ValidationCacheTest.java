@@ -0,0 +1,101 @@
+/*
+ * Copyright 2026 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.appengine.operations;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.base.Ticker;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** Unit tests for {@link ValidationCache}. */
+public class ValidationCacheTest {
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private long nanos;
+  private final Ticker ticker =
+      new Ticker() {
+        @Override
+        public long read() {
+          return nanos;
+        }
+      };
+
+  private Path watched;
+
+  @Before
+  public void setUp() throws IOException {
+    watched = temporaryFolder.newFile("watched").toPath();
+  }
+
+  @Test
+  public void testIsValid_afterMarkValid() {
+    ValidationCache cache = new ValidationCache(Duration.ofMinutes(1), ticker);
+    String fingerprint = cache.fingerprint(watched);
+    assertFalse(cache.isValid("check", fingerprint));
+
+    cache.markValid("check", fingerprint);
+    assertTrue(cache.isValid("check", cache.fingerprint(watched)));
+    assertFalse(cache.isValid("other check", fingerprint));
+  }
+
+  @Test
+  public void testIsValid_ttlExpired() {
+    ValidationCache cache = new ValidationCache(Duration.ofSeconds(1), ticker);
+    cache.markValid("check", cache.fingerprint(watched));
+
+    nanos += Duration.ofSeconds(1).toNanos();
+    assertFalse(cache.isValid("check", cache.fingerprint(watched)));
+  }
+
+  @Test
+  public void testIsValid_zeroTtl() {
+    ValidationCache cache = new ValidationCache(Duration.ZERO, ticker);
+    cache.markValid("check", cache.fingerprint(watched));
+    assertFalse(cache.isValid("check", cache.fingerprint(watched)));
+  }
+
+  @Test
+  public void testFingerprint_changesWhenFileDeleted() throws IOException {
+    ValidationCache cache = new ValidationCache(Duration.ofMinutes(1), ticker);
+    String fingerprint = cache.fingerprint(watched);
+    cache.markValid("check", fingerprint);
+
+    Files.delete(watched);
+    assertNotEquals(fingerprint, cache.fingerprint(watched));
+    assertFalse(cache.isValid("check", cache.fingerprint(watched)));
+  }
+
+  @Test
+  public void testInvalidateAll() {
+    ValidationCache cache = new ValidationCache(Duration.ofMinutes(1), ticker);
+    String fingerprint = cache.fingerprint(watched);
+    cache.markValid("check", fingerprint);
+
+    cache.invalidateAll();
+    assertFalse(cache.isValid("check", fingerprint));
+  }
+}
@@ -16,18 +16,34 @@
 
 package com.google.cloud.tools.appengine.operations;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import com.google.cloud.tools.appengine.AppEngineException;
+import com.google.cloud.tools.appengine.configuration.VersionsBatchConfiguration;
 import com.google.cloud.tools.appengine.configuration.VersionsListConfiguration;
 import com.google.cloud.tools.appengine.configuration.VersionsSelectionConfiguration;
+import com.google.cloud.tools.appengine.operations.cloudsdk.process.ProcessHandler;
 import com.google.cloud.tools.appengine.operations.cloudsdk.process.ProcessHandlerException;
+import com.google.cloud.tools.appengine.operations.cloudsdk.serialization.AppEngineVersion;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Collectors;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -39,6 +55,7 @@ import org.mockito.junit.MockitoJUnitRunner;
 public class VersionsTest {
 
   @Mock private GcloudRunner gcloudRunner;
+  @Mock private ProcessHandler processHandler;
   Versions appEngineVersions;
 
   @Before
@@ -105,6 +122,104 @@ public class VersionsTest {
     verify(gcloudRunner, times(1)).run(eq(args), isNull());
   }
 
+  @Test
+  public void deleteTest_batch() throws ProcessHandlerException, AppEngineException, IOException {
+    VersionsBatchConfiguration configuration =
+        VersionsBatchConfiguration.builder()
+            .addVersions(
+                "project1",
+                ImmutableMap.of("default", ImmutableList.of("v1"), "api", ImmutableList.of("v1")))
+            .addVersions("project2", "default", ImmutableList.of("v1"))
+            .addVersions("project1", "default", ImmutableList.of("v2", "v1"))
+            .parallelism(2)
+            .build();
+
+    VersionsBatchResult result =
+        appEngineVersions.delete(configuration, description -> processHandler);
+
+    assertTrue(result.isSuccessful());
+    verify(gcloudRunner, times(1))
+        .runAndCheckExitCode(
+            eq(
+                Arrays.asList(
+                    "app",
+                    "versions",
+                    "delete",
+                    "v1",
+                    "v2",
+                    "--service",
+                    "default",
+                    "--project",
+                    "project1")),
+            isNull(),
+            eq(processHandler));
+    verify(gcloudRunner, times(1))
+        .runAndCheckExitCode(
+            eq(
+                Arrays.asList(
+                    "app",
+                    "versions",
+                    "delete",
+                    "v1",
+                    "--service",
+                    "api",
+                    "--project",
+                    "project1")),
+            isNull(),
+            eq(processHandler));
+    verify(gcloudRunner, times(1))
+        .runAndCheckExitCode(
+            eq(
+                Arrays.asList(
+                    "app",
+                    "versions",
+                    "delete",
+                    "v1",
+                    "--service",
+                    "default",
+                    "--project",
+                    "project2")),
+            isNull(),
+            eq(processHandler));
+    assertEquals(
+        ImmutableList.of(
+            "project1/default/v1: done",
+            "project1/default/v2: done",
+            "project1/api/v1: done",
+            "project2/default/v1: done"),
+        result.getOutcomes().stream().map(Object::toString).collect(Collectors.toList()));
+  }
+
+  @Test
+  public void stopTest_batchFailure()
+      throws ProcessHandlerException, AppEngineException, IOException {
+    doThrow(new ProcessHandlerException("failed"))
+        .when(gcloudRunner)
+        .runAndCheckExitCode(
+            eq(Arrays.asList("app", "versions", "stop", "v1", "v2", "--service", "api")),
+            isNull(),
+            eq(processHandler));
+    VersionsBatchConfiguration configuration =
+        VersionsBatchConfiguration.builder()
+            .addVersions("api", ImmutableList.of("v1", "v2"))
+            .addVersions("default", ImmutableList.of("v1"))
+            .build();
+
+    VersionsBatchResult result =
+        appEngineVersions.stop(configuration, description -> processHandler);
+
+    assertFalse(result.isSuccessful());
+    assertEquals(2, result.getFailedOutcomes().size());
+    assertEquals("v1", result.getFailedOutcomes().get(0).getVersion());
+    assertEquals("v2", result.getFailedOutcomes().get(1).getVersion());
+    assertTrue(result.getOutcomes().get(2).isSuccessful());
+    verify(gcloudRunner, times(1))
+        .runAndCheckExitCode(
+            eq(Arrays.asList("app", "versions", "stop", "v1", "--service", "default")),
+            isNull(),
+            eq(processHandler));
+  }
+
   @Test
   public void listTest_doHideNoTraffic()
       throws ProcessHandlerException, AppEngineException, IOException {
@@ -145,6 +260,47 @@ public class VersionsTest {
     verify(gcloudRunner, times(1)).run(eq(args), isNull());
   }
 
+  @Test
+  public void listVersionsTest() throws Exception {
+    Process process = mock(Process.class);
+    when(process.getInputStream())
+        .thenReturn(
+            new ByteArrayInputStream(
+                ("[{\"id\": \"v1\", \"service\": \"myService\","
+                        + " \"version\": {\"servingStatus\": \"SERVING\"}},"
+                        + " {\"id\": \"v2\", \"service\": \"myService\","
+                        + " \"version\": {\"servingStatus\": \"STOPPED\"}}]")
+                    .getBytes(StandardCharsets.UTF_8)));
+    when(process.getErrorStream()).thenReturn(new ByteArrayInputStream(new byte[0]));
+    doAnswer(
+            invocation -> {
+              invocation.<ProcessHandler>getArgument(2).handleProcess(process);
+              return null;
+            })
+        .when(gcloudRunner)
+        .run(
+            eq(
+                Arrays.asList(
+                    "app",
+                    "versions",
+                    "list",
+                    "--service",
+                    "myService",
+                    "--hide-no-traffic",
+                    "--project",
+                    "myProject",
+                    "--format",
+                    "json")),
+            isNull(),
+            any(JsonArrayProcessHandler.class));
+
+    List<AppEngineVersion> versions =
+        appEngineVersions.listVersions(getListConfig(true), AppEngineVersion::isServing);
+
+    assertEquals(1, versions.size());
+    assertEquals("v1", versions.get(0).getId());
+  }
+
   private static VersionsSelectionConfiguration getVersionConfig() {
     return VersionsSelectionConfiguration.builder(Arrays.asList("v1", "v2"))
         .service("myService")
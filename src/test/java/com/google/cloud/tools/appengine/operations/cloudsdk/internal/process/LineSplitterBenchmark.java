@@ -0,0 +1,87 @@
+/*
+ * Copyright 2026 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.appengine.operations.cloudsdk.internal.process;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares {@link LineSplitter} with the {@link Scanner} based reading it replaced, on output
+ * shaped like {@code gcloud app deploy --verbosity=debug}. Not run as part of the test suite, run
+ * {@link #main} from the test classpath.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class LineSplitterBenchmark {
+
+  private byte[] output;
+  private LineSplitter splitter;
+
+  @Setup
+  public void setUp() {
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < 20000; i++) {
+      builder
+          .append("DEBUG: Running [gcloud.app.deploy] with arguments: [--verbosity: \"debug\"] ")
+          .append(i)
+          .append(i % 10 == 0 ? "\r" : "\n");
+    }
+    output = builder.toString().getBytes(StandardCharsets.UTF_8);
+    splitter = new LineSplitter(StandardCharsets.UTF_8);
+  }
+
+  @Benchmark
+  public void scanner(Blackhole blackhole) {
+    Scanner scanner = new Scanner(new ByteArrayInputStream(output), StandardCharsets.UTF_8.name());
+    while (scanner.hasNextLine()) {
+      blackhole.consume(scanner.nextLine());
+    }
+    scanner.close();
+  }
+
+  @Benchmark
+  public void lineSplitter(Blackhole blackhole) throws IOException {
+    splitter.split(new ByteArrayInputStream(output), blackhole::consume);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(
+            new OptionsBuilder().include(LineSplitterBenchmark.class.getSimpleName()).build())
+        .run();
+  }
+}
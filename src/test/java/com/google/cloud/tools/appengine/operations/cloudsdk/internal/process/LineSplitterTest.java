@@ -0,0 +1,113 @@
+/*
+ * Copyright 2026 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.appengine.operations.cloudsdk.internal.process;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+
+/** Unit tests for {@link LineSplitter}. */
+public class LineSplitterTest {
+
+  private final List<String> lines = new ArrayList<>();
+
+  private void split(LineSplitter splitter, String input) throws IOException {
+    splitter.split(
+        new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), lines::add);
+  }
+
+  @Test
+  public void testSplit_lineTerminators() throws IOException {
+    split(new LineSplitter(StandardCharsets.UTF_8), "a\nb\r\nc\rd\n\ne");
+    assertEquals(Arrays.asList("a", "b", "c", "d", "", "e"), lines);
+  }
+
+  @Test
+  public void testSplit_empty() throws IOException {
+    split(new LineSplitter(StandardCharsets.UTF_8), "");
+    assertEquals(Collections.emptyList(), lines);
+  }
+
+  @Test
+  public void testSplit_noTrailingEmptyLine() throws IOException {
+    split(new LineSplitter(StandardCharsets.UTF_8), "a\r\n");
+    assertEquals(Collections.singletonList("a"), lines);
+  }
+
+  @Test
+  public void testSplit_consecutiveCarriageReturns() throws IOException {
+    split(new LineSplitter(StandardCharsets.UTF_8), "10%\r\r50%\r");
+    assertEquals(Arrays.asList("10%", "", "50%"), lines);
+  }
+
+  @Test
+  public void testSplit_longLinesAreCapped() throws IOException {
+    split(new LineSplitter(StandardCharsets.UTF_8, 3), "abcdefg\nhij\n");
+    assertEquals(Arrays.asList("abc", "def", "g", "hij"), lines);
+  }
+
+  @Test
+  public void testSplit_terminatorsAndMultiByteCharsAcrossReads() throws IOException {
+    String input = "first\r\nsecond \u00e9\u4e2d\r\nthird";
+    // hand out a single byte per read so every terminator and character spans reads
+    InputStream trickle =
+        new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)) {
+          @Override
+          public synchronized int read(byte[] b, int off, int len) {
+            return super.read(b, off, Math.min(len, 1));
+          }
+        };
+    new LineSplitter(StandardCharsets.UTF_8).split(trickle, lines::add);
+    assertEquals(Arrays.asList("first", "second \u00e9\u4e2d", "third"), lines);
+  }
+
+  @Test
+  public void testSplit_largeInput() throws IOException {
+    StringBuilder input = new StringBuilder();
+    List<String> expected = new ArrayList<>();
+    for (int i = 0; i < 5000; i++) {
+      String line = "line " + i;
+      expected.add(line);
+      input.append(line).append(i % 2 == 0 ? "\n" : "\r\n");
+    }
+    split(new LineSplitter(StandardCharsets.UTF_8), input.toString());
+    assertEquals(expected, lines);
+  }
+
+  @Test
+  public void testSplit_malformedInputIsReplaced() throws IOException {
+    LineSplitter splitter = new LineSplitter(StandardCharsets.UTF_8);
+    splitter.split(new ByteArrayInputStream(new byte[] {'a', (byte) 0xff, '\n'}), lines::add);
+    assertEquals(Collections.singletonList("a\ufffd"), lines);
+  }
+
+  @Test
+  public void testSplit_reusable() throws IOException {
+    LineSplitter splitter = new LineSplitter(StandardCharsets.UTF_8);
+    split(splitter, "a\r");
+    split(splitter, "\nb");
+    assertEquals(Arrays.asList("a", "", "b"), lines);
+  }
+}
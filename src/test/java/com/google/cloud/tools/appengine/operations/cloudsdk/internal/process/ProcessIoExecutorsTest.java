@@ -0,0 +1,60 @@
+/*
+ * Copyright 2026 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.appengine.operations.cloudsdk.internal.process;
+
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+/** Unit tests for {@link ProcessIoExecutors}. */
+public class ProcessIoExecutorsTest {
+
+  @Test
+  public void testGetDefault_shared() {
+    assertSame(ProcessIoExecutors.getDefault(), ProcessIoExecutors.getDefault());
+  }
+
+  @Test
+  public void testNewExecutor_runsBlockingTasksConcurrently() throws InterruptedException {
+    ExecutorService executor = ProcessIoExecutors.newExecutor();
+    try {
+      // more blocking tasks than processors, like many processes pumping output at once
+      int tasks = Runtime.getRuntime().availableProcessors() * 4;
+      CountDownLatch allStarted = new CountDownLatch(tasks);
+      CountDownLatch release = new CountDownLatch(1);
+      for (int i = 0; i < tasks; i++) {
+        executor.execute(
+            () -> {
+              allStarted.countDown();
+              try {
+                release.await();
+              } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+              }
+            });
+      }
+      assertTrue(allStarted.await(10, TimeUnit.SECONDS));
+      release.countDown();
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2026 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.appengine.operations.cloudsdk.internal.process;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ProcessReaperTest {
+
+  @Mock private Process running;
+  @Mock private Process exited;
+
+  private final ProcessReaper reaper = new ProcessReaper();
+
+  @Test
+  public void testRegister_countsLiveProcesses() {
+    when(running.isAlive()).thenReturn(true);
+    when(exited.isAlive()).thenReturn(false);
+
+    reaper.register(running);
+    reaper.register(exited);
+
+    assertEquals(1, reaper.getLiveProcessCount());
+    assertEquals(2, reaper.getRegisteredProcessCount());
+  }
+
+  @Test
+  public void testUnregister() {
+    reaper.register(running);
+    reaper.unregister(running);
+
+    assertEquals(0, reaper.getLiveProcessCount());
+    reaper.destroyAll();
+    verify(running, never()).destroy();
+  }
+
+  @Test
+  public void testDestroyAll() {
+    reaper.register(running);
+    reaper.destroyAll();
+
+    verify(running).destroy();
+    assertEquals(0, reaper.getLiveProcessCount());
+  }
+}
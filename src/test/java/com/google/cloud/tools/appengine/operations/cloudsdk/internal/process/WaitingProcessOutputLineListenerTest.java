@@ -0,0 +1,135 @@
+/*
+ * Copyright 2026 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.appengine.operations.cloudsdk.internal.process;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.google.cloud.tools.appengine.operations.cloudsdk.process.ProcessHandlerException;
+import com.google.cloud.tools.appengine.operations.cloudsdk.process.ReadinessProbe;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+public class WaitingProcessOutputLineListenerTest {
+
+  @Test
+  public void testAwait_successMessage() throws ProcessHandlerException {
+    WaitingProcessOutputLineListener listener =
+        new WaitingProcessOutputLineListener(".*started.*", 10);
+    listener.onOutputLine("not yet");
+    listener.onOutputLine("server started on port 8080");
+
+    listener.await();
+
+    assertNotNull(listener.getTimeToReady());
+  }
+
+  @Test
+  public void testAwait_probeSucceeds() throws ProcessHandlerException {
+    AtomicInteger attempts = new AtomicInteger();
+    WaitingProcessOutputLineListener listener =
+        new WaitingProcessOutputLineListener(
+            ".*started.*", 10, () -> attempts.incrementAndGet() == 3);
+
+    listener.await();
+
+    assertEquals(3, attempts.get());
+    assertNotNull(listener.getTimeToReady());
+  }
+
+  @Test
+  public void testAwait_messageBeforeProbe() throws ProcessHandlerException {
+    WaitingProcessOutputLineListener listener =
+        new WaitingProcessOutputLineListener(
+            ".*started.*",
+            10,
+            () -> {
+              throw new AssertionError("probed after the message was seen");
+            });
+    listener.onOutputLine("started");
+
+    listener.await();
+  }
+
+  @Test
+  public void testAwait_exitedWhileProbing() {
+    WaitingProcessOutputLineListener listener =
+        new WaitingProcessOutputLineListener(".*started.*", 10, () -> false);
+    listener.onExit(1);
+
+    try {
+      listener.await();
+      fail();
+    } catch (ProcessHandlerException ex) {
+      assertEquals("Process exited before success message", ex.getMessage());
+    }
+    assertNull(listener.getTimeToReady());
+  }
+
+  @Test
+  public void testAwait_timeout() {
+    WaitingProcessOutputLineListener listener =
+        new WaitingProcessOutputLineListener(".*started.*", 1, () -> false);
+
+    try {
+      listener.await();
+      fail();
+    } catch (ProcessHandlerException ex) {
+      assertEquals("Timed out waiting for the success message: '.*started.*'", ex.getMessage());
+    }
+    assertNull(listener.getTimeToReady());
+  }
+
+  @Test
+  public void testAwait_nullMessageSkipsWaiting() throws ProcessHandlerException {
+    WaitingProcessOutputLineListener listener = new WaitingProcessOutputLineListener(null, 10);
+    listener.onOutputLine("started");
+
+    listener.await();
+
+    assertNull(listener.getTimeToReady());
+  }
+
+  @Test
+  public void testAwait_nullMessageWaitsForProbe() throws ProcessHandlerException {
+    AtomicInteger attempts = new AtomicInteger();
+    WaitingProcessOutputLineListener listener =
+        new WaitingProcessOutputLineListener(null, 10, () -> attempts.incrementAndGet() == 2);
+    listener.onOutputLine("started");
+
+    listener.await();
+
+    assertEquals(2, attempts.get());
+    assertNotNull(listener.getTimeToReady());
+  }
+
+  @Test
+  public void testTcpProbe() throws IOException {
+    int port;
+    try (ServerSocket server = new ServerSocket(0)) {
+      port = server.getLocalPort();
+      assertTrue(ReadinessProbe.tcp("localhost", port).isReady());
+    }
+    assertFalse(ReadinessProbe.tcp("localhost", port).isReady());
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2026 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.appengine.operations.cloudsdk.serialization;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.google.cloud.tools.appengine.operations.cloudsdk.JsonParseException;
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class AppEngineVersionTest {
+
+  private static final String sampleJson =
+      "[{"
+          + "  \"environment\": {\"FLEX\": false, \"name\": \"STANDARD\"},"
+          + "  \"id\": \"20190510t200341\","
+          + "  \"last_deployed_time\": {\"datetime\": \"2019-05-10 20:03:41+02:00\"},"
+          + "  \"project\": \"my-project\","
+          + "  \"service\": \"default\","
+          + "  \"traffic_split\": 0.25,"
+          + "  \"version\": {"
+          + "    \"createTime\": \"2019-05-10T18:03:41Z\","
+          + "    \"id\": \"20190510t200341\","
+          + "    \"servingStatus\": \"SERVING\""
+          + "  }"
+          + "}, {"
+          + "  \"id\": \"old\","
+          + "  \"service\": \"api\","
+          + "  \"version\": {\"createTime\": \"2019-05-10T20:03:41.123+02:00\","
+          + "    \"servingStatus\": \"STOPPED\"}"
+          + "}, {"
+          + "  \"id\": \"minimal\""
+          + "}]";
+
+  private static List<AppEngineVersion> parse(String json) throws JsonParseException, IOException {
+    List<AppEngineVersion> versions = new ArrayList<>();
+    JsonArrayReader.forEach(new StringReader(json), AppEngineVersion.class, versions::add);
+    return versions;
+  }
+
+  @Test
+  public void testParse() throws JsonParseException, IOException {
+    List<AppEngineVersion> versions = parse(sampleJson);
+
+    assertEquals(3, versions.size());
+    AppEngineVersion version = versions.get(0);
+    assertEquals("20190510t200341", version.getId());
+    assertEquals("default", version.getService());
+    assertEquals("my-project", version.getProject());
+    assertEquals(0.25, version.getTrafficSplit(), 0);
+    assertEquals(AppEngineVersion.ServingStatus.SERVING, version.getServingStatus());
+    assertTrue(version.isServing());
+    assertEquals(Instant.parse("2019-05-10T18:03:41Z"), version.getCreateTime());
+    assertEquals("default/20190510t200341", version.toString());
+  }
+
+  @Test
+  public void testParse_stoppedWithOffset() throws JsonParseException, IOException {
+    AppEngineVersion version = parse(sampleJson).get(1);
+
+    assertEquals(AppEngineVersion.ServingStatus.STOPPED, version.getServingStatus());
+    assertFalse(version.isServing());
+    assertEquals(0, version.getTrafficSplit(), 0);
+    assertEquals(Instant.parse("2019-05-10T18:03:41.123Z"), version.getCreateTime());
+  }
+
+  @Test
+  public void testParse_missingDetails() throws JsonParseException, IOException {
+    AppEngineVersion version = parse(sampleJson).get(2);
+
+    assertEquals("minimal", version.getId());
+    assertNull(version.getService());
+    assertNull(version.getServingStatus());
+    assertNull(version.getCreateTime());
+  }
+
+  @Test
+  public void testParse_unknownServingStatus() throws JsonParseException, IOException {
+    AppEngineVersion version =
+        parse("[{\"id\": \"v1\", \"version\": {\"servingStatus\": \"NEW_STATUS\"}}]").get(0);
+
+    assertNull(version.getServingStatus());
+    assertFalse(version.isServing());
+  }
+}
@@ -20,8 +20,13 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import com.google.cloud.tools.appengine.operations.cloudsdk.JsonParseException;
 import com.google.cloud.tools.appengine.operations.cloudsdk.serialization.CloudSdkComponent.State;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
@@ -58,6 +63,25 @@ public class CloudSdkComponentTest {
     assertEquals(0, result.size());
   }
 
+  @Test
+  public void testFromJsonList_reader() throws JsonParseException, IOException {
+    Reader jsonList = new StringReader("[" + getCloudSdkComponentTestFixtureAsJson() + "]");
+    List<CloudSdkComponent> result = CloudSdkComponent.fromJsonList(jsonList);
+
+    assertEquals(1, result.size());
+    assertCloudSdkComponentsEqual(getCloudSdkComponentTestFixture(), result.get(0));
+  }
+
+  @Test
+  public void testFromJsonList_readerMalformed() throws IOException {
+    try {
+      CloudSdkComponent.fromJsonList(new StringReader("Listed 0 items."));
+      fail();
+    } catch (JsonParseException ex) {
+      // pass
+    }
+  }
+
   @Test
   public void testToJson() {
     CloudSdkComponent cloudSdkComponent = getCloudSdkComponentTestFixture();
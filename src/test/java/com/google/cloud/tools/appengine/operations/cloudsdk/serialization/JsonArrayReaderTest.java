@@ -0,0 +1,101 @@
+/*
+ * Copyright 2026 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.appengine.operations.cloudsdk.serialization;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import com.google.cloud.tools.appengine.operations.cloudsdk.JsonParseException;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class JsonArrayReaderTest {
+
+  private static class Element {
+    private String name;
+  }
+
+  @Test
+  public void testNext() throws JsonParseException, IOException {
+    JsonArrayReader<Element> reader =
+        new JsonArrayReader<>(
+            new StringReader("[{\"name\": \"a\", \"other\": [1]}, {\"name\": \"b\"}]"),
+            Element.class);
+
+    assertEquals("a", reader.next().name);
+    assertEquals("b", reader.next().name);
+    assertNull(reader.next());
+    assertNull(reader.next());
+  }
+
+  @Test
+  public void testForEach() throws JsonParseException, IOException {
+    List<String> names = new ArrayList<>();
+    JsonArrayReader.forEach(
+        new StringReader("[{\"name\": \"a\"}, {\"name\": \"b\"}]"),
+        Element.class,
+        element -> names.add(element.name));
+
+    assertEquals(2, names.size());
+    assertEquals("a", names.get(0));
+    assertEquals("b", names.get(1));
+  }
+
+  @Test
+  public void testForEach_emptyArray() throws JsonParseException, IOException {
+    JsonArrayReader.forEach(
+        new StringReader(" [ ] "), Element.class, element -> fail("no elements expected"));
+  }
+
+  @Test
+  public void testNext_emptyInput() throws IOException {
+    try {
+      new JsonArrayReader<>(new StringReader(""), Element.class).next();
+      fail();
+    } catch (JsonParseException ex) {
+      assertEquals("Empty input", ex.getMessage());
+    }
+  }
+
+  @Test
+  public void testNext_notAnArray() throws IOException {
+    try {
+      new JsonArrayReader<>(new StringReader("{\"name\": \"a\"}"), Element.class).next();
+      fail();
+    } catch (JsonParseException ex) {
+      assertEquals("Expected a JSON array but was BEGIN_OBJECT", ex.getMessage());
+    }
+  }
+
+  @Test
+  public void testNext_truncated() throws JsonParseException, IOException {
+    JsonArrayReader<Element> reader =
+        new JsonArrayReader<>(new StringReader("[{\"name\": \"a\"}, {\"na"), Element.class);
+
+    assertEquals("a", reader.next().name);
+    try {
+      reader.next();
+      fail();
+    } catch (JsonParseException ex) {
+      // expected
+    }
+  }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2026 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.io;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DirectoryCopierTest {
+
+  @Rule public TemporaryFolder testDir = new TemporaryFolder();
+
+  private Path src;
+  private Path dest;
+
+  @Before
+  public void setUp() throws IOException {
+    src = testDir.newFolder("src").toPath();
+    dest = testDir.newFolder("dest").toPath();
+  }
+
+  private void write(String path, String content) throws IOException {
+    Path file = src.resolve(path);
+    Files.createDirectories(file.getParent());
+    Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private Set<String> listDestination() throws IOException {
+    try (Stream<Path> paths = Files.walk(dest)) {
+      return paths
+          .filter(path -> !path.equals(dest))
+          .map(path -> dest.relativize(path).toString().replace('\\', '/'))
+          .collect(Collectors.toSet());
+    }
+  }
+
+  @Test
+  public void testCopy_parallel() throws IOException {
+    for (int i = 0; i < 200; i++) {
+      write("static/" + (i % 5) + "/file" + i + ".txt", "content " + i);
+    }
+    write("root.txt", "root");
+
+    DirectoryCopier.Statistics statistics =
+        DirectoryCopier.builder().parallelism(4).build().copy(src, dest);
+
+    Assert.assertEquals(201, statistics.getFileCount());
+    Assert.assertEquals(6, statistics.getDirectoryCount());
+    long expectedBytes = 4;
+    for (int i = 0; i < 200; i++) {
+      expectedBytes += ("content " + i).length();
+    }
+    Assert.assertEquals(expectedBytes, statistics.getByteCount());
+    Assert.assertEquals(
+        "content 137",
+        new String(
+            Files.readAllBytes(dest.resolve("static/2/file137.txt")), StandardCharsets.UTF_8));
+    Assert.assertEquals(207, listDestination().size());
+  }
+
+  @Test
+  public void testCopy_excludes() throws IOException {
+    write("keep.txt", "keep");
+    write("skip.txt", "skip");
+    write("skipDir/file.txt", "skip");
+    write("sub/keep.txt", "keep");
+    write("sub/temp.tmp", "skip");
+    write("sub/deeper/temp.tmp", "skip");
+
+    DirectoryCopier.Statistics statistics =
+        DirectoryCopier.builder()
+            .excludes(ImmutableList.of(src.resolve("skip.txt"), src.resolve("skipDir")))
+            .excludeGlob("**.tmp")
+            .build()
+            .copy(src, dest);
+
+    Assert.assertEquals(
+        ImmutableSet.of("keep.txt", "sub", "sub/keep.txt", "sub/deeper"), listDestination());
+    Assert.assertEquals(2, statistics.getFileCount());
+    Assert.assertEquals(8, statistics.getByteCount());
+  }
+
+  @Test
+  public void testCopy_parallelFailure() throws IOException {
+    write("a/file.txt", "new");
+    write("root.txt", "new");
+    Files.write(dest.resolve("root.txt"), "old".getBytes(StandardCharsets.UTF_8));
+
+    try {
+      DirectoryCopier.builder().parallelism(2).build().copy(src, dest);
+      Assert.fail();
+    } catch (FileAlreadyExistsException ex) {
+      Assert.assertNotNull(ex.getMessage());
+    }
+  }
+
+  @Test
+  public void testCopy_fileCopier() throws IOException {
+    write("a/file.txt", "new");
+    write("root.txt", "new");
+    write("skip.txt", "skip");
+    Files.createDirectories(dest.resolve("a"));
+    Set<String> copied = ConcurrentHashMap.newKeySet();
+
+    DirectoryCopier.Statistics statistics =
+        DirectoryCopier.builder()
+            .excludes(ImmutableList.of(src.resolve("skip.txt")))
+            .fileCopier((file, target) -> copied.add(src.relativize(file) + " " + target))
+            .parallelism(2)
+            .build()
+            .copy(src, dest);
+
+    Assert.assertEquals(
+        ImmutableSet.of(
+            Paths.get("a/file.txt") + " " + dest.resolve("a/file.txt"),
+            Paths.get("root.txt") + " " + dest.resolve("root.txt")),
+        copied);
+    Assert.assertEquals(2, statistics.getFileCount());
+    Assert.assertEquals(0, statistics.getDirectoryCount());
+    Assert.assertEquals(ImmutableSet.of("a"), listDestination());
+  }
+
+  @Test
+  public void testCopy_hardLinks() throws IOException {
+    write("sub/file.txt", "linked");
+    Assert.assertTrue(src.resolve("sub/file.txt").toFile().setReadOnly());
+
+    DirectoryCopier.builder()
+        .linkStrategy(LinkStrategy.HARD_LINK)
+        .parallelism(2)
+        .build()
+        .copy(src, dest);
+
+    Assert.assertTrue(Files.isSameFile(src.resolve("sub/file.txt"), dest.resolve("sub/file.txt")));
+  }
+
+  @Test
+  public void testBuilder_parallelismMustBePositive() {
+    try {
+      DirectoryCopier.builder().parallelism(0);
+      Assert.fail();
+    } catch (IllegalArgumentException ex) {
+      Assert.assertEquals("parallelism must be positive", ex.getMessage());
+    }
+  }
+}
@@ -21,9 +21,12 @@ import static org.junit.Assume.assumeTrue;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Sets;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.attribute.PosixFilePermission;
 import java.util.Set;
 import org.junit.Assert;
@@ -176,4 +179,87 @@ public class FileUtilTest {
     Assert.assertFalse(Files.exists(destExcludes.resolve(src.relativize(excludedSubDir))));
     Assert.assertFalse(Files.exists(destExcludes.resolve(src.relativize(autoExcludedSubFile))));
   }
+
+  @Test
+  public void testCopyDirectory_hardLinks() throws IOException {
+    Path src = testDir.newFolder("src").toPath();
+    Path dest = testDir.newFolder("dest").toPath();
+    Path subFile = Files.createDirectories(src.resolve("sub")).resolve("sub.file");
+    Files.write(subFile, "content".getBytes(StandardCharsets.UTF_8));
+    Assert.assertTrue(subFile.toFile().setReadOnly());
+
+    FileUtil.copyDirectory(src, dest, ImmutableList.of(), LinkStrategy.HARD_LINK);
+
+    Assert.assertTrue(Files.isSameFile(subFile, dest.resolve("sub/sub.file")));
+    Assert.assertFalse(Files.isSymbolicLink(dest.resolve("sub/sub.file")));
+  }
+
+  @Test
+  public void testCopyFile_hardLinkCopiesWritableSource() throws IOException {
+    Path src = testDir.newFile("src.file").toPath();
+    Files.write(src, "content".getBytes(StandardCharsets.UTF_8));
+    Path dest = testDir.getRoot().toPath().resolve("dest.file");
+
+    FileUtil.copyFile(src, dest, LinkStrategy.HARD_LINK);
+    Files.write(src, "modified".getBytes(StandardCharsets.UTF_8));
+
+    Assert.assertFalse(Files.isSameFile(src, dest));
+    Assert.assertEquals("content", new String(Files.readAllBytes(dest), StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testCopyFile_reflinkIsIndependentOfSource() throws IOException {
+    Path src = testDir.newFile("src.file").toPath();
+    Path dest = testDir.getRoot().toPath().resolve("dest.file");
+    byte[] content = new byte[(int) Reflink.MIN_SIZE];
+    content[0] = 1;
+    Files.write(src, content);
+
+    // clones on copy-on-write file systems, copies elsewhere
+    FileUtil.copyFile(src, dest, LinkStrategy.REFLINK);
+    Files.write(src, "modified".getBytes(StandardCharsets.UTF_8));
+
+    Assert.assertArrayEquals(content, Files.readAllBytes(dest));
+  }
+
+  @Test
+  public void testCopyFile_existingDestination() throws IOException {
+    Path src = testDir.newFile("src.file").toPath();
+    Files.write(src, "new".getBytes(StandardCharsets.UTF_8));
+    Path dest = testDir.newFile("dest.file").toPath();
+
+    for (LinkStrategy linkStrategy : LinkStrategy.values()) {
+      try {
+        FileUtil.copyFile(src, dest, linkStrategy);
+        Assert.fail(linkStrategy + " replaced the destination");
+      } catch (FileAlreadyExistsException ex) {
+        // expected
+      }
+    }
+    FileUtil.copyFile(src, dest, LinkStrategy.HARD_LINK, StandardCopyOption.REPLACE_EXISTING);
+
+    Assert.assertEquals("new", new String(Files.readAllBytes(dest), StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testReflinkIsUnsupported() {
+    Assert.assertTrue(
+        Reflink.isUnsupported(
+            "cp: failed to clone 'dest' from 'src': Operation not supported\n"));
+    Assert.assertTrue(
+        Reflink.isUnsupported("cp: failed to clone 'dest' from 'src': Invalid cross-device link"));
+    Assert.assertFalse(
+        Reflink.isUnsupported("cp: error writing 'dest': No space left on device\n"));
+    Assert.assertFalse(
+        Reflink.isUnsupported("cp: cannot create regular file 'dest': Permission denied"));
+  }
+
+  @Test
+  public void testReflinkCommand() {
+    Assert.assertEquals(
+        ImmutableList.of("cp", "--reflink=always", "--preserve=mode,timestamps"),
+        Reflink.getCommand("Linux", true));
+    Assert.assertEquals(ImmutableList.of("cp", "-c"), Reflink.getCommand("Mac OS X", false));
+    Assert.assertNull(Reflink.getCommand("Windows 10", true));
+  }
 }
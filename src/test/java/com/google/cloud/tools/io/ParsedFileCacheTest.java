@@ -0,0 +1,99 @@
+/*
+ * Copyright 2026 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.io;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ParsedFileCacheTest {
+
+  @Rule public TemporaryFolder testDir = new TemporaryFolder();
+
+  private final ParsedFileCache<String> cache = new ParsedFileCache<>();
+  private final AtomicInteger parseCount = new AtomicInteger();
+  private final ParsedFileCache.Parser<String, RuntimeException> parser =
+      in -> {
+        parseCount.incrementAndGet();
+        byte[] buffer = new byte[64];
+        int length = Math.max(0, in.read(buffer));
+        return new String(buffer, 0, length, StandardCharsets.UTF_8);
+      };
+
+  private Path file;
+
+  @Before
+  public void setUp() throws IOException {
+    file = testDir.newFile("file.txt").toPath();
+    Files.write(file, "first".getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testGet_unchangedFileNotParsedAgain() throws IOException {
+    String first = cache.get(file, parser);
+
+    Assert.assertEquals("first", first);
+    Assert.assertSame(first, cache.get(file.getParent().resolve("./file.txt"), parser));
+    Assert.assertEquals(1, parseCount.get());
+  }
+
+  @Test
+  public void testGet_changedFileParsedAgain() throws IOException {
+    cache.get(file, parser);
+    FileTime lastModified = Files.getLastModifiedTime(file);
+    Files.write(file, "other".getBytes(StandardCharsets.UTF_8));
+    Files.setLastModifiedTime(file, lastModified);
+    Files.write(file, "changed".getBytes(StandardCharsets.UTF_8));
+    Files.setLastModifiedTime(file, lastModified);
+
+    Assert.assertEquals("changed", cache.get(file, parser));
+    Assert.assertEquals(2, parseCount.get());
+  }
+
+  @Test
+  public void testGet_parserFailureNotCached() throws IOException {
+    try {
+      cache.get(
+          file,
+          in -> {
+            throw new IllegalStateException("oops");
+          });
+      Assert.fail();
+    } catch (IllegalStateException ex) {
+      Assert.assertEquals("oops", ex.getMessage());
+    }
+
+    Assert.assertEquals("first", cache.get(file, parser));
+  }
+
+  @Test
+  public void testGet_clearedBeyondLimit() throws IOException {
+    for (int i = 0; i <= ParsedFileCache.MAX_CACHED_FILES; i++) {
+      cache.get(testDir.newFile("file" + i).toPath(), parser);
+    }
+
+    Assert.assertEquals(1, cache.size());
+  }
+}
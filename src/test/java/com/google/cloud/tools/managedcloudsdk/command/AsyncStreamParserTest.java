@@ -0,0 +1,116 @@
+/*
+ * Copyright 2026 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.managedcloudsdk.command;
+
+import com.google.common.io.CharStreams;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutionException;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AsyncStreamParserTest {
+
+  private final ByteArrayInputStream fakeInputStream =
+      new ByteArrayInputStream("test line1\ntest line2\n".getBytes(StandardCharsets.UTF_8));
+
+  @Test
+  public void testHandleStream() throws InterruptedException, ExecutionException {
+    AsyncStreamParser<String> parser = new AsyncStreamParser<>(CharStreams::toString);
+    parser.handleStream(fakeInputStream);
+
+    Assert.assertEquals("test line1\ntest line2\n", parser.getResult().get());
+  }
+
+  @Test
+  public void testHandleStream_cannotReuse() {
+    AsyncStreamParser<String> parser = new AsyncStreamParser<>(CharStreams::toString);
+    parser.handleStream(fakeInputStream);
+
+    try {
+      parser.handleStream(fakeInputStream);
+      Assert.fail("IllegalStateException expected but not found.");
+    } catch (IllegalStateException ex) {
+      Assert.assertEquals(
+          "Cannot reuse " + AsyncStreamParser.class.getName(), ex.getMessage());
+    }
+  }
+
+  @Test
+  public void testParse_unreadOutputDiscarded() throws Exception {
+    AsyncStreamParser<Character> parser = new AsyncStreamParser<>(in -> (char) in.read());
+
+    Assert.assertEquals('t', (char) parser.parse(fakeInputStream));
+    Assert.assertEquals(0, fakeInputStream.available());
+  }
+
+  @Test
+  public void testParse_closedReaderDiscarded() throws Exception {
+    AsyncStreamParser<Character> parser =
+        new AsyncStreamParser<>(
+            in -> {
+              try (Reader reader = in) {
+                return (char) reader.read();
+              }
+            });
+
+    Assert.assertEquals('t', (char) parser.parse(fakeInputStream));
+    Assert.assertEquals(0, fakeInputStream.available());
+  }
+
+  @Test
+  public void testParse_parserFailureClosesStream() throws IOException {
+    InputStream closeTracking =
+        new InputStream() {
+          boolean closed;
+
+          @Override
+          public int read() throws IOException {
+            if (closed) {
+              throw new IOException("closed");
+            }
+            return -1;
+          }
+
+          @Override
+          public void close() {
+            closed = true;
+          }
+        };
+    AsyncStreamParser<String> parser =
+        new AsyncStreamParser<>(
+            in -> {
+              throw new IOException("oops");
+            });
+
+    try {
+      parser.parse(closeTracking);
+      Assert.fail("IOException expected but not found.");
+    } catch (Exception ex) {
+      Assert.assertEquals("oops", ex.getMessage());
+    }
+    try {
+      closeTracking.read();
+      Assert.fail("IOException expected but not found.");
+    } catch (IOException ex) {
+      Assert.assertEquals("closed", ex.getMessage());
+    }
+  }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2026 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.managedcloudsdk.install;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.stream.Stream;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ArchiveCacheTest {
+
+  @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+  private Path cacheDirectory;
+  private URL source;
+
+  @Before
+  public void setUp() throws IOException {
+    cacheDirectory = tmp.getRoot().toPath().resolve("cache");
+    source = new URL("https://example.com/google-cloud-sdk-1.2.3-linux-x86_64.tar.gz");
+  }
+
+  private Path newArchive(String name, String contents) throws IOException {
+    Path archive = tmp.getRoot().toPath().resolve(name);
+    Files.write(archive, contents.getBytes(StandardCharsets.UTF_8));
+    return archive;
+  }
+
+  private long countObjects() throws IOException {
+    try (Stream<Path> objects = Files.list(cacheDirectory.resolve("objects"))) {
+      return objects.count();
+    }
+  }
+
+  @Test
+  public void testCopyTo_notCached() throws IOException {
+    ArchiveCache cache = new ArchiveCache(cacheDirectory, 1000);
+    Path destination = tmp.getRoot().toPath().resolve("downloads").resolve("archive.tar.gz");
+
+    Assert.assertFalse(cache.copyTo(source, destination));
+    Assert.assertFalse(Files.exists(destination));
+  }
+
+  @Test
+  public void testPutAndCopyTo() throws IOException {
+    new ArchiveCache(cacheDirectory, 1000).put(source, newArchive("archive", "archive contents"));
+
+    // a different instance sharing the directory sees the archive
+    Path destination = tmp.getRoot().toPath().resolve("downloads").resolve("archive.tar.gz");
+    Assert.assertTrue(new ArchiveCache(cacheDirectory, 1000).copyTo(source, destination));
+    Assert.assertEquals(
+        "archive contents", new String(Files.readAllBytes(destination), StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testPut_sameContentStoredOnce() throws IOException {
+    ArchiveCache cache = new ArchiveCache(cacheDirectory, 1000);
+    cache.put(source, newArchive("archive1", "archive contents"));
+    cache.put(
+        new URL("https://example.com/mirror.tar.gz"), newArchive("archive2", "archive contents"));
+
+    Assert.assertEquals(1, countObjects());
+  }
+
+  @Test
+  public void testCopyTo_corruptArchiveDiscarded() throws IOException {
+    ArchiveCache cache = new ArchiveCache(cacheDirectory, 1000);
+    cache.put(source, newArchive("archive", "archive contents"));
+    try (Stream<Path> objects = Files.list(cacheDirectory.resolve("objects"))) {
+      Path object = objects.findFirst().get();
+      Files.write(object, "corrupted".getBytes(StandardCharsets.UTF_8));
+    }
+
+    Path destination = tmp.getRoot().toPath().resolve("archive.tar.gz");
+    Assert.assertFalse(cache.copyTo(source, destination));
+    Assert.assertFalse(Files.exists(destination));
+    Assert.assertEquals(0, countObjects());
+  }
+
+  @Test
+  public void testCopyTo_corruptArchiveOfSameSizeDiscarded() throws IOException {
+    ArchiveCache cache = new ArchiveCache(cacheDirectory, 1000);
+    cache.put(source, newArchive("archive", "archive contents"));
+    try (Stream<Path> objects = Files.list(cacheDirectory.resolve("objects"))) {
+      Path object = objects.findFirst().get();
+      Files.write(object, "archive CONTENTS".getBytes(StandardCharsets.UTF_8));
+    }
+
+    Path destination = tmp.getRoot().toPath().resolve("archive.tar.gz");
+    Assert.assertFalse(cache.copyTo(source, destination));
+    Assert.assertFalse(Files.exists(destination));
+    Assert.assertEquals(0, countObjects());
+    // the entry is gone, not just skipped
+    Assert.assertFalse(cache.copyTo(source, destination));
+  }
+
+  @Test
+  public void testPut_evictsLeastRecentlyUsed() throws IOException {
+    ArchiveCache cache = new ArchiveCache(cacheDirectory, 25);
+    URL source1 = new URL("https://example.com/1.tar.gz");
+    URL source2 = new URL("https://example.com/2.tar.gz");
+    URL source3 = new URL("https://example.com/3.tar.gz");
+
+    cache.put(source1, newArchive("archive1", "0123456789"));
+    cache.put(source2, newArchive("archive2", "abcdefghij"));
+    // make sure archive 1 is older than archive 2, then use it so archive 2 is least recently used
+    try (Stream<Path> objects = Files.list(cacheDirectory.resolve("objects"))) {
+      objects.forEach(
+          object -> {
+            try {
+              Files.setLastModifiedTime(object, FileTime.fromMillis(0));
+            } catch (IOException ex) {
+              throw new RuntimeException(ex);
+            }
+          });
+    }
+    Assert.assertTrue(cache.copyTo(source1, tmp.getRoot().toPath().resolve("used")));
+
+    cache.put(source3, newArchive("archive3", "ABCDEFGHIJ"));
+
+    Assert.assertEquals(2, countObjects());
+    Path destination = tmp.getRoot().toPath().resolve("destination");
+    Assert.assertTrue(cache.copyTo(source1, destination));
+    Assert.assertFalse(cache.copyTo(source2, destination));
+    Assert.assertTrue(cache.copyTo(source3, destination));
+  }
+
+  @Test
+  public void testPut_deletesStaleTempFiles() throws IOException {
+    Path objects = Files.createDirectories(cacheDirectory.resolve("objects"));
+    Path index = Files.createDirectories(cacheDirectory.resolve("index"));
+    Path staleObject = Files.createFile(objects.resolve("archive1.tmp"));
+    Files.setLastModifiedTime(staleObject, FileTime.fromMillis(0));
+    Path staleIndex = Files.createFile(index.resolve("key1.tmp"));
+    Files.setLastModifiedTime(staleIndex, FileTime.fromMillis(0));
+    // may still be written by another process
+    Path freshObject = Files.createFile(objects.resolve("archive2.tmp"));
+
+    new ArchiveCache(cacheDirectory, 1000).put(source, newArchive("archive", "archive contents"));
+
+    Assert.assertFalse(Files.exists(staleObject));
+    Assert.assertFalse(Files.exists(staleIndex));
+    Assert.assertTrue(Files.exists(freshObject));
+  }
+
+  @Test
+  public void testPut_keepsArchiveLargerThanCache() throws IOException {
+    ArchiveCache cache = new ArchiveCache(cacheDirectory, 5);
+    cache.put(source, newArchive("archive", "archive contents"));
+
+    Assert.assertTrue(cache.copyTo(source, tmp.getRoot().toPath().resolve("destination")));
+  }
+}
@@ -17,8 +17,14 @@
 package com.google.cloud.tools.managedcloudsdk.install;
 
 import com.google.cloud.tools.managedcloudsdk.ProgressListener;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
 import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.URL;
 import java.net.URLConnection;
 import java.net.URLStreamHandler;
@@ -26,11 +32,16 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import org.junit.After;
 import org.junit.Assert;
 import org.junit.Rule;
 import org.junit.Test;
@@ -46,6 +57,87 @@ public class DownloaderTest {
   @Rule public TemporaryFolder tmp = new TemporaryFolder();
   @Mock private ProgressListener mockProgressListener;
 
+  private HttpServer server;
+  private final List<String> requestedRanges = new CopyOnWriteArrayList<>();
+  private final List<String> requestedIfRanges = new CopyOnWriteArrayList<>();
+  private static final String ETAG = "\"v1\"";
+  // serves everything from the start of a range to the end of the archive, like a broken proxy
+  private boolean ignoreRangeEnd;
+
+  @After
+  public void tearDown() {
+    if (server != null) {
+      server.stop(0);
+    }
+  }
+
+  /**
+   * Serves {@code content} with {@link #ETAG} on a local http server, honouring single range
+   * requests unless their If-Range doesn't match.
+   */
+  private URL serve(byte[] content, boolean acceptRanges) throws IOException {
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext(
+        "/archive",
+        exchange -> {
+          try {
+            handleRangeRequest(exchange, content, acceptRanges);
+          } finally {
+            exchange.close();
+          }
+        });
+    server.start();
+    return new URL("http://localhost:" + server.getAddress().getPort() + "/archive");
+  }
+
+  private void handleRangeRequest(HttpExchange exchange, byte[] content, boolean acceptRanges)
+      throws IOException {
+    if (acceptRanges) {
+      exchange.getResponseHeaders().add("Accept-Ranges", "bytes");
+    }
+    exchange.getResponseHeaders().add("ETag", ETAG);
+    String range = exchange.getRequestHeaders().getFirst("Range");
+    String ifRange = exchange.getRequestHeaders().getFirst("If-Range");
+    if (ifRange != null) {
+      requestedIfRanges.add(ifRange);
+    }
+    int first = 0;
+    int last = content.length - 1;
+    int status = 200;
+    if (acceptRanges && range != null && (ifRange == null || ifRange.equals(ETAG))) {
+      requestedRanges.add(range);
+      String[] bounds = range.substring("bytes=".length()).split("-", -1);
+      first = Integer.parseInt(bounds[0]);
+      if (!bounds[1].isEmpty() && !ignoreRangeEnd) {
+        last = Math.min(last, Integer.parseInt(bounds[1]));
+      }
+      if (first >= content.length) {
+        exchange.getResponseHeaders().add("Content-Range", "bytes */" + content.length);
+        exchange.sendResponseHeaders(416, -1);
+        return;
+      }
+      exchange
+          .getResponseHeaders()
+          .add("Content-Range", "bytes " + first + "-" + last + "/" + content.length);
+      status = 206;
+    }
+    if ("HEAD".equals(exchange.getRequestMethod())) {
+      exchange.getResponseHeaders().add("Content-Length", Integer.toString(content.length));
+      exchange.sendResponseHeaders(status, -1);
+      return;
+    }
+    exchange.sendResponseHeaders(status, last - first + 1);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(content, first, last - first + 1);
+    }
+  }
+
+  private static byte[] randomBytes(int size) {
+    byte[] bytes = new byte[size];
+    new Random(0).nextBytes(bytes);
+    return bytes;
+  }
+
   private Path createTestRemoteResource(long sizeInBytes) throws IOException {
 
     Path testFile = tmp.newFile().toPath();
@@ -102,6 +194,306 @@ public class DownloaderTest {
     ProgressVerifier.verifyProgress(mockProgressListener, "Downloading 0.08 MB");
   }
 
+  @Test
+  public void testDownload_streamToConsumer() throws IOException, InterruptedException {
+    Path destination = tmp.getRoot().toPath().resolve("destination-file");
+    long testFileSize = Downloader.BUFFER_SIZE * 10 + 1;
+    Path testSourceFile = createTestRemoteResource(testFileSize);
+    URL fakeRemoteResource = testSourceFile.toUri().toURL();
+
+    Downloader downloader =
+        new Downloader(fakeRemoteResource, destination, "Dummy User Agent", mockProgressListener);
+
+    ByteArrayOutputStream consumed = new ByteArrayOutputStream();
+    downloader.download(
+        in -> {
+          byte[] buffer = new byte[1000];
+          int bytesRead;
+          while ((bytesRead = in.read(buffer)) != -1) {
+            consumed.write(buffer, 0, bytesRead);
+          }
+        },
+        false);
+
+    Assert.assertFalse(Files.exists(destination));
+    Assert.assertArrayEquals(Files.readAllBytes(testSourceFile), consumed.toByteArray());
+    ProgressVerifier.verifyProgress(mockProgressListener, "Downloading 0.08 MB");
+  }
+
+  @Test
+  public void testDownload_streamToConsumerAndKeepArchive()
+      throws IOException, InterruptedException {
+    Path destination = tmp.getRoot().toPath().resolve("destination-file");
+    long testFileSize = Downloader.BUFFER_SIZE * 10 + 1;
+    Path testSourceFile = createTestRemoteResource(testFileSize);
+    URL fakeRemoteResource = testSourceFile.toUri().toURL();
+
+    Downloader downloader =
+        new Downloader(fakeRemoteResource, destination, "Dummy User Agent", mockProgressListener);
+
+    // only consume part of the stream, the rest must still end up in the saved archive
+    downloader.download(in -> Assert.assertEquals(100, in.read(new byte[100])), true);
+
+    Assert.assertArrayEquals(Files.readAllBytes(testSourceFile), Files.readAllBytes(destination));
+    ProgressVerifier.verifyProgress(mockProgressListener, "Downloading 0.08 MB");
+  }
+
+  @Test
+  public void testDownload_streamConsumerFailureTriggersCleanup()
+      throws IOException, InterruptedException {
+    Path destination = tmp.getRoot().toPath().resolve("destination-file");
+    Path testSourceFile = createTestRemoteResource(Downloader.BUFFER_SIZE * 10 + 1);
+    URL fakeRemoteResource = testSourceFile.toUri().toURL();
+
+    Downloader downloader =
+        new Downloader(fakeRemoteResource, destination, "Dummy User Agent", mockProgressListener);
+
+    try {
+      downloader.download(
+          in -> {
+            in.read(new byte[100]);
+            throw new IOException("consumer failed");
+          },
+          true);
+      Assert.fail("IOException expected but not thrown.");
+    } catch (IOException ex) {
+      Assert.assertEquals("consumer failed", ex.getMessage());
+    }
+    Assert.assertFalse(Files.exists(destination));
+  }
+
+  @Test
+  public void testDownload_resumable() throws IOException, InterruptedException {
+    Path destination = tmp.getRoot().toPath().resolve("destination-file");
+    byte[] content = randomBytes(Downloader.BUFFER_SIZE * 10 + 1);
+
+    Downloader downloader =
+        new Downloader(
+            serve(content, true), destination, "user agent", mockProgressListener, true, 1);
+
+    downloader.download();
+    Assert.assertArrayEquals(content, Files.readAllBytes(destination));
+    Assert.assertFalse(Files.exists(tmp.getRoot().toPath().resolve("destination-file.part")));
+    Assert.assertTrue(requestedRanges.isEmpty());
+    ProgressVerifier.verifyProgress(mockProgressListener, "Downloading 0.08 MB");
+  }
+
+  @Test
+  public void testDownload_resumesPartialDownload() throws IOException, InterruptedException {
+    Path destination = tmp.getRoot().toPath().resolve("destination-file");
+    Path partFile = tmp.getRoot().toPath().resolve("destination-file.part");
+    byte[] content = randomBytes(Downloader.BUFFER_SIZE * 10 + 1);
+    Files.write(partFile, Arrays.copyOf(content, 1000));
+    URL url = serve(content, true);
+
+    Downloader downloader =
+        new Downloader(url, destination, "user agent", mockProgressListener, true, 1);
+    new Downloader.PartManifest(url.toString(), ETAG, content.length, 0)
+        .write(downloader.getManifestFile());
+
+    downloader.download();
+    Assert.assertArrayEquals(content, Files.readAllBytes(destination));
+    Assert.assertFalse(Files.exists(partFile));
+    Assert.assertFalse(Files.exists(downloader.getManifestFile()));
+    Assert.assertEquals(Arrays.asList("bytes=1000-"), requestedRanges);
+    Assert.assertEquals(Arrays.asList(ETAG), requestedIfRanges);
+    ProgressVerifier.verifyProgress(mockProgressListener, "Downloading 0.08 MB");
+  }
+
+  @Test
+  public void testDownload_restartsWhenArchiveChanged() throws IOException, InterruptedException {
+    Path destination = tmp.getRoot().toPath().resolve("destination-file");
+    Path partFile = tmp.getRoot().toPath().resolve("destination-file.part");
+    byte[] content = randomBytes(Downloader.BUFFER_SIZE * 10 + 1);
+    Files.write(partFile, new byte[1000]);
+    URL url = serve(content, true);
+
+    Downloader downloader =
+        new Downloader(url, destination, "user agent", mockProgressListener, true, 1);
+    new Downloader.PartManifest(url.toString(), "\"v0\"", content.length, 0)
+        .write(downloader.getManifestFile());
+
+    downloader.download();
+    Assert.assertArrayEquals(content, Files.readAllBytes(destination));
+    Assert.assertEquals(Arrays.asList("\"v0\""), requestedIfRanges);
+    Assert.assertTrue(requestedRanges.isEmpty());
+  }
+
+  @Test
+  public void testDownload_discardsPartialDownloadWithoutManifest()
+      throws IOException, InterruptedException {
+    Path destination = tmp.getRoot().toPath().resolve("destination-file");
+    Path partFile = tmp.getRoot().toPath().resolve("destination-file.part");
+    byte[] content = randomBytes(Downloader.BUFFER_SIZE * 10 + 1);
+    Files.write(partFile, new byte[1000]);
+
+    Downloader downloader =
+        new Downloader(
+            serve(content, true), destination, "user agent", mockProgressListener, true, 1);
+
+    downloader.download();
+    Assert.assertArrayEquals(content, Files.readAllBytes(destination));
+    Assert.assertTrue(requestedRanges.isEmpty());
+  }
+
+  @Test
+  public void testDownload_restartsWhenRangesNotSupported()
+      throws IOException, InterruptedException {
+    Path destination = tmp.getRoot().toPath().resolve("destination-file");
+    Path partFile = tmp.getRoot().toPath().resolve("destination-file.part");
+    byte[] content = randomBytes(Downloader.BUFFER_SIZE * 10 + 1);
+    Files.write(partFile, new byte[1000]);
+
+    Downloader downloader =
+        new Downloader(
+            serve(content, false), destination, "user agent", mockProgressListener, true, 1);
+
+    downloader.download();
+    Assert.assertArrayEquals(content, Files.readAllBytes(destination));
+    Assert.assertFalse(Files.exists(partFile));
+  }
+
+  @Test
+  public void testDownload_partialDownloadAlreadyComplete()
+      throws IOException, InterruptedException {
+    Path destination = tmp.getRoot().toPath().resolve("destination-file");
+    Path partFile = tmp.getRoot().toPath().resolve("destination-file.part");
+    byte[] content = randomBytes(1000);
+    Files.write(partFile, content);
+    URL url = serve(content, true);
+
+    Downloader downloader =
+        new Downloader(url, destination, "user agent", mockProgressListener, true, 1);
+    new Downloader.PartManifest(url.toString(), ETAG, content.length, 0)
+        .write(downloader.getManifestFile());
+
+    downloader.download();
+    Assert.assertArrayEquals(content, Files.readAllBytes(destination));
+    Assert.assertFalse(Files.exists(partFile));
+    Assert.assertEquals(Arrays.asList("bytes=1000-"), requestedRanges);
+  }
+
+  @Test
+  public void testDownload_parallelSegments() throws IOException, InterruptedException {
+    Path destination = tmp.getRoot().toPath().resolve("destination-file");
+    byte[] content = randomBytes((int) Downloader.MIN_SEGMENT_SIZE * 3 + 5);
+    // a leftover partial first segment is resumed
+    Path firstSegment = tmp.getRoot().toPath().resolve("destination-file.part.0");
+    Files.write(firstSegment, Arrays.copyOf(content, 10));
+    URL url = serve(content, true);
+
+    Downloader downloader =
+        new Downloader(url, destination, "user agent", mockProgressListener, true, 3);
+    new Downloader.PartManifest(url.toString(), ETAG, content.length, (content.length + 2) / 3)
+        .write(downloader.getManifestFile());
+
+    downloader.download();
+    Assert.assertArrayEquals(content, Files.readAllBytes(destination));
+    Assert.assertEquals(3, requestedRanges.size());
+    Assert.assertTrue(requestedRanges.contains("bytes=10-1048577"));
+    Assert.assertTrue(requestedRanges.contains("bytes=1048578-2097155"));
+    Assert.assertTrue(requestedRanges.contains("bytes=2097156-3145732"));
+    Assert.assertEquals(Arrays.asList(ETAG, ETAG, ETAG), requestedIfRanges);
+    Assert.assertFalse(Files.exists(firstSegment));
+    Assert.assertFalse(Files.exists(tmp.getRoot().toPath().resolve("destination-file.part")));
+    Assert.assertFalse(Files.exists(downloader.getManifestFile()));
+    ProgressVerifier.verifyProgress(mockProgressListener, "Downloading 3.00 MB");
+  }
+
+  @Test
+  public void testDownload_parallelSegmentsDiscardsPartsOfOtherSegmentSize()
+      throws IOException, InterruptedException {
+    Path destination = tmp.getRoot().toPath().resolve("destination-file");
+    byte[] content = randomBytes((int) Downloader.MIN_SEGMENT_SIZE * 3 + 5);
+    // left over by an attempt with 2 connections
+    Path firstSegment = tmp.getRoot().toPath().resolve("destination-file.part.0");
+    Files.write(firstSegment, new byte[10]);
+    URL url = serve(content, true);
+
+    Downloader downloader =
+        new Downloader(url, destination, "user agent", mockProgressListener, true, 3);
+    new Downloader.PartManifest(url.toString(), ETAG, content.length, (content.length + 1) / 2)
+        .write(downloader.getManifestFile());
+
+    downloader.download();
+    Assert.assertArrayEquals(content, Files.readAllBytes(destination));
+    Assert.assertEquals(3, requestedRanges.size());
+    Assert.assertTrue(requestedRanges.contains("bytes=0-1048577"));
+  }
+
+  @Test
+  public void testDownload_parallelSegmentsChecksContentRange() throws IOException {
+    Path destination = tmp.getRoot().toPath().resolve("destination-file");
+    byte[] content = randomBytes((int) Downloader.MIN_SEGMENT_SIZE * 3 + 5);
+    ignoreRangeEnd = true;
+
+    Downloader downloader =
+        new Downloader(
+            serve(content, true), destination, "user agent", mockProgressListener, true, 3);
+
+    try {
+      downloader.download();
+      Assert.fail("IOException expected but not thrown.");
+    } catch (IOException | InterruptedException ex) {
+      Assert.assertTrue(ex.getMessage(), ex.getMessage().startsWith("Expected content range"));
+    }
+    Assert.assertFalse(Files.exists(destination));
+  }
+
+  @Test
+  public void testDownload_singleConnectionDiscardsSegments()
+      throws IOException, InterruptedException {
+    Path destination = tmp.getRoot().toPath().resolve("destination-file");
+    Path firstSegment = tmp.getRoot().toPath().resolve("destination-file.part.0");
+    Path secondSegment = tmp.getRoot().toPath().resolve("destination-file.part.1");
+    Files.write(firstSegment, new byte[10]);
+    Files.write(secondSegment, new byte[10]);
+    // too small to be split
+    byte[] content = randomBytes(1000);
+    URL url = serve(content, true);
+
+    Downloader downloader =
+        new Downloader(url, destination, "user agent", mockProgressListener, true, 3);
+    new Downloader.PartManifest(url.toString(), ETAG, 2 * Downloader.MIN_SEGMENT_SIZE, 10)
+        .write(downloader.getManifestFile());
+
+    downloader.download();
+    Assert.assertArrayEquals(content, Files.readAllBytes(destination));
+    Assert.assertFalse(Files.exists(firstSegment));
+    Assert.assertFalse(Files.exists(secondSegment));
+    Assert.assertFalse(Files.exists(downloader.getManifestFile()));
+  }
+
+  @Test
+  public void testDownload_resumableInterruptKeepsPartialDownload()
+      throws IOException, InterruptedException, ExecutionException {
+    Path destination = tmp.getRoot().toPath().resolve("destination-file");
+    Path testSourceFile = createTestRemoteResource(Downloader.BUFFER_SIZE * 10 + 1);
+    URL fakeRemoteResource = testSourceFile.toUri().toURL();
+
+    ExecutorService executorService = Executors.newSingleThreadExecutor();
+    Future<Void> testThreadToInterrupt =
+        executorService.submit(
+            () -> {
+              Downloader downloader =
+                  new Downloader(
+                      fakeRemoteResource, destination, "user agent", mockProgressListener, true, 1);
+              Thread.currentThread().interrupt();
+              try {
+                downloader.download();
+                Assert.fail("InterruptedException expected but not thrown.");
+              } catch (InterruptedException ex) {
+                Assert.assertEquals("Download was interrupted", ex.getMessage());
+              }
+              return null;
+            });
+    executorService.shutdown();
+    testThreadToInterrupt.get();
+
+    Assert.assertFalse(Files.exists(destination));
+    Assert.assertTrue(Files.exists(tmp.getRoot().toPath().resolve("destination-file.part")));
+  }
+
   @Test
   public void testGetDownloadStatus() {
     Assert.assertEquals("Downloading 0.08 MB", Downloader.getDownloadStatus(81921, Locale.ENGLISH));
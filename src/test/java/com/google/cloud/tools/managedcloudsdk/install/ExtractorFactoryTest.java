@@ -38,6 +38,26 @@ public class ExtractorFactoryTest {
     Assert.assertTrue(testExtractor.getExtractorProvider() instanceof ZipExtractorProvider);
   }
 
+  @Test
+  public void testNewExtractor_zipExtractionThreads()
+      throws IOException, UnknownArchiveTypeException {
+    Path archive = tmp.newFile("test-zip.zip").toPath();
+    Path dest = tmp.newFile("dest").toPath();
+    Extractor testExtractor = new ExtractorFactory().newExtractor(archive, dest, listener, 3);
+    Assert.assertEquals(
+        3, ((ZipExtractorProvider) testExtractor.getExtractorProvider()).getExtractionThreads());
+  }
+
+  @Test
+  public void testNewExtractor_zipExtractedSeriallyByDefault()
+      throws IOException, UnknownArchiveTypeException {
+    Path archive = tmp.newFile("test-zip.zip").toPath();
+    Path dest = tmp.newFile("dest").toPath();
+    Extractor testExtractor = new ExtractorFactory().newExtractor(archive, dest, listener);
+    Assert.assertEquals(
+        1, ((ZipExtractorProvider) testExtractor.getExtractorProvider()).getExtractionThreads());
+  }
+
   @Test
   public void testNewExtractor_isTarGz() throws IOException, UnknownArchiveTypeException {
     Path archive = tmp.newFile("test-tar-gz.tar.gz").toPath();
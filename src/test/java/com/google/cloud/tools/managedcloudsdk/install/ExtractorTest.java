@@ -17,7 +17,9 @@
 package com.google.cloud.tools.managedcloudsdk.install;
 
 import com.google.cloud.tools.managedcloudsdk.ProgressListener;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import org.junit.Assert;
@@ -35,6 +37,7 @@ public class ExtractorTest {
   @Rule public TemporaryFolder tmp = new TemporaryFolder();
   @Mock private ProgressListener mockProgressListener;
   @Mock private ExtractorProvider mockExtractorProvider;
+  @Mock private StreamingExtractorProvider mockStreamingExtractorProvider;
 
   @Test
   public void testExtract_success() throws Exception {
@@ -92,4 +95,42 @@ public class ExtractorTest {
     Mockito.verify(mockExtractorProvider)
         .extract(extractionSource, extractionDestination, mockProgressListener);
   }
+
+  @Test
+  public void testExtract_stream() throws Exception {
+    final Path extractionDestination = tmp.newFolder("target").toPath();
+    Path extractionSource = tmp.getRoot().toPath().resolve("fake.archive");
+    InputStream archiveStream = new ByteArrayInputStream(new byte[0]);
+
+    Extractor extractor =
+        new Extractor(
+            extractionSource,
+            extractionDestination,
+            mockStreamingExtractorProvider,
+            mockProgressListener);
+
+    Assert.assertTrue(extractor.isStreamable());
+    extractor.extract(archiveStream);
+
+    Mockito.verify(mockStreamingExtractorProvider)
+        .extract(extractionSource, archiveStream, extractionDestination, mockProgressListener);
+  }
+
+  @Test
+  public void testExtract_streamNotSupported() throws Exception {
+    Path extractionDestination = tmp.newFolder("target").toPath();
+    Path extractionSource = tmp.newFile("fake.archive").toPath();
+
+    Extractor extractor =
+        new Extractor(
+            extractionSource, extractionDestination, mockExtractorProvider, mockProgressListener);
+
+    Assert.assertFalse(extractor.isStreamable());
+    try {
+      extractor.extract(new ByteArrayInputStream(new byte[0]));
+      Assert.fail("UnsupportedOperationException expected but not thrown");
+    } catch (UnsupportedOperationException ex) {
+      Assert.assertEquals("Cannot stream archive: " + extractionSource, ex.getMessage());
+    }
+  }
 }
@@ -121,6 +121,7 @@ public class FileResourceProviderFactoryTest {
             .resolve("bin")
             .resolve(gcloudExecutable),
         provider.getExtractedGcloud());
+    Assert.assertFalse(provider.isArchiveCacheable());
   }
 
   @Test
@@ -151,5 +152,6 @@ public class FileResourceProviderFactoryTest {
             .resolve("bin")
             .resolve(gcloudExecutable),
         provider.getExtractedGcloud());
+    Assert.assertTrue(provider.isArchiveCacheable());
   }
 }
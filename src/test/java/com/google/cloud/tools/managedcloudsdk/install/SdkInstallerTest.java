@@ -20,12 +20,27 @@ import com.google.cloud.tools.managedcloudsdk.ConsoleListener;
 import com.google.cloud.tools.managedcloudsdk.ProgressListener;
 import com.google.cloud.tools.managedcloudsdk.command.CommandExecutionException;
 import com.google.cloud.tools.managedcloudsdk.command.CommandExitException;
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.hamcrest.CoreMatchers;
+import org.hamcrest.MatcherAssert;
 import org.junit.Assert;
+import org.junit.Assume;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -67,6 +82,8 @@ public class SdkInstallerTest {
   private Path fakeSdkHome;
   private String fakeGcloudExecutable;
   private Path fakeGcloud;
+  private String stagedGcloud;
+  private Path stagedExtractionDestination;
 
   @Before
   public void setUpMocksAndFakes()
@@ -87,6 +104,9 @@ public class SdkInstallerTest {
 
     fakeSdkHome = fakeFileResourceProvider.getExtractedSdkHome();
     fakeGcloud = fakeFileResourceProvider.getExtractedGcloud();
+    stagedGcloud = fakeArchiveExtractionDestination.relativize(fakeGcloud).toString();
+    // replaced by the staging directory passed to the extractor factories
+    stagedExtractionDestination = fakeArchiveExtractionDestination;
 
     Mockito.when(fileResourceProviderFactory.newFileResourceProvider())
         .thenReturn(fakeFileResourceProvider);
@@ -101,27 +121,53 @@ public class SdkInstallerTest {
         .when(successfulDownloader)
         .download();
 
+    // Installs happen in a staging directory, so create files relative to where extraction and
+    // installation actually happen.
     // A "LATEST" extractor will result in a cloud sdk home with no gcloud file until install
-    Mockito.doReturn(successfulLatestExtractor)
-        .when(successfulLatestExtractorFactory)
-        .newExtractor(fakeArchiveDestination, fakeArchiveExtractionDestination, progressListener);
     Mockito.doAnswer(
-            createPathAnswer(fakeArchiveExtractionDestination.resolve("google-cloud-sdk"), true))
+            invocation -> {
+              stagedExtractionDestination = invocation.getArgument(1);
+              return successfulLatestExtractor;
+            })
+        .when(successfulLatestExtractorFactory)
+        .newExtractor(
+            Mockito.eq(fakeArchiveDestination),
+            Mockito.any(Path.class),
+            Mockito.eq(progressListener),
+            Mockito.eq(1));
+    Mockito.doAnswer(createStagedPathAnswer("google-cloud-sdk", true))
         .when(successfulLatestExtractor)
         .extract();
 
     // A "versioned" extractor will result in a gcloud file
-    Mockito.doReturn(successfulVersionedExtractor)
+    Mockito.doAnswer(
+            invocation -> {
+              stagedExtractionDestination = invocation.getArgument(1);
+              return successfulVersionedExtractor;
+            })
         .when(successfulVersionedExtractorFactory)
-        .newExtractor(fakeArchiveDestination, fakeArchiveExtractionDestination, progressListener);
-    Mockito.doAnswer(createPathAnswer(fakeGcloud, false))
+        .newExtractor(
+            Mockito.eq(fakeArchiveDestination),
+            Mockito.any(Path.class),
+            Mockito.eq(progressListener),
+            Mockito.eq(1));
+    Mockito.doAnswer(createStagedPathAnswer(stagedGcloud, false))
         .when(successfulVersionedExtractor)
         .extract();
+    Mockito.doAnswer(createStagedPathAnswer(stagedGcloud, false))
+        .when(successfulVersionedExtractor)
+        .extract(Mockito.any(InputStream.class));
 
     Mockito.doReturn(successfulInstaller)
         .when(successfulInstallerFactory)
-        .newInstaller(fakeSdkHome, progressListener, consoleListener, Collections.emptyMap());
-    Mockito.doAnswer(createPathAnswer(fakeGcloud, false)).when(successfulInstaller).install();
+        .newInstaller(
+            Mockito.any(Path.class),
+            Mockito.eq(progressListener),
+            Mockito.eq(consoleListener),
+            Mockito.eq(Collections.emptyMap()));
+    Mockito.doAnswer(createStagedPathAnswer(stagedGcloud, false))
+        .when(successfulInstaller)
+        .install();
 
     // FAIL (NO-OP) MOCKS
     Mockito.doReturn(Mockito.mock(Downloader.class))
@@ -130,11 +176,26 @@ public class SdkInstallerTest {
 
     Mockito.doReturn(Mockito.mock(Extractor.class))
         .when(failureExtractorFactory)
-        .newExtractor(fakeArchiveDestination, fakeArchiveExtractionDestination, progressListener);
+        .newExtractor(
+            Mockito.eq(fakeArchiveDestination),
+            Mockito.any(Path.class),
+            Mockito.eq(progressListener),
+            Mockito.eq(1));
 
     Mockito.doReturn(Mockito.mock(Installer.class))
         .when(failureInstallerFactory)
-        .newInstaller(fakeSdkHome, progressListener, consoleListener, Collections.emptyMap());
+        .newInstaller(
+            Mockito.any(Path.class),
+            Mockito.eq(progressListener),
+            Mockito.eq(consoleListener),
+            Mockito.eq(Collections.emptyMap()));
+  }
+
+  /** Creates {@code relativePath} in the staging directory the sdk is being installed to. */
+  private Answer<Void> createStagedPathAnswer(String relativePath, boolean isDirectory) {
+    return invocation ->
+        createPathAnswer(stagedExtractionDestination.resolve(relativePath), isDirectory)
+            .answer(invocation);
   }
 
   private Answer<Void> createPathAnswer(Path pathToCreate, boolean isDirectory) {
@@ -186,6 +247,130 @@ public class SdkInstallerTest {
     Assert.assertEquals(fakeSdkHome, result);
   }
 
+  @Test
+  public void testDownloadSdk_streamingRun()
+      throws CommandExecutionException, InterruptedException, IOException, CommandExitException,
+          SdkInstallerException {
+    Mockito.when(successfulVersionedExtractor.isStreamable()).thenReturn(true);
+    Mockito.doAnswer(
+            invocation -> {
+              invocation
+                  .getArgument(0, Downloader.StreamConsumer.class)
+                  .consume(new ByteArrayInputStream(new byte[0]));
+              return null;
+            })
+        .when(successfulDownloader)
+        .download(Mockito.any(Downloader.StreamConsumer.class), Mockito.eq(false));
+
+    SdkInstaller testInstaller =
+        new SdkInstaller(
+                fileResourceProviderFactory,
+                successfulDownloaderFactory,
+                successfulVersionedExtractorFactory,
+                null)
+            .setStreamingInstall(true, false);
+    Path result = testInstaller.install(progressListener, consoleListener);
+
+    Assert.assertEquals(fakeSdkHome, result);
+    Mockito.verify(successfulDownloader, Mockito.never()).download();
+    Mockito.verify(successfulVersionedExtractor, Mockito.never()).extract();
+    Mockito.verify(successfulVersionedExtractor).extract(Mockito.any(InputStream.class));
+  }
+
+  @Test
+  public void testDownloadSdk_zipExtractionThreads()
+      throws CommandExecutionException, InterruptedException, IOException, CommandExitException,
+          SdkInstallerException, UnknownArchiveTypeException {
+    Mockito.doAnswer(
+            invocation -> {
+              stagedExtractionDestination = invocation.getArgument(1);
+              return successfulVersionedExtractor;
+            })
+        .when(successfulVersionedExtractorFactory)
+        .newExtractor(
+            Mockito.eq(fakeArchiveDestination),
+            Mockito.any(Path.class),
+            Mockito.eq(progressListener),
+            Mockito.eq(4));
+
+    SdkInstaller testInstaller =
+        new SdkInstaller(
+                fileResourceProviderFactory,
+                successfulDownloaderFactory,
+                successfulVersionedExtractorFactory,
+                null)
+            .setZipExtractionThreads(4);
+    Path result = testInstaller.install(progressListener, consoleListener);
+
+    Assert.assertEquals(fakeSdkHome, result);
+    Mockito.verify(successfulVersionedExtractorFactory)
+        .newExtractor(
+            Mockito.eq(fakeArchiveDestination),
+            Mockito.any(Path.class),
+            Mockito.eq(progressListener),
+            Mockito.eq(4));
+  }
+
+  @Test
+  public void testDownloadSdk_cachedArchive()
+      throws CommandExecutionException, InterruptedException, IOException, CommandExitException,
+          SdkInstallerException {
+    fakeFileResourceProvider =
+        new FileResourceProvider(
+            fakeArchiveSource,
+            fakeArchiveDestination,
+            fakeArchiveExtractionDestination,
+            fakeGcloudExecutable,
+            true);
+    Mockito.when(fileResourceProviderFactory.newFileResourceProvider())
+        .thenReturn(fakeFileResourceProvider);
+    ArchiveCache archiveCache = new ArchiveCache(testDir.newFolder("cache").toPath(), 1000);
+    Path cachedArchive = testDir.newFile("cached-archive").toPath();
+    archiveCache.put(fakeArchiveSource, cachedArchive);
+
+    SdkInstaller testInstaller =
+        new SdkInstaller(
+                fileResourceProviderFactory,
+                successfulDownloaderFactory,
+                successfulVersionedExtractorFactory,
+                null)
+            .setArchiveCache(archiveCache);
+    Path result = testInstaller.install(progressListener, consoleListener);
+
+    Assert.assertEquals(fakeSdkHome, result);
+    Assert.assertTrue(Files.isRegularFile(fakeArchiveDestination));
+    Mockito.verify(successfulDownloader, Mockito.never()).download();
+  }
+
+  @Test
+  public void testDownloadSdk_archiveAddedToCache()
+      throws CommandExecutionException, InterruptedException, IOException, CommandExitException,
+          SdkInstallerException {
+    fakeFileResourceProvider =
+        new FileResourceProvider(
+            fakeArchiveSource,
+            fakeArchiveDestination,
+            fakeArchiveExtractionDestination,
+            fakeGcloudExecutable,
+            true);
+    Mockito.when(fileResourceProviderFactory.newFileResourceProvider())
+        .thenReturn(fakeFileResourceProvider);
+    ArchiveCache archiveCache = new ArchiveCache(testDir.newFolder("cache").toPath(), 1000);
+
+    SdkInstaller testInstaller =
+        new SdkInstaller(
+                fileResourceProviderFactory,
+                successfulDownloaderFactory,
+                successfulVersionedExtractorFactory,
+                null)
+            .setArchiveCache(archiveCache);
+    testInstaller.install(progressListener, consoleListener);
+
+    Mockito.verify(successfulDownloader).download();
+    Assert.assertTrue(
+        archiveCache.copyTo(fakeArchiveSource, testDir.getRoot().toPath().resolve("copy")));
+  }
+
   @Test
   public void testDownloadSdk_failedDownload()
       throws InterruptedException, CommandExecutionException, CommandExitException, IOException {
@@ -220,9 +405,11 @@ public class SdkInstallerTest {
       testInstaller.install(progressListener, consoleListener);
       Assert.fail("SdKInstallerException expected but not thrown");
     } catch (SdkInstallerException ex) {
-      Assert.assertEquals(
-          "Extraction succeeded but valid sdk home not found at " + fakeSdkHome.toString(),
-          ex.getMessage());
+      // the sdk is installed in a staging directory first
+      MatcherAssert.assertThat(
+          ex.getMessage(),
+          CoreMatchers.startsWith("Extraction succeeded but valid sdk home not found at "));
+      Assert.assertFalse(Files.exists(fakeSdkHome));
     }
   }
 
@@ -240,9 +427,161 @@ public class SdkInstallerTest {
       testInstaller.install(progressListener, consoleListener);
       Assert.fail("SdKInstallerException expected but not thrown");
     } catch (SdkInstallerException ex) {
+      MatcherAssert.assertThat(
+          ex.getMessage(),
+          CoreMatchers.startsWith("Installation succeeded but gcloud executable not found at "));
+      Assert.assertFalse(Files.exists(fakeSdkHome));
+    }
+  }
+
+  @Test
+  public void testDownloadSdk_replacesStaleInstall()
+      throws CommandExecutionException, InterruptedException, IOException, CommandExitException,
+          SdkInstallerException {
+    Path staleFile = fakeSdkHome.resolve("stale-file");
+    Files.createDirectories(fakeSdkHome);
+    Files.createFile(staleFile);
+
+    SdkInstaller testInstaller =
+        new SdkInstaller(
+            fileResourceProviderFactory,
+            successfulDownloaderFactory,
+            successfulVersionedExtractorFactory,
+            null);
+    testInstaller.install(progressListener, consoleListener);
+
+    Assert.assertTrue(Files.isRegularFile(fakeGcloud));
+    Assert.assertFalse(Files.exists(staleFile));
+    // no staging or stale directories are left behind
+    try (Stream<Path> files = Files.list(fakeArchiveExtractionDestination.getParent())) {
       Assert.assertEquals(
-          "Installation succeeded but gcloud executable not found at " + fakeGcloud.toString(),
-          ex.getMessage());
+          Arrays.asList("test-downloads", "test-version", "test-version.lock"),
+          files.map(file -> file.getFileName().toString()).sorted().collect(Collectors.toList()));
+    }
+  }
+
+  @Test
+  public void testDownloadSdk_installedByAnotherProcessWhileWaiting() throws Exception {
+    SdkInstaller testInstaller =
+        new SdkInstaller(
+            fileResourceProviderFactory,
+            successfulDownloaderFactory,
+            successfulVersionedExtractorFactory,
+            null);
+
+    Future<Path> result;
+    ExecutorService executorService = Executors.newSingleThreadExecutor();
+    CrossProcessLock lock =
+        CrossProcessLock.acquire(
+            fakeArchiveExtractionDestination.resolveSibling("test-version.lock"));
+    try {
+      result =
+          executorService.submit(() -> testInstaller.install(progressListener, consoleListener));
+      // the install blocks on the lock while "another process" completes the install
+      Thread.sleep(200);
+      Assert.assertFalse(result.isDone());
+      Files.createDirectories(fakeGcloud.getParent());
+      Files.createFile(fakeGcloud);
+    } finally {
+      lock.close();
+    }
+    executorService.shutdown();
+
+    Assert.assertEquals(fakeSdkHome, result.get());
+    Mockito.verify(successfulDownloader, Mockito.never()).download();
+  }
+
+  @Test
+  public void testDownloadSdk_replacedByAnotherProcessWhileWaiting() throws Exception {
+    // an outdated install is present
+    Files.createDirectories(fakeGcloud.getParent());
+    Files.createFile(fakeGcloud);
+    SdkInstaller testInstaller =
+        new SdkInstaller(
+            fileResourceProviderFactory,
+            successfulDownloaderFactory,
+            successfulVersionedExtractorFactory,
+            null);
+
+    Future<Path> result;
+    ExecutorService executorService = Executors.newSingleThreadExecutor();
+    CrossProcessLock lock =
+        CrossProcessLock.acquire(
+            fakeArchiveExtractionDestination.resolveSibling("test-version.lock"));
+    try {
+      result =
+          executorService.submit(() -> testInstaller.install(progressListener, consoleListener));
+      Thread.sleep(200);
+      Assert.assertFalse(result.isDone());
+      // "another process" publishes a new install
+      Path newInstall = fakeArchiveExtractionDestination.resolveSibling("new-install");
+      Files.createDirectories(newInstall.resolve(stagedGcloud).getParent());
+      Files.createFile(newInstall.resolve(stagedGcloud));
+      MoreFiles.deleteRecursively(
+          fakeArchiveExtractionDestination, RecursiveDeleteOption.ALLOW_INSECURE);
+      Files.move(newInstall, fakeArchiveExtractionDestination);
+    } finally {
+      lock.close();
     }
+    executorService.shutdown();
+
+    Assert.assertEquals(fakeSdkHome, result.get());
+    Mockito.verify(successfulDownloader, Mockito.never()).download();
+  }
+
+  @Test
+  public void testDownloadSdk_existingInstallRepaired() throws Exception {
+    // a damaged install that was present before install() was called
+    Files.createDirectories(fakeGcloud.getParent());
+    Files.createFile(fakeGcloud);
+
+    SdkInstaller testInstaller =
+        new SdkInstaller(
+            fileResourceProviderFactory,
+            successfulDownloaderFactory,
+            successfulVersionedExtractorFactory,
+            null);
+
+    Assert.assertEquals(fakeSdkHome, testInstaller.install(progressListener, consoleListener));
+    Mockito.verify(successfulDownloader).download();
+  }
+
+  @Test
+  public void testDownloadSdk_deletesAbandonedStagingDirectories() throws Exception {
+    Path managedSdkRoot = fakeArchiveExtractionDestination.getParent();
+    Path staging = Files.createDirectories(managedSdkRoot.resolve(".test-version-staging-1"));
+    Files.createFile(staging.resolve("partial-file"));
+    Path stale = Files.createDirectories(managedSdkRoot.resolve(".test-version-staging-2-stale"));
+
+    SdkInstaller testInstaller =
+        new SdkInstaller(
+            fileResourceProviderFactory,
+            successfulDownloaderFactory,
+            successfulVersionedExtractorFactory,
+            null);
+    testInstaller.install(progressListener, consoleListener);
+
+    Assert.assertFalse(Files.exists(staging));
+    Assert.assertFalse(Files.exists(stale));
+  }
+
+  @Test
+  public void testDownloadSdk_installHasPermissionsOfManagedSdkDirectory() throws Exception {
+    Path managedSdkRoot = fakeArchiveExtractionDestination.getParent();
+    Assume.assumeTrue(
+        Files.getFileStore(managedSdkRoot).supportsFileAttributeView(PosixFileAttributeView.class));
+    Files.setPosixFilePermissions(managedSdkRoot, PosixFilePermissions.fromString("rwxr-x---"));
+
+    SdkInstaller testInstaller =
+        new SdkInstaller(
+            fileResourceProviderFactory,
+            successfulDownloaderFactory,
+            successfulVersionedExtractorFactory,
+            null);
+    testInstaller.install(progressListener, consoleListener);
+
+    Assert.assertEquals(
+        PosixFilePermissions.fromString("rwxr-x---"),
+        Files.getPosixFilePermissions(fakeArchiveExtractionDestination));
   }
 }
@@ -17,12 +17,15 @@
 package com.google.cloud.tools.managedcloudsdk.install;
 
 import com.google.cloud.tools.managedcloudsdk.ProgressListener;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URISyntaxException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.hamcrest.CoreMatchers;
 import org.hamcrest.MatcherAssert;
 import org.junit.Assert;
@@ -59,6 +62,31 @@ public class TarGzExtractorProviderTest {
         mockProgressListener, "Extracting archive: " + testArchive.getFileName());
   }
 
+  @Test
+  public void testCall_fromStream() throws URISyntaxException, IOException {
+    Path extractionRoot = tmp.getRoot().toPath();
+    Path testArchive = getResource("genericArchives/test.tar.gz");
+
+    AtomicBoolean closed = new AtomicBoolean(false);
+    try (InputStream archiveStream =
+        new FilterInputStream(Files.newInputStream(testArchive)) {
+          @Override
+          public void close() throws IOException {
+            closed.set(true);
+            super.close();
+          }
+        }) {
+      tarGzExtractorProvider.extract(
+          testArchive, archiveStream, extractionRoot, mockProgressListener);
+      // the caller owns the stream
+      Assert.assertFalse(closed.get());
+    }
+
+    GenericArchivesVerifier.assertArchiveExtraction(extractionRoot);
+    ProgressVerifier.verifyUnknownProgress(
+        mockProgressListener, "Extracting archive: " + testArchive.getFileName());
+  }
+
   @Test
   public void testZipSlipVulnerability_windows() throws URISyntaxException {
     Assume.assumeTrue(System.getProperty("os.name").startsWith("Windows"));
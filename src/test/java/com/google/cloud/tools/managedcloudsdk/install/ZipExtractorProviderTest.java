@@ -59,6 +59,39 @@ public class ZipExtractorProviderTest {
         mockProgressListener, "Extracting archive: " + testArchive.getFileName());
   }
 
+  @Test
+  public void testCall_parallel() throws URISyntaxException, IOException {
+    Path extractionRoot = tmp.getRoot().toPath();
+    Path testArchive = getResource("genericArchives/test.zip");
+
+    new ZipExtractorProvider(4).extract(testArchive, extractionRoot, mockProgressListener);
+
+    GenericArchivesVerifier.assertArchiveExtraction(extractionRoot);
+    // only check file permissions on non-windows
+    if (!System.getProperty("os.name").toLowerCase(Locale.ENGLISH).contains("windows")) {
+      GenericArchivesVerifier.assertFilePermissions(extractionRoot);
+    }
+
+    ProgressVerifier.verifyUnknownProgress(
+        mockProgressListener, "Extracting archive: " + testArchive.getFileName());
+  }
+
+  @Test
+  public void testZipSlipVulnerability_parallel() throws URISyntaxException {
+    Assume.assumeTrue(!System.getProperty("os.name").startsWith("Windows"));
+
+    Path extractionRoot = tmp.getRoot().toPath();
+    Path testArchive = getResource("zipSlipSamples/zip-slip.zip");
+    try {
+      new ZipExtractorProvider(4).extract(testArchive, extractionRoot, mockProgressListener);
+      Assert.fail("IOException expected");
+    } catch (IOException expected) {
+      MatcherAssert.assertThat(
+          expected.getMessage(),
+          CoreMatchers.startsWith("Blocked unzipping files outside destination: "));
+    }
+  }
+
   @Test
   public void testZipSlipVulnerability_windows() throws URISyntaxException {
     Assume.assumeTrue(System.getProperty("os.name").startsWith("Windows"));
@@ -18,15 +18,23 @@ package com.google.cloud.tools.project;
 
 import com.google.cloud.tools.appengine.AppEngineException;
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
 import java.util.Map;
 import org.junit.Assert;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 /** Tests for AppYaml parsing */
 public class AppYamlTest {
 
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
   // https://github.com/GoogleCloudPlatform/appengine-plugins-core/issues/405
   @Test
   public void testEmptyAppYaml() throws AppEngineException {
@@ -212,6 +220,51 @@ public class AppYamlTest {
     Assert.assertNull(AppYaml.parse(appYaml).getEnvironmentVariables());
   }
 
+  @Test
+  public void testParseFile_cachedUntilChanged() throws AppEngineException, IOException {
+    Path file = temporaryFolder.newFile("app.yaml").toPath();
+    Files.write(file, "runtime: java11\n".getBytes(StandardCharsets.UTF_8));
+    FileTime lastModified = Files.getLastModifiedTime(file);
+
+    AppYaml first = AppYaml.parse(file);
+    Assert.assertEquals("java11", first.getRuntime());
+    Assert.assertSame(first, AppYaml.parse(file));
+
+    // same size and modification time, so the change is not detected
+    Files.write(file, "runtime: java17\n".getBytes(StandardCharsets.UTF_8));
+    Files.setLastModifiedTime(file, lastModified);
+    Assert.assertSame(first, AppYaml.parse(file));
+
+    Files.write(file, "runtime: java17\nenv: flex\n".getBytes(StandardCharsets.UTF_8));
+    Files.setLastModifiedTime(file, lastModified);
+    AppYaml changed = AppYaml.parse(file);
+    Assert.assertEquals("java17", changed.getRuntime());
+    Assert.assertEquals("flex", changed.getEnvironmentType());
+  }
+
+  @Test
+  public void testParseFile_malformedNotCached() throws IOException {
+    Path file = temporaryFolder.newFile("app.yaml").toPath();
+    Files.write(file, ": m a l f o r m e d !".getBytes(StandardCharsets.UTF_8));
+
+    for (int i = 0; i < 2; i++) {
+      try {
+        AppYaml.parse(file);
+        Assert.fail();
+      } catch (AppEngineException ex) {
+        Assert.assertEquals("Malformed 'app.yaml'.", ex.getMessage());
+      }
+    }
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testGetEnvironmentVariables_unmodifiable() throws AppEngineException {
+    InputStream appYaml = asStream("env_variables:\n  key1: value1\n");
+    Map<String, ?> environment = AppYaml.parse(appYaml).getEnvironmentVariables();
+    Assert.assertNotNull(environment);
+    environment.remove("key1");
+  }
+
   private InputStream asStream(String contents) {
     return new ByteArrayInputStream(contents.getBytes(StandardCharsets.UTF_8));
   }